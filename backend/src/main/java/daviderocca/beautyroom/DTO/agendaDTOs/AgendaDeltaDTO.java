@@ -0,0 +1,25 @@
+package daviderocca.beautyroom.DTO.agendaDTOs;
+
+import daviderocca.beautyroom.DTO.bookingDTOs.AdminBookingCardDTO;
+import daviderocca.beautyroom.DTO.closureDTOs.ClosureResponseDTO;
+import daviderocca.beautyroom.personalappointments.PersonalAppointmentDTO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Incremental agenda refresh. Returned by GET /admin/agenda/changes?since=TOKEN&from=&to=
+ *
+ * {@code fullReload=true}: the token could not be served (first call, server restart, too
+ * old) — reload the whole range as usual and keep {@code version} for the next poll.
+ * Otherwise: drop everything the calendar holds on {@code changedDays} and insert the rows
+ * below (bookings and personal appointments of those days, closures touching them).
+ */
+public record AgendaDeltaDTO(
+        String version,
+        boolean fullReload,
+        List<LocalDate> changedDays,
+        List<AdminBookingCardDTO> bookings,
+        List<PersonalAppointmentDTO> personalAppointments,
+        List<ClosureResponseDTO> closures
+) {}
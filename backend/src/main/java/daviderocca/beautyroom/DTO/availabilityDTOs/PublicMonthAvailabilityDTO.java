@@ -0,0 +1,18 @@
+package daviderocca.beautyroom.DTO.availabilityDTOs;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Risposta pubblica per il calendario di un mese.
+ * Usata da GET /api/public/availability/month.
+ *
+ * {@code days} contiene SOLO i giorni del mese dentro la finestra prenotabile
+ * [oggi, oggi + maxAdvanceDays], in ordine crescente: i giorni passati o troppo
+ * lontani non compaiono (il frontend li mostra disabilitati).
+ */
+public record PublicMonthAvailabilityDTO(
+        YearMonth month,
+        int durationMinutes,
+        List<PublicMonthDayDTO> days
+) {}
@@ -0,0 +1,18 @@
+package daviderocca.beautyroom.DTO.availabilityDTOs;
+
+import daviderocca.beautyroom.enums.CalendarDayStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Un giorno del calendario mensile pubblico.
+ * {@code firstSlotStart}/{@code firstSlotEnd} ("HH:mm") sono valorizzati solo se
+ * {@code status == AVAILABLE}: stesso slot che restituirebbe /api/public/slots/next-combined
+ * partendo da quel giorno.
+ */
+public record PublicMonthDayDTO(
+        LocalDate date,
+        CalendarDayStatus status,
+        String firstSlotStart,
+        String firstSlotEnd
+) {}
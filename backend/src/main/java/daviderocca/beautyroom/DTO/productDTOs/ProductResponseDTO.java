@@ -1,7 +1,10 @@
 package daviderocca.beautyroom.DTO.productDTOs;
 
+import daviderocca.beautyroom.media.ImageVariantDTO;
+
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public record ProductResponseDTO(
@@ -11,6 +14,7 @@ public record ProductResponseDTO(
         String shortDescription,
         String description,
         List<String> images,
+        Map<String, List<ImageVariantDTO>> imageVariants, // original URL → narrower JPEGs, narrowest first
         int stock,
         UUID categoryId,
         boolean active,
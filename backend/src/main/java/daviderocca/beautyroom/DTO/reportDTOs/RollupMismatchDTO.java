@@ -0,0 +1,18 @@
+package daviderocca.beautyroom.DTO.reportDTOs;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One (day, leg, channel) cell where the daily rollup disagrees with the raw tables.
+ * Missing cells on either side are reported with amount 0 / entries 0.
+ */
+public record RollupMismatchDTO(
+        LocalDate day,
+        String leg,
+        String channel,
+        BigDecimal rollupAmount,
+        int rollupEntries,
+        BigDecimal rawAmount,
+        int rawEntries
+) {}
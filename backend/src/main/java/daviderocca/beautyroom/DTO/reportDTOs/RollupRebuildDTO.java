@@ -0,0 +1,10 @@
+package daviderocca.beautyroom.DTO.reportDTOs;
+
+import java.time.LocalDate;
+
+/** Result of a rollup rebuild: the closed days actually recomputed (to is capped at yesterday). */
+public record RollupRebuildDTO(
+        LocalDate from,
+        LocalDate to,
+        int days
+) {}
@@ -1,7 +1,10 @@
 package daviderocca.beautyroom.DTO.resultDTOs;
 
+import daviderocca.beautyroom.media.ImageVariantDTO;
+
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public record ResultResponseDTO(
@@ -9,6 +12,7 @@ public record ResultResponseDTO(
         String title,
         String description,
         List<String> images,
+        Map<String, List<ImageVariantDTO>> imageVariants, // original URL → narrower JPEGs, narrowest first
         UUID categoryId,
         boolean active,
         UUID linkedServiceId,
@@ -1,7 +1,10 @@
 package daviderocca.beautyroom.DTO.serviceItemDTOs;
 
+import daviderocca.beautyroom.media.ImageVariantDTO;
+
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public record ServiceItemResponseDTO(
@@ -12,6 +15,7 @@ public record ServiceItemResponseDTO(
         String shortDescription,
         String description,
         List<String> images,
+        Map<String, List<ImageVariantDTO>> imageVariants, // original URL → narrower JPEGs, narrowest first
         UUID categoryId,
         String categoryKey,
         boolean active,
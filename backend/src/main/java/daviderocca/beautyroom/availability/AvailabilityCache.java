@@ -0,0 +1,90 @@
+package daviderocca.beautyroom.availability;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import daviderocca.beautyroom.DTO.availabilityDTOs.AvailabilityResponseDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the public per-day availability responses (single-service and combined slots),
+ * keyed by DAY: each day holds the responses computed for it, keyed by request
+ * ({@code serviceId} or combined duration). A write that touches a day drops that day's
+ * whole entry, so a cached response is never older than the last committed change to it.
+ *
+ * Invalidation (AFTER COMMIT, like {@link DayOccupancyIndex}):
+ *  - {@link AvailabilityChangedEvent}: bookings, closures, personal appointments → those days;
+ *  - {@link WorkingHoursChangedEvent}: every cached date on that weekday;
+ *  - {@link ServiceAvailabilityChangedEvent}: that service's grids ({@link ServiceKey}) on every day.
+ * The TTL is only a safety net for changes that publish nothing.
+ *
+ * Today is never cached: its slots depend on the clock ("adesso + 30 min").
+ * A response computed while an invalidation runs lands in the detached day map and is
+ * simply dropped, so a stale load can never be re-published to later readers.
+ */
+@Component
+@Slf4j
+public class AvailabilityCache {
+
+    private static final ZoneId BUSINESS_ZONE = ZoneId.of("Europe/Rome");
+
+    /** Request keys that belong to one service, dropped when that service changes. */
+    public interface ServiceKey {
+        UUID serviceId();
+    }
+
+    /** Limite per giorno: la durata combinata è un parametro libero, non deve gonfiare la cache. */
+    private static final int MAX_ENTRIES_PER_DAY = 256;
+
+    private final Cache<LocalDate, ConcurrentMap<Object, AvailabilityResponseDTO>> days = Caffeine.newBuilder()
+            .maximumSize(400)
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .build();
+
+    /**
+     * Cached response for ({@code day}, {@code key}), computed with {@code loader} on a miss.
+     * Exceptions from the loader propagate and are never cached.
+     */
+    public AvailabilityResponseDTO get(LocalDate day, Object key, Supplier<AvailabilityResponseDTO> loader) {
+        if (day == null || !day.isAfter(LocalDate.now(BUSINESS_ZONE))) return loader.get();
+
+        ConcurrentMap<Object, AvailabilityResponseDTO> entries = days.get(day, d -> new ConcurrentHashMap<>());
+        AvailabilityResponseDTO cached = entries.get(key);
+        if (cached != null) return cached;
+
+        AvailabilityResponseDTO fresh = loader.get();
+        if (entries.size() < MAX_ENTRIES_PER_DAY) entries.putIfAbsent(key, fresh);
+        return fresh;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAvailabilityChanged(AvailabilityChangedEvent event) {
+        for (LocalDate d = event.from(); !d.isAfter(event.to()); d = d.plusDays(1)) {
+            days.invalidate(d);
+        }
+        log.debug("Availability cache invalidated [{} → {}]", event.from(), event.to());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onWorkingHoursChanged(WorkingHoursChangedEvent event) {
+        days.asMap().keySet().removeIf(d -> d.getDayOfWeek() == event.dayOfWeek());
+        log.debug("Availability cache invalidated for every {}", event.dayOfWeek());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onServiceChanged(ServiceAvailabilityChangedEvent event) {
+        days.asMap().values().forEach(entries -> entries.keySet()
+                .removeIf(k -> k instanceof ServiceKey sk && event.serviceId().equals(sk.serviceId())));
+        log.debug("Availability cache invalidated for service {}", event.serviceId());
+    }
+}
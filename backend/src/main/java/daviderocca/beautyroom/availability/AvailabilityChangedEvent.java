@@ -0,0 +1,47 @@
+package daviderocca.beautyroom.availability;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Published by the write paths (BookingService, ClosureService, PersonalAppointmentService)
+ * whenever something that occupies salon time is created, moved, cancelled or deleted.
+ * Carries the inclusive day range whose occupancy may have changed; listeners react
+ * AFTER COMMIT so they never observe (or cache) uncommitted state.
+ *
+ * Deliberately coarse (days, not minutes): the consumers recompute a whole day from
+ * the database, which keeps the patch logic identical to a cold load.
+ */
+public record AvailabilityChangedEvent(LocalDate from, LocalDate to) {
+
+    public AvailabilityChangedEvent {
+        if (from == null || to == null) throw new IllegalArgumentException("from/to obbligatori");
+        if (to.isBefore(from)) {
+            LocalDate tmp = from;
+            from = to;
+            to = tmp;
+        }
+    }
+
+    public static AvailabilityChangedEvent forDay(LocalDate day) {
+        return new AvailabilityChangedEvent(day, day);
+    }
+
+    /**
+     * Days touched by the half-open span [start, endExclusive). An end landing exactly on
+     * midnight does not touch the following day.
+     */
+    public static AvailabilityChangedEvent forSpan(LocalDateTime start, LocalDateTime endExclusive) {
+        LocalDate first = start.toLocalDate();
+        LocalDate last = (endExclusive == null) ? first : endExclusive.toLocalDate();
+        if (endExclusive != null && endExclusive.toLocalTime().equals(LocalTime.MIDNIGHT) && last.isAfter(first)) {
+            last = last.minusDays(1);
+        }
+        return new AvailabilityChangedEvent(first, last.isBefore(first) ? first : last);
+    }
+
+    public boolean covers(LocalDate day) {
+        return day != null && !day.isBefore(from) && !day.isAfter(to);
+    }
+}
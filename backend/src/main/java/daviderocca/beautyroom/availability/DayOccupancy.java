@@ -0,0 +1,22 @@
+package daviderocca.beautyroom.availability;
+
+/**
+ * Immutable occupancy snapshot of one calendar day, in minute-of-day ints
+ * (0..1440, half-open). Both arrays are {@link IntervalAlgebra}-normalized flat pairs
+ * {@code [s0, e0, s1, e1, ...]}: sorted, overlapping/adjacent intervals already merged.
+ *
+ * <ul>
+ *   <li>{@code closedAllDay} — a full-day closure covers the day (nothing is bookable);</li>
+ *   <li>{@code closures}     — partial closures: they SHRINK the open ranges (the slot grid
+ *       restarts after them), so they are kept apart from {@code blocked};</li>
+ *   <li>{@code blocked}      — blocking bookings (with admin padding) + personal appointments:
+ *       slots overlapping them are generated but flagged unavailable.</li>
+ * </ul>
+ *
+ * Working hours are NOT part of the snapshot: they are per weekday, 7 rows, and are read
+ * per request so a working-hours edit never has to touch the index.
+ */
+public record DayOccupancy(boolean closedAllDay, int[] closures, int[] blocked) {
+
+    public static final DayOccupancy EMPTY = new DayOccupancy(false, new int[0], new int[0]);
+}
@@ -0,0 +1,249 @@
+package daviderocca.beautyroom.availability;
+
+import daviderocca.beautyroom.entities.Booking;
+import daviderocca.beautyroom.entities.Closure;
+import daviderocca.beautyroom.enums.BookingStatus;
+import daviderocca.beautyroom.personalappointments.PersonalAppointment;
+import daviderocca.beautyroom.personalappointments.PersonalAppointmentRepository;
+import daviderocca.beautyroom.repositories.BookingRepository;
+import daviderocca.beautyroom.repositories.ClosureRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory occupancy index for the bookable window, used by the public next-slot finders
+ * so a 150-day forward scan is an in-memory walk instead of ~4 queries per day.
+ *
+ * Lifecycle:
+ *  - full rebuild of [today, today + max-advance-days] on startup and nightly (drops past days
+ *    and heals anything a write path forgot to signal);
+ *  - incremental patch on {@link AvailabilityChangedEvent}, AFTER COMMIT: the touched days are
+ *    evicted and reloaded from the database with the same range queries as a cold load;
+ *  - days outside the prebuilt window (a finder started from a far fromDate, a past date) are
+ *    loaded on demand and NOT cached: only [today, today + max-advance-days] is kept, so
+ *    requests for arbitrary dates cannot grow the map.
+ *
+ * Consistency: a load that raced with an invalidation (it may have read pre-commit rows) is
+ * returned to its caller but NOT cached — guarded by {@link #epoch}. The DB overlap checks in
+ * BookingService stay the final guard; the index only decides what the finders propose.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class DayOccupancyIndex {
+
+    private static final ZoneId BUSINESS_ZONE = ZoneId.of("Europe/Rome");
+
+    /** Same blocking set as AvailabilityService: a PENDING_PAYMENT hold reserves its slot. */
+    private static final List<BookingStatus> BLOCKING_STATUSES =
+            List.of(BookingStatus.PENDING_PAYMENT, BookingStatus.CONFIRMED, BookingStatus.COMPLETED);
+
+    private final BookingRepository bookingRepository;
+    private final ClosureRepository closureRepository;
+    private final PersonalAppointmentRepository personalAppointmentRepository;
+
+    @Value("${app.booking.max-advance-days:150}")
+    private int maxAdvanceDays;
+
+    private final ConcurrentHashMap<LocalDate, DayOccupancy> days = new ConcurrentHashMap<>();
+
+    /** Bumped on every invalidation; guarded by {@code this}. */
+    private long epoch;
+
+    // ==========================================================================
+    // READ
+    // ==========================================================================
+
+    /** Occupancy of {@code day}; loads it on a miss (cached only inside the window). Never null. */
+    @Transactional(readOnly = true)
+    public DayOccupancy get(LocalDate day) {
+        DayOccupancy cached = days.get(day);
+        if (cached != null) return cached;
+        return loadAndCache(day, day).getOrDefault(day, DayOccupancy.EMPTY);
+    }
+
+    /**
+     * Occupancy of every day in [from, to]. Served from memory when all days are indexed,
+     * otherwise the whole span is loaded with ONE set of range queries (not day by day).
+     */
+    @Transactional(readOnly = true)
+    public Map<LocalDate, DayOccupancy> getRange(LocalDate from, LocalDate to) {
+        Map<LocalDate, DayOccupancy> out = new HashMap<>();
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+            DayOccupancy cached = days.get(d);
+            if (cached == null) return loadAndCache(from, to);
+            out.put(d, cached);
+        }
+        return out;
+    }
+
+    // ==========================================================================
+    // MAINTENANCE
+    // ==========================================================================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Scheduled(cron = "0 15 3 * * *", zone = "Europe/Rome")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        LocalDate today = LocalDate.now(BUSINESS_ZONE);
+        LocalDate horizon = today.plusDays(maxAdvanceDays);
+        days.keySet().removeIf(d -> d.isBefore(today) || d.isAfter(horizon));
+        long started = System.nanoTime();
+        Map<LocalDate, DayOccupancy> loaded = loadAndCache(today, horizon);
+        log.info("Occupancy index rebuilt: {} days [{} → {}] in {} ms",
+                loaded.size(), today, horizon, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // Ordered first: snapshots derived from the index (MonthAvailabilitySnapshot) evict after us,
+    // so their next recompute reads the patched days.
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onAvailabilityChanged(AvailabilityChangedEvent event) {
+        synchronized (this) {
+            epoch++;
+            days.keySet().removeIf(event::covers);
+        }
+        LocalDate today = LocalDate.now(BUSINESS_ZONE);
+        if (event.to().isBefore(today)) return; // past days are never queried by the finders
+        LocalDate from = event.from().isBefore(today) ? today : event.from();
+        loadAndCache(from, event.to());
+        log.debug("Occupancy index patched [{} → {}]", from, event.to());
+    }
+
+    // ==========================================================================
+    // LOADING
+    // ==========================================================================
+
+    private Map<LocalDate, DayOccupancy> loadAndCache(LocalDate from, LocalDate to) {
+        long seen;
+        synchronized (this) {
+            seen = epoch;
+        }
+        Map<LocalDate, DayOccupancy> loaded = load(from, to);
+        LocalDate today = LocalDate.now(BUSINESS_ZONE);
+        LocalDate horizon = today.plusDays(maxAdvanceDays);
+        synchronized (this) {
+            if (epoch == seen) {
+                loaded.forEach((d, occupancy) -> {
+                    if (!d.isBefore(today) && !d.isAfter(horizon)) days.put(d, occupancy);
+                });
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Builds the occupancy of every day in [from, to] from three range queries. Mirrors the
+     * per-day semantics of AvailabilityService exactly: bookings are bucketed on their RAW
+     * interval and then extended by paddingMinutes and clipped to the day; closure times apply
+     * to every day a multi-day closure spans.
+     */
+    Map<LocalDate, DayOccupancy> load(LocalDate from, LocalDate to) {
+        int span = (int) ChronoUnit.DAYS.between(from, to) + 1;
+        if (span <= 0) return Map.of();
+        DayBuilder[] builders = new DayBuilder[span];
+        for (int i = 0; i < span; i++) builders[i] = new DayBuilder();
+
+        for (Closure c : closureRepository.findByDateRange(from, to.plusDays(1))) {
+            if (c.getStartDate() == null || c.getEndDate() == null) continue;
+            boolean timed = c.getStartTime() != null && c.getEndTime() != null
+                    && c.getStartTime().isBefore(c.getEndTime());
+            LocalDate first = c.getStartDate().isBefore(from) ? from : c.getStartDate();
+            LocalDate last  = c.getEndDate().isAfter(to) ? to : c.getEndDate();
+            for (LocalDate d = first; !d.isAfter(last); d = d.plusDays(1)) {
+                DayBuilder b = builders[(int) ChronoUnit.DAYS.between(from, d)];
+                if (c.isFullDay()) {
+                    b.closedAllDay = true;
+                } else if (timed) {
+                    b.addClosure(IntervalAlgebra.toMinute(c.getStartTime()), IntervalAlgebra.toMinute(c.getEndTime()));
+                }
+            }
+        }
+
+        List<Booking> bookings = bookingRepository.findBookingsByStatusesIntersectingRange(
+                from.atStartOfDay(), to.plusDays(1).atStartOfDay(), BLOCKING_STATUSES);
+        for (Booking bk : bookings) {
+            LocalDateTime start = bk.getStartTime();
+            LocalDateTime end = bk.getEndTime();
+            if (start == null || end == null) continue;
+            int padding = (bk.getPaddingMinutes() != null && bk.getPaddingMinutes() > 0) ? bk.getPaddingMinutes() : 0;
+            LocalDateTime effectiveEnd = end.plusMinutes(padding);
+            LocalDate first = start.toLocalDate().isBefore(from) ? from : start.toLocalDate();
+            for (LocalDate d = first; !d.isAfter(to) && d.atStartOfDay().isBefore(end); d = d.plusDays(1)) {
+                LocalDateTime dayStart = d.atStartOfDay();
+                LocalDateTime dayEnd = dayStart.plusDays(1);
+                int s = start.isAfter(dayStart) ? IntervalAlgebra.toMinute(start.toLocalTime()) : 0;
+                int e = effectiveEnd.isBefore(dayEnd)
+                        ? IntervalAlgebra.toMinute(effectiveEnd.toLocalTime())
+                        : IntervalAlgebra.MINUTES_PER_DAY;
+                if (s < e) builders[(int) ChronoUnit.DAYS.between(from, d)].addBlocked(s, e);
+            }
+        }
+
+        for (PersonalAppointment pa : personalAppointmentRepository
+                .findByAppointmentDateBetweenOrderByAppointmentDateAscStartTimeAsc(from, to)) {
+            if (pa.getAppointmentDate() == null || pa.getStartTime() == null || pa.getDurationMinutes() <= 0) continue;
+            int s = IntervalAlgebra.toMinute(pa.getStartTime());
+            int e = Math.min(s + pa.getDurationMinutes(), IntervalAlgebra.MINUTES_PER_DAY);
+            builders[(int) ChronoUnit.DAYS.between(from, pa.getAppointmentDate())].addBlocked(s, e);
+        }
+
+        Map<LocalDate, DayOccupancy> out = new HashMap<>(span * 2);
+        for (int i = 0; i < span; i++) out.put(from.plusDays(i), builders[i].build());
+        return out;
+    }
+
+    /** Per-day accumulator of raw minute pairs; normalized once in {@link #build()}. */
+    private static final class DayBuilder {
+        boolean closedAllDay;
+        int[] closures = new int[4];
+        int closureLen;
+        int[] blocked = new int[16];
+        int blockedLen;
+
+        void addClosure(int s, int e) {
+            if (closureLen + 2 > closures.length) closures = Arrays.copyOf(closures, closures.length * 2);
+            closures[closureLen++] = s;
+            closures[closureLen++] = e;
+        }
+
+        void addBlocked(int s, int e) {
+            if (blockedLen + 2 > blocked.length) blocked = Arrays.copyOf(blocked, blocked.length * 2);
+            blocked[blockedLen++] = s;
+            blocked[blockedLen++] = e;
+        }
+
+        DayOccupancy build() {
+            if (!closedAllDay && closureLen == 0 && blockedLen == 0) return DayOccupancy.EMPTY;
+            return new DayOccupancy(closedAllDay,
+                    Arrays.copyOf(closures, IntervalAlgebra.normalize(closures, closureLen)),
+                    Arrays.copyOf(blocked, IntervalAlgebra.normalize(blocked, blockedLen)));
+        }
+    }
+}
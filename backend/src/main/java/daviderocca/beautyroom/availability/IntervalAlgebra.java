@@ -0,0 +1,220 @@
+package daviderocca.beautyroom.availability;
+
+import java.time.LocalTime;
+
+/**
+ * Algebra degli intervalli su minuti-del-giorno (int 0..1440, half-open), condivisa dal
+ * finder admin ({@code BookingService.findNextAvailableSlot}) e dai finder pubblici
+ * ({@code AvailabilityService}).
+ *
+ * Formato: array piatti di coppie {@code [s0, e0, s1, e1, ...]} + lunghezza logica (numero di
+ * int usati, sempre pari). Un insieme è "normalizzato" quando le coppie sono ordinate per
+ * inizio, non vuote e senza sovrapposizioni/adiacenze. Le operazioni scrivono in buffer del
+ * chiamante e NON allocano: un giorno ha poche decine di intervalli, quindi l'ordinamento è
+ * un insertion sort in place.
+ */
+public final class IntervalAlgebra {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    /** Etichette "HH:mm" precalcolate per 0..1440 (1440 → "00:00"): zero formattazioni per slot. */
+    private static final String[] HHMM_LABELS = new String[MINUTES_PER_DAY + 1];
+
+    static {
+        for (int m = 0; m <= MINUTES_PER_DAY; m++) {
+            HHMM_LABELS[m] = String.format("%02d:%02d", (m / 60) % 24, m % 60);
+        }
+    }
+
+    /** Riceve ogni candidato della griglia emesso da {@link #sweepSlots}. */
+    @FunctionalInterface
+    public interface SlotConsumer {
+        void accept(int start, int end, boolean free);
+    }
+
+    private IntervalAlgebra() {}
+
+    // ==========================================================================
+    // CONVERSIONI
+    // ==========================================================================
+
+    public static int toMinute(LocalTime t) {
+        return t.getHour() * 60 + t.getMinute();
+    }
+
+    /** Primo minuto intero NON precedente a {@code t} (10:15:30 → 10:16). */
+    public static int toMinuteCeil(LocalTime t) {
+        int m = toMinute(t);
+        return (t.getSecond() > 0 || t.getNano() > 0) ? m + 1 : m;
+    }
+
+    /** 1440 (fine giornata) diventa 00:00, come {@code LocalTime.plusMinutes} su mezzanotte. */
+    public static LocalTime toTime(int minute) {
+        return LocalTime.of((minute / 60) % 24, minute % 60);
+    }
+
+    /** Stesso formato di {@code LocalTime.format("HH:mm")}, senza allocare. */
+    public static String toHHmm(int minute) {
+        return HHMM_LABELS[minute];
+    }
+
+    // ==========================================================================
+    // NORMALIZZAZIONE / DIFFERENZA
+    // ==========================================================================
+
+    /**
+     * Ordina e fonde in place le coppie grezze {@code pairs[0..length)} (coppie vuote scartate,
+     * sovrapposte o adiacenti fuse). Ritorna la nuova lunghezza logica.
+     */
+    public static int normalize(int[] pairs, int length) {
+        int n = 0;
+        for (int i = 0; i + 1 < length; i += 2) {
+            int s = pairs[i];
+            int e = pairs[i + 1];
+            if (s >= e) continue;
+            // insertion sort per (inizio, fine) sulle n coppie già compattate
+            int j = n;
+            while (j > 0 && (pairs[2 * j - 2] > s || (pairs[2 * j - 2] == s && pairs[2 * j - 1] > e))) {
+                pairs[2 * j] = pairs[2 * j - 2];
+                pairs[2 * j + 1] = pairs[2 * j - 1];
+                j--;
+            }
+            pairs[2 * j] = s;
+            pairs[2 * j + 1] = e;
+            n++;
+        }
+        if (n == 0) return 0;
+        int w = 0;
+        int curS = pairs[0];
+        int curE = pairs[1];
+        for (int i = 1; i < n; i++) {
+            int s = pairs[2 * i];
+            int e = pairs[2 * i + 1];
+            if (s <= curE) {
+                if (e > curE) curE = e;
+            } else {
+                pairs[w++] = curS;
+                pairs[w++] = curE;
+                curS = s;
+                curE = e;
+            }
+        }
+        pairs[w++] = curS;
+        pairs[w++] = curE;
+        return w;
+    }
+
+    /**
+     * {@code a \ b} con entrambi normalizzati; il risultato (normalizzato) va in {@code out},
+     * che deve avere capacità {@code aLen + bLen}. Ritorna la lunghezza logica.
+     */
+    public static int subtract(int[] a, int aLen, int[] b, int bLen, int[] out) {
+        int w = 0;
+        int j = 0;
+        for (int i = 0; i < aLen; i += 2) {
+            int s = a[i];
+            int e = a[i + 1];
+            while (j < bLen && b[j + 1] <= s) j += 2;
+            int k = j;
+            while (k < bLen && b[k] < e) {
+                if (b[k] > s) {
+                    out[w++] = s;
+                    out[w++] = b[k];
+                }
+                if (b[k + 1] > s) s = b[k + 1];
+                if (s >= e) break;
+                k += 2;
+            }
+            if (s < e) {
+                out[w++] = s;
+                out[w++] = e;
+            }
+        }
+        return w;
+    }
+
+    // ==========================================================================
+    // RICERCA
+    // ==========================================================================
+
+    /** True se [s, e) interseca almeno un intervallo dell'insieme normalizzato (ricerca binaria). */
+    public static boolean overlapsAny(int[] set, int len, int s, int e) {
+        int i = firstEndingAfter(set, len, s, 0);
+        return i < len && set[i] < e;
+    }
+
+    /**
+     * Primo inizio su griglia che ospita un blocco di {@code duration} minuti dentro un range
+     * di {@code open} senza toccare {@code blocked} (entrambi normalizzati), oppure -1.
+     *
+     * La griglia è ancorata all'inizio di ogni range ({@code rangeStart + k * step}); i candidati
+     * validi sono in [minStart, maxStartExclusive). Con {@code step == 1} è la classica ricerca
+     * del primo gap libero. Un conflitto fa saltare il cursore direttamente al primo punto di
+     * griglia dopo la fine dell'intervallo bloccante, invece di provare ogni step.
+     */
+    public static int firstFit(int[] open, int openLen, int[] blocked, int blockedLen,
+                               int duration, int step, int minStart, int maxStartExclusive) {
+        if (duration <= 0 || step <= 0) return -1;
+        int j = 0;
+        for (int i = 0; i < openLen; i += 2) {
+            int rangeStart = open[i];
+            int rangeEnd = open[i + 1];
+            int s = alignUp(rangeStart, step, Math.max(minStart, rangeStart));
+            while (s < maxStartExclusive && s + duration <= rangeEnd) {
+                j = firstEndingAfter(blocked, blockedLen, s, j);
+                if (j >= blockedLen || blocked[j] >= s + duration) return s;
+                s = alignUp(rangeStart, step, blocked[j + 1]);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Sweep-line della griglia slot: per ogni range di {@code open} emette ogni inizio
+     * {@code rangeStart + k * step} (>= minStart) il cui blocco di {@code duration} minuti sta
+     * nel range, con {@code free=false} se interseca {@code blocked}. Entrambi normalizzati: i
+     * candidati sono crescenti, quindi un solo puntatore avanza su {@code blocked} e il costo è
+     * O(slot + blocchi) invece di O(slot × blocchi). Ritorna il numero di slot emessi.
+     */
+    public static int sweepSlots(int[] open, int openLen, int[] blocked, int blockedLen,
+                                 int duration, int step, int minStart, SlotConsumer sink) {
+        if (duration <= 0 || step <= 0) return 0;
+        int emitted = 0;
+        int j = 0;
+        for (int i = 0; i < openLen; i += 2) {
+            int rangeStart = open[i];
+            int rangeEnd = open[i + 1];
+            for (int s = alignUp(rangeStart, step, Math.max(minStart, rangeStart)); s + duration <= rangeEnd; s += step) {
+                int e = s + duration;
+                while (j < blockedLen && blocked[j + 1] <= s) j += 2;
+                sink.accept(s, e, j >= blockedLen || blocked[j] >= e);
+                emitted++;
+            }
+        }
+        return emitted;
+    }
+
+    /** Fine del tratto libero che parte da {@code at}: il prossimo inizio bloccato, al massimo {@code limit}. */
+    public static int freeUntil(int[] blocked, int blockedLen, int at, int limit) {
+        int i = firstEndingAfter(blocked, blockedLen, at, 0);
+        return (i < blockedLen && blocked[i] < limit) ? Math.max(blocked[i], at) : limit;
+    }
+
+    /** Indice (pari) della prima coppia con fine > {@code minute}, partendo da {@code fromIdx}. */
+    private static int firstEndingAfter(int[] set, int len, int minute, int fromIdx) {
+        int lo = fromIdx / 2;
+        int hi = len / 2;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (set[2 * mid + 1] <= minute) lo = mid + 1;
+            else hi = mid;
+        }
+        return 2 * lo;
+    }
+
+    /** Primo punto {@code anchor + k * step} (k >= 0) non precedente a {@code atLeast}. */
+    private static int alignUp(int anchor, int step, int atLeast) {
+        if (atLeast <= anchor) return anchor;
+        return anchor + ((atLeast - anchor + step - 1) / step) * step;
+    }
+}
@@ -0,0 +1,113 @@
+package daviderocca.beautyroom.availability;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import daviderocca.beautyroom.DTO.availabilityDTOs.PublicMonthDayDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+
+/**
+ * Snapshot of the public month calendar, keyed by (month, duration): one
+ * {@link PublicMonthDayDTO} per day, computed from {@link DayOccupancyIndex}.
+ *
+ * Refreshed incrementally, never rebuilt wholesale:
+ *  - {@link AvailabilityChangedEvent} (AFTER COMMIT) drops only the touched days from every
+ *    cached month; they are recomputed on the next read, in one pass over the missing span;
+ *  - {@link WorkingHoursChangedEvent} drops every cached day on that weekday.
+ * The index listener is ordered first, so a recompute after our eviction already sees the
+ * patched occupancy. A day computed while an eviction ran is returned but not stored
+ * (same {@link #epoch} guard as the index).
+ *
+ * Today is never stored: its status and first slot depend on the clock.
+ */
+@Component
+@Slf4j
+public class MonthAvailabilitySnapshot {
+
+    private static final ZoneId BUSINESS_ZONE = ZoneId.of("Europe/Rome");
+
+    private final Cache<MonthKey, ConcurrentMap<LocalDate, PublicMonthDayDTO>> months = Caffeine.newBuilder()
+            .maximumSize(128)
+            .expireAfterAccess(Duration.ofMinutes(30))
+            .build();
+
+    /** Bumped on every eviction; guarded by {@code this}. */
+    private long epoch;
+
+    /**
+     * Days [from, to] of the (month, duration) calendar, in order. Days not in the snapshot are
+     * computed by {@code loader} over the smallest span covering all of them.
+     */
+    public List<PublicMonthDayDTO> get(YearMonth month, int durationMinutes, LocalDate from, LocalDate to,
+                                       BiFunction<LocalDate, LocalDate, Map<LocalDate, PublicMonthDayDTO>> loader) {
+        LocalDate today = LocalDate.now(BUSINESS_ZONE);
+        ConcurrentMap<LocalDate, PublicMonthDayDTO> snapshot =
+                months.get(new MonthKey(month, durationMinutes), k -> new ConcurrentHashMap<>());
+
+        LocalDate firstMissing = null;
+        LocalDate lastMissing = null;
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+            if (d.isAfter(today) && snapshot.containsKey(d)) continue;
+            if (firstMissing == null) firstMissing = d;
+            lastMissing = d;
+        }
+
+        Map<LocalDate, PublicMonthDayDTO> fresh = Map.of();
+        if (firstMissing != null) {
+            long seen;
+            synchronized (this) {
+                seen = epoch;
+            }
+            fresh = loader.apply(firstMissing, lastMissing);
+            synchronized (this) {
+                if (epoch == seen) {
+                    fresh.forEach((d, day) -> {
+                        if (d.isAfter(today)) snapshot.put(d, day);
+                    });
+                }
+            }
+        }
+
+        List<PublicMonthDayDTO> days = new ArrayList<>();
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+            PublicMonthDayDTO day = fresh.get(d);
+            if (day == null) day = snapshot.get(d);
+            if (day == null) day = loader.apply(d, d).get(d); // evicted between the scan and here
+            if (day != null) days.add(day);
+        }
+        return days;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAvailabilityChanged(AvailabilityChangedEvent event) {
+        synchronized (this) {
+            epoch++;
+            months.asMap().values().forEach(days -> days.keySet().removeIf(event::covers));
+        }
+        log.debug("Month snapshot patched [{} → {}]", event.from(), event.to());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onWorkingHoursChanged(WorkingHoursChangedEvent event) {
+        synchronized (this) {
+            epoch++;
+            months.asMap().values().forEach(days -> days.keySet().removeIf(d -> d.getDayOfWeek() == event.dayOfWeek()));
+        }
+        log.debug("Month snapshot patched for every {}", event.dayOfWeek());
+    }
+
+    private record MonthKey(YearMonth month, int durationMinutes) {}
+}
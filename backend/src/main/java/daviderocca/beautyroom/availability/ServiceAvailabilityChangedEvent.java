@@ -0,0 +1,10 @@
+package daviderocca.beautyroom.availability;
+
+import java.util.UUID;
+
+/**
+ * Published by ServiceItemService when a service's duration or active flag may have changed
+ * (update, toggle): its cached slot grids are stale on every date. Consumed AFTER COMMIT.
+ */
+public record ServiceAvailabilityChangedEvent(UUID serviceId) {
+}
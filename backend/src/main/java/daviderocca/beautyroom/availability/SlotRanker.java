@@ -0,0 +1,105 @@
+package daviderocca.beautyroom.availability;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Top-N "best slot" ranking over in-memory occupancy ({@link DayOccupancy} + {@link IntervalAlgebra}).
+ *
+ * Every grid start that fits a free gap is scored by what it leaves behind in that gap
+ * (lower = better):
+ *  - a side flush against a booking/appointment (padding included)   → {@value #FLUSH_BOOKING}
+ *  - a side flush against the opening / closing / a partial closure   → 0
+ *  - a remnant still long enough for a short treatment ({@value #MIN_USEFUL_GAP}')
+ *                                                                      → {@value #USABLE_REMNANT}
+ *  - a shorter remnant: dead idle time that fragments the agenda      → {@value #DEAD_REMNANT_BASE} + 2 × length
+ * Ties go to the earlier day, then the earlier start.
+ *
+ * Only the N best candidates are retained (bounded max-heap), so ranking a 150-day window is
+ * O(candidates × log N) with no per-candidate allocation beyond the retained ones.
+ */
+public final class SlotRanker {
+
+    /** Gap più corto del trattamento più breve a listino: resterebbe inutilizzabile. */
+    static final int MIN_USEFUL_GAP = 30;
+    static final int FLUSH_BOOKING = -2;
+    static final int USABLE_REMNANT = 5;
+    static final int DEAD_REMNANT_BASE = 30;
+
+    public record Candidate(LocalDate day, int start, int end, int score) {}
+
+    private static final Comparator<Candidate> BEST_FIRST = Comparator
+            .comparingInt(Candidate::score)
+            .thenComparing(Candidate::day)
+            .thenComparingInt(Candidate::start);
+
+    private final int limit;
+    private final PriorityQueue<Candidate> kept; // worst on top
+
+    public SlotRanker(int limit) {
+        this.limit = limit;
+        this.kept = new PriorityQueue<>(limit + 1, BEST_FIRST.reversed());
+    }
+
+    /**
+     * Offers every candidate of one day. {@code open} are the day's open ranges (hours minus
+     * partial closures), {@code blocked} its bookings + appointments, both normalized; starts
+     * sit on a {@code step} grid anchored at each range start, in [minStart, maxStartExclusive).
+     * Days must be offered in ascending order (equal scores keep the earliest candidate).
+     */
+    public void offerDay(LocalDate day, int[] open, int openLen, int[] blocked, int blockedLen,
+                         int duration, int step, int minStart, int maxStartExclusive) {
+        if (duration <= 0 || step <= 0) return;
+        int[] range = new int[2];
+        int[] gaps = new int[2 + blockedLen];
+        for (int i = 0; i < openLen; i += 2) {
+            int rangeStart = open[i];
+            int rangeEnd = open[i + 1];
+            range[0] = rangeStart;
+            range[1] = rangeEnd;
+            int gapLen = IntervalAlgebra.subtract(range, 2, blocked, blockedLen, gaps);
+            for (int g = 0; g < gapLen; g += 2) {
+                int gapStart = gaps[g];
+                int gapEnd = gaps[g + 1];
+                int s = alignUp(rangeStart, step, Math.max(minStart, gapStart));
+                for (; s < maxStartExclusive && s + duration <= gapEnd; s += step) {
+                    int score = side(s - gapStart, gapStart > rangeStart)
+                            + side(gapEnd - (s + duration), gapEnd < rangeEnd);
+                    offer(day, s, s + duration, score);
+                }
+            }
+        }
+    }
+
+    /** Retained candidates, best first. */
+    public List<Candidate> best() {
+        List<Candidate> out = new ArrayList<>(kept);
+        out.sort(BEST_FIRST);
+        return out;
+    }
+
+    private void offer(LocalDate day, int start, int end, int score) {
+        if (kept.size() == limit) {
+            Candidate worst = kept.peek();
+            // Fast reject without allocating: later days/starts never beat an equal score.
+            if (worst != null && score >= worst.score()) return;
+        }
+        kept.add(new Candidate(day, start, end, score));
+        if (kept.size() > limit) kept.poll();
+    }
+
+    /** Cost of the idle remnant left on one side of a candidate. */
+    static int side(int remnant, boolean againstBooking) {
+        if (remnant == 0) return againstBooking ? FLUSH_BOOKING : 0;
+        if (remnant >= MIN_USEFUL_GAP) return USABLE_REMNANT;
+        return DEAD_REMNANT_BASE + 2 * remnant;
+    }
+
+    private static int alignUp(int anchor, int step, int atLeast) {
+        if (atLeast <= anchor) return anchor;
+        return anchor + ((atLeast - anchor + step - 1) / step) * step;
+    }
+}
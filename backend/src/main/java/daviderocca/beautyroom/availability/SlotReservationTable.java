@@ -0,0 +1,137 @@
+package daviderocca.beautyroom.availability;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-process reservation table for booking creation: a racer claims its [start, end) minutes
+ * with a compare-and-set before its SERIALIZABLE transaction opens (see
+ * {@link daviderocca.beautyroom.booking.ConflictRetryExecutor}), and a loser is turned away
+ * without borrowing a pool connection for the write — only the read-only lookup that sizes the
+ * slot ran. A flash-promo stampede on the same slot costs one DB write path plus cheap
+ * rejections, not a pile of serialization failures.
+ *
+ * Per day, the claims are an immutable sorted array of minute pairs behind an
+ * {@link AtomicReference}: claim/release build a copy and CAS it in, retrying on contention
+ * (no locks, readers never block). Claims are NOT merged: adjacent claims stay distinct so each
+ * owner releases exactly its own pair.
+ *
+ * A claim lives until the write call returns, retries included, and is released after commit
+ * or rollback. Once committed, the booking row itself blocks the slot. This is a pre-filter, single-instance only: the pessimistic lock + overlap check in
+ * BookingService stays the final guard, and padding/closures are still checked there.
+ */
+@Component
+public class SlotReservationTable {
+
+    private static final ZoneId BUSINESS_ZONE = ZoneId.of("Europe/Rome");
+    private static final int[] NONE = new int[0];
+
+    private final ConcurrentHashMap<LocalDate, AtomicReference<int[]>> days = new ConcurrentHashMap<>();
+
+    /**
+     * Atomically claims every day segment of [start, end); all-or-nothing. False if an in-flight
+     * write holds an overlapping claim. The caller releases exactly this range.
+     */
+    public boolean claim(LocalDateTime start, LocalDateTime end) {
+        LocalDate day = start.toLocalDate();
+        LocalDateTime cursor = start;
+        while (cursor.isBefore(end)) {
+            int s = IntervalAlgebra.toMinute(cursor.toLocalTime());
+            int e = segmentEnd(day, end);
+            if (!claim(day, s, e)) {
+                releaseUntil(start, day); // roll back the segments already claimed
+                return false;
+            }
+            day = day.plusDays(1);
+            cursor = day.atStartOfDay();
+        }
+        return true;
+    }
+
+    public void release(LocalDateTime start, LocalDateTime end) {
+        releaseUntil(start, end.toLocalDate().plusDays(1), end);
+    }
+
+    boolean claim(LocalDate day, int s, int e) {
+        if (s >= e) return true;
+        AtomicReference<int[]> ref = days.computeIfAbsent(day, d -> new AtomicReference<>(NONE));
+        while (true) {
+            int[] current = ref.get();
+            if (IntervalAlgebra.overlapsAny(current, current.length, s, e)) return false;
+            if (ref.compareAndSet(current, insert(current, s, e))) return true;
+        }
+    }
+
+    void release(LocalDate day, int s, int e) {
+        AtomicReference<int[]> ref = days.get(day);
+        if (ref == null || s >= e) return;
+        while (true) {
+            int[] current = ref.get();
+            int[] next = remove(current, s, e);
+            if (next == current || ref.compareAndSet(current, next)) return;
+        }
+    }
+
+    /** Drops past days; their (empty) slots can no longer be claimed. */
+    @Scheduled(cron = "0 20 3 * * *", zone = "Europe/Rome")
+    public void purgePastDays() {
+        LocalDate today = LocalDate.now(BUSINESS_ZONE);
+        days.keySet().removeIf(d -> d.isBefore(today));
+    }
+
+    // ==========================================================================
+    // HELPERS
+    // ==========================================================================
+
+    private void releaseUntil(LocalDateTime start, LocalDate stopDay) {
+        releaseUntil(start, stopDay, stopDay.atStartOfDay());
+    }
+
+    /** Releases the segments of [start, end) on the days before {@code stopDay}. */
+    private void releaseUntil(LocalDateTime start, LocalDate stopDay, LocalDateTime end) {
+        LocalDate day = start.toLocalDate();
+        LocalDateTime cursor = start;
+        while (day.isBefore(stopDay) && cursor.isBefore(end)) {
+            release(day, IntervalAlgebra.toMinute(cursor.toLocalTime()), segmentEnd(day, end));
+            day = day.plusDays(1);
+            cursor = day.atStartOfDay();
+        }
+    }
+
+    private static int segmentEnd(LocalDate day, LocalDateTime end) {
+        return end.toLocalDate().equals(day)
+                ? IntervalAlgebra.toMinuteCeil(end.toLocalTime())
+                : IntervalAlgebra.MINUTES_PER_DAY;
+    }
+
+    private static int[] insert(int[] pairs, int s, int e) {
+        int at = 0;
+        while (at < pairs.length && pairs[at] < s) at += 2;
+        int[] out = new int[pairs.length + 2];
+        System.arraycopy(pairs, 0, out, 0, at);
+        out[at] = s;
+        out[at + 1] = e;
+        System.arraycopy(pairs, at, out, at + 2, pairs.length - at);
+        return out;
+    }
+
+    /** Copy without the exact pair (s, e); the same array if it is not there. */
+    private static int[] remove(int[] pairs, int s, int e) {
+        for (int i = 0; i < pairs.length; i += 2) {
+            if (pairs[i] == s && pairs[i + 1] == e) {
+                if (pairs.length == 2) return NONE;
+                int[] out = Arrays.copyOf(pairs, pairs.length - 2);
+                System.arraycopy(pairs, i + 2, out, i, pairs.length - i - 2);
+                return out;
+            }
+        }
+        return pairs;
+    }
+}
@@ -0,0 +1,223 @@
+package daviderocca.beautyroom.availability;
+
+import daviderocca.beautyroom.DTO.availabilityDTOs.AvailabilitySlotDTO;
+import daviderocca.beautyroom.entities.Booking;
+import daviderocca.beautyroom.entities.Closure;
+import daviderocca.beautyroom.entities.WorkingHours;
+import daviderocca.beautyroom.enums.BookingStatus;
+import daviderocca.beautyroom.personalappointments.PersonalAppointment;
+import daviderocca.beautyroom.personalappointments.PersonalAppointmentRepository;
+import daviderocca.beautyroom.repositories.BookingRepository;
+import daviderocca.beautyroom.staff.StaffWorkingHours;
+import daviderocca.beautyroom.staff.StaffWorkingHoursRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Staff-aware slot grid for one day (multi-staff prompt 06): every operator's free intervals
+ * are computed independently — own weekly hours, own bookings and personal appointments,
+ * salon-wide closures plus their own absences — and merged into "any operator" slots.
+ *
+ * Bookings and personal appointments with no operator (created before multi-staff, or by the
+ * salon-wide create paths) are read once per day and block every operator.
+ *
+ * Legs run on at most {@code app.availability.staff-parallelism} virtual threads: each leg is
+ * three small indexed reads (staff_working_hours, bookings by staff_id, personal_appointments
+ * by staff_id) plus an in-memory sweep, and each read borrows a pool connection, so the bound
+ * keeps one request from draining the Hikari pool however many operators there are.
+ *
+ * Merge rule: a start is offered if at least one operator has it on their grid, and it is
+ * {@code available} if at least one of those operators is free for the whole block.
+ */
+@Component
+@Slf4j
+public class StaffAvailabilityEngine {
+
+    /** Same blocking set as AvailabilityService / DayOccupancyIndex. */
+    private static final List<BookingStatus> BLOCKING_STATUSES =
+            List.of(BookingStatus.PENDING_PAYMENT, BookingStatus.CONFIRMED, BookingStatus.COMPLETED);
+
+    // Stato per minuto di inizio nella griglia fusa (max tra operatori: FREE vince su BUSY).
+    private static final byte NONE = 0;
+    private static final byte BUSY = 1;
+    private static final byte FREE = 2;
+
+    private final StaffWorkingHoursRepository staffWorkingHoursRepository;
+    private final BookingRepository bookingRepository;
+    private final PersonalAppointmentRepository personalAppointmentRepository;
+
+    private final ExecutorService operators;
+
+    public StaffAvailabilityEngine(StaffWorkingHoursRepository staffWorkingHoursRepository,
+                                   BookingRepository bookingRepository,
+                                   PersonalAppointmentRepository personalAppointmentRepository,
+                                   @Value("${app.availability.staff-parallelism:3}") int parallelism) {
+        this.staffWorkingHoursRepository = staffWorkingHoursRepository;
+        this.bookingRepository = bookingRepository;
+        this.personalAppointmentRepository = personalAppointmentRepository;
+        this.operators = Executors.newFixedThreadPool(Math.max(1, parallelism),
+                Thread.ofVirtual().name("staff-availability-", 0).factory());
+    }
+
+    /**
+     * "Any operator" slots of {@code date} for {@code staffIds}, on a grid of {@code stepMin}
+     * anchored at each operator's range starts, starts >= {@code minStart}.
+     *
+     * @param salonHours  legacy salon hours for the weekday, used for an operator with no
+     *                    staff_working_hours row for it (may be null)
+     * @param dayClosures closures overlapping {@code date}: staffMember NULL = salon-wide,
+     *                    otherwise that operator's absence
+     */
+    public List<AvailabilitySlotDTO> anyOperatorSlots(LocalDate date, List<UUID> staffIds, WorkingHours salonHours,
+                                                      List<Closure> dayClosures, int durationMin, int stepMin,
+                                                      int minStart) {
+        LocalDateTime dayStart = date.atStartOfDay();
+        int[] shared = busyIntervals(dayStart,
+                bookingRepository.findUnassignedBookingsByStatusesIntersectingRange(
+                        dayStart, dayStart.plusDays(1), BLOCKING_STATUSES),
+                personalAppointmentRepository.findByAppointmentDateAndStaffMemberIsNullOrderByStartTime(date));
+
+        List<Future<byte[]>> legs = new ArrayList<>(staffIds.size());
+        for (UUID staffId : staffIds) {
+            Callable<byte[]> leg = () -> operatorGrid(staffId, date, salonHours, dayClosures, shared,
+                    durationMin, stepMin, minStart);
+            legs.add(operators.submit(leg));
+        }
+
+        byte[] merged = new byte[IntervalAlgebra.MINUTES_PER_DAY + 1];
+        for (Future<byte[]> leg : legs) {
+            byte[] grid = join(leg);
+            for (int m = 0; m < merged.length; m++) {
+                if (grid[m] > merged[m]) merged[m] = grid[m];
+            }
+        }
+
+        List<AvailabilitySlotDTO> slots = new ArrayList<>();
+        for (int m = 0; m + durationMin <= IntervalAlgebra.MINUTES_PER_DAY; m++) {
+            if (merged[m] == NONE) continue;
+            slots.add(new AvailabilitySlotDTO(
+                    IntervalAlgebra.toHHmm(m), IntervalAlgebra.toHHmm(m + durationMin), merged[m] == FREE));
+        }
+        return slots;
+    }
+
+    /**
+     * Grid of one operator: BUSY/FREE at every candidate start minute, NONE elsewhere.
+     * {@code shared}: normalized busy pairs of the day that block every operator.
+     */
+    byte[] operatorGrid(UUID staffId, LocalDate date, WorkingHours salonHours, List<Closure> dayClosures,
+                        int[] shared, int durationMin, int stepMin, int minStart) {
+        byte[] grid = new byte[IntervalAlgebra.MINUTES_PER_DAY + 1];
+
+        int[] base = new int[4];
+        int baseLen;
+        StaffWorkingHours own = staffWorkingHoursRepository
+                .findByStaffMember_IdAndDayOfWeek(staffId, date.getDayOfWeek())
+                .orElse(null);
+        if (own != null) {
+            if (own.isClosed()) return grid;
+            baseLen = appendRange(base, 0, own.getMorningStart(), own.getMorningEnd());
+            baseLen = appendRange(base, baseLen, own.getAfternoonStart(), own.getAfternoonEnd());
+        } else {
+            if (salonHours == null || salonHours.isClosed()) return grid;
+            baseLen = appendRange(base, 0, salonHours.getMorningStart(), salonHours.getMorningEnd());
+            baseLen = appendRange(base, baseLen, salonHours.getAfternoonStart(), salonHours.getAfternoonEnd());
+        }
+        baseLen = IntervalAlgebra.normalize(base, baseLen);
+
+        int[] closures = new int[2 * dayClosures.size()];
+        int closureLen = 0;
+        for (Closure c : dayClosures) {
+            // getId() on the lazy proxy does not initialize it
+            if (c.getStaffMember() != null && !staffId.equals(c.getStaffMember().getId())) continue;
+            if (c.isFullDay()) return grid;
+            if (c.getStartTime() != null && c.getEndTime() != null && c.getStartTime().isBefore(c.getEndTime())) {
+                closures[closureLen++] = IntervalAlgebra.toMinute(c.getStartTime());
+                closures[closureLen++] = IntervalAlgebra.toMinute(c.getEndTime());
+            }
+        }
+        closureLen = IntervalAlgebra.normalize(closures, closureLen);
+        int[] open = new int[baseLen + closureLen];
+        int openLen = IntervalAlgebra.subtract(base, baseLen, closures, closureLen, open);
+        if (openLen == 0) return grid;
+
+        LocalDateTime dayStart = date.atStartOfDay();
+        int[] ownBusy = busyIntervals(dayStart,
+                bookingRepository.findBookingsByStatusesIntersectingRangeForStaff(
+                        dayStart, dayStart.plusDays(1), BLOCKING_STATUSES, staffId),
+                personalAppointmentRepository.findByAppointmentDateAndStaffMember_IdOrderByStartTime(date, staffId));
+
+        int[] blocked = new int[ownBusy.length + shared.length];
+        System.arraycopy(ownBusy, 0, blocked, 0, ownBusy.length);
+        System.arraycopy(shared, 0, blocked, ownBusy.length, shared.length);
+        int blockedLen = IntervalAlgebra.normalize(blocked, blocked.length);
+
+        IntervalAlgebra.sweepSlots(open, openLen, blocked, blockedLen, durationMin, stepMin, minStart,
+                (start, end, free) -> grid[start] = free ? FREE : BUSY);
+        return grid;
+    }
+
+    /** Busy pairs (minutes of the day, padding included), normalized and trimmed to length. */
+    private static int[] busyIntervals(LocalDateTime dayStart, List<Booking> bookings,
+                                       List<PersonalAppointment> appointments) {
+        LocalDateTime dayEnd = dayStart.plusDays(1);
+        int[] blocked = new int[2 * (bookings.size() + appointments.size())];
+        int blockedLen = 0;
+        for (Booking b : bookings) {
+            if (b.getStartTime() == null || b.getEndTime() == null) continue;
+            int padding = (b.getPaddingMinutes() != null && b.getPaddingMinutes() > 0) ? b.getPaddingMinutes() : 0;
+            LocalDateTime effectiveEnd = b.getEndTime().plusMinutes(padding);
+            blocked[blockedLen++] = b.getStartTime().isAfter(dayStart) ? IntervalAlgebra.toMinute(b.getStartTime().toLocalTime()) : 0;
+            blocked[blockedLen++] = effectiveEnd.isBefore(dayEnd)
+                    ? IntervalAlgebra.toMinuteCeil(effectiveEnd.toLocalTime())
+                    : IntervalAlgebra.MINUTES_PER_DAY;
+        }
+        for (PersonalAppointment pa : appointments) {
+            if (pa.getStartTime() == null || pa.getDurationMinutes() <= 0) continue;
+            int s = IntervalAlgebra.toMinute(pa.getStartTime());
+            blocked[blockedLen++] = s;
+            blocked[blockedLen++] = Math.min(s + pa.getDurationMinutes(), IntervalAlgebra.MINUTES_PER_DAY);
+        }
+        blockedLen = IntervalAlgebra.normalize(blocked, blockedLen);
+        return Arrays.copyOf(blocked, blockedLen);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        operators.shutdownNow();
+    }
+
+    private static byte[] join(Future<byte[]> leg) {
+        try {
+            return leg.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Calcolo disponibilità interrotto.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("Calcolo disponibilità per operatore fallito.", e.getCause());
+        }
+    }
+
+    private static int appendRange(int[] pairs, int len, LocalTime start, LocalTime end) {
+        if (start == null || end == null || !start.isBefore(end)) return len;
+        pairs[len] = IntervalAlgebra.toMinute(start);
+        pairs[len + 1] = IntervalAlgebra.toMinute(end);
+        return len + 2;
+    }
+}
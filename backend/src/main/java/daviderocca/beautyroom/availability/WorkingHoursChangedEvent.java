@@ -0,0 +1,11 @@
+package daviderocca.beautyroom.availability;
+
+import java.time.DayOfWeek;
+
+/**
+ * Published by WorkingHoursService when the weekly hours of {@code dayOfWeek} are created or
+ * edited. Unlike {@link AvailabilityChangedEvent} it is not tied to a date range: every date
+ * falling on that weekday is affected. Consumed AFTER COMMIT.
+ */
+public record WorkingHoursChangedEvent(DayOfWeek dayOfWeek) {
+}
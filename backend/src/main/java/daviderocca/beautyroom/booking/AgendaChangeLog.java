@@ -0,0 +1,100 @@
+package daviderocca.beautyroom.booking;
+
+import daviderocca.beautyroom.availability.AvailabilityChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Monotonic change counter behind the admin agenda delta feed (GET /admin/agenda/changes).
+ *
+ * Every committed write that touches the agenda (AvailabilityChangedEvent for bookings,
+ * personal appointments and closures; AgendaChangedEvent for card-only edits) bumps
+ * {@link #version} and records the touched day range. A client holding token {@code T} asks
+ * "which days changed after T?" and re-downloads only those days, replacing them wholesale —
+ * so deletions need no tombstones.
+ *
+ * Tokens are {@code <instance>.<version>}. The log is in-memory and bounded
+ * ({@link #CAPACITY} entries): a token from a previous boot, a token older than the retained
+ * window, or garbage all answer "full reload" (null), never an error. Day granularity on
+ * purpose, like the availability events: the feed re-sends a whole day, not single rows.
+ */
+@Component
+@Slf4j
+public class AgendaChangeLog {
+
+    static final int CAPACITY = 2048;
+
+    private record Entry(long version, LocalDate from, LocalDate to) {}
+
+    /** Changes per boot: a restart resets the counter, so old tokens must not match. */
+    private final String instance = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+
+    // guarded by this
+    private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+    private long version;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAvailabilityChanged(AvailabilityChangedEvent event) {
+        record(event.from(), event.to());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAgendaChanged(AgendaChangedEvent event) {
+        record(event.from(), event.to());
+    }
+
+    synchronized long record(LocalDate from, LocalDate to) {
+        version++;
+        entries.addLast(new Entry(version, from, to));
+        if (entries.size() > CAPACITY) entries.removeFirst();
+        return version;
+    }
+
+    /** Token for "everything up to now". Take it BEFORE reading data: a change racing the read is re-sent next poll. */
+    public synchronized String currentToken() {
+        return instance + "." + version;
+    }
+
+    /**
+     * Days in [from, toExclusive) changed after {@code token}, ascending; empty when nothing
+     * changed. Null when the token cannot be served incrementally (missing, foreign boot,
+     * malformed, or older than the retained window): the client must reload the full range.
+     */
+    public synchronized Set<LocalDate> changedDaysSince(String token, LocalDate from, LocalDate toExclusive) {
+        Long since = parse(token);
+        if (since == null || since > version) return null;
+        if (since < version && (entries.isEmpty() || entries.peekFirst().version() > since + 1)) return null;
+
+        Set<LocalDate> days = new TreeSet<>();
+        Iterator<Entry> it = entries.descendingIterator();
+        while (it.hasNext()) {
+            Entry e = it.next();
+            if (e.version() <= since) break;
+            LocalDate first = e.from().isBefore(from) ? from : e.from();
+            LocalDate last = e.to().isBefore(toExclusive) ? e.to() : toExclusive.minusDays(1);
+            for (LocalDate d = first; !d.isAfter(last); d = d.plusDays(1)) days.add(d);
+        }
+        return days;
+    }
+
+    private Long parse(String token) {
+        if (token == null) return null;
+        int dot = token.lastIndexOf('.');
+        if (dot <= 0 || !instance.equals(token.substring(0, dot))) return null;
+        try {
+            return Long.parseLong(token.substring(dot + 1));
+        } catch (NumberFormatException e) {
+            log.debug("Agenda token non valido: {}", token);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package daviderocca.beautyroom.booking;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Published by booking writes that change what the admin agenda card shows WITHOUT changing
+ * salon occupancy (settlement, consent, reminder, no-show, quick-add sales, ...). Occupancy
+ * changes keep publishing {@link daviderocca.beautyroom.availability.AvailabilityChangedEvent};
+ * {@link AgendaChangeLog} listens to both. Inclusive day range, consumed AFTER COMMIT.
+ */
+public record AgendaChangedEvent(LocalDate from, LocalDate to) {
+
+    public AgendaChangedEvent {
+        if (from == null || to == null) throw new IllegalArgumentException("from/to obbligatori");
+        if (to.isBefore(from)) {
+            LocalDate tmp = from;
+            from = to;
+            to = tmp;
+        }
+    }
+
+    public static AgendaChangedEvent forDay(LocalDate day) {
+        return new AgendaChangedEvent(day, day);
+    }
+
+    /** Days of a booking's [start, end] (end may be null). Null when the booking has no time. */
+    public static AgendaChangedEvent forBooking(LocalDateTime start, LocalDateTime end) {
+        if (start == null) return null;
+        LocalDate first = start.toLocalDate();
+        LocalDate last = (end == null || end.toLocalDate().isBefore(first)) ? first : end.toLocalDate();
+        return new AgendaChangedEvent(first, last);
+    }
+}
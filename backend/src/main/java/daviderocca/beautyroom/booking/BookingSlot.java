@@ -0,0 +1,10 @@
+package daviderocca.beautyroom.booking;
+
+import java.time.LocalDateTime;
+
+/**
+ * The [start, end) a booking write will occupy, known before its transaction opens, so
+ * {@link ConflictRetryExecutor} can claim it ahead of the first attempt. {@code takenMessage}
+ * is the 400 returned to a racer that loses the claim (same text as the DB overlap check).
+ */
+public record BookingSlot(LocalDateTime start, LocalDateTime end, String takenMessage) {}
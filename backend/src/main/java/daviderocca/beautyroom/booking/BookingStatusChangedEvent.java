@@ -0,0 +1,19 @@
+package daviderocca.beautyroom.booking;
+
+import daviderocca.beautyroom.enums.BookingStatus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A booking entered {@code status}: created online (pay-in-store / Stripe webhook), confirmed by
+ * the webhook, moved by staff or cancelled. Pushed to the admin SSE channel AFTER COMMIT.
+ * {@code source}: "online" | "webhook" | "staff" | "cancel".
+ */
+public record BookingStatusChangedEvent(
+        UUID bookingId,
+        BookingStatus status,
+        LocalDateTime startTime,
+        String customerName,
+        String source
+) {}
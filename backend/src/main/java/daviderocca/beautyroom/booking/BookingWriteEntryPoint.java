@@ -0,0 +1,40 @@
+package daviderocca.beautyroom.booking;
+
+/**
+ * SERIALIZABLE booking write paths run through {@link ConflictRetryExecutor}, each with its
+ * own attempt budget. The metric tag is {@link #tag()}. {@link #rejectsTakenSlot()}: whether
+ * losing the in-memory slot claim turns the request away (400) or leaves it to the DB check.
+ */
+public enum BookingWriteEntryPoint {
+
+    HOLD("hold", 3, true),                     // checkout Stripe (cliente): hold + sessione
+    PAY_IN_STORE("pay_in_store", 3, true),     // cliente di fiducia
+    ADMIN_MANUAL("admin_manual", 3, true),     // agenda: prenotazione manuale singola
+    ADMIN_MULTI("admin_multi", 3, true),       // agenda: multi-servizio / pacchetti / promo
+    // Cliente già addebitato: un conflitto spurio qui finirebbe in un 500 e in un nuovo
+    // tentativo di Stripe minuti dopo, quindi vale la pena insistere di più. Anche un claim
+    // perso non rifiuta (il rivale può ancora fare rollback): decide il check nel DB.
+    WEBHOOK_MULTI("webhook_multi", 5, false);
+
+    private final String tag;
+    private final int maxAttempts;
+    private final boolean rejectsTakenSlot;
+
+    BookingWriteEntryPoint(String tag, int maxAttempts, boolean rejectsTakenSlot) {
+        this.tag = tag;
+        this.maxAttempts = maxAttempts;
+        this.rejectsTakenSlot = rejectsTakenSlot;
+    }
+
+    public String tag() {
+        return tag;
+    }
+
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    public boolean rejectsTakenSlot() {
+        return rejectsTakenSlot;
+    }
+}
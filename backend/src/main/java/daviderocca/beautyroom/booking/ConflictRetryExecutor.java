@@ -0,0 +1,153 @@
+package daviderocca.beautyroom.booking;
+
+import daviderocca.beautyroom.availability.SlotReservationTable;
+import daviderocca.beautyroom.exceptions.BadRequestException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Re-runs a SERIALIZABLE booking write when PostgreSQL aborts it for a concurrency conflict
+ * (40001 serialization failure, 40P01 deadlock, or Spring's {@link ConcurrencyFailureException}
+ * translation of either). Must wrap the transactional call from OUTSIDE the transaction —
+ * controllers call {@code execute(entry, () -> bookingService.createX(...))} — so each attempt
+ * is a fresh transaction; calling it inside one is rejected.
+ *
+ * With a {@link BookingSlot}, its minutes are claimed in {@link SlotReservationTable} BEFORE the
+ * first attempt and released after the last one returns (commit included: from then on the
+ * booking row blocks the slot). A racer that loses the claim gets the 400 without borrowing a
+ * connection or opening a transaction, and retries of the winner stay covered by its claim.
+ *
+ * Backoff: full jitter, {@code random(0, min(max, base * 2^(attempt-1)))}, so racers that
+ * collided once do not collide again in lock-step. Business errors (BadRequest "slot occupato",
+ * validation, ...) are never retried: the next attempt would give the same answer.
+ *
+ * Metrics per entry point (tag {@code entry}):
+ *  - {@code booking.write.attempts}  — every attempt, first one included;
+ *  - {@code booking.write.conflicts} — attempts aborted by a conflict;
+ *  - {@code booking.write.failures}  — calls that failed for good ({@code reason=conflict|error|slot_taken});
+ *  - {@code booking.write.duration}  — whole call incl. retries ({@code outcome=success|conflict|error}).
+ */
+@Component
+@Slf4j
+public class ConflictRetryExecutor {
+
+    private final MeterRegistry meterRegistry;
+    private final SlotReservationTable slotReservations;
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+
+    private final Map<BookingWriteEntryPoint, Counter> attempts = new EnumMap<>(BookingWriteEntryPoint.class);
+    private final Map<BookingWriteEntryPoint, Counter> conflicts = new EnumMap<>(BookingWriteEntryPoint.class);
+
+    public ConflictRetryExecutor(MeterRegistry meterRegistry,
+                                 SlotReservationTable slotReservations,
+                                 @Value("${app.booking.retry.base-backoff-ms:25}") long baseBackoffMs,
+                                 @Value("${app.booking.retry.max-backoff-ms:250}") long maxBackoffMs) {
+        this.meterRegistry = meterRegistry;
+        this.slotReservations = slotReservations;
+        this.baseBackoffMs = baseBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        for (BookingWriteEntryPoint entry : BookingWriteEntryPoint.values()) {
+            attempts.put(entry, Counter.builder("booking.write.attempts").tag("entry", entry.tag())
+                    .description("Booking write attempts, retries included").register(meterRegistry));
+            conflicts.put(entry, Counter.builder("booking.write.conflicts").tag("entry", entry.tag())
+                    .description("Booking write attempts aborted by a serialization conflict").register(meterRegistry));
+        }
+    }
+
+    /** Like {@link #execute(BookingWriteEntryPoint, Supplier)}, behind an in-memory claim on {@code slot}. */
+    public <T> T execute(BookingWriteEntryPoint entry, BookingSlot slot, Supplier<T> write) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("ConflictRetryExecutor must wrap the transaction, not run inside it");
+        }
+        boolean claimed = slotReservations.claim(slot.start(), slot.end());
+        if (!claimed) {
+            if (entry.rejectsTakenSlot()) {
+                failure(entry, "slot_taken");
+                throw new BadRequestException(slot.takenMessage());
+            }
+            log.info("Booking write {} racing an in-flight claim on {} → {}: deferring to the DB check",
+                    entry.tag(), slot.start(), slot.end());
+        }
+        try {
+            return execute(entry, write);
+        } finally {
+            if (claimed) slotReservations.release(slot.start(), slot.end());
+        }
+    }
+
+    public <T> T execute(BookingWriteEntryPoint entry, Supplier<T> write) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("ConflictRetryExecutor must wrap the transaction, not run inside it");
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            for (int attempt = 1; ; attempt++) {
+                attempts.get(entry).increment();
+                try {
+                    T result = write.get();
+                    outcome = "success";
+                    return result;
+                } catch (RuntimeException e) {
+                    if (!isConflict(e)) {
+                        failure(entry, "error");
+                        throw e;
+                    }
+                    conflicts.get(entry).increment();
+                    if (attempt >= entry.maxAttempts()) {
+                        outcome = "conflict";
+                        failure(entry, "conflict");
+                        log.warn("Booking write {} still conflicting after {} attempts: {}",
+                                entry.tag(), attempt, e.getMessage());
+                        throw e;
+                    }
+                    log.info("Booking write {} conflict on attempt {}/{}, retrying", entry.tag(), attempt, entry.maxAttempts());
+                    backoff(attempt);
+                }
+            }
+        } finally {
+            sample.stop(Timer.builder("booking.write.duration").tag("entry", entry.tag()).tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    /** Concurrency abort anywhere in the cause chain (Spring translation or raw SQLState). */
+    static boolean isConflict(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ConcurrencyFailureException) return true;
+            if (t instanceof SQLException sql && ("40001".equals(sql.getSQLState()) || "40P01".equals(sql.getSQLState()))) {
+                return true;
+            }
+            if (t.getCause() == t) break;
+        }
+        return false;
+    }
+
+    private void failure(BookingWriteEntryPoint entry, String reason) {
+        meterRegistry.counter("booking.write.failures", "entry", entry.tag(), "reason", reason).increment();
+    }
+
+    private void backoff(int attempt) {
+        long cap = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempt - 1, 16));
+        if (cap <= 0) return;
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Retry interrotto.", ie);
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package daviderocca.beautyroom.controllers;
 
 import daviderocca.beautyroom.DTO.agendaDTOs.AgendaDayResponseDTO;
+import daviderocca.beautyroom.DTO.agendaDTOs.AgendaDeltaDTO;
 import daviderocca.beautyroom.DTO.bookingDTOs.AdminBookingCardDTO;
+import daviderocca.beautyroom.DTO.closureDTOs.ClosureResponseDTO;
+import daviderocca.beautyroom.booking.AgendaChangeLog;
+import daviderocca.beautyroom.exceptions.BadRequestException;
 import daviderocca.beautyroom.personalappointments.PersonalAppointmentDTO;
 import daviderocca.beautyroom.personalappointments.PersonalAppointmentService;
 import daviderocca.beautyroom.services.BookingService;
+import daviderocca.beautyroom.services.ClosureService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -16,7 +21,9 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDate;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 /**
  * New combined agenda endpoint.
@@ -25,6 +32,8 @@ import java.util.List;
  * Returns both client bookings (from BookingService) and Michela's personal
  * appointments in a single response.
  *
+ * GET /admin/agenda/changes is the incremental companion (see {@link AgendaChangeLog}).
+ *
  * The existing endpoints on AdminBookingController and AvailabilityController
  * are NOT modified.
  */
@@ -37,6 +46,8 @@ public class AdminAgendaDayController {
 
     private final BookingService bookingService;
     private final PersonalAppointmentService personalAppointmentService;
+    private final ClosureService closureService;
+    private final AgendaChangeLog agendaChangeLog;
 
     @GetMapping("/day-full")
     public ResponseEntity<AgendaDayResponseDTO> getDayFull(
@@ -48,4 +59,51 @@ public class AdminAgendaDayController {
 
         return ResponseEntity.ok(new AgendaDayResponseDTO(bookings, personal));
     }
+
+    /**
+     * GET /admin/agenda/changes?since=TOKEN&from=YYYY-MM-DD&to=YYYY-MM-DD (to exclusive)
+     *
+     * Delta feed for the calendar poll: only the days in [from, to) changed after {@code since},
+     * with their bookings, personal appointments and closures. No/unknown token → fullReload.
+     * The new token is taken BEFORE reading, so a write racing this call shows up again next poll.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<AgendaDeltaDTO> getChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (!from.isBefore(to)) throw new BadRequestException("Range non valido (from < to).");
+
+        String version = agendaChangeLog.currentToken();
+        Set<LocalDate> days = agendaChangeLog.changedDaysSince(since, from, to);
+        if (days == null) {
+            return ResponseEntity.ok(new AgendaDeltaDTO(version, true, List.of(), List.of(), List.of(), List.of()));
+        }
+        if (days.isEmpty()) {
+            return ResponseEntity.ok(new AgendaDeltaDTO(version, false, List.of(), List.of(), List.of(), List.of()));
+        }
+        log.info("ADMIN | agenda changes since={} days={}", since, days.size());
+
+        LocalDate first = Collections.min(days);
+        LocalDate last = Collections.max(days);
+        List<AdminBookingCardDTO> bookings = bookingService.getAgendaDays(days);
+        List<PersonalAppointmentDTO> personal = personalAppointmentService.findBetween(first, last).stream()
+                .filter(pa -> days.contains(pa.appointmentDate()))
+                .toList();
+        List<ClosureResponseDTO> closures = closureService.findClosuresInRange(first, last.plusDays(1)).stream()
+                .filter(c -> touchesAny(c, days))
+                .toList();
+
+        return ResponseEntity.ok(new AgendaDeltaDTO(version, false, List.copyOf(days), bookings, personal, closures));
+    }
+
+    private static boolean touchesAny(ClosureResponseDTO c, Set<LocalDate> days) {
+        LocalDate start = c.startDate() != null ? c.startDate() : c.date();
+        LocalDate end = c.endDate() != null ? c.endDate() : start;
+        if (start == null) return false;
+        for (LocalDate d : days) {
+            if (!d.isBefore(start) && !d.isAfter(end)) return true;
+        }
+        return false;
+    }
 }
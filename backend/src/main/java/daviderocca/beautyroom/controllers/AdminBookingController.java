@@ -10,6 +10,8 @@ import daviderocca.beautyroom.DTO.bookingDTOs.ReminderStatusDTO;
 import daviderocca.beautyroom.DTO.bookingDTOs.ReminderUpdateDTO;
 import daviderocca.beautyroom.DTO.bookingDTOs.SettlementRequestDTO;
 import daviderocca.beautyroom.DTO.customerDTOs.ArretratoLineDTO;
+import daviderocca.beautyroom.booking.BookingWriteEntryPoint;
+import daviderocca.beautyroom.booking.ConflictRetryExecutor;
 import daviderocca.beautyroom.services.AvailabilityService;
 import daviderocca.beautyroom.entities.Booking;
 import daviderocca.beautyroom.entities.User;
@@ -43,6 +45,7 @@ import java.util.UUID;
 public class AdminBookingController {
 
     private final BookingService bookingService;
+    private final ConflictRetryExecutor conflictRetry;
     private final AvailabilityService availabilityService;
     private final CustomerService customerService;
 
@@ -116,7 +119,9 @@ public class AdminBookingController {
             @AuthenticationPrincipal User currentUser
     ) {
         log.info("ADMIN | manual create booking | email={}", payload.customerEmail());
-        BookingResponseDTO created = bookingService.createManualConfirmedBookingAsAdmin(payload, currentUser);
+        BookingResponseDTO created = conflictRetry.execute(BookingWriteEntryPoint.ADMIN_MANUAL,
+                bookingService.manualBookingSlot(payload),
+                () -> bookingService.createManualConfirmedBookingAsAdmin(payload, currentUser));
 
         return ResponseEntity
                 .created(java.net.URI.create("/admin/bookings/" + created.bookingId()))
@@ -207,7 +212,9 @@ public class AdminBookingController {
             @AuthenticationPrincipal User currentUser
     ) {
         log.info("ADMIN | multi-service create | client={}", payload.customerName());
-        BookingResponseDTO created = bookingService.createMultiServiceBooking(payload, currentUser);
+        BookingResponseDTO created = conflictRetry.execute(BookingWriteEntryPoint.ADMIN_MULTI,
+                bookingService.multiServiceBookingSlot(payload),
+                () -> bookingService.createMultiServiceBooking(payload, currentUser));
         return ResponseEntity
                 .created(java.net.URI.create("/admin/bookings/" + created.bookingId()))
                 .body(created);
@@ -6,6 +6,7 @@ import daviderocca.beautyroom.exceptions.BadRequestException;
 import daviderocca.beautyroom.exceptions.InternalServerErrorException;
 import daviderocca.beautyroom.exceptions.ResourceNotFoundException;
 import daviderocca.beautyroom.exceptions.UnauthorizedException;
+import daviderocca.beautyroom.security.PrincipalCache;
 import daviderocca.beautyroom.security.TokenBlocklist;
 import daviderocca.beautyroom.services.AuthService;
 import daviderocca.beautyroom.services.RefreshTokenService;
@@ -38,6 +39,7 @@ public class AuthController {
     private final RefreshTokenService refreshTokenService;
     private final JWTTools jwtTools;
     private final TokenBlocklist tokenBlocklist;
+    private final PrincipalCache principalCache;
 
     @Value("${app.jwt.refresh-cookie.name:refresh_token}")
     private String cookieName;
@@ -132,8 +134,9 @@ public class AuthController {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String accessToken = authHeader.substring(7);
             try {
-                String jti = jwtTools.extractJti(accessToken);
-                tokenBlocklist.block(jti, jwtTools.extractExpiration(accessToken));
+                JWTTools.VerifiedToken verified = jwtTools.verify(accessToken);
+                tokenBlocklist.block(verified.jti(), verified.expiresAt());
+                principalCache.evict(verified.jti());
             } catch (Exception ex) {
                 log.warn("Impossibile aggiungere access token in blocklist durante logout: {}", ex.getMessage());
             }
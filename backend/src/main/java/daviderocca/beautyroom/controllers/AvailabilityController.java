@@ -29,11 +29,13 @@ public class AvailabilityController {
 
     // ENDPOINT PUBBLICO SLOT — GET /availabilities/services/{serviceId}?date={yyyy-MM-dd}
     // Restituisce tutti gli slot del giorno per il servizio, con available=true/false.
+    // staffId opzionale: solo gli slot di quell'operatore (senza → "qualsiasi operatore").
     // Whitelist: /availabilities/services/** in SecConfig.
     @GetMapping("/services/{serviceId}")
     public ResponseEntity<AvailabilityResponseDTO> getServiceDaySlots(
             @PathVariable UUID serviceId,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) UUID staffId
     ) {
         if (date == null) throw new BadRequestException("La data richiesta non può essere nulla.");
         if (date.isBefore(LocalDate.now(AvailabilityService.BUSINESS_ZONE)))
@@ -41,7 +43,7 @@ public class AvailabilityController {
         if (date.isAfter(LocalDate.now(AvailabilityService.BUSINESS_ZONE).plusDays(maxAdvanceDays)))
             throw new BadRequestException("Non è possibile prenotare con più di " + maxAdvanceDays + " giorni di anticipo.");
 
-        return ResponseEntity.ok(availabilityService.getServiceAvailabilities(serviceId, date));
+        return ResponseEntity.ok(availabilityService.getServiceAvailabilities(serviceId, date, staffId));
     }
 
     // PUBLIC — available slots for a given date + total duration
@@ -64,17 +66,19 @@ public class AvailabilityController {
     // Same contract as /services/{serviceId}: ALL slots flagged available=true/false,
     // empty ONLY when the day is truly closed (an open-but-full day returns occupied slots).
     // Whitelisted in SecConfig alongside the other public availability endpoints.
+    // Optional staffId: that operator's slots only (multi-staff prompt 06).
     @GetMapping("/combined-slots")
     public ResponseEntity<AvailabilityResponseDTO> getCombinedSlots(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
-            @RequestParam int durationMinutes
+            @RequestParam int durationMinutes,
+            @RequestParam(required = false) UUID staffId
     ) {
         if (date == null) throw new BadRequestException("La data richiesta non può essere nulla.");
         if (date.isBefore(LocalDate.now(AvailabilityService.BUSINESS_ZONE)))
             throw new BadRequestException("Non è possibile richiedere disponibilità per date passate.");
         if (date.isAfter(LocalDate.now(AvailabilityService.BUSINESS_ZONE).plusDays(maxAdvanceDays)))
             throw new BadRequestException("Non è possibile prenotare con più di " + maxAdvanceDays + " giorni di anticipo.");
-        return ResponseEntity.ok(availabilityService.getCombinedAvailabilities(date, durationMinutes));
+        return ResponseEntity.ok(availabilityService.getCombinedAvailabilities(date, durationMinutes, staffId));
     }
 
     // ADMIN - TIMELINE DAY (matrix row 1: agenda read is shared with STAFF)
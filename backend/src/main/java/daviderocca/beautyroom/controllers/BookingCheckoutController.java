@@ -9,6 +9,8 @@ import daviderocca.beautyroom.DTO.bookingDTOs.BookingSummaryDTO;
 import daviderocca.beautyroom.DTO.bookingDTOs.NewBookingDTO;
 import daviderocca.beautyroom.DTO.bookingDTOs.ProductEntryDTO;
 import daviderocca.beautyroom.DTO.bookingDTOs.PublicMultiServiceBookingDTO;
+import daviderocca.beautyroom.booking.BookingWriteEntryPoint;
+import daviderocca.beautyroom.booking.ConflictRetryExecutor;
 import daviderocca.beautyroom.repositories.BookingRepository;
 import daviderocca.beautyroom.entities.Product;
 import daviderocca.beautyroom.entities.Promotion;
@@ -58,6 +60,7 @@ public class BookingCheckoutController {
     private int holdExpireMinutes;
 
     private final BookingService bookingService;
+    private final ConflictRetryExecutor conflictRetry;
     private final ServiceItemService serviceItemService;
     private final ServiceOptionRepository serviceOptionRepository;
     private final PromotionRepository promotionRepository;
@@ -108,7 +111,9 @@ public class BookingCheckoutController {
     private Map<String, Object> createStripeSessionForBooking(NewBookingDTO payload, User currentUserOrNull) throws StripeException {
 
         // 1) crea HOLD booking (blocca slot per N minuti)
-        BookingResponseDTO hold = bookingService.createHoldBooking(payload, currentUserOrNull);
+        BookingResponseDTO hold = conflictRetry.execute(BookingWriteEntryPoint.HOLD,
+                bookingService.clientBookingSlot(payload),
+                () -> bookingService.createHoldBooking(payload, currentUserOrNull));
 
         // 2) calcola prezzo: option.price se presente, altrimenti service.price
         ServiceItem service = serviceItemService.findServiceItemById(payload.serviceId());
@@ -484,7 +489,9 @@ public class BookingCheckoutController {
             @AuthenticationPrincipal User currentUser
     ) {
         if (currentUser == null) throw new BadRequestException("Utente non autenticato.");
-        BookingResponseDTO booking = bookingService.createPayInStoreBooking(payload, currentUser);
+        BookingResponseDTO booking = conflictRetry.execute(BookingWriteEntryPoint.PAY_IN_STORE,
+                bookingService.clientBookingSlot(payload),
+                () -> bookingService.createPayInStoreBooking(payload, currentUser));
         return ResponseEntity.status(201).body(booking);
     }
 
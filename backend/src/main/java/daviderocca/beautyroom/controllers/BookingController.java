@@ -4,6 +4,8 @@ import daviderocca.beautyroom.DTO.bookingDTOs.AdminBookingCardDTO;
 import daviderocca.beautyroom.DTO.bookingDTOs.BookingResponseDTO;
 import daviderocca.beautyroom.DTO.bookingDTOs.ConsentSignedDTO;
 import daviderocca.beautyroom.DTO.bookingDTOs.NewBookingDTO;
+import daviderocca.beautyroom.booking.BookingWriteEntryPoint;
+import daviderocca.beautyroom.booking.ConflictRetryExecutor;
 import daviderocca.beautyroom.entities.User;
 import daviderocca.beautyroom.services.BookingService;
 import jakarta.validation.Valid;
@@ -24,6 +26,7 @@ import java.util.UUID;
 public class BookingController {
 
     private final BookingService bookingService;
+    private final ConflictRetryExecutor conflictRetry;
 
     // ---------------------------------- AUTH GET ----------------------------------
     @GetMapping("/me")
@@ -41,7 +44,9 @@ public class BookingController {
             @AuthenticationPrincipal User currentUser
     ) {
         log.info("ADMIN | agenda create booking for {} ({})", payload.customerEmail(), payload.customerName());
-        BookingResponseDTO created = bookingService.createManualConfirmedBookingAsAdmin(payload, currentUser);
+        BookingResponseDTO created = conflictRetry.execute(BookingWriteEntryPoint.ADMIN_MANUAL,
+                bookingService.manualBookingSlot(payload),
+                () -> bookingService.createManualConfirmedBookingAsAdmin(payload, currentUser));
         return ResponseEntity.status(201).body(created);
     }
 
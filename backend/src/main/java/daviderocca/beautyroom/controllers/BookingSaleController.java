@@ -1,11 +1,15 @@
 package daviderocca.beautyroom.controllers;
 
 import daviderocca.beautyroom.DTO.BookingSaleDTO;
+import daviderocca.beautyroom.booking.AgendaChangedEvent;
+import daviderocca.beautyroom.entities.Booking;
 import daviderocca.beautyroom.entities.BookingSale;
 import daviderocca.beautyroom.repositories.BookingRepository;
 import daviderocca.beautyroom.repositories.BookingSaleRepository;
 import daviderocca.beautyroom.repositories.ProductRepository;
+import daviderocca.beautyroom.report.RevenueChangedEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -13,6 +17,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @RestController
@@ -24,6 +29,7 @@ public class BookingSaleController {
     private final BookingSaleRepository saleRepo;
     private final ProductRepository productRepository;
     private final BookingRepository bookingRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @GetMapping("/{bookingId}/sales")
     public List<BookingSale> getSales(@PathVariable UUID bookingId) {
@@ -49,8 +55,8 @@ public class BookingSaleController {
 
         // R9: quick-add sale inherits the booking's staff (same site-family as the three
         // BookingService sale sites from prompt 01), so no NULL staff_id rows accumulate.
-        bookingRepository.findById(bookingId)
-                .ifPresent(b -> sale.setStaffMember(b.getStaffMember()));
+        Optional<Booking> booking = bookingRepository.findById(bookingId);
+        booking.ifPresent(b -> sale.setStaffMember(b.getStaffMember()));
 
         BookingSale saved = saleRepo.save(sale);
 
@@ -61,6 +67,7 @@ public class BookingSaleController {
             p.setStock(p.getStock() - sale.getQuantity());
             productRepository.save(p);
         });
+        booking.ifPresent(this::publishAgendaChange);
 
         return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
@@ -73,15 +80,29 @@ public class BookingSaleController {
     ) {
         // Restore stock only for standalone sales (promotion_link_id IS NULL); promo
         // product-lines are restored by the promo path, so this guard avoids double-restore.
-        saleRepo.findById(saleId)
-                .filter(s -> bookingId.equals(s.getBookingId()))
-                .filter(s -> s.getPromotionLinkId() == null)
+        Optional<BookingSale> sale = saleRepo.findById(saleId)
+                .filter(s -> bookingId.equals(s.getBookingId()));
+        sale.filter(s -> s.getPromotionLinkId() == null)
                 .ifPresent(s -> productRepository.findById(s.getProductId()).ifPresent(p -> {
                     p.setStock(p.getStock() + s.getQuantity());
                     productRepository.save(p);
                 }));
 
         saleRepo.deleteByIdAndBookingId(saleId, bookingId);
+        Optional<Booking> booking = bookingRepository.findById(bookingId);
+        booking.ifPresent(this::publishAgendaChange);
+        // A paid line was counted in the report at COALESCE(settledAt, addedAt): re-roll that day.
+        sale.filter(BookingSale::isPaid).ifPresent(s -> {
+            RevenueChangedEvent event = RevenueChangedEvent.of(
+                    booking.map(Booking::getSettledAt).orElse(s.getAddedAt()));
+            if (event != null) eventPublisher.publishEvent(event);
+        });
         return ResponseEntity.noContent().build();
     }
+
+    // Sales render on the agenda card: bump the delta feed for the booking's day (after commit).
+    private void publishAgendaChange(Booking b) {
+        AgendaChangedEvent event = AgendaChangedEvent.forBooking(b.getStartTime(), b.getEndTime());
+        if (event != null) eventPublisher.publishEvent(event);
+    }
 }
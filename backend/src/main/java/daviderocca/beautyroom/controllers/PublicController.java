@@ -1,6 +1,7 @@
 package daviderocca.beautyroom.controllers;
 
 import daviderocca.beautyroom.DTO.availabilityDTOs.PublicDayStatusResponseDTO;
+import daviderocca.beautyroom.DTO.availabilityDTOs.PublicMonthAvailabilityDTO;
 import daviderocca.beautyroom.DTO.availabilityDTOs.PublicNextSlotDTO;
 import daviderocca.beautyroom.DTO.closureDTOs.ClosureResponseDTO;
 import daviderocca.beautyroom.DTO.closureDTOs.PublicClosureDTO;
@@ -18,6 +19,7 @@ import org.springframework.web.bind.annotation.*;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -163,6 +165,37 @@ public class PublicController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // ==========================================================================
+    // ENDPOINT PUBBLICO SLOT CONSIGLIATI (carrello multi-servizio)
+    // GET /api/public/slots/best-combined?durationMinutes={int}&fromDate=&days=&daysOfWeek=&windowStart=&windowEnd=&limit=
+    // ==========================================================================
+
+    /**
+     * I migliori slot per la durata combinata nella finestra richiesta (default: tutto il
+     * periodo prenotabile), best-first: favorisce gli inizi attaccati alle prenotazioni
+     * esistenti e quelli che non lasciano buchi inutilizzabili in agenda. Stessi filtri
+     * opzionali di /slots/next-combined; {@code limit} default 5, massimo 20.
+     *
+     * Risposta 200: [{ "date": "2025-04-15", "startTime": "11:00", "endTime": "12:30" }, ...]
+     * (lista vuota se nessuno slot).
+     */
+    @GetMapping("/slots/best-combined")
+    public ResponseEntity<List<PublicNextSlotDTO>> getBestCombinedSlots(
+            @RequestParam int durationMinutes,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) Integer days,
+            @RequestParam(required = false) Set<DayOfWeek> daysOfWeek,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime windowStart,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime windowEnd,
+            @RequestParam(required = false) Integer limit
+    ) {
+        log.info("PUBLIC | best combined slots | durationMinutes={} fromDate={} days={} daysOfWeek={} windowStart={} windowEnd={} limit={}",
+                durationMinutes, fromDate, days, daysOfWeek, windowStart, windowEnd, limit);
+
+        return ResponseEntity.ok(availabilityService.findBestCombinedSlots(
+                durationMinutes, fromDate, days, daysOfWeek, windowStart, windowEnd, limit));
+    }
+
     // ==========================================================================
     // ENDPOINT PUBBLICO STATO GIORNI (giorni "Pieno" in un intervallo)
     // GET /api/public/availability/day-status?fromDate={yyyy-MM-dd}&toDate={yyyy-MM-dd}&durationMinutes={int}
@@ -190,4 +223,25 @@ public class PublicController {
 
         return ResponseEntity.ok(new PublicDayStatusResponseDTO(fullDates));
     }
+
+    // ==========================================================================
+    // ENDPOINT PUBBLICO CALENDARIO MESE (stato + primo slot per ogni giorno)
+    // GET /api/public/availability/month?month={yyyy-MM}&durationMinutes={int}
+    // ==========================================================================
+
+    /**
+     * Una sola chiamata per la vista mese del calendario cliente: per ogni giorno prenotabile
+     * del mese lo stato (CLOSED / FULL / AVAILABLE) e il primo slot libero per la durata
+     * richiesta (singolo servizio o totale carrello). Servito da uno snapshot aggiornato
+     * incrementalmente a ogni prenotazione/chiusura.
+     */
+    @GetMapping("/availability/month")
+    public ResponseEntity<PublicMonthAvailabilityDTO> getMonthAvailability(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
+            @RequestParam int durationMinutes
+    ) {
+        log.info("PUBLIC | month availability | month={} durationMinutes={}", month, durationMinutes);
+
+        return ResponseEntity.ok(availabilityService.getMonthAvailability(month, durationMinutes));
+    }
 }
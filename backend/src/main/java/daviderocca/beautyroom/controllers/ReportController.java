@@ -1,17 +1,22 @@
 package daviderocca.beautyroom.controllers;
 
 import daviderocca.beautyroom.DTO.reportDTOs.ReportResponseDTO;
+import daviderocca.beautyroom.DTO.reportDTOs.RollupMismatchDTO;
+import daviderocca.beautyroom.DTO.reportDTOs.RollupRebuildDTO;
+import daviderocca.beautyroom.report.RevenueRollupService;
 import daviderocca.beautyroom.services.ReportService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDate;
+import java.util.List;
 
 @RestController
 @RequestMapping("/admin/report")
@@ -20,6 +25,7 @@ import java.time.LocalDate;
 public class ReportController {
 
     private final ReportService reportService;
+    private final RevenueRollupService revenueRollupService;
 
     @GetMapping
     public ResponseEntity<ReportResponseDTO> getReport(
@@ -29,5 +35,22 @@ public class ReportController {
     ) {
         return ResponseEntity.ok(reportService.getReport(from, to, compare));
     }
-}
 
+    /** Recomputes the daily revenue rollup for [from, to] (days up to yesterday). */
+    @PostMapping("/rollup/rebuild")
+    public ResponseEntity<RollupRebuildDTO> rebuildRollup(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        return ResponseEntity.ok(revenueRollupService.rebuild(from, to));
+    }
+
+    /** Rolled-up cells that disagree with the raw tables; empty when the rollup is in sync. */
+    @GetMapping("/rollup/reconcile")
+    public ResponseEntity<List<RollupMismatchDTO>> reconcileRollup(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        return ResponseEntity.ok(revenueRollupService.reconcile(from, to));
+    }
+}
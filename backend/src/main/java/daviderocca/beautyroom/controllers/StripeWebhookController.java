@@ -11,6 +11,8 @@ import com.stripe.net.ApiResource;
 import com.stripe.net.RequestOptions;
 import com.stripe.net.Webhook;
 import daviderocca.beautyroom.DTO.bookingDTOs.SaleEntryDTO;
+import daviderocca.beautyroom.booking.BookingWriteEntryPoint;
+import daviderocca.beautyroom.booking.ConflictRetryExecutor;
 import daviderocca.beautyroom.email.outbox.EmailOutboxService;
 import daviderocca.beautyroom.entities.Booking;
 import daviderocca.beautyroom.entities.Customer;
@@ -61,6 +63,7 @@ public class StripeWebhookController {
 
     private final OrderService orderService;
     private final BookingService bookingService;
+    private final ConflictRetryExecutor conflictRetry;
     private final CustomerService customerService;
     private final PackageCreditService packageCreditService;
     private final EmailOutboxService emailOutboxService;
@@ -431,13 +434,18 @@ public class StripeWebhookController {
         // option, exactly as before). split(",", -1) inside keeps a trailing null in its position.
         List<UUID> serviceOptionIds = parseServiceOptionIds(metadata.getOrDefault("serviceOptionIds", ""));
 
+        // effectively-final copies for the retry lambda (each attempt re-runs the whole SERIALIZABLE tx)
+        final UUID promotionIdForTx = promotionId;
+        final BigDecimal customTotalPriceForTx = customTotalPrice;
         daviderocca.beautyroom.entities.Booking saved;
         try {
-            saved = bookingService.createMultiServiceBookingFromWebhook(
-                    serviceIds, date, startTime, totalDurationMinutes,
-                    customerName, customerEmail, customerPhone, notes, session.getId(), promotionId, productSales,
-                    consentLaser, consentPmu, customTotalPrice, serviceOptionIds
-            );
+            saved = conflictRetry.execute(BookingWriteEntryPoint.WEBHOOK_MULTI,
+                    bookingService.webhookBookingSlot(date, startTime, totalDurationMinutes),
+                    () -> bookingService.createMultiServiceBookingFromWebhook(
+                            serviceIds, date, startTime, totalDurationMinutes,
+                            customerName, customerEmail, customerPhone, notes, session.getId(), promotionIdForTx, productSales,
+                            consentLaser, consentPmu, customTotalPriceForTx, serviceOptionIds
+                    ));
         } catch (daviderocca.beautyroom.exceptions.BadRequestException bex) {
             if ("CONFLICT".equals(bex.getMessage())) {
                 // Audit K / Fix 23: the SERIALIZABLE attempt rolled back (no booking row). Idempotently
@@ -0,0 +1,49 @@
+package daviderocca.beautyroom.email.outbox;
+
+import daviderocca.beautyroom.email.events.EmailEventType;
+import daviderocca.beautyroom.enums.WishlistItemType;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * V87: the shared part of a fan-out email (same body for every recipient). Its recipients are
+ * {@link EmailOutbox} rows with {@code campaignId} set; the body is rendered once per send.
+ */
+@Entity
+@Table(name = "email_campaigns")
+@Getter
+@Setter
+@NoArgsConstructor
+public class EmailCampaign {
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 40)
+    private EmailEventType eventType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "item_type", nullable = false, length = 20)
+    private WishlistItemType itemType;
+
+    @Column(name = "item_id", nullable = false)
+    private UUID itemId;
+
+    @Column(name = "item_name")
+    private String itemName;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
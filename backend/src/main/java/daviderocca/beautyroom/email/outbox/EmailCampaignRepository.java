@@ -0,0 +1,8 @@
+package daviderocca.beautyroom.email.outbox;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.UUID;
+
+public interface EmailCampaignRepository extends JpaRepository<EmailCampaign, UUID> {
+}
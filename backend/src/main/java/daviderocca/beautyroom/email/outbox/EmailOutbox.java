@@ -72,6 +72,10 @@ public class EmailOutbox {
     @Column(name = "lock_owner", length = 80)
     private String lockOwner;
 
+    /** V87: set on the recipient rows of a fan-out {@link EmailCampaign}, null otherwise. */
+    @Column(name = "campaign_id")
+    private UUID campaignId;
+
     @Version
     private Long version;
 
@@ -0,0 +1,184 @@
+package daviderocca.beautyroom.email.outbox;
+
+import daviderocca.beautyroom.email.provider.MailgunSender;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Drives the email outbox: claims PENDING rows through {@link EmailOutboxWorker} and sends
+ * them concurrently; rows of a fan-out {@link EmailCampaign} go out in provider batches.
+ *
+ * <ul>
+ *   <li>Each claimed row is prepared (load + render), sent and recorded on a pool of
+ *       {@code email.outbox.concurrency} virtual threads; the worker's steps are separate
+ *       transactions and none is open during the provider call.</li>
+ *   <li>Provider calls go through a token bucket per provider
+ *       ({@code email.outbox.mailgun.ratePerSecond}, bursts up to one second's worth), so a
+ *       backlog never exceeds the provider's sending limits.</li>
+ *   <li>While a claim comes back full, the next batch is claimed right away instead of waiting
+ *       {@code pollMs}: a reminder storm after a bulk reschedule drains at the provider rate.</li>
+ *   <li>Campaign rows are claimed per campaign, up to {@code email.outbox.campaignBatchSize}
+ *       (Mailgun's limit, 1000) at a time: one render and one batch call (recipient-variables)
+ *       per slice instead of one of each per recipient.</li>
+ * </ul>
+ * Failures are recorded per row (retry with backoff, see the worker): one bad email never
+ * stops the batch.
+ */
+@Component
+@Slf4j
+public class EmailOutboxDispatcher {
+
+    private final EmailOutboxWorker worker;
+    private final MailgunSender mailgunSender;
+    private final int batchSize;
+    private final int campaignBatchSize;
+    private final ExecutorService senders;
+    // One bucket per provider: Mailgun is the only one today.
+    private final Bucket mailgunRate;
+
+    public EmailOutboxDispatcher(EmailOutboxWorker worker,
+                                 MailgunSender mailgunSender,
+                                 @Value("${email.outbox.batchSize:50}") int batchSize,
+                                 @Value("${email.outbox.campaignBatchSize:1000}") int campaignBatchSize,
+                                 @Value("${email.outbox.concurrency:4}") int concurrency,
+                                 @Value("${email.outbox.mailgun.ratePerSecond:10}") long mailgunRatePerSecond) {
+        this.worker = worker;
+        this.mailgunSender = mailgunSender;
+        this.batchSize = Math.max(1, batchSize);
+        this.campaignBatchSize = Math.min(Math.max(1, campaignBatchSize), MailgunSender.MAX_BATCH_RECIPIENTS);
+        this.senders = Executors.newFixedThreadPool(Math.max(1, concurrency),
+                Thread.ofVirtual().name("email-send-", 0).factory());
+        long rate = Math.max(1, mailgunRatePerSecond);
+        this.mailgunRate = Bucket.builder()
+                .addLimit(Bandwidth.builder().capacity(rate).refillIntervally(rate, Duration.ofSeconds(1)).build())
+                .build();
+    }
+
+    @Scheduled(fixedDelayString = "${email.outbox.pollMs:15000}")
+    public void run() {
+        int sent = 0;
+        List<UUID> claimed;
+        do {
+            // 1) claim batch (transazione breve)
+            claimed = worker.claimBatchIds(batchSize);
+            // 2) invio concorrente, una transazione per step e per item
+            sent += dispatch(claimed);
+        } while (claimed.size() == batchSize && !Thread.currentThread().isInterrupted());
+
+        // 3) campagne fan-out: un render e una chiamata provider per blocco di destinatari
+        Optional<EmailOutboxWorker.ClaimedCampaign> campaign;
+        while (!Thread.currentThread().isInterrupted()
+                && (campaign = worker.claimCampaignBatch(campaignBatchSize)).isPresent()) {
+            sent += dispatchCampaign(campaign.get());
+        }
+
+        if (sent > 0) log.info("Email outbox: {} emails dispatched", sent);
+    }
+
+    /** One claimed campaign slice: rendered once, sent with a single batch call. */
+    int dispatchCampaign(EmailOutboxWorker.ClaimedCampaign claimed) {
+        EmailOutboxWorker.PreparedCampaign prepared;
+        try {
+            prepared = worker.prepareCampaign(claimed).orElse(null);
+            if (prepared == null) return 0;
+        } catch (Exception ex) {
+            worker.recordCampaignFailure(claimed.ids(), ex);
+            return 0;
+        }
+
+        try {
+            mailgunRate.asBlocking().consume(1);
+            String providerMsgId = mailgunSender.sendBatch(
+                    prepared.recipientVariables(),
+                    prepared.content().subject(),
+                    prepared.content().html(),
+                    prepared.content().text()
+            );
+            worker.recordCampaignSent(prepared.ids(), providerMsgId);
+            return prepared.ids().size();
+        } catch (InterruptedException e) {
+            worker.recordCampaignFailure(prepared.ids(), e);
+            Thread.currentThread().interrupt();
+            return 0;
+        } catch (Exception ex) {
+            worker.recordCampaignFailure(prepared.ids(), ex);
+            return 0;
+        }
+    }
+
+    /** Sends the claimed rows concurrently and waits for all of them; returns how many went out. */
+    int dispatch(List<UUID> ids) {
+        List<Future<Boolean>> pending = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            pending.add(senders.submit(() -> processOne(id)));
+        }
+        int sent = 0;
+        for (Future<Boolean> f : pending) {
+            try {
+                if (f.get()) sent++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                // processOne gestisce già retry/status: qui log solo "di sicurezza"
+                log.error("processOne crashed: err={}", e.getCause().getMessage(), e.getCause());
+            }
+        }
+        return sent;
+    }
+
+    private boolean processOne(UUID id) {
+        EmailOutboxWorker.Prepared prepared;
+        try {
+            prepared = worker.prepare(id).orElse(null);
+            if (prepared == null) return false; // già gestita da qualcun altro
+        } catch (EmailOutboxWorker.SkipEmailException skip) {
+            worker.recordSkipped(id, skip);
+            return false;
+        } catch (Exception ex) {
+            worker.recordFailure(id, ex);
+            return false;
+        }
+
+        String providerMsgId;
+        try {
+            mailgunRate.asBlocking().consume(1);
+            providerMsgId = mailgunSender.sendHtml(
+                    prepared.toEmail(),
+                    prepared.content().subject(),
+                    prepared.content().html(),
+                    prepared.content().text()
+            );
+        } catch (InterruptedException e) {
+            // shutdown durante l'attesa del rate limit: la riga torna in retry invece di restare PROCESSING
+            worker.recordFailure(id, e);
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception ex) {
+            worker.recordFailure(id, ex);
+            return false;
+        }
+        worker.recordSent(id, providerMsgId);
+        return true;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        senders.shutdownNow();
+    }
+}
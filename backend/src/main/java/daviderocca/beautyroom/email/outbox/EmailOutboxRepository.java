@@ -3,11 +3,14 @@ package daviderocca.beautyroom.email.outbox;
 import daviderocca.beautyroom.email.events.EmailAggregateType;
 import daviderocca.beautyroom.email.events.EmailEventType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, UUID> {
@@ -29,9 +32,39 @@ public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, UUID>
         FROM email_outbox
         WHERE status = 'PENDING'
           AND scheduled_at <= :now
+          AND campaign_id IS NULL
         ORDER BY created_at ASC
         LIMIT :limit
         FOR UPDATE SKIP LOCKED
         """, nativeQuery = true)
     List<EmailOutbox> lockNextBatchPending(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /** Oldest due campaign row, if any: its campaign is claimed next. */
+    Optional<EmailOutbox> findFirstByStatusAndCampaignIdIsNotNullAndScheduledAtLessThanEqualOrderByCreatedAtAsc(
+            EmailOutboxStatus status, LocalDateTime now);
+
+    @Query(value = """
+        SELECT *
+        FROM email_outbox
+        WHERE status = 'PENDING'
+          AND scheduled_at <= :now
+          AND campaign_id = :campaignId
+        ORDER BY created_at ASC
+        LIMIT :limit
+        FOR UPDATE SKIP LOCKED
+        """, nativeQuery = true)
+    List<EmailOutbox> lockNextCampaignBatch(@Param("campaignId") UUID campaignId,
+                                            @Param("now") LocalDateTime now,
+                                            @Param("limit") int limit);
+
+    @Modifying
+    @Query("""
+        DELETE FROM EmailOutbox e
+        WHERE e.eventType = :eventType
+          AND e.aggregateType = :aggregateType
+          AND e.aggregateId IN :aggregateIds
+        """)
+    int deleteAllByEventAndAggregates(@Param("eventType") EmailEventType eventType,
+                                      @Param("aggregateType") EmailAggregateType aggregateType,
+                                      @Param("aggregateIds") Collection<UUID> aggregateIds);
 }
\ No newline at end of file
@@ -7,6 +7,7 @@ import daviderocca.beautyroom.entities.Order;
 import daviderocca.beautyroom.entities.User;
 import daviderocca.beautyroom.entities.WaitlistEntry;
 import daviderocca.beautyroom.entities.WishlistItem;
+import daviderocca.beautyroom.enums.WishlistItemType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -14,6 +15,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -21,6 +24,7 @@ import java.util.UUID;
 public class EmailOutboxService {
 
     private final EmailOutboxRepository repo;
+    private final EmailCampaignRepository campaignRepo;
     @Value("${app.admin.email:admin@beautyroom.local}")
     private String adminEmail;
 
@@ -242,6 +246,48 @@ public class EmailOutboxService {
         }
     }
 
+    /**
+     * Fan-out di "di nuovo disponibile" a tutti i wisher di un item: una {@link EmailCampaign}
+     * con il corpo condiviso + una riga outbox per destinatario (stato/retry per utente).
+     * Il dispatcher renderizza il corpo una volta e invia a blocchi via batch Mailgun.
+     * Come {@link #enqueueWishlistBackInStock}, sostituisce eventuali notifiche precedenti.
+     */
+    @Transactional
+    public int enqueueWishlistCampaign(WishlistItemType itemType, UUID itemId, String itemName,
+                                       List<WishlistItem> wishers) {
+        List<EmailOutbox> rows = new ArrayList<>(wishers.size());
+        for (WishlistItem w : wishers) {
+            String email = w.getUser() == null ? null : normalizeEmail(w.getUser().getEmail());
+            if (w.getId() == null || email == null) continue;
+            EmailOutbox e = new EmailOutbox();
+            e.setEventType(EmailEventType.WISHLIST_BACK_IN_STOCK);
+            e.setAggregateType(EmailAggregateType.WISHLIST_ITEM);
+            e.setAggregateId(w.getId());
+            e.setToEmail(email);
+            e.setStatus(EmailOutboxStatus.PENDING);
+            rows.add(e);
+        }
+        if (rows.isEmpty()) return 0;
+
+        repo.deleteAllByEventAndAggregates(EmailEventType.WISHLIST_BACK_IN_STOCK, EmailAggregateType.WISHLIST_ITEM,
+                rows.stream().map(EmailOutbox::getAggregateId).toList());
+
+        EmailCampaign campaign = new EmailCampaign();
+        campaign.setEventType(EmailEventType.WISHLIST_BACK_IN_STOCK);
+        campaign.setItemType(itemType);
+        campaign.setItemId(itemId);
+        campaign.setItemName(itemName);
+        campaign = campaignRepo.save(campaign);
+
+        LocalDateTime now = LocalDateTime.now();
+        for (EmailOutbox e : rows) {
+            e.setCampaignId(campaign.getId());
+            e.setScheduledAt(now);
+        }
+        repo.saveAll(rows);
+        return rows.size();
+    }
+
     private void enqueueSafe(
             EmailEventType eventType,
             EmailAggregateType aggregateType,
@@ -23,16 +23,19 @@ import daviderocca.beautyroom.repositories.WishlistItemRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.dao.DataAccessException;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.net.InetAddress;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
@@ -40,6 +43,7 @@ import java.util.UUID;
 public class EmailOutboxWorker {
 
     private final EmailOutboxRepository  outboxRepo;
+    private final EmailCampaignRepository campaignRepo;
     private final BookingRepository      bookingRepo;
     private final OrderRepository        orderRepo;
     private final WaitlistRepository     waitlistRepo;
@@ -59,24 +63,26 @@ public class EmailOutboxWorker {
 
     private final String lockOwner = resolveLockOwner();
 
-    @Scheduled(fixedDelayString = "${email.outbox.pollMs:15000}")
-    public void run() {
-        // 1) claim batch (transazione breve)
-        List<UUID> claimedIds = claimBatchIds(50);
-
-        // 2) processa uno a uno (transazione separata per item)
-        for (UUID id : claimedIds) {
-            try {
-                processOne(id);
-            } catch (Exception e) {
-                // processOne gestisce già retry/status: qui log solo “di sicurezza”
-                log.error("processOne crashed: id={} err={}", id, e.getMessage(), e);
-            }
-        }
-    }
+    /** A claimed row with its content rendered, ready to hand to the provider. */
+    public record Prepared(UUID id, String toEmail, EmailContent content) {}
+
+    /** Rows of one campaign claimed together (at most one provider batch). */
+    public record ClaimedCampaign(UUID campaignId, List<UUID> ids) {}
+
+    /**
+     * A claimed campaign slice: the shared content rendered once, the rows to send and each
+     * recipient's placeholder values (email → variables).
+     */
+    public record PreparedCampaign(EmailContent content, List<UUID> ids,
+                                   Map<String, Map<String, String>> recipientVariables) {}
+
+    // Scheduling, concurrency and rate limiting live in EmailOutboxDispatcher: every method
+    // below is called through the Spring proxy, so each one really runs in its own transaction.
+    // The provider HTTP call happens between prepare() and record*(), outside any transaction:
+    // no DB connection is held while Mailgun answers.
 
     @Transactional
-    protected List<UUID> claimBatchIds(int limit) {
+    public List<UUID> claimBatchIds(int limit) {
         LocalDateTime now = LocalDateTime.now();
 
         List<EmailOutbox> batch = outboxRepo.lockNextBatchPending(now, limit);
@@ -94,54 +100,132 @@ public class EmailOutboxWorker {
         return batch.stream().map(EmailOutbox::getId).toList();
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    protected void processOne(UUID id) {
+    /**
+     * Loads the claimed row and renders its email. Empty if someone already handled it;
+     * throws {@link SkipEmailException} when it must not be sent, anything else on failure.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Prepared> prepare(UUID id) {
         EmailOutbox e = outboxRepo.findById(id)
                 .orElseThrow(() -> new IllegalStateException("EmailOutbox not found: " + id));
 
-        // se qualcuno l'ha già gestita nel frattempo
-        if (e.getStatus() == EmailOutboxStatus.SENT
-                || e.getStatus() == EmailOutboxStatus.FAILED
-                || e.getStatus() == EmailOutboxStatus.CANCELLED) {
-            return;
+        // safety: deve essere PROCESSING (claimato); SENT/FAILED/CANCELLED = già gestita
+        if (e.getStatus() != EmailOutboxStatus.PROCESSING) {
+            return Optional.empty();
         }
+        return Optional.of(new Prepared(id, e.getToEmail(), buildContent(e)));
+    }
 
-        // safety: deve essere PROCESSING (claimato)
-        if (e.getStatus() != EmailOutboxStatus.PROCESSING) {
-            return;
+    /** Claims up to {@code limit} due rows of the oldest due campaign. */
+    @Transactional
+    public Optional<ClaimedCampaign> claimCampaignBatch(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+
+        Optional<UUID> campaignId = outboxRepo
+                .findFirstByStatusAndCampaignIdIsNotNullAndScheduledAtLessThanEqualOrderByCreatedAtAsc(
+                        EmailOutboxStatus.PENDING, now)
+                .map(EmailOutbox::getCampaignId);
+        if (campaignId.isEmpty()) return Optional.empty();
+
+        List<EmailOutbox> batch = outboxRepo.lockNextCampaignBatch(campaignId.get(), now, limit);
+        if (batch.isEmpty()) return Optional.empty();
+
+        for (EmailOutbox e : batch) {
+            e.setStatus(EmailOutboxStatus.PROCESSING);
+            e.setLockedAt(now);
+            e.setLockOwner(lockOwner);
+        }
+        outboxRepo.saveAll(batch);
+
+        return Optional.of(new ClaimedCampaign(campaignId.get(), batch.stream().map(EmailOutbox::getId).toList()));
+    }
+
+    /**
+     * Renders the campaign once and resolves its recipients with one query. Rows whose
+     * wishlist item (or user) is gone are cancelled here, like the one-to-one path does.
+     */
+    @Transactional
+    public Optional<PreparedCampaign> prepareCampaign(ClaimedCampaign claimed) {
+        EmailCampaign campaign = campaignRepo.findById(claimed.campaignId())
+                .orElseThrow(() -> new IllegalStateException("EmailCampaign not found: " + claimed.campaignId()));
+        if (campaign.getEventType() != EmailEventType.WISHLIST_BACK_IN_STOCK) {
+            throw new IllegalArgumentException("Unsupported campaign event: " + campaign.getEventType());
         }
 
-        try {
-            EmailContent content = buildContent(e);
+        List<EmailOutbox> rows = outboxRepo.findAllById(claimed.ids()).stream()
+                .filter(e -> e.getStatus() == EmailOutboxStatus.PROCESSING)
+                .toList();
+        Map<UUID, WishlistItem> items = new HashMap<>();
+        wishlistItemRepo.findWithUserByIdIn(rows.stream().map(EmailOutbox::getAggregateId).toList())
+                .forEach(w -> items.put(w.getId(), w));
+
+        List<UUID> ids = new ArrayList<>(rows.size());
+        Map<String, Map<String, String>> recipientVariables = new LinkedHashMap<>();
+        for (EmailOutbox e : rows) {
+            WishlistItem w = items.get(e.getAggregateId());
+            if (w == null) {
+                e.setStatus(EmailOutboxStatus.CANCELLED);
+                e.setLastError("WishlistItem not found: " + e.getAggregateId());
+                e.setLockedAt(null);
+                e.setLockOwner(null);
+                continue;
+            }
+            ids.add(e.getId());
+            recipientVariables.put(e.getToEmail(), templates.wishlistRecipientVariables(w.getUser()));
+        }
+        if (ids.isEmpty()) return Optional.empty();
 
-            String providerMsgId = mailgunSender.sendHtml(
-                    e.getToEmail(),
-                    content.subject(),
-                    content.html(),
-                    content.text()
-            );
+        EmailContent content = templates.wishlistBackInStockCampaign(
+                campaign.getItemName(), campaign.getItemType(), itemUrl(campaign.getItemType(), campaign.getItemId()));
+        return Optional.of(new PreparedCampaign(content, ids, recipientVariables));
+    }
 
+    @Transactional
+    public void recordCampaignSent(List<UUID> ids, String providerMsgId) {
+        ids.forEach(id -> recordSent(id, providerMsgId));
+    }
+
+    @Transactional
+    public void recordCampaignFailure(List<UUID> ids, Exception ex) {
+        ids.forEach(id -> recordFailure(id, ex));
+    }
+
+    @Transactional
+    public void recordSent(UUID id, String providerMsgId) {
+        update(id, e -> {
             e.setStatus(EmailOutboxStatus.SENT);
             e.setSentAt(LocalDateTime.now());
             e.setProviderMessageId(providerMsgId);
             e.setLastError(null);
+        });
+    }
 
-        } catch (SkipEmailException skip) {
+    @Transactional
+    public void recordSkipped(UUID id, Exception skip) {
+        update(id, e -> {
             e.setStatus(EmailOutboxStatus.CANCELLED);
             e.setLastError(safeMsg(skip));
             e.setSentAt(null);
             e.setProviderMessageId(null);
+        });
+    }
 
-        } catch (Exception ex) {
-            handleFailure(e, ex);
-        } finally {
-            e.setLockedAt(null);
-            e.setLockOwner(null);
-            outboxRepo.save(e);
-        }
+    @Transactional
+    public void recordFailure(UUID id, Exception ex) {
+        update(id, e -> handleFailure(e, ex));
+    }
+
+    private void update(UUID id, Consumer<EmailOutbox> change) {
+        EmailOutbox e = outboxRepo.findById(id)
+                .orElseThrow(() -> new IllegalStateException("EmailOutbox not found: " + id));
+        if (e.getStatus() != EmailOutboxStatus.PROCESSING) return;
+        change.accept(e);
+        e.setLockedAt(null);
+        e.setLockOwner(null);
+        outboxRepo.save(e);
     }
 
-    private void handleFailure(EmailOutbox e, Exception ex) throws DataAccessException {
+    private void handleFailure(EmailOutbox e, Exception ex) {
         int attempts = e.getAttempts() + 1;
         e.setAttempts(attempts);
         e.setLastError(safeMsg(ex));
@@ -250,12 +334,7 @@ public class EmailOutboxWorker {
             // Se il WishlistItem non ha più l'utente associato, salta
             if (u == null) throw new SkipEmailException("WishlistItem has no user: " + w.getId());
 
-            String itemUrl = switch (itemType) {
-                case SERVICE   -> frontUrl + "/trattamenti/" + itemId;
-                case PRODUCT   -> frontUrl + "/prodotti/" + itemId;
-                case PROMOTION -> frontUrl + "/promozioni/" + itemId;
-                case PACKAGE   -> frontUrl + "/trattamenti/" + itemId;
-            };
+            String itemUrl = itemUrl(itemType, itemId);
 
             return switch (type) {
                 case WISHLIST_BACK_IN_STOCK -> templates.wishlistBackInStock(u, resolveWishlistItemName(w), itemType, itemUrl);
@@ -266,6 +345,15 @@ public class EmailOutboxWorker {
         throw new IllegalArgumentException("Unsupported aggregate: " + agg);
     }
 
+    private String itemUrl(WishlistItemType itemType, UUID itemId) {
+        return switch (itemType) {
+            case SERVICE   -> frontUrl + "/trattamenti/" + itemId;
+            case PRODUCT   -> frontUrl + "/prodotti/" + itemId;
+            case PROMOTION -> frontUrl + "/promozioni/" + itemId;
+            case PACKAGE   -> frontUrl + "/trattamenti/" + itemId;
+        };
+    }
+
     private String resolveWishlistItemName(WishlistItem w) {
         return switch (w.getItemType()) {
             case SERVICE   -> serviceItemRepo.findById(w.getItemId())
@@ -1,5 +1,7 @@
 package daviderocca.beautyroom.email.provider;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -10,6 +12,8 @@ import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.Map;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -23,6 +27,7 @@ public class MailgunSender {
     private String baseUrl;
 
     private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
 
     @PostConstruct
     void bootLog() {
@@ -31,20 +36,51 @@ public class MailgunSender {
                 baseUrl, domain, from, !k.isBlank(), k.length());
     }
 
-    public String sendHtml(String to, String subject, String html, String text) {
+    /** Mailgun accepts at most this many recipients per batch-sending call. */
+    public static final int MAX_BATCH_RECIPIENTS = 1000;
 
-        String url = baseUrl + "/v3/" + domain + "/messages";
+    public String sendHtml(String to, String subject, String html, String text) {
+        MultiValueMap<String, String> body = message(subject, html, text);
+        body.add("to", to);
+        return post(body);
+    }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-        headers.setBasicAuth("api", apiKey.trim());
+    /**
+     * Batch sending: one call, one separate email per recipient (nobody sees the others).
+     * {@code %recipient.<name>%} placeholders in subject/html/text are filled by Mailgun from
+     * each recipient's variables. At most {@link #MAX_BATCH_RECIPIENTS} recipients.
+     */
+    public String sendBatch(Map<String, Map<String, String>> recipientVariables,
+                            String subject, String html, String text) {
+        if (recipientVariables.isEmpty()) throw new IllegalArgumentException("No recipients");
+        if (recipientVariables.size() > MAX_BATCH_RECIPIENTS) {
+            throw new IllegalArgumentException("Too many recipients for one batch: " + recipientVariables.size());
+        }
+        MultiValueMap<String, String> body = message(subject, html, text);
+        recipientVariables.keySet().forEach(to -> body.add("to", to));
+        try {
+            body.add("recipient-variables", objectMapper.writeValueAsString(recipientVariables));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("recipient-variables non serializzabili", e);
+        }
+        return post(body);
+    }
 
+    private MultiValueMap<String, String> message(String subject, String html, String text) {
         MultiValueMap<String, String> body = new LinkedMultiValueMap<>();
         body.add("from", from);
-        body.add("to", to);
         body.add("subject", subject);
         body.add("text", text != null ? text : "");
         body.add("html", html != null ? html : "");
+        return body;
+    }
+
+    private String post(MultiValueMap<String, String> body) {
+        String url = baseUrl + "/v3/" + domain + "/messages";
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+        headers.setBasicAuth("api", apiKey.trim());
 
         HttpEntity<MultiValueMap<String, String>> req = new HttpEntity<>(body, headers);
 
@@ -54,4 +90,4 @@ public class MailgunSender {
         }
         return res.getBody();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,75 @@
+package daviderocca.beautyroom.email.templates;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An HTML fragment parsed once, at class init, instead of on every {@code String.formatted} call.
+ *
+ * Same syntax as the text blocks it replaces, so a row keeps its markup unchanged:
+ *  - {@code %s} is a dynamic slot, filled in order by {@link #render};
+ *  - {@code %%} is a literal {@code %};
+ *  - {@code {{NAME}}} is a static value (font stacks, …) resolved here, at compile time.
+ *
+ * Rendering joins the literal segments and the slot values into a string sized exactly, so
+ * there is no format-string parsing and no intermediate copy. Values go in as they are
+ * (null prints "null", as with formatted()): escaping stays with the caller (esc/escAttr).
+ */
+final class CompiledTemplate {
+
+    private final String[] literals;   // literals.length == slots + 1
+
+    private CompiledTemplate(String[] literals) {
+        this.literals = literals;
+    }
+
+    static CompiledTemplate compile(String source, Map<String, String> statics) {
+        List<String> segments = new ArrayList<>();
+        StringBuilder current = new StringBuilder(source.length());
+        int i = 0;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if (c == '%' && i + 1 < source.length() && source.charAt(i + 1) == 's') {
+                segments.add(current.toString());
+                current.setLength(0);
+                i += 2;
+            } else if (c == '%' && i + 1 < source.length() && source.charAt(i + 1) == '%') {
+                current.append('%');
+                i += 2;
+            } else if (c == '%') {
+                throw new IllegalArgumentException("Segnaposto non supportato a " + i + ": " + source);
+            } else if (c == '{' && source.startsWith("{{", i)) {
+                int end = source.indexOf("}}", i + 2);
+                String name = end < 0 ? null : source.substring(i + 2, end);
+                String value = name == null ? null : statics.get(name);
+                if (value == null) throw new IllegalArgumentException("Valore statico sconosciuto: " + name);
+                current.append(value);
+                i = end + 2;
+            } else {
+                current.append(c);
+                i++;
+            }
+        }
+        segments.add(current.toString());
+        return new CompiledTemplate(segments.toArray(String[]::new));
+    }
+
+    int slots() {
+        return literals.length - 1;
+    }
+
+    String render(String... values) {
+        if (values.length != slots()) {
+            throw new IllegalArgumentException("Attesi " + slots() + " valori, ricevuti " + values.length);
+        }
+        String[] parts = new String[literals.length + values.length];
+        parts[0] = literals[0];
+        for (int i = 0; i < values.length; i++) {
+            parts[2 * i + 1] = values[i];
+            parts[2 * i + 2] = literals[i + 1];
+        }
+        // String.join sizes the result from the parts and fills it in place: one copy, no builder.
+        return String.join("", parts);
+    }
+}
@@ -17,6 +17,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * Transactional email templates — presentation layer (v2).
@@ -62,6 +63,13 @@ public class EmailTemplateService {
     private static final String SERIF = "'Cormorant Garamond','Petrona',Georgia,'Times New Roman',serif";
     private static final String SANS  = "-apple-system,BlinkMacSystemFont,'Segoe UI',Roboto,Helvetica,Arial,sans-serif";
 
+    // Static values the row templates resolve once, when they are compiled (see CompiledTemplate).
+    private static final Map<String, String> TEMPLATE_STATICS = Map.of("SANS", SANS, "SERIF", SERIF);
+
+    private static CompiledTemplate tpl(String source) {
+        return CompiledTemplate.compile(source, TEMPLATE_STATICS);
+    }
+
     private static final DateTimeFormatter IT_DT =
             DateTimeFormatter.ofPattern("EEE dd MMM yyyy, HH:mm", Locale.ITALY);
     private static final DateTimeFormatter IT_DATE =
@@ -620,9 +628,32 @@ public class EmailTemplateService {
 
     // ===================== WISHLIST BACK IN STOCK =====================
     public EmailContent wishlistBackInStock(User user, String itemName, WishlistItemType itemType, String itemUrl) {
-        String firstName = (user.getName() != null && !user.getName().isBlank())
-                ? user.getName() : "cara cliente";
+        String firstName = wishlistFirstName(user);
+        return wishlistBackInStock(firstName, firstName, itemName, itemType, itemUrl);
+    }
+
+    /**
+     * Campaign version of {@link #wishlistBackInStock(User, String, WishlistItemType, String)}:
+     * rendered once for all the wishers, the name is left to Mailgun recipient variables,
+     * filled per recipient with {@link #wishlistRecipientVariables(User)}.
+     */
+    public EmailContent wishlistBackInStockCampaign(String itemName, WishlistItemType itemType, String itemUrl) {
+        return wishlistBackInStock("%recipient.first_name_html%", "%recipient.first_name%", itemName, itemType, itemUrl);
+    }
+
+    /** Per-recipient values of the campaign placeholders (the HTML one already escaped). */
+    public Map<String, String> wishlistRecipientVariables(User user) {
+        String firstName = wishlistFirstName(user);
+        return Map.of("first_name", firstName, "first_name_html", esc(firstName));
+    }
 
+    private static String wishlistFirstName(User user) {
+        return (user.getName() != null && !user.getName().isBlank()) ? user.getName() : "cara cliente";
+    }
+
+    // htmlName goes through inkB (escaped): a placeholder passes unchanged, Mailgun fills it pre-escaped.
+    private EmailContent wishlistBackInStock(String htmlName, String firstName, String itemName,
+                                             WishlistItemType itemType, String itemUrl) {
         String typeLabel = switch (itemType) {
             case SERVICE   -> "trattamento";
             case PRODUCT   -> "prodotto";
@@ -634,7 +665,7 @@ public class EmailTemplateService {
         String preheader = "Un preferito della tua wishlist è tornato ✦";
 
         String inner = heroRow("Dalla tua wishlist", "Di nuovo disponibile")
-                + introRow("Ciao " + inkB(firstName) + ", il " + inkB(typeLabel) + " che hai salvato nella "
+                + introRow("Ciao " + inkB(htmlName) + ", il " + inkB(typeLabel) + " che hai salvato nella "
                         + "wishlist è di nuovo disponibile. Non aspettare troppo: potrebbe esaurirsi di nuovo.")
                 + detailsPanelRow(new String[][]{
                         {cap(typeLabel), safe(itemName)}
@@ -703,17 +734,36 @@ public class EmailTemplateService {
     private static final String CARD_CLOSE = "</table></td></tr>";
     private static final String CANVAS_CLOSE = "</table></td></tr></table>";
 
+    private static final String PREHEADER_OPEN =
+            HEAD + "<div style=\"display:none;max-height:0;overflow:hidden;opacity:0;\">";
+    private static final String PREHEADER_CLOSE = "</div>";
+
+    /**
+     * The parts of every email that depend only on the brand config (fixed at startup) and on
+     * the footer year: header bar, footer and contact pills are rendered and escaped once, then
+     * reused until the year changes. Immutable, so a racy double build is harmless.
+     */
+    private record Chrome(int year, String open, String close, String contactPills) {}
+
+    private volatile Chrome chrome;
+
+    private Chrome chrome() {
+        int year = LocalDate.now().getYear();
+        Chrome c = chrome;
+        if (c == null || c.year() != year) {
+            c = new Chrome(year,
+                    PREHEADER_CLOSE + CANVAS_OPEN + headerBar() + CARD_OPEN,
+                    CARD_CLOSE + footer(year) + CANVAS_CLOSE + "</body></html>",
+                    renderContactPills());
+            chrome = c;
+        }
+        return c;
+    }
+
     private String wrap(String preheader, String inner) {
-        return HEAD
-                + "<div style=\"display:none;max-height:0;overflow:hidden;opacity:0;\">" + esc(preheader) + "</div>"
-                + CANVAS_OPEN
-                + headerBar()
-                + CARD_OPEN
-                + inner
-                + CARD_CLOSE
-                + footer()
-                + CANVAS_CLOSE
-                + "</body></html>";
+        Chrome c = chrome();
+        // A single concatenation: sized up front and copied once, no intermediate builder.
+        return PREHEADER_OPEN + esc(preheader) + c.open() + inner + c.close();
     }
 
     private String headerBar() {
@@ -725,7 +775,7 @@ public class EmailTemplateService {
                 + "</td></tr>";
     }
 
-    private String footer() {
+    private String footer(int year) {
         String wordmark = esc(brandName).replace(" ", "&nbsp;");
         String waNum = waNum();
         return "<tr><td align=\"center\" class=\"br-pad\" style=\"padding:26px 24px 6px;\">"
@@ -739,28 +789,32 @@ public class EmailTemplateService {
                 + "<a href=\"" + escAttr(facebookUrl) + "\" class=\"br-gold\" style=\"color:#8c6d3f;text-decoration:none;\">Facebook</a>"
                 + "</div>"
                 + "<div class=\"br-muted\" style=\"font-family:" + SANS + ";font-size:10.5px;color:#9c8c7d;margin-top:14px;\">"
-                + "P. IVA " + esc(brandVat) + " &nbsp;·&nbsp; © " + LocalDate.now().getYear() + " " + esc(brandName) + " — Tutti i diritti riservati"
+                + "P. IVA " + esc(brandVat) + " &nbsp;·&nbsp; © " + year + " " + esc(brandName) + " — Tutti i diritti riservati"
                 + "</div>"
                 + "</td></tr>";
     }
 
     // ===================== ROW HELPERS =====================
 
+    private static final CompiledTemplate HERO_ROW = tpl("""
+            <tr><td align="center" class="br-hero-pad" style="padding:40px 40px 8px;">
+              <div class="br-gold" style="font-family:{{SANS}};font-size:11px;letter-spacing:3.5px;text-transform:uppercase;color:#8c6d3f;font-weight:600;">%s</div>
+              <h1 class="br-ink br-h1" style="font-family:{{SERIF}};font-weight:300;font-size:46px;line-height:1.06;color:#3a2e27;margin:12px 0 0;">%s</h1>
+            </td></tr>
+            """);
+
     private String heroRow(String eyebrow, String h1) {
-        return """
-                <tr><td align="center" class="br-hero-pad" style="padding:40px 40px 8px;">
-                  <div class="br-gold" style="font-family:%s;font-size:11px;letter-spacing:3.5px;text-transform:uppercase;color:#8c6d3f;font-weight:600;">%s</div>
-                  <h1 class="br-ink br-h1" style="font-family:%s;font-weight:300;font-size:46px;line-height:1.06;color:#3a2e27;margin:12px 0 0;">%s</h1>
-                </td></tr>
-                """.formatted(SANS, esc(eyebrow), SERIF, esc(h1));
+        return HERO_ROW.render(esc(eyebrow), esc(h1));
     }
 
+    private static final CompiledTemplate INTRO_ROW = tpl("""
+            <tr><td class="br-pad" style="padding:18px 40px 4px;">
+              <p class="br-body" style="font-family:{{SANS}};font-size:15px;line-height:1.72;color:#574a41;margin:0;text-align:center;">%s</p>
+            </td></tr>
+            """);
+
     private String introRow(String html) {
-        return """
-                <tr><td class="br-pad" style="padding:18px 40px 4px;">
-                  <p class="br-body" style="font-family:%s;font-size:15px;line-height:1.72;color:#574a41;margin:0;text-align:center;">%s</p>
-                </td></tr>
-                """.formatted(SANS, html);
+        return INTRO_ROW.render(html);
     }
 
     private String ornamentRow() {
@@ -775,28 +829,32 @@ public class EmailTemplateService {
                 + "</td></tr>";
     }
 
+    private static final CompiledTemplate WHEN_ROW = tpl("""
+            <tr><td class="br-pad" style="padding:14px 40px 0;">
+              <div class="br-muted" style="font-family:{{SANS}};font-size:10px;letter-spacing:2.5px;text-transform:uppercase;color:#9c8c7d;font-weight:600;margin-bottom:8px;">Quando</div>
+              <div class="br-ink" style="font-family:{{SERIF}};font-size:25px;color:#3a2e27;line-height:1.2;">%s</div>
+              <div class="br-body" style="font-family:{{SANS}};font-size:15px;color:#574a41;margin-top:4px;">Ore <b class="br-ink" style="color:#3a2e27;">%s</b></div>
+            </td></tr>
+            """);
+
     private String whenRow(String dateStr, String timeStr) {
-        return """
-                <tr><td class="br-pad" style="padding:14px 40px 0;">
-                  <div class="br-muted" style="font-family:%s;font-size:10px;letter-spacing:2.5px;text-transform:uppercase;color:#9c8c7d;font-weight:600;margin-bottom:8px;">Quando</div>
-                  <div class="br-ink" style="font-family:%s;font-size:25px;color:#3a2e27;line-height:1.2;">%s</div>
-                  <div class="br-body" style="font-family:%s;font-size:15px;color:#574a41;margin-top:4px;">Ore <b class="br-ink" style="color:#3a2e27;">%s</b></div>
-                </td></tr>
-                """.formatted(SANS, SERIF, esc(dateStr), SANS, esc(timeStr));
+        return WHEN_ROW.render(esc(dateStr), esc(timeStr));
     }
 
+    private static final CompiledTemplate WHEN_RANGE_ROW = tpl("""
+            <tr><td class="br-pad" style="padding:14px 40px 0;">
+              <div class="br-muted" style="font-family:{{SANS}};font-size:10px;letter-spacing:2.5px;text-transform:uppercase;color:#9c8c7d;font-weight:600;margin-bottom:8px;">Quando</div>
+              <div class="br-ink" style="font-family:{{SERIF}};font-size:25px;color:#3a2e27;line-height:1.2;">%s</div>
+              <div class="br-body" style="font-family:{{SANS}};font-size:15px;color:#574a41;margin-top:4px;">Ore <b class="br-ink" style="color:#3a2e27;">%s</b></div>
+              %s
+            </td></tr>
+            """);
+
     /** when + optional duration range ("13:30–13:50 circa · ~20 min"). */
     private String whenRangeRow(String dateStr, String timeStr, String durationRange) {
         String rangeLine = (durationRange == null || durationRange.isBlank()) ? ""
                 : "<div class=\"br-muted\" style=\"font-family:" + SANS + ";font-size:13px;color:#9c8c7d;margin-top:7px;\">" + esc(durationRange) + "</div>";
-        return """
-                <tr><td class="br-pad" style="padding:14px 40px 0;">
-                  <div class="br-muted" style="font-family:%s;font-size:10px;letter-spacing:2.5px;text-transform:uppercase;color:#9c8c7d;font-weight:600;margin-bottom:8px;">Quando</div>
-                  <div class="br-ink" style="font-family:%s;font-size:25px;color:#3a2e27;line-height:1.2;">%s</div>
-                  <div class="br-body" style="font-family:%s;font-size:15px;color:#574a41;margin-top:4px;">Ore <b class="br-ink" style="color:#3a2e27;">%s</b></div>
-                  %s
-                </td></tr>
-                """.formatted(SANS, SERIF, esc(dateStr), SANS, esc(timeStr), rangeLine);
+        return WHEN_RANGE_ROW.render(esc(dateStr), esc(timeStr), rangeLine);
     }
 
     /** Reschedule "Prima → Ora" change block (PROMPT B): old muted + struck, new gold + bold.
@@ -925,28 +983,32 @@ public class EmailTemplateService {
                 + "</td></tr>";
     }
 
+    private static final CompiledTemplate LABELED_LINE_ROW = tpl("""
+            <tr><td class="br-pad" style="padding:20px 40px 0;">
+              <div class="br-muted" style="font-family:{{SANS}};font-size:10px;letter-spacing:2.5px;text-transform:uppercase;color:#9c8c7d;font-weight:600;margin-bottom:5px;">%s</div>
+              <div class="%s" style="%s">%s</div>
+            </td></tr>
+            """);
+
     private String labeledLineRow(String label, String value, boolean serif) {
         String valStyle = serif
                 ? "font-family:" + SERIF + ";font-size:21px;color:#3a2e27;line-height:1.25;"
                 : "font-family:" + SANS + ";font-size:15px;color:#574a41;";
         String valClass = serif ? "br-ink" : "br-body";
-        return """
-                <tr><td class="br-pad" style="padding:20px 40px 0;">
-                  <div class="br-muted" style="font-family:%s;font-size:10px;letter-spacing:2.5px;text-transform:uppercase;color:#9c8c7d;font-weight:600;margin-bottom:5px;">%s</div>
-                  <div class="%s" style="%s">%s</div>
-                </td></tr>
-                """.formatted(SANS, esc(label), valClass, valStyle, esc(value));
+        return LABELED_LINE_ROW.render(esc(label), valClass, valStyle, esc(value));
     }
 
+    private static final CompiledTemplate KV_ROW = tpl("""
+            <tr><td class="br-pad" style="padding:18px 40px 0;">
+              <table role="presentation" width="100%%" cellspacing="0" cellpadding="0" border="0"><tr>
+                <td><span class="br-muted" style="font-family:{{SANS}};font-size:10px;letter-spacing:2px;text-transform:uppercase;color:#9c8c7d;font-weight:600;">%s</span></td>
+                <td align="right"><span class="br-ink" style="font-family:{{SANS}};font-size:14px;color:#3a2e27;font-weight:700;letter-spacing:0.5px;">%s</span></td>
+              </tr></table>
+            </td></tr>
+            """);
+
     private String kvRow(String label, String value) {
-        return """
-                <tr><td class="br-pad" style="padding:18px 40px 0;">
-                  <table role="presentation" width="100%%" cellspacing="0" cellpadding="0" border="0"><tr>
-                    <td><span class="br-muted" style="font-family:%s;font-size:10px;letter-spacing:2px;text-transform:uppercase;color:#9c8c7d;font-weight:600;">%s</span></td>
-                    <td align="right"><span class="br-ink" style="font-family:%s;font-size:14px;color:#3a2e27;font-weight:700;letter-spacing:0.5px;">%s</span></td>
-                  </tr></table>
-                </td></tr>
-                """.formatted(SANS, esc(label), SANS, esc(value));
+        return KV_ROW.render(esc(label), esc(value));
     }
 
     /** Prominent single-amount panel (refund emails): label + big serif amount, centered. */
@@ -959,32 +1021,41 @@ public class EmailTemplateService {
                 + "</td></tr></table></td></tr>";
     }
 
-    /** Panel with an items list and a total row. itemsHtml comes from itemRow(...). */
-    private String panelRow(String pad, String label, String itemsHtml, String totalLabel, String totalAmount) {
-        return """
-                <tr><td class="br-pad" style="padding:%s;">
-                  <table role="presentation" width="100%%" cellspacing="0" cellpadding="0" border="0" class="br-panel" style="background:#faf5ec;border:1px solid #e7dbca;border-radius:14px;">
-                    <tr><td style="padding:16px 18px 6px;">
-                      <div class="br-gold" style="font-family:%s;font-size:10px;letter-spacing:2.5px;text-transform:uppercase;color:#8c6d3f;font-weight:700;">%s</div>
-                    </td></tr>
-                    <tr><td style="padding:0 18px;">
-                      <table role="presentation" width="100%%" cellspacing="0" cellpadding="0" border="0">%s</table>
-                    </td></tr>
-                    <tr><td style="padding:4px 18px 16px;">
-                      <table role="presentation" width="100%%" cellspacing="0" cellpadding="0" border="0">
-                        <tr><td class="br-hair" style="border-top:1px solid #e3d4c0;padding-top:14px;">
-                          <table role="presentation" width="100%%" cellspacing="0" cellpadding="0" border="0"><tr>
-                            <td><span class="br-muted" style="font-family:%s;font-size:10px;letter-spacing:2px;text-transform:uppercase;color:#9c8c7d;font-weight:700;">%s</span></td>
-                            <td align="right" style="white-space:nowrap;"><span class="br-ink" style="font-family:%s;font-size:24px;color:#3a2e27;font-weight:700;">%s</span></td>
-                          </tr></table>
-                        </td></tr>
-                      </table>
+    private static final CompiledTemplate PANEL_ROW = tpl("""
+            <tr><td class="br-pad" style="padding:%s;">
+              <table role="presentation" width="100%%" cellspacing="0" cellpadding="0" border="0" class="br-panel" style="background:#faf5ec;border:1px solid #e7dbca;border-radius:14px;">
+                <tr><td style="padding:16px 18px 6px;">
+                  <div class="br-gold" style="font-family:{{SANS}};font-size:10px;letter-spacing:2.5px;text-transform:uppercase;color:#8c6d3f;font-weight:700;">%s</div>
+                </td></tr>
+                <tr><td style="padding:0 18px;">
+                  <table role="presentation" width="100%%" cellspacing="0" cellpadding="0" border="0">%s</table>
+                </td></tr>
+                <tr><td style="padding:4px 18px 16px;">
+                  <table role="presentation" width="100%%" cellspacing="0" cellpadding="0" border="0">
+                    <tr><td class="br-hair" style="border-top:1px solid #e3d4c0;padding-top:14px;">
+                      <table role="presentation" width="100%%" cellspacing="0" cellpadding="0" border="0"><tr>
+                        <td><span class="br-muted" style="font-family:{{SANS}};font-size:10px;letter-spacing:2px;text-transform:uppercase;color:#9c8c7d;font-weight:700;">%s</span></td>
+                        <td align="right" style="white-space:nowrap;"><span class="br-ink" style="font-family:{{SANS}};font-size:24px;color:#3a2e27;font-weight:700;">%s</span></td>
+                      </tr></table>
                     </td></tr>
                   </table>
                 </td></tr>
-                """.formatted(pad, SANS, esc(label), itemsHtml, SANS, esc(totalLabel), SANS, totalAmount);
+              </table>
+            </td></tr>
+            """);
+
+    /** Panel with an items list and a total row. itemsHtml comes from itemRow(...). */
+    private String panelRow(String pad, String label, String itemsHtml, String totalLabel, String totalAmount) {
+        return PANEL_ROW.render(pad, esc(label), itemsHtml, esc(totalLabel), totalAmount);
     }
 
+    private static final CompiledTemplate ITEM_ROW = tpl("""
+            <tr>
+              <td class="%s" style="padding:9px 0;%s"><span class="br-ink" style="font-family:{{SANS}};font-size:15px;color:#3a2e27;font-weight:600;">%s</span>%s</td>
+              <td align="right" class="%s" style="padding:9px 0;%swhite-space:nowrap;">%s</td>
+            </tr>
+            """);
+
     /** A single line inside a panel's items table. price/meta may be null. */
     private String itemRow(String name, String meta, String price, boolean last) {
         String bb = last ? "" : "border-bottom:1px solid #ece0d0;";
@@ -993,83 +1064,92 @@ public class EmailTemplateService {
                 : "<span class=\"br-muted\" style=\"font-family:" + SANS + ";font-size:12px;color:#9c8c7d;\">&nbsp;· " + esc(meta) + "</span>";
         String priceCell = (price == null || price.isBlank()) ? ""
                 : "<span class=\"br-gold\" style=\"font-family:" + SANS + ";font-size:15px;color:#8c6d3f;font-weight:700;\">" + price + "</span>";
-        return """
-                <tr>
-                  <td class="%s" style="padding:9px 0;%s"><span class="br-ink" style="font-family:%s;font-size:15px;color:#3a2e27;font-weight:600;">%s</span>%s</td>
-                  <td align="right" class="%s" style="padding:9px 0;%swhite-space:nowrap;">%s</td>
-                </tr>
-                """.formatted(cls, bb, SANS, esc(name), metaSpan, cls, bb, priceCell);
+        return ITEM_ROW.render(cls, bb, esc(name), metaSpan, cls, bb, priceCell);
     }
 
+    private static final CompiledTemplate RITIRO_ROW = tpl("""
+            <tr><td class="br-pad" style="padding:18px 40px 0;">
+              <table role="presentation" width="100%%" cellspacing="0" cellpadding="0" border="0" class="br-panel" style="background:rgba(184,151,106,0.10);border:1px solid #e7dbca;border-radius:14px;">
+                <tr><td style="padding:15px 18px;">
+                  <div class="br-gold" style="font-family:{{SANS}};font-size:10px;letter-spacing:2.5px;text-transform:uppercase;color:#8c6d3f;font-weight:700;margin-bottom:6px;">Ritiro</div>
+                  <div class="br-ink" style="font-family:{{SERIF}};font-size:21px;color:#3a2e27;line-height:1.25;">%s</div>
+                  <div class="br-body" style="font-family:{{SANS}};font-size:14px;color:#574a41;margin-top:4px;">%s</div>
+                </td></tr>
+              </table>
+            </td></tr>
+            """);
+
     /** Tinted pickup box (order). */
     private String ritiroRow(String mainLine, String subLine) {
-        return """
-                <tr><td class="br-pad" style="padding:18px 40px 0;">
-                  <table role="presentation" width="100%%" cellspacing="0" cellpadding="0" border="0" class="br-panel" style="background:rgba(184,151,106,0.10);border:1px solid #e7dbca;border-radius:14px;">
-                    <tr><td style="padding:15px 18px;">
-                      <div class="br-gold" style="font-family:%s;font-size:10px;letter-spacing:2.5px;text-transform:uppercase;color:#8c6d3f;font-weight:700;margin-bottom:6px;">Ritiro</div>
-                      <div class="br-ink" style="font-family:%s;font-size:21px;color:#3a2e27;line-height:1.25;">%s</div>
-                      <div class="br-body" style="font-family:%s;font-size:14px;color:#574a41;margin-top:4px;">%s</div>
-                    </td></tr>
-                  </table>
-                </td></tr>
-                """.formatted(SANS, SERIF, esc(mainLine), SANS, esc(subLine));
+        return RITIRO_ROW.render(esc(mainLine), esc(subLine));
     }
 
+    private static final CompiledTemplate DETAILS_PANEL_ROW = tpl("""
+            <tr><td class="br-pad" style="padding:18px 40px 0;">
+              <table role="presentation" width="100%%" cellspacing="0" cellpadding="0" border="0" class="br-panel" style="background:#faf5ec;border:1px solid #e7dbca;border-radius:14px;">
+                <tr><td style="padding:6px 18px;">
+                  <table role="presentation" width="100%%" cellspacing="0" cellpadding="0" border="0">%s</table>
+                </td></tr>
+              </table>
+            </td></tr>
+            """);
+
     /** Panel of stacked label/value rows (admin + informational emails). */
     private String detailsPanelRow(String[][] rows) {
         StringBuilder inner = new StringBuilder();
         for (int i = 0; i < rows.length; i++) {
             inner.append(detailRow(rows[i][0], rows[i][1], i == rows.length - 1));
         }
-        return """
-                <tr><td class="br-pad" style="padding:18px 40px 0;">
-                  <table role="presentation" width="100%%" cellspacing="0" cellpadding="0" border="0" class="br-panel" style="background:#faf5ec;border:1px solid #e7dbca;border-radius:14px;">
-                    <tr><td style="padding:6px 18px;">
-                      <table role="presentation" width="100%%" cellspacing="0" cellpadding="0" border="0">%s</table>
-                    </td></tr>
-                  </table>
-                </td></tr>
-                """.formatted(inner.toString());
+        return DETAILS_PANEL_ROW.render(inner.toString());
     }
 
+    private static final CompiledTemplate DETAIL_ROW = tpl("""
+            <tr><td class="%s" style="padding:10px 0;%s">
+              <div class="br-muted" style="font-family:{{SANS}};font-size:11px;letter-spacing:1.5px;text-transform:uppercase;color:#9c8c7d;margin-bottom:3px;">%s</div>
+              <div class="br-ink" style="font-family:{{SANS}};font-size:15px;color:#3a2e27;font-weight:600;">%s</div>
+            </td></tr>
+            """);
+
     private String detailRow(String label, String value, boolean last) {
         String bb = last ? "" : "border-bottom:1px solid #ece0d0;";
         String cls = last ? "" : "br-rowhair";
-        return """
-                <tr><td class="%s" style="padding:10px 0;%s">
-                  <div class="br-muted" style="font-family:%s;font-size:11px;letter-spacing:1.5px;text-transform:uppercase;color:#9c8c7d;margin-bottom:3px;">%s</div>
-                  <div class="br-ink" style="font-family:%s;font-size:15px;color:#3a2e27;font-weight:600;">%s</div>
-                </td></tr>
-                """.formatted(cls, bb, SANS, esc(label), SANS, esc(value));
+        return DETAIL_ROW.render(cls, bb, esc(label), esc(value));
     }
 
+    private static final CompiledTemplate BUTTON_ROW = tpl("""
+            <tr><td align="center" class="br-pad" style="padding:30px 40px 6px;">
+              <!--[if mso]>
+              <v:roundrect xmlns:v="urn:schemas-microsoft-com:vml" xmlns:w="urn:schemas-microsoft-com:office:word" href="%s" style="height:48px;v-text-anchor:middle;width:%spx;" arcsize="27%%" strokecolor="#b8976a" fillcolor="#3a2e27">
+                <w:anchorlock/>
+                <center style="color:#fbf4e9;font-family:{{SANS}};font-size:12px;font-weight:700;letter-spacing:2px;text-transform:uppercase;">%s</center>
+              </v:roundrect>
+              <![endif]-->
+              <!--[if !mso]><!-->
+              <a href="%s" class="br-btn" style="display:inline-block;background:#3a2e27;color:#fbf4e9;text-decoration:none;font-family:{{SANS}};font-size:12px;font-weight:700;letter-spacing:2px;text-transform:uppercase;padding:15px 34px;border-radius:13px;border:1px solid #b8976a;">%s</a>
+              <!--<![endif]-->
+            </td></tr>
+            """);
+
     private String buttonRow(String label, String url) {
         int w = Math.max(200, label.length() * 10 + 70);
-        return """
-                <tr><td align="center" class="br-pad" style="padding:30px 40px 6px;">
-                  <!--[if mso]>
-                  <v:roundrect xmlns:v="urn:schemas-microsoft-com:vml" xmlns:w="urn:schemas-microsoft-com:office:word" href="%s" style="height:48px;v-text-anchor:middle;width:%dpx;" arcsize="27%%" strokecolor="#b8976a" fillcolor="#3a2e27">
-                    <w:anchorlock/>
-                    <center style="color:#fbf4e9;font-family:%s;font-size:12px;font-weight:700;letter-spacing:2px;text-transform:uppercase;">%s</center>
-                  </v:roundrect>
-                  <![endif]-->
-                  <!--[if !mso]><!-->
-                  <a href="%s" class="br-btn" style="display:inline-block;background:#3a2e27;color:#fbf4e9;text-decoration:none;font-family:%s;font-size:12px;font-weight:700;letter-spacing:2px;text-transform:uppercase;padding:15px 34px;border-radius:13px;border:1px solid #b8976a;">%s</a>
-                  <!--<![endif]-->
-                </td></tr>
-                """.formatted(escAttr(url), w, SANS, esc(label), escAttr(url), SANS, esc(label));
+        return BUTTON_ROW.render(escAttr(url), String.valueOf(w), esc(label), escAttr(url), esc(label));
     }
 
+    private static final CompiledTemplate HELPER_ROW = tpl("""
+            <tr><td align="center" class="br-pad" style="padding:20px 40px 0;">
+              <p class="br-muted" style="font-family:{{SANS}};font-size:13px;line-height:1.6;color:#9c8c7d;margin:0;">%s</p>
+            </td></tr>
+            """);
+
     private String helperRow(String html) {
-        return """
-                <tr><td align="center" class="br-pad" style="padding:20px 40px 0;">
-                  <p class="br-muted" style="font-family:%s;font-size:13px;line-height:1.6;color:#9c8c7d;margin:0;">%s</p>
-                </td></tr>
-                """.formatted(SANS, html);
+        return HELPER_ROW.render(html);
     }
 
     private String contactPillsRow() {
+        return chrome().contactPills();
+    }
+
+    private String renderContactPills() {
         String wa = pill("WhatsApp", "https://wa.me/" + waNum(),
                 "<span style=\"color:#2ead5b;\">●</span>&nbsp; ");
         String call = pill("Chiama", "tel:" + brandPhoneE164, "");
@@ -1077,21 +1157,25 @@ public class EmailTemplateService {
         return "<tr><td align=\"center\" style=\"padding:12px 30px 0;\">" + wa + call + mail + "</td></tr>";
     }
 
+    private static final CompiledTemplate PILL = tpl("""
+            <a href="%s" class="br-pill" style="display:inline-block;margin:5px 4px;font-family:{{SANS}};font-size:12px;color:#3a2e27;text-decoration:none;border:1px solid #e3d4c0;padding:9px 16px;border-radius:999px;background:#faf5ec;">%s%s</a>
+            """);
+
     private String pill(String label, String url, String dot) {
-        return """
-                <a href="%s" class="br-pill" style="display:inline-block;margin:5px 4px;font-family:%s;font-size:12px;color:#3a2e27;text-decoration:none;border:1px solid #e3d4c0;padding:9px 16px;border-radius:999px;background:#faf5ec;">%s%s</a>
-                """.formatted(escAttr(url), SANS, dot, esc(label));
+        return PILL.render(escAttr(url), dot, esc(label));
     }
 
+    private static final CompiledTemplate SIGNOFF_ROW = tpl("""
+            <tr><td align="center" class="br-pad" style="padding:26px 40px 36px;">
+              <div class="br-rowhair" style="border-top:1px solid #ece0d0;padding-top:20px;">
+                <span class="br-gold" style="font-family:{{SERIF}};font-size:13px;color:#b8976a;letter-spacing:6px;">✦</span>
+                <p class="br-muted" style="font-family:{{SERIF}};font-size:17px;font-style:italic;color:#7a6a5d;margin:8px 0 0;line-height:1.5;">%s</p>
+              </div>
+            </td></tr>
+            """);
+
     private String signoffRow(String lineHtml) {
-        return """
-                <tr><td align="center" class="br-pad" style="padding:26px 40px 36px;">
-                  <div class="br-rowhair" style="border-top:1px solid #ece0d0;padding-top:20px;">
-                    <span class="br-gold" style="font-family:%s;font-size:13px;color:#b8976a;letter-spacing:6px;">✦</span>
-                    <p class="br-muted" style="font-family:%s;font-size:17px;font-style:italic;color:#7a6a5d;margin:8px 0 0;line-height:1.5;">%s</p>
-                  </div>
-                </td></tr>
-                """.formatted(SERIF, SERIF, lineHtml);
+        return SIGNOFF_ROW.render(lineHtml);
     }
 
     // ===================== PRIMITIVES =====================
@@ -1233,12 +1317,28 @@ public class EmailTemplateService {
         return (s == null || s.isBlank()) ? "-" : s;
     }
 
+    /** One pass; the common case (nothing to escape) returns the string itself. */
     private String esc(String s) {
         if (s == null) return "-";
-        return s.replace("&", "&amp;")
-                .replace("<", "&lt;")
-                .replace(">", "&gt;")
-                .replace("\"", "&quot;");
+        int i = 0;
+        while (i < s.length() && !needsEscape(s.charAt(i))) i++;
+        if (i == s.length()) return s;
+        StringBuilder out = new StringBuilder(s.length() + 16).append(s, 0, i);
+        for (; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                default -> out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    private static boolean needsEscape(char c) {
+        return c == '&' || c == '<' || c == '>' || c == '"';
     }
 
     private String escAttr(String s) {
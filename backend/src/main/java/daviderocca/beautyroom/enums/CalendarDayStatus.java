@@ -0,0 +1,7 @@
+package daviderocca.beautyroom.enums;
+
+public enum CalendarDayStatus {
+    CLOSED,     // weekday chiuso, chiusura totale o nessuno slot che stia negli orari
+    FULL,       // aperto ma tutti gli slot per la durata sono occupati ("Pieno")
+    AVAILABLE   // almeno uno slot libero (firstSlot valorizzato)
+}
@@ -0,0 +1,7 @@
+package daviderocca.beautyroom.exceptions;
+
+public class TooManyRequestsException extends RuntimeException {
+	public TooManyRequestsException(String msg) {
+		super(msg);
+	}
+}
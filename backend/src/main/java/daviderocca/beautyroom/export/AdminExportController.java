@@ -0,0 +1,83 @@
+package daviderocca.beautyroom.export;
+
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+/**
+ * CSV downloads for the admin. Rows are written straight to the servlet output stream while
+ * the cursor advances (see {@link CsvExportService}), so there is no body size limit and no
+ * list is ever built; the range is validated and an export slot taken before the first byte
+ * goes out, so both failures still get the usual JSON body.
+ */
+@RestController
+@RequestMapping("/admin/export")
+@PreAuthorize("hasRole('ADMIN')")
+@RequiredArgsConstructor
+public class AdminExportController {
+
+    private final CsvExportService csvExportService;
+
+    @GetMapping("/bookings.csv")
+    public void bookings(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            HttpServletResponse response
+    ) throws IOException {
+        CsvExportService.requireRange(from, to);
+        try (CsvExportService.ExportSlot slot = csvExportService.acquireSlot()) {
+            csvExportService.exportBookings(from, to, attachment(response, CsvExportService.fileName("prenotazioni", from, to)));
+        }
+    }
+
+    @GetMapping("/orders.csv")
+    public void orders(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            HttpServletResponse response
+    ) throws IOException {
+        CsvExportService.requireRange(from, to);
+        try (CsvExportService.ExportSlot slot = csvExportService.acquireSlot()) {
+            csvExportService.exportOrders(from, to, attachment(response, CsvExportService.fileName("ordini", from, to)));
+        }
+    }
+
+    @GetMapping("/revenue.csv")
+    public void revenue(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            HttpServletResponse response
+    ) throws IOException {
+        CsvExportService.requireRange(from, to);
+        try (CsvExportService.ExportSlot slot = csvExportService.acquireSlot()) {
+            csvExportService.exportRevenue(from, to, attachment(response, CsvExportService.fileName("incassi", from, to)));
+        }
+    }
+
+    @GetMapping("/customers.csv")
+    public void customers(HttpServletResponse response) throws IOException {
+        try (CsvExportService.ExportSlot slot = csvExportService.acquireSlot()) {
+            csvExportService.exportCustomers(attachment(response, CsvExportService.fileName("clienti", null, null)));
+        }
+    }
+
+    // Headers only: range and slot are checked before this, so errors still get the usual JSON body.
+    private static OutputStream attachment(HttpServletResponse response, String fileName) throws IOException {
+        response.setContentType("text/csv;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(fileName).build().toString());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        return response.getOutputStream();
+    }
+}
@@ -0,0 +1,253 @@
+package daviderocca.beautyroom.export;
+
+import com.opencsv.CSVWriter;
+import com.opencsv.ICSVWriter;
+import daviderocca.beautyroom.exceptions.BadRequestException;
+import daviderocca.beautyroom.exceptions.TooManyRequestsException;
+import daviderocca.beautyroom.report.RevenueCell;
+import daviderocca.beautyroom.services.ReportService;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.query.SelectionQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Streaming CSV exports for the admin (bookings, orders, revenue, customers).
+ *
+ * Rows are read with a FORWARD_ONLY cursor on a {@link StatelessSession} (no persistence
+ * context, nothing accumulates per row) with a JDBC fetch size, inside a read-only transaction
+ * so the PostgreSQL driver really streams instead of buffering the result set. Each row is
+ * written to the response as soon as it is read, and the writer is flushed every
+ * {@link #FLUSH_EVERY} rows: memory stays the same for 100 rows or 500k.
+ *
+ * Revenue is exported as the report's daily (day, leg, channel) cells, computed one month at
+ * a time with the same leg queries as {@link ReportService}, so the figures match /admin/report.
+ *
+ * A streamed export holds a pooled connection and an open cursor for the whole download, so
+ * at most {@code app.export.max-concurrent} run at once ({@link #acquireSlot()}, extra requests
+ * get 429) and the cursor query has a {@code app.export.query-timeout-seconds} timeout.
+ *
+ * Files are UTF-8 with a BOM so Excel opens accents correctly; dates are ISO.
+ */
+@Service
+@Slf4j
+public class CsvExportService {
+
+    private static final int FETCH_SIZE = 500;
+    private static final int FLUSH_EVERY = 1_000;
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ReportService reportService;
+    private final Semaphore slots;
+    private final int queryTimeoutSeconds;
+
+    /** A running export's share of {@code app.export.max-concurrent}; closing it frees the slot. */
+    public interface ExportSlot extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    public CsvExportService(EntityManagerFactory entityManagerFactory,
+                            ReportService reportService,
+                            @Value("${app.export.max-concurrent:2}") int maxConcurrent,
+                            @Value("${app.export.query-timeout-seconds:300}") int queryTimeoutSeconds) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.reportService = reportService;
+        this.slots = new Semaphore(Math.max(1, maxConcurrent));
+        this.queryTimeoutSeconds = Math.max(1, queryTimeoutSeconds);
+    }
+
+    /**
+     * Takes one of the export slots without waiting; throws {@link TooManyRequestsException} (429)
+     * when they are all busy. Callers take it before writing any header or byte of the file.
+     */
+    public ExportSlot acquireSlot() {
+        if (!slots.tryAcquire()) {
+            throw new TooManyRequestsException("Troppi export in corso, riprova tra qualche minuto.");
+        }
+        return slots::release;
+    }
+
+    // ==========================================================================
+    // EXPORTS
+    // ==========================================================================
+
+    public long exportBookings(LocalDate from, LocalDate to, OutputStream out) {
+        requireRange(from, to);
+        return scroll(out,
+                new String[]{"id", "inizio", "fine", "stato", "cliente", "email", "telefono", "servizio",
+                        "operatore", "pagamento", "totale_personalizzato", "pagato_il", "saldato_il",
+                        "annullato_il", "no_show"},
+                "SELECT b.bookingId, b.startTime, b.endTime, b.bookingStatus, b.customerName, b.customerEmail, "
+              + "       b.customerPhone, COALESCE(s.title, b.customServiceName), st.displayName, b.paymentMethod, "
+              + "       b.customTotalPrice, b.paidAt, b.settledAt, b.canceledAt, b.noShow "
+              + "FROM Booking b LEFT JOIN b.service s LEFT JOIN b.staffMember st "
+              + "WHERE b.startTime >= :from AND b.startTime < :to "
+              + "ORDER BY b.startTime",
+                Map.of("from", from.atStartOfDay(), "to", to.plusDays(1).atStartOfDay()));
+    }
+
+    public long exportOrders(LocalDate from, LocalDate to, OutputStream out) {
+        requireRange(from, to);
+        return scroll(out,
+                new String[]{"id", "creato_il", "stato", "nome", "cognome", "email", "telefono", "pagamento",
+                        "pagato_il", "annullato_il", "articoli", "totale"},
+                "SELECT o.orderId, o.createdAt, o.orderStatus, o.customerName, o.customerSurname, o.customerEmail, "
+              + "       o.customerPhone, o.paymentMethod, o.paidAt, o.canceledAt, "
+              + "       (SELECT COALESCE(SUM(i.quantity), 0) FROM OrderItem i WHERE i.order = o), "
+              + "       (SELECT COALESCE(SUM(i.price * i.quantity), 0) FROM OrderItem i WHERE i.order = o) "
+              + "FROM Order o "
+              + "WHERE o.createdAt >= :from AND o.createdAt < :to "
+              + "ORDER BY o.createdAt",
+                Map.of("from", from.atStartOfDay(), "to", to.plusDays(1).atStartOfDay()));
+    }
+
+    public long exportCustomers(OutputStream out) {
+        return scroll(out,
+                new String[]{"id", "nome", "telefono", "email", "creato_il", "prenotazioni", "ultima_prenotazione"},
+                "SELECT c.customerId, c.fullName, c.phone, c.email, c.createdAt, "
+              + "       (SELECT COUNT(b) FROM Booking b WHERE b.customer = c), "
+              + "       (SELECT MAX(b.startTime) FROM Booking b WHERE b.customer = c) "
+              + "FROM Customer c "
+              + "ORDER BY c.fullName, c.customerId",
+                Map.of());
+    }
+
+    /** Daily revenue cells, one month of leg queries at a time (bounded by a month, not the range). */
+    public long exportRevenue(LocalDate from, LocalDate to, OutputStream out) {
+        requireRange(from, to);
+        ICSVWriter csv = open(out);
+        csv.writeNext(new String[]{"giorno", "voce", "canale", "importo", "movimenti"}, false);
+        long rows = 0;
+        for (LocalDate chunkFrom = from; !chunkFrom.isAfter(to); ) {
+            LocalDate monthEnd = chunkFrom.with(TemporalAdjusters.lastDayOfMonth());
+            LocalDate chunkTo = monthEnd.isAfter(to) ? to : monthEnd;
+            List<RevenueCell> cells = reportService.rawCells(chunkFrom, chunkTo).stream()
+                    .sorted(Comparator.comparing(RevenueCell::day)
+                            .thenComparing(RevenueCell::leg)
+                            .thenComparing(RevenueCell::online))
+                    .toList();
+            for (RevenueCell c : cells) {
+                csv.writeNext(new String[]{c.day().toString(), c.leg().name(), c.online() ? "online" : "negozio",
+                        c.amount().toPlainString(), String.valueOf(c.entries())}, false);
+                rows++;
+            }
+            flush(csv);
+            chunkFrom = chunkTo.plusDays(1);
+        }
+        flush(csv);
+        return rows;
+    }
+
+    // ==========================================================================
+    // STREAMING
+    // ==========================================================================
+
+    private long scroll(OutputStream out, String[] header, String hql, Map<String, Object> params) {
+        ICSVWriter csv = open(out);
+        csv.writeNext(header, false);
+        long rows = 0;
+        long started = System.nanoTime();
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            Transaction tx = session.beginTransaction();
+            try {
+                SelectionQuery<Object[]> query = session.createSelectionQuery(hql, Object[].class)
+                        .setFetchSize(FETCH_SIZE)
+                        .setTimeout(queryTimeoutSeconds)
+                        .setReadOnly(true);
+                params.forEach(query::setParameter);
+                try (ScrollableResults<Object[]> results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+                    while (results.next()) {
+                        csv.writeNext(format(results.get()), false);
+                        if (++rows % FLUSH_EVERY == 0) flush(csv);
+                    }
+                }
+            } finally {
+                // Read-only: nothing to commit; rollback just releases the cursor and the connection.
+                tx.rollback();
+            }
+        }
+        flush(csv);
+        log.info("CSV export: {} rows in {} ms", rows, (System.nanoTime() - started) / 1_000_000);
+        return rows;
+    }
+
+    private static ICSVWriter open(OutputStream out) {
+        try {
+            out.write(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF}); // UTF-8 BOM for Excel
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new CSVWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024));
+    }
+
+    private static void flush(ICSVWriter csv) {
+        try {
+            csv.flush();
+        } catch (IOException e) {
+            // Client went away mid-download: stop reading rows.
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String[] format(Object[] row) {
+        String[] out = new String[row.length];
+        for (int i = 0; i < row.length; i++) out[i] = format(row[i]);
+        return out;
+    }
+
+    private static String format(Object v) {
+        if (v == null) return "";
+        if (v instanceof LocalDateTime t) return t.format(DATE_TIME);
+        if (v instanceof BigDecimal d) return d.toPlainString();
+        if (v instanceof Enum<?> e) return e.name();
+        if (v instanceof String str) return neutralizeFormula(str);
+        return v.toString();
+    }
+
+    /**
+     * Names and notes come from public forms: a cell starting with = + - @ tab or CR would be run
+     * as a formula by Excel ("-1+1+cmd|…" too), so it gets a leading apostrophe. That includes
+     * phone numbers ("+39 333…"): Excel shows them without the apostrophe.
+     */
+    private static String neutralizeFormula(String s) {
+        if (s.isEmpty()) return s;
+        char c = s.charAt(0);
+        boolean formula = c == '=' || c == '+' || c == '-' || c == '@' || c == '\t' || c == '\r';
+        return formula ? "'" + s : s;
+    }
+
+    static void requireRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null) throw new BadRequestException("Range obbligatorio.");
+        if (from.isAfter(to)) throw new BadRequestException("'from' non può essere dopo 'to'.");
+    }
+
+    /** Attachment name for an export, e.g. {@code prenotazioni_2026-01-01_2026-01-31.csv}. */
+    static String fileName(String dataset, LocalDate from, LocalDate to) {
+        return from == null ? dataset + ".csv" : dataset + "_" + from + "_" + to + ".csv";
+    }
+}
@@ -5,14 +5,10 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.UUID;
 
 @Repository
 public interface LikeRepository extends JpaRepository<Like, Long> {
 
-    boolean existsByEntityTypeAndEntityIdAndIpHashAndCreatedAtAfter(
-            String entityType, UUID entityId, String ipHash, LocalDateTime after);
-
-    List<Like> findByEntityTypeAndEntityIdAndIpHashAndCreatedAtAfter(
-            String entityType, UUID entityId, String ipHash, LocalDateTime after);
+    /** Startup: the last 24h of likes seed LikeService's rate limit. */
+    List<Like> findByCreatedAtAfter(LocalDateTime after);
 }
@@ -1,143 +1,126 @@
 package daviderocca.beautyroom.likes;
 
-import daviderocca.beautyroom.entities.Product;
-import daviderocca.beautyroom.entities.Result;
-import daviderocca.beautyroom.entities.ServiceItem;
-import daviderocca.beautyroom.repositories.ProductRepository;
-import daviderocca.beautyroom.repositories.ResultRepository;
-import daviderocca.beautyroom.repositories.ServiceItemRepository;
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.HexFormat;
 import java.util.Set;
 import java.util.UUID;
 
+/**
+ * Like pubblici su servizi, prodotti e risultati.
+ *
+ * Nessuna query per click: il rate limit (1 like per IP per entità ogni 24h) è un set in
+ * memoria dei like recenti, caricato dalla tabella likes all'avvio; contatori e righe like
+ * passano da {@link LikeWriteBehind}, che li scrive a blocchi. Il rate limit vale per
+ * istanza: dietro un load balancer uno stesso IP può mettere un like per istanza.
+ */
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class LikeService {
 
-    private final LikeRepository likeRepository;
-    private final ServiceItemRepository serviceItemRepository;
-    private final ProductRepository productRepository;
-    private final ResultRepository resultRepository;
+    static final int DEDUPE_HOURS = 24;
 
     private static final Set<String> VALID_TYPES = Set.of("SERVICE", "PRODUCT", "RESULT");
 
+    private final LikeRepository likeRepository;
+    private final LikeWriteBehind writeBehind;
+
+    /** "TYPE:entityId:ipHash" → momento del like; ogni voce scade 24h dopo il suo like. */
+    private final Cache<String, LocalDateTime> recentLikes;
+
+    public LikeService(LikeRepository likeRepository,
+                       LikeWriteBehind writeBehind,
+                       @Value("${app.likes.dedupe.max-entries:500000}") long maxEntries) {
+        this.likeRepository = likeRepository;
+        this.writeBehind = writeBehind;
+        this.recentLikes = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, LocalDateTime>() {
+                    @Override
+                    public long expireAfterCreate(String key, LocalDateTime likedAt, long currentTime) {
+                        return untilExpiry(likedAt);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, LocalDateTime likedAt, long currentTime, long currentDuration) {
+                        return untilExpiry(likedAt);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, LocalDateTime likedAt, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /** Like delle ultime 24h: il rate limit sopravvive a un riavvio. */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadRecentLikes() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(DEDUPE_HOURS);
+        likeRepository.findByCreatedAtAfter(cutoff)
+                .forEach(l -> recentLikes.asMap().merge(key(l.getEntityType(), l.getEntityId(), l.getIpHash()),
+                        l.getCreatedAt(), (a, b) -> a.isAfter(b) ? a : b));
+        log.info("Like recenti caricati: {}", recentLikes.estimatedSize());
+    }
+
     /**
      * Registra un like per l'entità specificata.
      * Rate limit: 1 like per IP (hashed) per entità ogni 24h.
      * Se il rate limit è attivo restituisce il contatore corrente senza modificarlo.
      */
-    @Transactional
     public int addLike(String entityType, UUID entityId, String rawIp) {
         String type = entityType.toUpperCase();
         if (!VALID_TYPES.contains(type)) {
             throw new IllegalArgumentException("Tipo entità non valido: " + type);
         }
+        if (!writeBehind.exists(type, entityId)) return 0;
 
         String ipHash = hashIp(rawIp);
-        LocalDateTime cutoff = LocalDateTime.now().minusHours(24);
-
-        boolean alreadyLiked = likeRepository
-                .existsByEntityTypeAndEntityIdAndIpHashAndCreatedAtAfter(
-                        type, entityId, ipHash, cutoff);
-
-        if (alreadyLiked) {
-            return getCurrentCount(type, entityId);
+        LocalDateTime now = LocalDateTime.now();
+        // putIfAbsent: due click simultanei dallo stesso IP contano una volta sola
+        if (recentLikes.asMap().putIfAbsent(key(type, entityId, ipHash), now) != null) {
+            return writeBehind.count(type, entityId);
         }
-
-        likeRepository.save(Like.builder()
-                .entityType(type)
-                .entityId(entityId)
-                .ipHash(ipHash)
-                .createdAt(LocalDateTime.now())
-                .build());
-
-        return incrementCount(type, entityId);
+        return writeBehind.like(type, entityId, ipHash, now);
     }
 
-    @Transactional
     public int removeLike(String entityType, UUID entityId, String rawIp) {
         String type = entityType.toUpperCase();
         if (!VALID_TYPES.contains(type)) {
             throw new IllegalArgumentException("Tipo entita non valido: " + type);
         }
+        if (!writeBehind.exists(type, entityId)) return 0;
 
         String ipHash = hashIp(rawIp);
-        LocalDateTime cutoff = LocalDateTime.now().minusHours(24);
-
-        // Trova ed elimina i like recenti di questo IP per questa entita
-        List<Like> recent = likeRepository
-            .findByEntityTypeAndEntityIdAndIpHashAndCreatedAtAfter(
-                type, entityId, ipHash, cutoff);
-
-        if (recent.isEmpty()) {
-            return getCurrentCount(type, entityId);
+        // Solo un like recente di questo IP per questa entita si puo togliere
+        if (recentLikes.asMap().remove(key(type, entityId, ipHash)) == null) {
+            return writeBehind.count(type, entityId);
         }
-
-        likeRepository.deleteAll(recent);
-        return decrementCount(type, entityId);
-    }
-
-    private int getCurrentCount(String type, UUID id) {
-        return switch (type) {
-            case "SERVICE" -> serviceItemRepository.findById(id)
-                    .map(ServiceItem::getLikesCount).orElse(0);
-            case "PRODUCT" -> productRepository.findById(id)
-                    .map(Product::getLikesCount).orElse(0);
-            case "RESULT"  -> resultRepository.findById(id)
-                    .map(Result::getLikesCount).orElse(0);
-            default -> 0;
-        };
+        return writeBehind.unlike(type, entityId, ipHash, LocalDateTime.now());
     }
 
-    private int incrementCount(String type, UUID id) {
-        return switch (type) {
-            case "SERVICE" -> {
-                serviceItemRepository.incrementLikes(id);
-                yield serviceItemRepository.findById(id)
-                        .map(ServiceItem::getLikesCount).orElse(0);
-            }
-            case "PRODUCT" -> {
-                productRepository.incrementLikes(id);
-                yield productRepository.findById(id)
-                        .map(Product::getLikesCount).orElse(0);
-            }
-            case "RESULT" -> {
-                resultRepository.incrementLikes(id);
-                yield resultRepository.findById(id)
-                        .map(Result::getLikesCount).orElse(0);
-            }
-            default -> 0;
-        };
+    private static String key(String type, UUID entityId, String ipHash) {
+        return type + ":" + entityId + ":" + ipHash;
     }
 
-    private int decrementCount(String type, UUID id) {
-        return switch (type) {
-            case "SERVICE" -> {
-                serviceItemRepository.decrementLikes(id);
-                yield serviceItemRepository.findById(id)
-                    .map(ServiceItem::getLikesCount).orElse(0);
-            }
-            case "PRODUCT" -> {
-                productRepository.decrementLikes(id);
-                yield productRepository.findById(id)
-                    .map(Product::getLikesCount).orElse(0);
-            }
-            case "RESULT" -> {
-                resultRepository.decrementLikes(id);
-                yield resultRepository.findById(id)
-                    .map(Result::getLikesCount).orElse(0);
-            }
-            default -> 0;
-        };
+    private static long untilExpiry(LocalDateTime likedAt) {
+        Duration left = Duration.between(LocalDateTime.now(), likedAt.plusHours(DEDUPE_HOURS));
+        return left.isNegative() ? 0 : left.toNanos();
     }
 
     private String hashIp(String ip) {
@@ -0,0 +1,245 @@
+package daviderocca.beautyroom.likes;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Like counters held in memory and written to the database in the background.
+ *
+ * A click only touches a {@link LongAdder} (striped, so a viral post does not serialize its
+ * likers on one cache line, let alone on one row lock) and queues the like row. Every
+ * {@code app.likes.flush-ms} {@link #flush} applies, in one transaction:
+ *  - the accumulated delta of each entity, one JDBC batch per table
+ *    ({@code likes_count = GREATEST(likes_count + delta, 0)}), ids sorted so two instances
+ *    flushing at once lock the rows in the same order;
+ *  - the like rows, coalesced per liker (a like removed before the flush is never written).
+ * Then the touched counters are re-read, so likes flushed by other instances show up too.
+ *
+ * The count answered to a click is "last read from the DB + clicks not flushed yet": no query
+ * except the first time an entity is liked (which also tells whether it exists). What was not
+ * flushed is lost if the process dies hard; a normal shutdown flushes.
+ */
+@Component
+@Slf4j
+public class LikeWriteBehind {
+
+    private record Table(String name, String idColumn) {}
+
+    private static final Map<String, Table> TABLES = Map.of(
+            "SERVICE", new Table("services", "service_id"),
+            "PRODUCT", new Table("products", "product_id"),
+            "RESULT", new Table("results", "result_id"));
+
+    private record Key(String type, UUID id) {}
+
+    /** DB count as last read, and how many of this instance's clicks it already includes. */
+    private record Snapshot(int base, long flushed) {}
+
+    private static final class Counter {
+        final LongAdder clicks = new LongAdder();   // +1 like, -1 unlike; never reset
+        volatile Snapshot snapshot;
+
+        Counter(int base) {
+            this.snapshot = new Snapshot(base, 0);
+        }
+
+        int current() {
+            Snapshot s = snapshot;
+            return (int) Math.max(0, s.base() + clicks.sum() - s.flushed());
+        }
+    }
+
+    private record LikeOp(Key key, String ipHash, LocalDateTime at, boolean added) {}
+
+    private record Delta(Key key, Counter counter, long total, long delta) {}
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final ConcurrentHashMap<Key, Counter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<LikeOp> pending = new ConcurrentLinkedQueue<>();
+
+    /** Like rows of a failed flush, retried first by the next one; guarded by {@code this}. */
+    private List<LikeOp> retry = List.of();
+
+    public LikeWriteBehind(JdbcTemplate jdbc, PlatformTransactionManager transactionManager) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    /** False when the entity does not exist (checked once, then its counter stays in memory). */
+    public boolean exists(String type, UUID id) {
+        return counter(type, id) != null;
+    }
+
+    public int count(String type, UUID id) {
+        Counter c = counter(type, id);
+        return c == null ? 0 : c.current();
+    }
+
+    public int like(String type, UUID id, String ipHash, LocalDateTime at) {
+        return apply(new LikeOp(new Key(type, id), ipHash, at, true));
+    }
+
+    public int unlike(String type, UUID id, String ipHash, LocalDateTime at) {
+        return apply(new LikeOp(new Key(type, id), ipHash, at, false));
+    }
+
+    private int apply(LikeOp op) {
+        Counter c = counter(op.key().type(), op.key().id());
+        if (c == null) return 0;
+        if (op.added()) c.clicks.increment();
+        else c.clicks.decrement();
+        pending.add(op);
+        return c.current();
+    }
+
+    private Counter counter(String type, UUID id) {
+        return counters.computeIfAbsent(new Key(type, id), k -> {
+            List<Integer> count = jdbc.queryForList(
+                    "SELECT likes_count FROM " + table(k).name() + " WHERE " + table(k).idColumn() + " = ?",
+                    Integer.class, k.id());
+            return count.isEmpty() ? null : new Counter(count.get(0));
+        });
+    }
+
+    // ==========================================================================
+    // FLUSH
+    // ==========================================================================
+
+    @Scheduled(fixedDelayString = "${app.likes.flush-ms:2000}", initialDelayString = "${app.likes.flush-ms:2000}")
+    public synchronized void flush() {
+        List<LikeOp> ops = new ArrayList<>(retry);
+        for (LikeOp op; (op = pending.poll()) != null; ) ops.add(op);
+
+        List<Delta> deltas = new ArrayList<>();
+        counters.forEach((key, c) -> {
+            long total = c.clicks.sum();
+            long delta = total - c.snapshot.flushed();
+            if (delta != 0) deltas.add(new Delta(key, c, total, delta));
+        });
+        if (ops.isEmpty() && deltas.isEmpty()) return;
+
+        try {
+            tx.executeWithoutResult(status -> {
+                writeCounters(deltas);
+                writeLikes(ops);
+            });
+        } catch (RuntimeException e) {
+            // i delta restano nei contatori (flushed non avanza): ripresi al prossimo giro
+            retry = ops;
+            log.warn("Flush dei like fallito ({} contatori, {} like), riprovo al prossimo giro",
+                    deltas.size(), ops.size(), e);
+            return;
+        }
+        retry = List.of();
+        for (Delta d : deltas) {
+            Snapshot s = d.counter().snapshot;
+            d.counter().snapshot = new Snapshot((int) Math.max(0, s.base() + d.delta()), d.total());
+        }
+        refresh(deltas);
+        log.debug("Like: {} contatori e {} like scritti", deltas.size(), ops.size());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+
+    private void writeCounters(List<Delta> deltas) {
+        Map<String, List<Delta>> byType = new LinkedHashMap<>();
+        deltas.stream()
+                .sorted(Comparator.comparing((Delta d) -> d.key().type()).thenComparing(d -> d.key().id()))
+                .forEach(d -> byType.computeIfAbsent(d.key().type(), t -> new ArrayList<>()).add(d));
+        byType.forEach((type, list) -> {
+            Table t = TABLES.get(type);
+            jdbc.batchUpdate("UPDATE " + t.name() + " SET likes_count = GREATEST(likes_count + ?, 0) WHERE "
+                            + t.idColumn() + " = ?",
+                    list.stream().map(d -> new Object[]{d.delta(), d.key().id()}).toList());
+        });
+    }
+
+    /**
+     * Per liker, only the net effect of the ops since the last flush: a first "unlike" removes
+     * the row written earlier, a last "like" inserts one; like/unlike pairs in between cancel out.
+     */
+    private void writeLikes(List<LikeOp> ops) {
+        record Liker(Key key, String ipHash) {}
+        Map<Liker, List<LikeOp>> byLiker = new LinkedHashMap<>();
+        for (LikeOp op : ops) {
+            byLiker.computeIfAbsent(new Liker(op.key(), op.ipHash()), l -> new ArrayList<>()).add(op);
+        }
+
+        List<Object[]> deletes = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+        byLiker.forEach((liker, list) -> {
+            LikeOp first = list.get(0);
+            LikeOp last = list.get(list.size() - 1);
+            if (!first.added()) {
+                deletes.add(new Object[]{liker.key().type(), liker.key().id(), liker.ipHash(),
+                        Timestamp.valueOf(first.at().minusHours(LikeService.DEDUPE_HOURS))});
+            }
+            if (last.added()) {
+                inserts.add(new Object[]{liker.key().type(), liker.key().id(), liker.ipHash(), Timestamp.valueOf(last.at())});
+            }
+        });
+        if (!deletes.isEmpty()) {
+            jdbc.batchUpdate("DELETE FROM likes WHERE entity_type = ? AND entity_id = ? AND ip_hash = ? AND created_at > ?",
+                    deletes);
+        }
+        if (!inserts.isEmpty()) {
+            jdbc.batchUpdate("INSERT INTO likes (entity_type, entity_id, ip_hash, created_at) VALUES (?, ?, ?, ?)",
+                    inserts);
+        }
+    }
+
+    /** Re-reads the flushed counters (one query per table); entities deleted meanwhile are dropped. */
+    private void refresh(List<Delta> deltas) {
+        Map<String, List<Delta>> byType = new LinkedHashMap<>();
+        deltas.forEach(d -> byType.computeIfAbsent(d.key().type(), t -> new ArrayList<>()).add(d));
+        try {
+            byType.forEach((type, list) -> {
+                Table t = TABLES.get(type);
+                Map<UUID, Integer> counts = new HashMap<>();
+                jdbc.query("SELECT " + t.idColumn() + ", likes_count FROM " + t.name() + " WHERE " + t.idColumn()
+                                + " IN (" + String.join(",", Collections.nCopies(list.size(), "?")) + ")",
+                        rs -> {
+                            counts.put(rs.getObject(1, UUID.class), rs.getInt(2));
+                        },
+                        list.stream().map(d -> d.key().id()).toArray());
+                for (Delta d : list) {
+                    Integer count = counts.get(d.key().id());
+                    if (count == null) {
+                        counters.remove(d.key(), d.counter());
+                        continue;
+                    }
+                    d.counter().snapshot = new Snapshot(count, d.total());
+                }
+            });
+        } catch (RuntimeException e) {
+            log.debug("Rilettura dei contatori like fallita, restano i valori locali", e);
+        }
+    }
+
+    private static Table table(Key key) {
+        return TABLES.get(key.type());
+    }
+}
@@ -0,0 +1,38 @@
+package daviderocca.beautyroom.media;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Upload state of a product / service / result's images. An admin save returns as soon as the
+ * entity is committed; its new images show up in the entity once their batch is over, and
+ * this lists them meanwhile (PENDING → UPLOADED or FAILED with the error).
+ */
+@RestController
+@RequestMapping("/admin/media")
+@PreAuthorize("hasRole('ADMIN')")
+@RequiredArgsConstructor
+public class AdminMediaController {
+
+    private final MediaUploadRepository uploadRepo;
+
+    // GET /admin/media/uploads?ownerType=PRODUCT&ownerId=... — newest batch first
+    @GetMapping("/uploads")
+    public ResponseEntity<List<MediaUploadDTO>> uploads(@RequestParam MediaOwnerType ownerType,
+                                                        @RequestParam UUID ownerId) {
+        return ResponseEntity.ok(uploadRepo.findByOwnerTypeAndOwnerIdOrderByCreatedAtDescPositionAsc(ownerType, ownerId)
+                .stream()
+                .map(u -> new MediaUploadDTO(u.getId(), u.getOwnerType(), u.getOwnerId(), u.getBatchId(),
+                        u.getPosition(), u.getOriginalFilename(), u.getStatus(), u.getUrl(), u.getLastError(),
+                        u.getCreatedAt(), u.getCompletedAt()))
+                .toList());
+    }
+}
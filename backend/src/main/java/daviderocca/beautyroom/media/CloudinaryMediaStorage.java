@@ -0,0 +1,27 @@
+package daviderocca.beautyroom.media;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.utils.ObjectUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+/** Default {@link MediaStorage}: the Cloudinary account of {@code CloudinaryConfig}. */
+@Component
+@ConditionalOnProperty(name = "app.media.storage", havingValue = "cloudinary", matchIfMissing = true)
+@RequiredArgsConstructor
+public class CloudinaryMediaStorage implements MediaStorage {
+
+    private final Cloudinary cloudinary;
+
+    @Override
+    public String store(Path file, String contentType) throws IOException {
+        // A File (not byte[]): the SDK streams it from disk.
+        Map<?, ?> uploadResult = cloudinary.uploader().upload(file.toFile(), ObjectUtils.emptyMap());
+        return (String) uploadResult.get("url");
+    }
+}
@@ -0,0 +1,42 @@
+package daviderocca.beautyroom.media;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+/**
+ * {@link MediaStorage} on a local directory, for tests and local runs without Cloudinary.
+ * URLs are {@code base-url/<name>} (the directory's file: URI when no base URL is set).
+ */
+@Component
+@ConditionalOnProperty(name = "app.media.storage", havingValue = "filesystem")
+public class FileSystemMediaStorage implements MediaStorage {
+
+    private final Path root;
+    private final String baseUrl;
+
+    public FileSystemMediaStorage(@Value("${app.media.filesystem.root:${java.io.tmpdir}/beautyroom-media}") String root,
+                                  @Value("${app.media.filesystem.base-url:}") String baseUrl) throws IOException {
+        this.root = Files.createDirectories(Path.of(root));
+        String base = baseUrl.isBlank() ? this.root.toUri().toString() : baseUrl;
+        this.baseUrl = base.endsWith("/") ? base : base + "/";
+    }
+
+    @Override
+    public String store(Path file, String contentType) throws IOException {
+        String name = UUID.randomUUID() + extension(file);
+        Files.copy(file, root.resolve(name));
+        return baseUrl + name;
+    }
+
+    private static String extension(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot);
+    }
+}
@@ -0,0 +1,55 @@
+package daviderocca.beautyroom.media;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * V89: a resized copy of a catalog image, generated at upload time. Keyed by the original URL
+ * (the value stored in the owner's image list), so it follows the image wherever it is used.
+ * {@code storageUrl} is the durable copy; clients get the cached endpoint instead, see
+ * {@link ImageVariantService#publicUrl}.
+ */
+@Entity
+@Table(name = "image_variants",
+        uniqueConstraints = @UniqueConstraint(name = "uq_image_variants_original_width",
+                columnNames = {"original_url", "width"}))
+@Getter
+@Setter
+@NoArgsConstructor
+public class ImageVariant {
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Column(name = "original_url", nullable = false, length = 1000)
+    private String originalUrl;
+
+    @Column(nullable = false)
+    private int width;
+
+    @Column(nullable = false)
+    private int height;
+
+    @Column(name = "content_type", nullable = false, length = 100)
+    private String contentType;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "storage_url", nullable = false, length = 1000)
+    private String storageUrl;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,42 @@
+package daviderocca.beautyroom.media;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Public thumbnails (URLs from the DTOs' imageVariants). A variant never changes once written,
+ * so browsers and CDNs may keep it for a year without revalidating; the ETag (the id) answers
+ * a conditional GET with 304 before any read.
+ */
+@RestController
+@RequestMapping("/media/variants")
+@RequiredArgsConstructor
+public class ImageVariantController {
+
+    static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    private final ImageVariantService variantService;
+
+    // GET /media/variants/{id}
+    @GetMapping("/{id}")
+    public ResponseEntity<byte[]> variant(@PathVariable UUID id, WebRequest request) {
+        // If-None-Match già valido: 304 senza nemmeno leggere il file
+        if (request.checkNotModified("\"" + id + "\"")) return null;
+
+        return ResponseEntity.ok()
+                .cacheControl(IMMUTABLE)
+                .eTag(id.toString())
+                .contentType(MediaType.parseMediaType(ImageVariantService.CONTENT_TYPE))
+                .body(variantService.load(id));
+    }
+}
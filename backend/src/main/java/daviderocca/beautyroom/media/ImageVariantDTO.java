@@ -0,0 +1,7 @@
+package daviderocca.beautyroom.media;
+
+public record ImageVariantDTO(
+        int width,
+        int height,
+        String url
+) {}
@@ -0,0 +1,155 @@
+package daviderocca.beautyroom.media;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Resized JPEG copies of an uploaded image, with the JDK's ImageIO only.
+ *
+ * One variant per width in {@code app.media.variants.widths} narrower than the original (never
+ * upscaled), aspect ratio kept. The source is decoded once, already subsampled close to the
+ * largest width, and each variant is scaled down from it by halving steps (bilinear), which keeps
+ * thin lines readable without the cost of a bicubic pass on the full image. Transparent areas go
+ * on white, JPEG has no alpha.
+ *
+ * Files ImageIO cannot read (HEIC, WebP, SVG, …) simply get no variants: the original is still
+ * uploaded and served as before.
+ */
+@Component
+@Slf4j
+public class ImageVariantGenerator {
+
+    /** Decompression-bomb guard: larger images are uploaded as they are, without variants. */
+    static final long MAX_SOURCE_PIXELS = 60_000_000L;
+
+    public record GeneratedVariant(int width, int height, Path file) {}
+
+    private final int[] widths;
+    private final float jpegQuality;
+
+    public ImageVariantGenerator(@Value("${app.media.variants.widths:320,768}") int[] widths,
+                                 @Value("${app.media.variants.jpeg-quality:0.8}") float jpegQuality) {
+        this.widths = IntStream.of(widths).filter(w -> w > 0).distinct().sorted().toArray();
+        this.jpegQuality = jpegQuality;
+    }
+
+    /**
+     * Writes the variants of {@code source} next to it (same directory) and returns them,
+     * narrowest first. Empty when the file is not a readable image or is already small.
+     */
+    public List<GeneratedVariant> generate(Path source) throws IOException {
+        if (widths.length == 0) return List.of();
+
+        BufferedImage image = decode(source, widths[widths.length - 1]);
+        if (image == null) return List.of();
+
+        List<GeneratedVariant> out = new ArrayList<>();
+        try {
+            for (int width : widths) {
+                if (width >= image.getWidth()) break;
+                int height = Math.max(1, Math.round((float) image.getHeight() * width / image.getWidth()));
+                Path file = Files.createTempFile(source.getParent(), "variant-" + width + "-", ".jpg");
+                out.add(new GeneratedVariant(width, height, file));
+                writeJpeg(scale(image, width, height), file);
+            }
+        } catch (IOException | RuntimeException e) {
+            deleteAll(out);
+            throw e;
+        }
+        return out;
+    }
+
+    /** Decodes with source subsampling, so a 6000px photo never lands in memory at full size. */
+    private static BufferedImage decode(Path source, int largestWidth) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            if (in == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return null;
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int w = reader.getWidth(0);
+                int h = reader.getHeight(0);
+                if ((long) w * h > MAX_SOURCE_PIXELS) {
+                    log.warn("Immagine {}x{} troppo grande per le varianti: {}", w, h, source.getFileName());
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, w / (2 * largestWidth)); // resta ≥ 2× la variante più larga
+                if (step > 1) param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    static BufferedImage scale(BufferedImage source, int width, int height) {
+        BufferedImage current = source;
+        int w = source.getWidth();
+        int h = source.getHeight();
+        do {
+            w = Math.max(width, w / 2);
+            h = Math.max(height, h / 2);
+            BufferedImage next = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, w, h);
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (w != width || h != height);
+        return current;
+    }
+
+    private void writeJpeg(BufferedImage image, Path file) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(file.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT); // progressive: prima un'anteprima su mobile
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    static void deleteAll(List<GeneratedVariant> variants) {
+        for (GeneratedVariant v : variants) {
+            try {
+                Files.deleteIfExists(v.file());
+            } catch (IOException e) {
+                log.warn("Impossibile eliminare la variante {}", v.file(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package daviderocca.beautyroom.media;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface ImageVariantRepository extends JpaRepository<ImageVariant, UUID> {
+
+    List<ImageVariant> findByOriginalUrlInOrderByWidthAsc(Collection<String> originalUrls);
+}
@@ -0,0 +1,181 @@
+package daviderocca.beautyroom.media;
+
+import daviderocca.beautyroom.exceptions.ResourceNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Read side of the image variants: what the response DTOs expose and what
+ * GET /media/variants/{id} serves.
+ *
+ * Variant URLs point to this backend ({@code app.media.variants.base-url}), not to the storage
+ * backend: the bytes come from {@link ThumbnailCache} and only a miss reaches the stored copy.
+ * That fetch is bounded by {@code app.media.variants.fetch-timeout-ms}, and concurrent misses
+ * on the same id share a single fetch.
+ */
+@Service
+@Slf4j
+public class ImageVariantService {
+
+    public static final String CONTENT_TYPE = "image/jpeg";
+
+    /** A variant already uploaded to {@link MediaStorage}, still to be recorded. */
+    public record StoredVariant(int width, int height, long sizeBytes, String storageUrl) {}
+
+    private final ImageVariantRepository variantRepo;
+    private final ThumbnailCache cache;
+    private final String baseUrl;
+    private final Duration fetchTimeout;
+    private final HttpClient http;
+    // miss in corso per id: chi arriva dopo aspetta lo stesso download invece di rifarlo
+    private final Map<UUID, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+    public ImageVariantService(ImageVariantRepository variantRepo,
+                               ThumbnailCache cache,
+                               @Value("${app.media.variants.base-url}") String baseUrl,
+                               @Value("${app.media.variants.fetch-timeout-ms:5000}") long fetchTimeoutMs) {
+        this.variantRepo = variantRepo;
+        this.cache = cache;
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.fetchTimeout = Duration.ofMillis(Math.max(1, fetchTimeoutMs));
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(fetchTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /**
+     * Variants of each of {@code originalUrls}, narrowest first, keyed by original URL; images
+     * without variants are left out. One query for a whole page of products.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, List<ImageVariantDTO>> variantsFor(Collection<String> originalUrls) {
+        if (originalUrls == null || originalUrls.isEmpty()) return Map.of();
+        return variantRepo.findByOriginalUrlInOrderByWidthAsc(originalUrls).stream()
+                .collect(Collectors.groupingBy(ImageVariant::getOriginalUrl, LinkedHashMap::new,
+                        Collectors.mapping(v -> new ImageVariantDTO(v.getWidth(), v.getHeight(), publicUrl(v)),
+                                Collectors.toList())));
+    }
+
+    /** Same lookup, for converters that handle many owners at once. */
+    public <T> Function<T, Map<String, List<ImageVariantDTO>>> variantsPerOwner(
+            Collection<T> owners, Function<T, Collection<String>> images) {
+        Function<T, Collection<String>> safe = o -> images.apply(o) == null ? List.of() : images.apply(o);
+        List<String> all = owners.stream().flatMap(o -> safe.apply(o).stream()).distinct().toList();
+        Map<String, List<ImageVariantDTO>> variants = variantsFor(all);
+        return owner -> {
+            Map<String, List<ImageVariantDTO>> own = new HashMap<>();
+            for (String url : safe.apply(owner)) {
+                List<ImageVariantDTO> v = variants.get(url);
+                if (v != null) own.put(url, v);
+            }
+            return own;
+        };
+    }
+
+    public String publicUrl(ImageVariant variant) {
+        return baseUrl + "/media/variants/" + variant.getId();
+    }
+
+    @Transactional
+    public List<ImageVariant> record(String originalUrl, List<StoredVariant> stored) {
+        return variantRepo.saveAll(stored.stream().map(s -> {
+            ImageVariant v = new ImageVariant();
+            v.setOriginalUrl(originalUrl);
+            v.setWidth(s.width());
+            v.setHeight(s.height());
+            v.setContentType(CONTENT_TYPE);
+            v.setSizeBytes(s.sizeBytes());
+            v.setStorageUrl(s.storageUrl());
+            return v;
+        }).toList());
+    }
+
+    /**
+     * The variant's bytes: from the local cache, or fetched once from storage and cached.
+     * Concurrent misses on the same id wait for the first one's fetch.
+     */
+    public byte[] load(UUID id) {
+        Optional<byte[]> cached = cache.get(id);
+        if (cached.isPresent()) return cached.get();
+
+        CompletableFuture<byte[]> mine = new CompletableFuture<>();
+        CompletableFuture<byte[]> running = inFlight.putIfAbsent(id, mine);
+        if (running != null) return await(running);
+        try {
+            // un fetch appena concluso può aver già riempito la cache tra il get e il putIfAbsent
+            byte[] bytes = cache.get(id).orElseGet(() -> fetchAndCache(id));
+            mine.complete(bytes);
+            return bytes;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, mine);
+        }
+    }
+
+    private static byte[] await(CompletableFuture<byte[]> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    private byte[] fetchAndCache(UUID id) {
+        ImageVariant variant = variantRepo.findById(id).orElseThrow(() -> new ResourceNotFoundException(id));
+        byte[] bytes;
+        try {
+            bytes = fetch(URI.create(variant.getStorageUrl()));
+        } catch (IOException e) {
+            log.error("Variante {} non recuperabile da {}", id, variant.getStorageUrl(), e);
+            throw new ResourceNotFoundException("Immagine non disponibile");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceNotFoundException("Immagine non disponibile");
+        }
+        try {
+            cache.put(id, bytes);
+        } catch (IOException e) {
+            log.warn("Impossibile salvare la variante {} nella cache", id, e);
+        }
+        return bytes;
+    }
+
+    /** The stored copy: a local file (filesystem storage) or an HTTP GET with connect and response timeouts. */
+    private byte[] fetch(URI uri) throws IOException, InterruptedException {
+        if ("file".equalsIgnoreCase(uri.getScheme())) return Files.readAllBytes(Path.of(uri));
+
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(fetchTimeout).GET().build();
+        HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("HTTP " + response.statusCode() + " da " + uri);
+        }
+        return response.body();
+    }
+}
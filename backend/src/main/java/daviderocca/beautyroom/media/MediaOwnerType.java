@@ -0,0 +1,8 @@
+package daviderocca.beautyroom.media;
+
+/** Catalog entities whose image list is fed by the upload pipeline. */
+public enum MediaOwnerType {
+    PRODUCT,
+    SERVICE,
+    RESULT
+}
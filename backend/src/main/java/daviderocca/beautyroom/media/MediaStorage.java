@@ -0,0 +1,15 @@
+package daviderocca.beautyroom.media;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Where catalog images end up. The default is Cloudinary ({@link CloudinaryMediaStorage});
+ * {@code app.media.storage=filesystem} switches to {@link FileSystemMediaStorage} (tests, local
+ * runs without Cloudinary credentials). Another backend only has to implement this call.
+ */
+public interface MediaStorage {
+
+    /** Uploads a staged file, streaming it from disk, and returns its public URL. */
+    String store(Path file, String contentType) throws IOException;
+}
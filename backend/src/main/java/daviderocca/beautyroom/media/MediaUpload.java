@@ -0,0 +1,73 @@
+package daviderocca.beautyroom.media;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * V88: one image of an admin save, staged on local disk and uploaded in the background.
+ * The images of one save share {@code batchId} and are attached to the owner together, in
+ * {@code position} order, once none of them is PENDING any more.
+ */
+@Entity
+@Table(name = "media_uploads")
+@Getter
+@Setter
+@NoArgsConstructor
+public class MediaUpload {
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "owner_type", nullable = false, length = 20)
+    private MediaOwnerType ownerType;
+
+    @Column(name = "owner_id", nullable = false)
+    private UUID ownerId;
+
+    @Column(name = "batch_id", nullable = false)
+    private UUID batchId;
+
+    @Column(nullable = false)
+    private int position;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private MediaUploadStatus status = MediaUploadStatus.PENDING;
+
+    /** Local temp file; cleared once the upload is over either way. */
+    @Column(name = "staged_path", length = 500)
+    private String stagedPath;
+
+    @Column(name = "original_filename")
+    private String originalFilename;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(length = 1000)
+    private String url;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @PrePersist
+    void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
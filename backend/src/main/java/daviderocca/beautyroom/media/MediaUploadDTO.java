@@ -0,0 +1,18 @@
+package daviderocca.beautyroom.media;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record MediaUploadDTO(
+        UUID id,
+        MediaOwnerType ownerType,
+        UUID ownerId,
+        UUID batchId,
+        int position,
+        String originalFilename,
+        MediaUploadStatus status,
+        String url,
+        String lastError,
+        LocalDateTime createdAt,
+        LocalDateTime completedAt
+) {}
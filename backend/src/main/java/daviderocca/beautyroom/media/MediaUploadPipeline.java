@@ -0,0 +1,271 @@
+package daviderocca.beautyroom.media;
+
+import daviderocca.beautyroom.exceptions.BadRequestException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Catalog images (products, services, results) off the request path.
+ *
+ * <ol>
+ *   <li>{@link #enqueue}, inside the admin save: each file is streamed to a temp file under
+ *       {@code app.media.staging-dir} (never read into memory) and recorded as a PENDING
+ *       {@link MediaUpload}; the entity commits right away with the images it already had.</li>
+ *   <li>After commit the uploads run on {@code app.media.upload.concurrency} virtual threads
+ *       through {@link MediaStorage}, with no transaction open: a slow Cloudinary call no longer
+ *       holds a Hikari connection. On rollback the staged files are deleted.</li>
+ *   <li>Readable images also get narrower JPEG variants ({@link ImageVariantGenerator}), stored
+ *       the same way and recorded before the original is attached.</li>
+ *   <li>Each outcome is recorded by {@link MediaUploadWorker}; the last upload of a save attaches
+ *       the URLs to the entity in the order they were sent. A failed upload is FAILED with its
+ *       error (visible at /admin/media/uploads) and does not block the others.</li>
+ * </ol>
+ * PENDING rows still staged on this machine are resumed at startup; rows whose temp file is
+ * gone for more than {@link #ORPHAN_AFTER_HOURS} hours are failed.
+ */
+@Component
+@Slf4j
+public class MediaUploadPipeline {
+
+    static final int ORPHAN_AFTER_HOURS = 1;
+    private static final int COMPLETE_ATTEMPTS = 3;
+
+    private final MediaStorage storage;
+    private final MediaUploadWorker worker;
+    private final ImageVariantGenerator variantGenerator;
+    private final ImageVariantService variantService;
+    private final ThumbnailCache thumbnailCache;
+    private final MediaUploadRepository uploadRepo;
+    private final ApplicationEventPublisher publisher;
+    private final Path stagingDir;
+    private final ExecutorService uploaders;
+
+    public MediaUploadPipeline(MediaStorage storage,
+                               MediaUploadWorker worker,
+                               ImageVariantGenerator variantGenerator,
+                               ImageVariantService variantService,
+                               ThumbnailCache thumbnailCache,
+                               MediaUploadRepository uploadRepo,
+                               ApplicationEventPublisher publisher,
+                               @Value("${app.media.staging-dir:${java.io.tmpdir}/beautyroom-media-staging}") String stagingDir,
+                               @Value("${app.media.upload.concurrency:3}") int concurrency) throws IOException {
+        this.storage = storage;
+        this.worker = worker;
+        this.variantGenerator = variantGenerator;
+        this.variantService = variantService;
+        this.thumbnailCache = thumbnailCache;
+        this.uploadRepo = uploadRepo;
+        this.publisher = publisher;
+        this.stagingDir = Files.createDirectories(Path.of(stagingDir));
+        this.uploaders = Executors.newFixedThreadPool(Math.max(1, concurrency),
+                Thread.ofVirtual().name("media-upload-", 0).factory());
+    }
+
+    // ==========================================================================
+    // ENQUEUE (inside the caller's transaction)
+    // ==========================================================================
+
+    /**
+     * Stages {@code files} and queues them for {@code owner}, in order. Empty parts are skipped.
+     * Returns how many images were queued.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int enqueue(MediaOwnerType ownerType, UUID ownerId, List<MultipartFile> files) {
+        if (files == null || files.isEmpty()) return 0;
+
+        UUID batchId = UUID.randomUUID();
+        List<MediaUpload> uploads = new ArrayList<>();
+        List<Path> staged = new ArrayList<>();
+        try {
+            for (MultipartFile file : files) {
+                if (file == null || file.isEmpty()) continue;
+                Path path = stage(file);
+                staged.add(path);
+
+                MediaUpload u = new MediaUpload();
+                u.setOwnerType(ownerType);
+                u.setOwnerId(ownerId);
+                u.setBatchId(batchId);
+                u.setPosition(uploads.size());
+                u.setStagedPath(path.toString());
+                u.setOriginalFilename(file.getOriginalFilename());
+                u.setContentType(file.getContentType());
+                u.setSizeBytes(file.getSize());
+                uploads.add(u);
+            }
+        } catch (IOException e) {
+            staged.forEach(MediaUploadPipeline::deleteQuietly);
+            log.error("Errore durante il salvataggio temporaneo dell'immagine", e);
+            throw new BadRequestException("Errore durante l'upload dell'immagine");
+        }
+        if (uploads.isEmpty()) return 0;
+
+        List<UUID> ids = uploadRepo.saveAll(uploads).stream().map(MediaUpload::getId).toList();
+        publisher.publishEvent(new MediaUploadsQueuedEvent(ids, staged));
+        log.info("{} immagini in coda per {} {}", ids.size(), ownerType, ownerId);
+        return ids.size();
+    }
+
+    private Path stage(MultipartFile file) throws IOException {
+        Path path = Files.createTempFile(stagingDir, "upload-", extension(file.getOriginalFilename()));
+        try (InputStream in = file.getInputStream()) {
+            Files.copy(in, path, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            deleteQuietly(path);
+            throw e;
+        }
+        return path;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onQueued(MediaUploadsQueuedEvent event) {
+        event.uploadIds().forEach(this::submit);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+    public void onRolledBack(MediaUploadsQueuedEvent event) {
+        event.stagedFiles().forEach(MediaUploadPipeline::deleteQuietly);
+    }
+
+    // ==========================================================================
+    // UPLOAD (background, no transaction open)
+    // ==========================================================================
+
+    private void submit(UUID uploadId) {
+        uploaders.execute(() -> upload(uploadId));
+    }
+
+    void upload(UUID uploadId) {
+        MediaUpload upload = worker.findPending(uploadId).orElse(null);
+        if (upload == null) return;
+
+        Path file = Path.of(upload.getStagedPath());
+        long started = System.nanoTime();
+        try {
+            String url = storage.store(file, upload.getContentType());
+            log.info("Immagine '{}' caricata in {} ms: {}", upload.getOriginalFilename(),
+                    (System.nanoTime() - started) / 1_000_000, url);
+            storeVariants(file, url);
+            complete(() -> worker.recordUploaded(uploadId, url));
+        } catch (Exception e) {
+            log.error("Upload dell'immagine '{}' fallito", upload.getOriginalFilename(), e);
+            complete(() -> worker.recordFailure(uploadId, truncate(String.valueOf(e.getMessage()))));
+        } finally {
+            deleteQuietly(file);
+        }
+    }
+
+    /**
+     * Resized copies of the image, uploaded next to it and recorded before the original is
+     * attached, so the first DTO that shows the image already has them. Best effort: a failure
+     * here leaves the image without variants, never without the original.
+     */
+    private void storeVariants(Path original, String originalUrl) {
+        List<ImageVariantGenerator.GeneratedVariant> generated = List.of();
+        try {
+            generated = variantGenerator.generate(original);
+            if (generated.isEmpty()) return;
+
+            List<ImageVariantService.StoredVariant> stored = new ArrayList<>();
+            for (ImageVariantGenerator.GeneratedVariant g : generated) {
+                stored.add(new ImageVariantService.StoredVariant(g.width(), g.height(), Files.size(g.file()),
+                        storage.store(g.file(), ImageVariantService.CONTENT_TYPE)));
+            }
+            List<ImageVariant> saved = variantService.record(originalUrl, stored);
+            // appena generate sono le più richieste: in cache subito, senza passare dallo storage
+            for (int i = 0; i < saved.size(); i++) {
+                thumbnailCache.put(saved.get(i).getId(), generated.get(i).file());
+            }
+        } catch (Exception e) {
+            log.warn("Varianti non generate per {}: resta l'originale", originalUrl, e);
+        } finally {
+            ImageVariantGenerator.deleteAll(generated);
+        }
+    }
+
+    /** The attach step can meet an admin edit of the same entity (@Version): retried a few times. */
+    private void complete(Runnable step) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                step.run();
+                return;
+            } catch (OptimisticLockingFailureException | PessimisticLockingFailureException e) {
+                if (attempt >= COMPLETE_ATTEMPTS) throw e;
+                log.debug("Conflitto nel collegare le immagini, tentativo {}", attempt);
+            }
+        }
+    }
+
+    // ==========================================================================
+    // RESUME
+    // ==========================================================================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePending() {
+        LocalDateTime orphanBefore = LocalDateTime.now().minusHours(ORPHAN_AFTER_HOURS);
+        int resumed = 0;
+        for (MediaUpload u : uploadRepo.findByStatus(MediaUploadStatus.PENDING)) {
+            if (u.getStagedPath() != null && Files.exists(Path.of(u.getStagedPath()))) {
+                submit(u.getId());
+                resumed++;
+            } else if (u.getCreatedAt().isBefore(orphanBefore)) {
+                // Staged on another instance (or the temp dir was wiped): nobody will upload it.
+                worker.recordFailure(u.getId(), "File temporaneo non più disponibile");
+            }
+        }
+        if (resumed > 0) log.info("Upload immagini ripresi all'avvio: {}", resumed);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        uploaders.shutdown();
+    }
+
+    // ==========================================================================
+    // UTILS
+    // ==========================================================================
+
+    private static String extension(String filename) {
+        if (filename == null) return "";
+        int dot = filename.lastIndexOf('.');
+        if (dot < 0 || filename.length() - dot > 6) return "";
+        String ext = filename.substring(dot).toLowerCase();
+        return ext.matches("\\.[a-z0-9]+") ? ext : "";
+    }
+
+    private static String truncate(String s) {
+        return s.length() <= 1000 ? s : s.substring(0, 1000);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Impossibile eliminare il file temporaneo {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package daviderocca.beautyroom.media;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface MediaUploadRepository extends JpaRepository<MediaUpload, UUID> {
+
+    @Query("SELECT u.batchId FROM MediaUpload u WHERE u.id = :id")
+    Optional<UUID> findBatchId(@Param("id") UUID id);
+
+    /** The whole batch, locked: completions of the same save are serialized. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM MediaUpload u WHERE u.batchId = :batchId ORDER BY u.position")
+    List<MediaUpload> lockBatch(@Param("batchId") UUID batchId);
+
+    List<MediaUpload> findByStatus(MediaUploadStatus status);
+
+    List<MediaUpload> findByOwnerTypeAndOwnerIdOrderByCreatedAtDescPositionAsc(MediaOwnerType ownerType, UUID ownerId);
+}
@@ -0,0 +1,7 @@
+package daviderocca.beautyroom.media;
+
+public enum MediaUploadStatus {
+    PENDING,
+    UPLOADED,
+    FAILED
+}
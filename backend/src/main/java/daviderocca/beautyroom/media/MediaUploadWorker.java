@@ -0,0 +1,109 @@
+package daviderocca.beautyroom.media;
+
+import daviderocca.beautyroom.entities.Product;
+import daviderocca.beautyroom.entities.Result;
+import daviderocca.beautyroom.entities.ServiceItem;
+import daviderocca.beautyroom.repositories.ProductRepository;
+import daviderocca.beautyroom.repositories.ResultRepository;
+import daviderocca.beautyroom.repositories.ServiceItemRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * The transactional steps of {@link MediaUploadPipeline}, one short transaction each; the
+ * upload itself runs between them, with no transaction (and no pooled connection) open.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class MediaUploadWorker {
+
+    private final MediaUploadRepository uploadRepo;
+    private final ProductRepository productRepo;
+    private final ServiceItemRepository serviceItemRepo;
+    private final ResultRepository resultRepo;
+
+    @Transactional(readOnly = true)
+    public Optional<MediaUpload> findPending(UUID uploadId) {
+        return uploadRepo.findById(uploadId).filter(u -> u.getStatus() == MediaUploadStatus.PENDING);
+    }
+
+    @Transactional
+    public void recordUploaded(UUID uploadId, String url) {
+        complete(uploadId, u -> {
+            u.setStatus(MediaUploadStatus.UPLOADED);
+            u.setUrl(url);
+        });
+    }
+
+    @Transactional
+    public void recordFailure(UUID uploadId, String error) {
+        complete(uploadId, u -> {
+            u.setStatus(MediaUploadStatus.FAILED);
+            u.setLastError(error);
+        });
+    }
+
+    /**
+     * Closes one upload of the batch; the last one to finish attaches the uploaded URLs to the
+     * owner in the order the admin picked them (uploads complete in any order).
+     */
+    private void complete(UUID uploadId, Consumer<MediaUpload> outcome) {
+        // Only the batch id first: the rows must enter the persistence context through the lock.
+        UUID batchId = uploadRepo.findBatchId(uploadId).orElse(null);
+        if (batchId == null) return;
+
+        List<MediaUpload> batch = uploadRepo.lockBatch(batchId);
+        MediaUpload self = batch.stream().filter(u -> u.getId().equals(uploadId)).findFirst().orElseThrow();
+        if (self.getStatus() != MediaUploadStatus.PENDING) return; // già chiuso (resume dopo riavvio)
+
+        outcome.accept(self);
+        self.setStagedPath(null);
+        self.setCompletedAt(LocalDateTime.now());
+
+        if (batch.stream().anyMatch(u -> u.getStatus() == MediaUploadStatus.PENDING)) return;
+
+        List<String> urls = new ArrayList<>();
+        for (MediaUpload u : batch) {
+            if (u.getStatus() == MediaUploadStatus.UPLOADED) urls.add(u.getUrl());
+        }
+        if (urls.isEmpty()) return;
+        if (attach(self.getOwnerType(), self.getOwnerId(), urls)) {
+            log.info("{} immagini collegate a {} {}", urls.size(), self.getOwnerType(), self.getOwnerId());
+        } else {
+            log.warn("Immagini caricate per {} {} non più esistente: {}", self.getOwnerType(), self.getOwnerId(), urls);
+        }
+    }
+
+    /** Appends to the owner's images; false when the owner was deleted meanwhile. */
+    private boolean attach(MediaOwnerType ownerType, UUID ownerId, List<String> urls) {
+        switch (ownerType) {
+            case PRODUCT -> {
+                Optional<Product> product = productRepo.findById(ownerId);
+                if (product.isEmpty()) return false;
+                product.get().getImages().addAll(urls);
+            }
+            case SERVICE -> {
+                Optional<ServiceItem> service = serviceItemRepo.findById(ownerId);
+                if (service.isEmpty()) return false;
+                service.get().getImages().addAll(urls);
+            }
+            case RESULT -> {
+                Optional<Result> result = resultRepo.findById(ownerId);
+                if (result.isEmpty()) return false;
+                if (result.get().getImages() == null) result.get().setImages(new ArrayList<>(urls));
+                else result.get().getImages().addAll(urls);
+            }
+        }
+        return true;
+    }
+}
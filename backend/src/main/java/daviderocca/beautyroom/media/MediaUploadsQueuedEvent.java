@@ -0,0 +1,8 @@
+package daviderocca.beautyroom.media;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+/** Published inside the saving transaction: uploads start after commit, staged files go on rollback. */
+public record MediaUploadsQueuedEvent(List<UUID> uploadIds, List<Path> stagedFiles) {}
@@ -0,0 +1,164 @@
+package daviderocca.beautyroom.media;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Local disk copy of the hot image variants, bounded by {@code app.media.thumbnails.cache-max-mb}
+ * and evicted least-recently-used first. A hit is a file read instead of a round trip to the
+ * storage backend.
+ *
+ * One file per variant id ({@code <id>.jpg}). The LRU order is kept in memory and rebuilt from
+ * the files' modification times at startup, so a restart keeps the cache warm. Variants are
+ * immutable (a new upload gets a new id), so there is nothing to invalidate, only to evict.
+ */
+@Component
+@Slf4j
+public class ThumbnailCache {
+
+    private static final String SUFFIX = ".jpg";
+
+    private final Path dir;
+    private final long maxBytes;
+
+    // access-order: the first entry is the least recently used
+    private final LinkedHashMap<UUID, Long> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+
+    public ThumbnailCache(@Value("${app.media.thumbnails.cache-dir:${java.io.tmpdir}/beautyroom-thumbnails}") String dir,
+                          @Value("${app.media.thumbnails.cache-max-mb:256}") long maxMb) throws IOException {
+        this.dir = Files.createDirectories(Path.of(dir));
+        this.maxBytes = maxMb * 1024 * 1024;
+        load();
+    }
+
+    /** The cached bytes, refreshing the entry's recency; empty on a miss. */
+    public Optional<byte[]> get(UUID id) {
+        synchronized (this) {
+            if (entries.get(id) == null) return Optional.empty();
+        }
+        try {
+            // Letto fuori dal lock: un'eviction concorrente al massimo lo trasforma in un miss.
+            return Optional.of(Files.readAllBytes(file(id)));
+        } catch (NoSuchFileException e) {
+            forget(id);
+            return Optional.empty();
+        } catch (IOException e) {
+            log.warn("Lettura della miniatura {} dalla cache fallita", id, e);
+            forget(id);
+            return Optional.empty();
+        }
+    }
+
+    public void put(UUID id, byte[] bytes) throws IOException {
+        Path tmp = Files.createTempFile(dir, "incoming-", ".tmp");
+        try {
+            Files.write(tmp, bytes);
+            commit(id, tmp, bytes.length);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /** Copies a variant that is already on local disk (right after generating it). */
+    public void put(UUID id, Path source) throws IOException {
+        Path tmp = Files.createTempFile(dir, "incoming-", ".tmp");
+        try {
+            Files.copy(source, tmp, StandardCopyOption.REPLACE_EXISTING);
+            commit(id, tmp, Files.size(tmp));
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    synchronized long sizeBytes() {
+        return totalBytes;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    // ==========================================================================
+    // INTERNALS
+    // ==========================================================================
+
+    /** Publishes the temp file under the id (atomic rename, readers never see half a file). */
+    private void commit(UUID id, Path tmp, long size) throws IOException {
+        if (size > maxBytes) return; // più grande dell'intera cache: servita senza tenerla
+        Files.move(tmp, file(id), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        synchronized (this) {
+            Long previous = entries.put(id, size);
+            totalBytes += size - (previous == null ? 0 : previous);
+            evict();
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<UUID, Long>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<UUID, Long> eldest = it.next();
+            it.remove();
+            totalBytes -= eldest.getValue();
+            try {
+                Files.deleteIfExists(file(eldest.getKey()));
+            } catch (IOException e) {
+                log.warn("Impossibile eliminare la miniatura {}", eldest.getKey(), e);
+            }
+        }
+    }
+
+    private synchronized void forget(UUID id) {
+        Long size = entries.remove(id);
+        if (size != null) totalBytes -= size;
+    }
+
+    private Path file(UUID id) {
+        return dir.resolve(id + SUFFIX);
+    }
+
+    /** Startup: oldest files first, so they are the first evicted. Leftover temp files are removed. */
+    private void load() throws IOException {
+        record Cached(UUID id, long size, FileTime modified) {}
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(p -> {
+                        String name = p.getFileName().toString();
+                        try {
+                            if (!name.endsWith(SUFFIX)) {
+                                Files.deleteIfExists(p);
+                                return null;
+                            }
+                            UUID id = UUID.fromString(name.substring(0, name.length() - SUFFIX.length()));
+                            return new Cached(id, Files.size(p), Files.getLastModifiedTime(p));
+                        } catch (IllegalArgumentException | IOException e) {
+                            return null;
+                        }
+                    })
+                    .filter(c -> c != null)
+                    .sorted(Comparator.comparing(Cached::modified))
+                    .forEach(c -> {
+                        entries.put(c.id(), c.size());
+                        totalBytes += c.size();
+                    });
+        }
+        evict();
+        if (!entries.isEmpty()) {
+            log.info("Cache miniature: {} file, {} KB", entries.size(), totalBytes / 1024);
+        }
+    }
+}
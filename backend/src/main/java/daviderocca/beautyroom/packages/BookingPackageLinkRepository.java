@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -31,6 +32,17 @@ public interface BookingPackageLinkRepository extends JpaRepository<BookingPacka
            "WHERE l.booking.bookingId = :bookingId")
     List<BookingPackageLink> findAllByBookingBookingIdWithAssignment(@Param("bookingId") UUID bookingId);
 
+    // Batch variant for the agenda card assembler: every link of a set of bookings in ONE query.
+    // Also fetches the assignment's service and its items (the card renders the composition),
+    // so building N package summaries does not lazy-load per assignment.
+    @Query("SELECT DISTINCT l FROM BookingPackageLink l " +
+           "JOIN FETCH l.assignment a " +
+           "LEFT JOIN FETCH a.serviceOption " +
+           "LEFT JOIN FETCH a.service " +
+           "LEFT JOIN FETCH a.items " +
+           "WHERE l.booking.bookingId IN :bookingIds")
+    List<BookingPackageLink> findAllByBookingIdInWithAssignment(@Param("bookingIds") Collection<UUID> bookingIds);
+
     List<BookingPackageLink> findByAssignmentIdOrderByLinkedAtDesc(UUID assignmentId);
 
     @Query("SELECT l FROM BookingPackageLink l JOIN FETCH l.booking WHERE l.assignment.id = :assignmentId")
@@ -2,6 +2,7 @@ package daviderocca.beautyroom.packages;
 
 import daviderocca.beautyroom.DTO.bookingDTOs.PackageItemSummaryDTO;
 import daviderocca.beautyroom.DTO.bookingDTOs.PackageSummaryDTO;
+import daviderocca.beautyroom.booking.AgendaChangedEvent;
 import daviderocca.beautyroom.entities.Booking;
 import daviderocca.beautyroom.entities.ServiceItem;
 import daviderocca.beautyroom.entities.ServiceOption;
@@ -17,8 +18,10 @@ import daviderocca.beautyroom.linking.UserLookupService;
 import daviderocca.beautyroom.repositories.BookingRepository;
 import daviderocca.beautyroom.repositories.ServiceItemRepository;
 import daviderocca.beautyroom.repositories.ServiceOptionRepository;
+import daviderocca.beautyroom.report.RevenueChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -43,6 +46,7 @@ public class ClientPackageService {
     private final ServiceItemRepository serviceItemRepo;
     private final BookingRepository bookingRepository;
     private final UserLookupService userLookupService;
+    private final ApplicationEventPublisher eventPublisher;
 
     // ── Create ────────────────────────────────────────────────────────────────
 
@@ -131,7 +135,9 @@ public class ClientPackageService {
             assignment.addItem(it);
         }
 
-        return toDTO(assignmentRepo.save(assignment));
+        ClientPackageAssignment saved = assignmentRepo.save(assignment);
+        publishRevenueChange(saved);
+        return toDTO(saved);
     }
 
     // ── Read ──────────────────────────────────────────────────────────────────
@@ -266,6 +272,7 @@ public class ClientPackageService {
             saved = requireAssignment(saved.getId());
         }
 
+        publishRevenueChange(saved); // pricePaid / payment mode feed the UPFRONT fallback row
         return toDTO(saved);
     }
 
@@ -276,7 +283,9 @@ public class ClientPackageService {
             throw new BadRequestException("Package already cancelled.");
         }
         assignment.setStatus(ClientPackageStatus.CANCELLED);
-        return toDTO(assignmentRepo.save(assignment));
+        ClientPackageAssignment saved = assignmentRepo.save(assignment);
+        publishRevenueChange(saved);
+        return toDTO(saved);
     }
 
     // ── Link booking to package session ───────────────────────────────────────
@@ -395,8 +404,10 @@ public class ClientPackageService {
             bk.setTotalSessions(assignment.getTotalSessions());
         }
         linkRepo.saveAll(activeLinks);
-        bookingRepository.saveAll(
-                activeLinks.stream().map(BookingPackageLink::getBooking).toList());
+        List<Booking> renumbered = activeLinks.stream().map(BookingPackageLink::getBooking).toList();
+        bookingRepository.saveAll(renumbered);
+        // "Seduta X/Y" is on the agenda card: bump the delta feed for each renumbered booking's day.
+        renumbered.forEach(this::publishAgendaChange);
 
         int maxSessionUsed = anchor + activeLinks.size() - 1;
         int sessionsRemaining = Math.max(assignment.getTotalSessions() - maxSessionUsed, 0);
@@ -589,6 +600,18 @@ public class ClientPackageService {
 
     // ── Helpers ───────────────────────────────────────────────────────────────
 
+    /** Report rollup + cache: an UPFRONT package without installments is counted at createdAt. */
+    private void publishRevenueChange(ClientPackageAssignment a) {
+        RevenueChangedEvent event = RevenueChangedEvent.of(a.getCreatedAt());
+        if (event != null) eventPublisher.publishEvent(event);
+    }
+
+    /** Card-only edit (session number / total): bumps the agenda delta feed for the booking's days. */
+    private void publishAgendaChange(Booking b) {
+        AgendaChangedEvent event = AgendaChangedEvent.forBooking(b.getStartTime(), b.getEndTime());
+        if (event != null) eventPublisher.publishEvent(event);
+    }
+
     private ClientPackageAssignment requireAssignment(UUID id) {
         return assignmentRepo.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("ClientPackageAssignment not found: " + id));
@@ -2,7 +2,9 @@ package daviderocca.beautyroom.packages;
 
 import daviderocca.beautyroom.enums.ClientPackageStatus;
 import daviderocca.beautyroom.exceptions.ResourceNotFoundException;
+import daviderocca.beautyroom.report.RevenueChangedEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,8 +20,8 @@ import java.util.stream.Stream;
 
 /**
  * CRUD + settlement for the package installment registry. Standalone — does not
- * touch the per-session / UPFRONT settlement flow, the agenda, or the report
- * (those remain on ClientPackageService and are out of scope for this phase).
+ * touch the per-session / UPFRONT settlement flow or the agenda (those remain on
+ * ClientPackageService); writes only signal the report rollup for the days they touch.
  */
 @Service
 @RequiredArgsConstructor
@@ -27,6 +29,7 @@ public class PackageInstallmentService {
 
     private final PackageInstallmentRepository installmentRepo;
     private final ClientPackageAssignmentRepository assignmentRepo;
+    private final ApplicationEventPublisher eventPublisher;
 
     // ── Read ──────────────────────────────────────────────────────────────────
 
@@ -168,44 +171,60 @@ public class PackageInstallmentService {
         inst.setPosition(nextPosition);
         applyPaidNormalization(inst, req.paid(), req.paidDate());
 
-        return toDTO(installmentRepo.save(inst));
+        PackageInstallmentDTO dto = toDTO(installmentRepo.save(inst));
+        // The first rata also retires an UPFRONT package's fallback row (dated at createdAt).
+        publishRevenueChange(inst.getPaidDate(),
+                assignment.getCreatedAt() != null ? assignment.getCreatedAt().toLocalDate() : null);
+        return dto;
     }
 
     @Transactional
     public PackageInstallmentDTO update(UUID assignmentId, UUID installmentId, PackageInstallmentRequestDTO req) {
         PackageInstallment inst = requireInstallment(assignmentId, installmentId);
+        LocalDate paidBefore = inst.getPaidDate();
         inst.setAmount(req.amount());
         inst.setDueDate(req.dueDate());
         inst.setNote(req.note());
         inst.setPaymentMethod(req.paymentMethod());
         applyPaidNormalization(inst, req.paid(), req.paidDate());
-        return toDTO(installmentRepo.save(inst));
+        PackageInstallmentDTO dto = toDTO(installmentRepo.save(inst));
+        publishRevenueChange(paidBefore, inst.getPaidDate());
+        return dto;
     }
 
     @Transactional
     public PackageInstallmentDTO settle(UUID assignmentId, UUID installmentId, PackageInstallmentSettleDTO body) {
         PackageInstallment inst = requireInstallment(assignmentId, installmentId);
+        LocalDate paidBefore = inst.getPaidDate();
         inst.setPaid(true);
         inst.setPaidDate(body != null && body.paidDate() != null ? body.paidDate() : LocalDate.now());
         if (body != null && body.paymentMethod() != null) {
             inst.setPaymentMethod(body.paymentMethod());
         }
-        return toDTO(installmentRepo.save(inst));
+        PackageInstallmentDTO dto = toDTO(installmentRepo.save(inst));
+        publishRevenueChange(paidBefore, inst.getPaidDate()); // paidDate may be backdated
+        return dto;
     }
 
     @Transactional
     public PackageInstallmentDTO unsettle(UUID assignmentId, UUID installmentId) {
         PackageInstallment inst = requireInstallment(assignmentId, installmentId);
+        LocalDate paidBefore = inst.getPaidDate();
         inst.setPaid(false);
         inst.setPaidDate(null);
         inst.setPaymentMethod(null);
-        return toDTO(installmentRepo.save(inst));
+        PackageInstallmentDTO dto = toDTO(installmentRepo.save(inst));
+        publishRevenueChange(paidBefore);
+        return dto;
     }
 
     @Transactional
     public void delete(UUID assignmentId, UUID installmentId) {
         PackageInstallment inst = requireInstallment(assignmentId, installmentId);
         installmentRepo.delete(inst);
+        ClientPackageAssignment assignment = inst.getAssignment();
+        publishRevenueChange(inst.getPaidDate(),
+                assignment != null && assignment.getCreatedAt() != null ? assignment.getCreatedAt().toLocalDate() : null);
     }
 
     /**
@@ -266,6 +285,12 @@ public class PackageInstallmentService {
 
     // ── Helpers ───────────────────────────────────────────────────────────────
 
+    /** Report rollup: the packages leg dates installments at paidDate (see ReportRepository). */
+    private void publishRevenueChange(LocalDate... days) {
+        RevenueChangedEvent event = RevenueChangedEvent.ofDates(days);
+        if (event != null) eventPublisher.publishEvent(event);
+    }
+
     /**
      * paid==true  → paidDate = provided value, or today when absent.
      * paid!=true  → paidDate cleared.
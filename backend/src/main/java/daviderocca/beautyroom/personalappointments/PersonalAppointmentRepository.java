@@ -17,6 +17,9 @@ public interface PersonalAppointmentRepository extends JpaRepository<PersonalApp
     List<PersonalAppointment> findByAppointmentDateAndStaffMember_IdOrderByStartTime(
             LocalDate date, UUID staffId);
 
+    // Appuntamenti senza operatore: occupano tutti gli operatori.
+    List<PersonalAppointment> findByAppointmentDateAndStaffMemberIsNullOrderByStartTime(LocalDate date);
+
     List<PersonalAppointment> findByAppointmentDateBetweenAndStaffMember_IdOrderByAppointmentDateAscStartTimeAsc(
             LocalDate start, LocalDate end, UUID staffId);
 }
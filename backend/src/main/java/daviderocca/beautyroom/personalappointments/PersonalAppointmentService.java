@@ -1,5 +1,6 @@
 package daviderocca.beautyroom.personalappointments;
 
+import daviderocca.beautyroom.availability.AvailabilityChangedEvent;
 import daviderocca.beautyroom.entities.User;
 import daviderocca.beautyroom.enums.Role;
 import daviderocca.beautyroom.exceptions.ResourceNotFoundException;
@@ -9,6 +10,7 @@ import daviderocca.beautyroom.staff.DefaultStaffResolver;
 import daviderocca.beautyroom.staff.StaffMember;
 import daviderocca.beautyroom.staff.StaffMemberRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,13 +28,17 @@ public class PersonalAppointmentService {
     // Multi-staff prompt 03: explicit staffId + own-only guard for STAFF (matrix row 10).
     private final CurrentStaffService currentStaffService;
     private final StaffMemberRepository staffMemberRepository;
+    // Occupancy index of the public finders: the touched day is reloaded after commit.
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public PersonalAppointmentDTO create(PersonalAppointmentRequestDTO req, User currentUser) {
         PersonalAppointment entity = new PersonalAppointment();
         applyScalars(entity, req);
         entity.setStaffMember(resolveTargetStaff(req.staffId(), currentUser, null));
-        return toDTO(repo.save(entity));
+        PersonalAppointment saved = repo.save(entity);
+        publishAvailabilityChange(saved.getAppointmentDate());
+        return toDTO(saved);
     }
 
     @Transactional
@@ -42,9 +48,13 @@ public class PersonalAppointmentService {
                         "Appuntamento personale non trovato: " + id));
         // STAFF may only touch their own rows (owner may touch any).
         assertCanWriteFor(entity.getStaffMember(), currentUser);
+        LocalDate previousDate = entity.getAppointmentDate();
         applyScalars(entity, req);
         entity.setStaffMember(resolveTargetStaff(req.staffId(), currentUser, entity.getStaffMember()));
-        return toDTO(repo.save(entity));
+        PersonalAppointment saved = repo.save(entity);
+        publishAvailabilityChange(previousDate);
+        if (!saved.getAppointmentDate().equals(previousDate)) publishAvailabilityChange(saved.getAppointmentDate());
+        return toDTO(saved);
     }
 
     @Transactional
@@ -54,6 +64,7 @@ public class PersonalAppointmentService {
                         "Appuntamento personale non trovato: " + id));
         assertCanWriteFor(entity.getStaffMember(), currentUser);
         repo.delete(entity);
+        publishAvailabilityChange(entity.getAppointmentDate());
     }
 
     /** Legacy signature kept for internal callers (AdminAgendaDayController): no staff filter. */
@@ -80,8 +91,19 @@ public class PersonalAppointmentService {
         return rows.stream().map(this::toDTO).toList();
     }
 
+    /** All personal appointments in [from, to] (inclusive), for the agenda delta feed. */
+    @Transactional(readOnly = true)
+    public List<PersonalAppointmentDTO> findBetween(LocalDate from, LocalDate to) {
+        return repo.findByAppointmentDateBetweenOrderByAppointmentDateAscStartTimeAsc(from, to)
+                .stream().map(this::toDTO).toList();
+    }
+
     // ── helpers ──────────────────────────────────────────────────────────────
 
+    private void publishAvailabilityChange(LocalDate day) {
+        if (day != null) eventPublisher.publishEvent(AvailabilityChangedEvent.forDay(day));
+    }
+
     private void applyScalars(PersonalAppointment entity, PersonalAppointmentRequestDTO req) {
         entity.setTitle(req.title().trim());
         entity.setNotes(req.notes() != null ? req.notes().trim() : null);
@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -20,4 +21,13 @@ public interface BookingPromotionLinkRepository extends JpaRepository<BookingPro
            "LEFT JOIN FETCH l.promotion " +
            "WHERE l.booking.bookingId = :bookingId")
     List<BookingPromotionLink> findAllByBookingBookingIdWithPromotion(@Param("bookingId") UUID bookingId);
+
+    // Batch variant for the agenda card assembler: one query for a whole set of bookings. Here
+    // `items` IS fetched — the card reads every snapshot line, and per-link lazy loads are
+    // exactly the N+1 the batch exists to avoid.
+    @Query("SELECT DISTINCT l FROM BookingPromotionLink l " +
+           "LEFT JOIN FETCH l.promotion " +
+           "LEFT JOIN FETCH l.items " +
+           "WHERE l.booking.bookingId IN :bookingIds")
+    List<BookingPromotionLink> findAllByBookingIdInWithPromotion(@Param("bookingIds") Collection<UUID> bookingIds);
 }
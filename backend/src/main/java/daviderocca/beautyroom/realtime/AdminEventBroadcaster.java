@@ -0,0 +1,183 @@
+package daviderocca.beautyroom.realtime;
+
+import daviderocca.beautyroom.availability.AvailabilityChangedEvent;
+import daviderocca.beautyroom.booking.AgendaChangeLog;
+import daviderocca.beautyroom.booking.AgendaChangedEvent;
+import daviderocca.beautyroom.booking.BookingStatusChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process push channel for the admin UI (GET /admin/events, text/event-stream).
+ *
+ * Every committed change the UI used to poll for is fanned out to the connected admin/staff
+ * sessions: {@code notification} (new AdminNotification), {@code booking} (status changes,
+ * online / webhook-confirmed bookings) and {@code agenda} (days touched + the delta-feed token
+ * to pass to /admin/agenda/changes).
+ *
+ * One virtual thread per connection drains a small bounded queue into the emitter, so
+ * publishers never block on a slow socket and an idle connection is a parked virtual thread
+ * (a ":ping" comment every {@code heartbeatSeconds} keeps proxies from closing it). A client
+ * that falls {@link #QUEUE_CAPACITY} events behind is dropped: it reconnects and resyncs with
+ * a full reload, same as after a restart. Single instance only — events do not cross nodes.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class AdminEventBroadcaster {
+
+    static final int QUEUE_CAPACITY = 256;
+
+    private final AgendaChangeLog agendaChangeLog;
+
+    @Value("${app.sse.heartbeat-seconds:25}")
+    private long heartbeatSeconds;
+
+    @Value("${app.sse.timeout-minutes:30}")
+    private long timeoutMinutes;
+
+    private final CopyOnWriteArrayList<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicLong eventIds = new AtomicLong();
+
+    private record Push(long id, String name, Object data) {}
+
+    private final class Subscriber {
+        final SseEmitter emitter;
+        final String user;
+        final BlockingQueue<Push> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        volatile boolean closed;
+
+        Subscriber(SseEmitter emitter, String user) {
+            this.emitter = emitter;
+            this.user = user;
+        }
+    }
+
+    // ==========================================================================
+    // SUBSCRIBE
+    // ==========================================================================
+
+    public SseEmitter subscribe(String user) {
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(timeoutMinutes));
+        Subscriber sub = new Subscriber(emitter, user);
+        emitter.onCompletion(() -> close(sub));
+        emitter.onTimeout(() -> close(sub));
+        emitter.onError(e -> close(sub));
+        subscribers.add(sub);
+        // First frame: the current agenda token, so the client can start polling deltas from here.
+        sub.queue.offer(new Push(eventIds.incrementAndGet(), "hello", Map.of("version", agendaChangeLog.currentToken())));
+        Thread.ofVirtual().name("sse-admin-" + user).start(() -> drain(sub));
+        log.info("SSE admin: {} connesso ({} attivi)", user, subscribers.size());
+        return emitter;
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    private void drain(Subscriber sub) {
+        try {
+            while (!sub.closed) {
+                Push push = sub.queue.poll(heartbeatSeconds, TimeUnit.SECONDS);
+                if (sub.closed) break;
+                if (push == null) {
+                    sub.emitter.send(SseEmitter.event().comment("ping"));
+                } else {
+                    sub.emitter.send(SseEmitter.event()
+                            .id(Long.toString(push.id()))
+                            .name(push.name())
+                            .data(push.data(), MediaType.APPLICATION_JSON));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // Broken pipe / client gone: the emitter callbacks may not fire, so clean up here.
+            log.debug("SSE admin: invio fallito per {}: {}", sub.user, e.getMessage());
+        } finally {
+            close(sub);
+        }
+    }
+
+    private void close(Subscriber sub) {
+        if (sub.closed) return;
+        sub.closed = true;
+        subscribers.remove(sub);
+        try {
+            sub.emitter.complete();
+        } catch (Exception ignored) {
+            // already completed by the container
+        }
+        log.info("SSE admin: {} disconnesso ({} attivi)", sub.user, subscribers.size());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        subscribers.forEach(this::close);
+    }
+
+    // ==========================================================================
+    // BROADCAST (after commit)
+    // ==========================================================================
+
+    void broadcast(String name, Object data) {
+        if (subscribers.isEmpty()) return;
+        Push push = new Push(eventIds.incrementAndGet(), name, data);
+        for (Subscriber sub : subscribers) {
+            if (!sub.queue.offer(push)) {
+                log.warn("SSE admin: {} troppo lento ({} eventi in coda), disconnesso", sub.user, QUEUE_CAPACITY);
+                close(sub);
+            }
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onNotificationCreated(NotificationCreatedEvent event) {
+        broadcast("notification", event.notification());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBookingStatusChanged(BookingStatusChangedEvent event) {
+        broadcast("booking", event);
+    }
+
+    // Ordered last: AgendaChangeLog has already bumped the version we hand out.
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAvailabilityChanged(AvailabilityChangedEvent event) {
+        broadcastAgenda(event.from(), event.to());
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAgendaChanged(AgendaChangedEvent event) {
+        broadcastAgenda(event.from(), event.to());
+    }
+
+    private void broadcastAgenda(LocalDate from, LocalDate to) {
+        if (subscribers.isEmpty()) return;
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("version", agendaChangeLog.currentToken());
+        data.put("from", from);
+        data.put("to", to);
+        broadcast("agenda", data);
+    }
+}
@@ -0,0 +1,34 @@
+package daviderocca.beautyroom.realtime;
+
+import daviderocca.beautyroom.entities.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * GET /admin/events — server-sent events for the admin UI (see {@link AdminEventBroadcaster}).
+ *
+ * Auth is the usual Bearer header, so the frontend opens it with fetch() + a stream reader
+ * (the native EventSource cannot send headers). On disconnect: reconnect, then resync the
+ * agenda with /admin/agenda/changes using the token from the "hello" event.
+ */
+@RestController
+@RequestMapping("/admin/events")
+@PreAuthorize("hasAnyRole('ADMIN','STAFF')")
+@RequiredArgsConstructor
+@Slf4j
+public class AdminEventsController {
+
+    private final AdminEventBroadcaster broadcaster;
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@AuthenticationPrincipal User currentUser) {
+        return broadcaster.subscribe(currentUser != null ? String.valueOf(currentUser.getUserId()) : "anonymous");
+    }
+}
@@ -0,0 +1,6 @@
+package daviderocca.beautyroom.realtime;
+
+import daviderocca.beautyroom.DTO.notificationDTOs.NotificationDTO;
+
+/** Published inside AdminNotificationService's REQUIRES_NEW transaction; pushed once it commits. */
+public record NotificationCreatedEvent(NotificationDTO notification) {}
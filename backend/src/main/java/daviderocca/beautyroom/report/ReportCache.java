@@ -0,0 +1,166 @@
+package daviderocca.beautyroom.report;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import daviderocca.beautyroom.DTO.reportDTOs.ReportRangeDTO;
+import daviderocca.beautyroom.DTO.reportDTOs.ReportResponseDTO;
+import daviderocca.beautyroom.availability.AvailabilityChangedEvent;
+import daviderocca.beautyroom.booking.AgendaChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the admin report, keyed by (from, to, compareMode). Admins flip between the same
+ * few ranges all day; a hit skips the whole fan-out of ReportService.
+ *
+ * Invalidation (AFTER COMMIT) evicts only the entries a committed write can have changed:
+ *  - {@link RevenueChangedEvent}: entries whose main or compare window contains one of the days,
+ *    evicted again by the rollup after it recomputes them ({@link #invalidateDays});
+ *  - {@link AvailabilityChangedEvent} / {@link AgendaChangedEvent} (every booking write, promo
+ *    and package lines included): entries whose compare window intersects the booking days, or
+ *    whose main window ends on/after them — a booking on day D can also change who counts as a
+ *    "new client" in any later range;
+ *  - every event also evicts the entries whose main window contains today, since write paths
+ *    stamp "now" (paidAt, settledAt, canceledAt) whatever day the booking is on.
+ *
+ * Entries whose range is closed (to before today) only change on retroactive edits, which all
+ * signal, so they live {@code settled-ttl}; current-period entries get the short
+ * {@code current-ttl} as a safety net for writes that publish nothing. A report computed while
+ * an invalidation runs is returned to its caller but not cached (same epoch guard as
+ * {@link daviderocca.beautyroom.availability.DayOccupancyIndex}).
+ *
+ * {@code previsto} (pipeline + arretrati) is "as of now" and not range-bound: the caller
+ * recomputes it on every request and only the range-bound part is reused.
+ */
+@Component
+@Slf4j
+public class ReportCache {
+
+    public record Key(LocalDate from, LocalDate to, String compareMode) {}
+
+    private final Duration currentTtl;
+    private final Duration settledTtl;
+    private final Cache<Key, ReportResponseDTO> reports;
+
+    /** Bumped on every invalidation; guarded by {@code this}. */
+    private long epoch;
+
+    public ReportCache(@Value("${app.report.cache.current-ttl-minutes:5}") long currentTtlMinutes,
+                       @Value("${app.report.cache.settled-ttl-hours:12}") long settledTtlHours) {
+        this.currentTtl = Duration.ofMinutes(Math.max(0, currentTtlMinutes));
+        this.settledTtl = Duration.ofHours(Math.max(0, settledTtlHours));
+        this.reports = Caffeine.newBuilder()
+                .maximumSize(64)
+                .expireAfter(new Expiry<Key, ReportResponseDTO>() {
+                    @Override
+                    public long expireAfterCreate(Key key, ReportResponseDTO report, long currentTime) {
+                        return ttl(key).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Key key, ReportResponseDTO report, long currentTime, long currentDuration) {
+                        return ttl(key).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(Key key, ReportResponseDTO report, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Cached report for {@code key}, computed with {@code loader} on a miss.
+     * Exceptions from the loader propagate and are never cached.
+     */
+    public ReportResponseDTO get(Key key, Supplier<ReportResponseDTO> loader) {
+        ReportResponseDTO cached = reports.getIfPresent(key);
+        if (cached != null) return cached;
+
+        long seen;
+        synchronized (this) {
+            seen = epoch;
+        }
+        ReportResponseDTO fresh = loader.get();
+        synchronized (this) {
+            if (epoch == seen) reports.put(key, fresh);
+        }
+        return fresh;
+    }
+
+    /** Drops every entry (rollup rebuilds: they may heal drift that no event signalled). */
+    public void invalidateAll() {
+        synchronized (this) {
+            epoch++;
+            reports.invalidateAll();
+        }
+    }
+
+    /** Closed ranges (nothing "paid now" can land in them) live much longer. */
+    Duration ttl(Key key) {
+        return key.to().isBefore(LocalDate.now()) ? settledTtl : currentTtl;
+    }
+
+    // ==========================================================================
+    // INVALIDATION
+    // ==========================================================================
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRevenueChanged(RevenueChangedEvent event) {
+        invalidateDays(event.days());
+    }
+
+    /**
+     * Drops the entries whose main or compare window contains one of {@code days}. Also called by
+     * {@link RevenueRollupService} once its recompute of those days has landed: a report built
+     * between this listener and the recompute may have read the old rolled-up cells.
+     */
+    public void invalidateDays(Set<LocalDate> days) {
+        evict(range -> days.stream().anyMatch(d ->
+                within(d, range.from(), range.to()) || within(d, range.compareFrom(), range.compareTo())));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAvailabilityChanged(AvailabilityChangedEvent event) {
+        evictBookingDays(event.from(), event.to());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAgendaChanged(AgendaChangedEvent event) {
+        evictBookingDays(event.from(), event.to());
+    }
+
+    private void evictBookingDays(LocalDate from, LocalDate to) {
+        evict(range -> !range.to().isBefore(from)
+                || (range.compareFrom() != null && !range.compareTo().isBefore(from) && !range.compareFrom().isAfter(to)));
+    }
+
+    private void evict(Predicate<ReportRangeDTO> touched) {
+        LocalDate today = LocalDate.now();
+        int before;
+        synchronized (this) {
+            epoch++;
+            before = reports.asMap().size();
+            reports.asMap().values().removeIf(r -> {
+                ReportRangeDTO range = r.range();
+                return within(today, range.from(), range.to()) || touched.test(range);
+            });
+        }
+        log.debug("Report cache: {} entries evicted", before - reports.asMap().size());
+    }
+
+    private static boolean within(LocalDate day, LocalDate from, LocalDate to) {
+        return from != null && to != null && !day.isBefore(from) && !day.isAfter(to);
+    }
+}
@@ -0,0 +1,10 @@
+package daviderocca.beautyroom.report;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One (day, leg, channel) bucket of collected money: the sum of {@code entries} raw report
+ * rows. Refund amounts are positive here; the sign is applied when the report nets them.
+ */
+public record RevenueCell(LocalDate day, RevenueLeg leg, boolean online, BigDecimal amount, int entries) {}
@@ -0,0 +1,29 @@
+package daviderocca.beautyroom.report;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Published when a write may have changed money ALREADY dated on {@code days} (collection axis:
+ * paidAt / settledAt / completedAt / canceledAt / paidDate / purchasedAt), typically a
+ * retroactive edit. {@link RevenueRollupService} recomputes the closed ones after commit; days
+ * from today on are never rolled up, so an ordinary "paid now" write costs nothing.
+ */
+public record RevenueChangedEvent(Set<LocalDate> days) {
+
+    /** Days of the non-null instants, or null when there is none. */
+    public static RevenueChangedEvent of(LocalDateTime... instants) {
+        Set<LocalDate> days = new TreeSet<>();
+        for (LocalDateTime at : instants) if (at != null) days.add(at.toLocalDate());
+        return days.isEmpty() ? null : new RevenueChangedEvent(days);
+    }
+
+    /** The non-null dates, or null when there is none. */
+    public static RevenueChangedEvent ofDates(LocalDate... dates) {
+        Set<LocalDate> days = new TreeSet<>();
+        for (LocalDate d : dates) if (d != null) days.add(d);
+        return days.isEmpty() ? null : new RevenueChangedEvent(days);
+    }
+}
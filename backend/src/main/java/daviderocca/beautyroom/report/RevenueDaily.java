@@ -0,0 +1,48 @@
+package daviderocca.beautyroom.report;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/** V85: materialized {@link RevenueCell} of a rolled-up day (see {@link RevenueRollupService}). */
+@Entity
+@Table(name = "revenue_daily",
+       uniqueConstraints = @UniqueConstraint(name = "uq_revenue_daily_day_leg_channel",
+                                             columnNames = {"revenue_day", "leg", "online"}))
+@Getter @Setter @NoArgsConstructor
+public class RevenueDaily {
+
+    @Id @GeneratedValue
+    private UUID id;
+
+    @Column(name = "revenue_day", nullable = false)
+    private LocalDate revenueDay;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private RevenueLeg leg;
+
+    @Column(nullable = false)
+    private boolean online;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal amount;
+
+    @Column(nullable = false)
+    private int entries;
+
+    public RevenueDaily(RevenueCell cell) {
+        this.revenueDay = cell.day();
+        this.leg = cell.leg();
+        this.online = cell.online();
+        this.amount = cell.amount();
+        this.entries = cell.entries();
+    }
+
+    public RevenueCell toCell() {
+        return new RevenueCell(revenueDay, leg, online, amount, entries);
+    }
+}
@@ -0,0 +1,19 @@
+package daviderocca.beautyroom.report;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public interface RevenueDailyRepository extends JpaRepository<RevenueDaily, UUID> {
+
+    List<RevenueDaily> findByRevenueDayBetween(LocalDate from, LocalDate to);
+
+    @Modifying
+    @Query("DELETE FROM RevenueDaily r WHERE r.revenueDay BETWEEN :from AND :to")
+    int deleteDays(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,14 @@
+package daviderocca.beautyroom.report;
+
+/**
+ * Report legs as stored in the daily rollup. REFUND is kept apart from TREATMENT (the report
+ * nets it into trattamenti but also shows refundsTotal, and appointmentsCount counts only
+ * collected treatments).
+ */
+public enum RevenueLeg {
+    TREATMENT,
+    REFUND,
+    PRODUCT,
+    PACKAGE,
+    PROMOTION
+}
@@ -0,0 +1,24 @@
+package daviderocca.beautyroom.report;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * V85: marker of a day whose {@link RevenueDaily} rows are complete. Unmarked days (today,
+ * never built, invalidated by a retroactive edit) are read from the raw tables.
+ */
+@Entity
+@Table(name = "revenue_rollup_days")
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor
+public class RevenueRollupDay {
+
+    @Id
+    @Column(name = "revenue_day")
+    private LocalDate revenueDay;
+
+    @Column(name = "computed_at", nullable = false)
+    private LocalDateTime computedAt;
+}
@@ -0,0 +1,19 @@
+package daviderocca.beautyroom.report;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface RevenueRollupDayRepository extends JpaRepository<RevenueRollupDay, LocalDate> {
+
+    @Query("SELECT d.revenueDay FROM RevenueRollupDay d WHERE d.revenueDay BETWEEN :from AND :to")
+    List<LocalDate> findRolledUpDays(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("DELETE FROM RevenueRollupDay d WHERE d.revenueDay BETWEEN :from AND :to")
+    int deleteDays(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,244 @@
+package daviderocca.beautyroom.report;
+
+import daviderocca.beautyroom.DTO.reportDTOs.RollupMismatchDTO;
+import daviderocca.beautyroom.DTO.reportDTOs.RollupRebuildDTO;
+import daviderocca.beautyroom.exceptions.BadRequestException;
+import daviderocca.beautyroom.services.ReportService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Maintains the daily revenue rollup ({@code revenue_daily} + {@code revenue_rollup_days}) that
+ * ReportService reads for incassato/comparison.
+ *
+ * Only CLOSED days (before today, in the server zone the write paths stamp) are ever rolled
+ * up, so the usual "paid now" write never touches it. A day is recomputed as a whole from the same raw legs as the report
+ * ({@link ReportService#rawCells}) — never patched with deltas — in three ways:
+ *  - after commit of a {@link RevenueChangedEvent} (retroactive edits: re-settle, sale removed,
+ *    backdated installment, credit refunded, paid order cancelled...): each day is unmarked
+ *    first, so if its recompute fails the report falls back to the raw tables for it, and the
+ *    cached reports over those days are evicted once the recompute has landed;
+ *  - nightly: yesterday plus a trailing {@code verify-days} window, which also heals any write
+ *    path that does not publish the event;
+ *  - on demand ({@code POST /admin/report/rollup/rebuild}); startup backfills unmarked days.
+ *
+ * {@link #reconcile} diffs the stored cells against a fresh raw computation.
+ * Recomputes are serialized: single instance, and two overlapping rebuilds must not interleave
+ * their delete/insert.
+ */
+@Service
+@Slf4j
+public class RevenueRollupService {
+
+    /** Days per recompute transaction (one set of raw leg queries each). */
+    private static final int CHUNK_DAYS = 31;
+
+    private final ReportService reportService;
+    private final RevenueDailyRepository revenueDailyRepository;
+    private final RevenueRollupDayRepository revenueRollupDayRepository;
+    private final ReportCache reportCache;
+    private final TransactionTemplate writeTx;
+    private final ReentrantLock recomputeLock = new ReentrantLock();
+
+    @Value("${app.report.rollup.auto:true}")
+    private boolean auto;
+
+    @Value("${app.report.rollup.verify-days:35}")
+    private int verifyDays;
+
+    @Value("${app.report.rollup.backfill-months:25}")
+    private int backfillMonths;
+
+    public RevenueRollupService(ReportService reportService,
+                                RevenueDailyRepository revenueDailyRepository,
+                                RevenueRollupDayRepository revenueRollupDayRepository,
+                                ReportCache reportCache,
+                                PlatformTransactionManager transactionManager) {
+        this.reportService = reportService;
+        this.revenueDailyRepository = revenueDailyRepository;
+        this.revenueRollupDayRepository = revenueRollupDayRepository;
+        this.reportCache = reportCache;
+        this.writeTx = new TransactionTemplate(transactionManager);
+        this.writeTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // ==========================================================================
+    // REBUILD
+    // ==========================================================================
+
+    /** Recomputes every closed day of [from, to] from the raw tables. */
+    public RollupRebuildDTO rebuild(LocalDate from, LocalDate to) {
+        if (from == null || to == null) throw new BadRequestException("Range obbligatorio.");
+        if (from.isAfter(to)) throw new BadRequestException("'from' non può essere dopo 'to'.");
+        LocalDate last = min(to, yesterday());
+        if (from.isAfter(last)) return new RollupRebuildDTO(from, to, 0);
+
+        long started = System.nanoTime();
+        int days = 0;
+        for (LocalDate chunkFrom = from; !chunkFrom.isAfter(last); chunkFrom = chunkFrom.plusDays(CHUNK_DAYS)) {
+            LocalDate chunkTo = min(chunkFrom.plusDays(CHUNK_DAYS - 1), last);
+            recompute(chunkFrom, chunkTo);
+            days += (int) ChronoUnit.DAYS.between(chunkFrom, chunkTo) + 1;
+        }
+        // A rebuild only changes figures when it heals drift nobody signalled: drop every cached report.
+        reportCache.invalidateAll();
+        log.info("Revenue rollup rebuilt: {} days [{} → {}] in {} ms",
+                days, from, last, (System.nanoTime() - started) / 1_000_000);
+        return new RollupRebuildDTO(from, last, days);
+    }
+
+    private void recompute(LocalDate from, LocalDate to) {
+        recomputeLock.lock();
+        try {
+            List<RevenueCell> cells = reportService.rawCells(from, to);
+            LocalDateTime now = LocalDateTime.now();
+            writeTx.executeWithoutResult(status -> {
+                revenueDailyRepository.deleteDays(from, to);
+                revenueRollupDayRepository.deleteDays(from, to);
+                revenueDailyRepository.saveAll(cells.stream().map(RevenueDaily::new).toList());
+                List<RevenueRollupDay> markers = new ArrayList<>();
+                for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) markers.add(new RevenueRollupDay(d, now));
+                revenueRollupDayRepository.saveAll(markers);
+            });
+        } finally {
+            recomputeLock.unlock();
+        }
+    }
+
+    // ==========================================================================
+    // MAINTENANCE
+    // ==========================================================================
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRevenueChanged(RevenueChangedEvent event) {
+        LocalDate yesterday = yesterday();
+        for (LocalDate day : event.days()) {
+            if (day.isAfter(yesterday)) continue; // today / future: never rolled up
+            try {
+                // Unmark first: until the recompute lands, the report reads this day raw.
+                writeTx.executeWithoutResult(status -> revenueRollupDayRepository.deleteDays(day, day));
+                recompute(day, day);
+            } catch (RuntimeException e) {
+                log.warn("Revenue rollup: ricalcolo {} fallito, giorno letto dalle tabelle raw: {}", day, e.getMessage());
+            }
+        }
+        // Dopo il ricalcolo: un report letto prima dal rollup vecchio non resta in cache (TTL settled 12h)
+        reportCache.invalidateDays(event.days());
+    }
+
+    @Scheduled(cron = "0 45 3 * * *", zone = "Europe/Rome")
+    public void nightly() {
+        if (!auto) return;
+        LocalDate yesterday = yesterday();
+        rebuild(yesterday.minusDays(Math.max(0, verifyDays)), yesterday);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!auto) return;
+        Thread.ofVirtual().name("revenue-rollup-backfill").start(() -> {
+            try {
+                backfill();
+            } catch (RuntimeException e) {
+                log.warn("Revenue rollup: backfill fallito: {}", e.getMessage());
+            }
+        });
+    }
+
+    /** Builds the unmarked days of the backfill window (the report keeps reading them raw meanwhile). */
+    void backfill() {
+        LocalDate last = yesterday();
+        LocalDate first = last.minusMonths(backfillMonths);
+        Set<LocalDate> marked = new HashSet<>(revenueRollupDayRepository.findRolledUpDays(first, last));
+        LocalDate missingFrom = null, missingTo = null;
+        for (LocalDate d = first; !d.isAfter(last); d = d.plusDays(1)) {
+            if (marked.contains(d)) continue;
+            if (missingFrom == null) missingFrom = d;
+            missingTo = d;
+        }
+        if (missingFrom != null) rebuild(missingFrom, missingTo);
+    }
+
+    // ==========================================================================
+    // RECONCILIATION
+    // ==========================================================================
+
+    /**
+     * Cells of the rolled-up days in [from, to] that differ from the raw tables right now.
+     * Empty = the rollup is exact. Unmarked days are skipped (the report does not use them).
+     */
+    public List<RollupMismatchDTO> reconcile(LocalDate from, LocalDate to) {
+        if (from == null || to == null) throw new BadRequestException("Range obbligatorio.");
+        if (from.isAfter(to)) throw new BadRequestException("'from' non può essere dopo 'to'.");
+        Set<LocalDate> marked = new HashSet<>(revenueRollupDayRepository.findRolledUpDays(from, to));
+        if (marked.isEmpty()) return List.of();
+
+        Map<String, RevenueCell> stored = new HashMap<>();
+        for (RevenueDaily r : revenueDailyRepository.findByRevenueDayBetween(from, to)) {
+            if (marked.contains(r.getRevenueDay())) stored.put(key(r.toCell()), r.toCell());
+        }
+        Map<String, RevenueCell> raw = new HashMap<>();
+        for (RevenueCell c : reportService.rawCells(from, to)) {
+            if (marked.contains(c.day())) raw.put(key(c), c);
+        }
+
+        Set<String> keys = new HashSet<>(stored.keySet());
+        keys.addAll(raw.keySet());
+        List<RollupMismatchDTO> out = new ArrayList<>();
+        for (String k : keys) {
+            RevenueCell s = stored.get(k);
+            RevenueCell r = raw.get(k);
+            if (s != null && r != null && s.amount().compareTo(r.amount()) == 0 && s.entries() == r.entries()) continue;
+            RevenueCell any = Objects.requireNonNullElse(s, r);
+            out.add(new RollupMismatchDTO(any.day(), any.leg().name(), any.online() ? "online" : "inStore",
+                    s != null ? s.amount() : BigDecimal.ZERO, s != null ? s.entries() : 0,
+                    r != null ? r.amount() : BigDecimal.ZERO, r != null ? r.entries() : 0));
+        }
+        out.sort(Comparator.comparing(RollupMismatchDTO::day)
+                .thenComparing(RollupMismatchDTO::leg)
+                .thenComparing(RollupMismatchDTO::channel));
+        if (!out.isEmpty()) log.warn("Revenue rollup: {} celle non riconciliate in [{} → {}]", out.size(), from, to);
+        return out;
+    }
+
+    // ==========================================================================
+    // HELPERS
+    // ==========================================================================
+
+    private static String key(RevenueCell c) {
+        return c.day() + "|" + c.leg() + "|" + c.online();
+    }
+
+    // Server-local, like every LocalDateTime.now() the write paths stamp: a day is closed only
+    // once no "paid now" write can still land on it.
+    private static LocalDate yesterday() {
+        return LocalDate.now().minusDays(1);
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
@@ -123,6 +123,22 @@ public interface BookingRepository extends JpaRepository<Booking, UUID> {
             @Param("staffId") UUID staffId
     );
 
+    // ===== Bookings with no operator: busy time shared by every operator's grid =====
+    @Query("""
+        SELECT b
+        FROM Booking b
+        WHERE b.bookingStatus IN :blockingStatuses
+          AND b.startTime < :to
+          AND b.endTime   > :from
+          AND b.staffMember IS NULL
+        ORDER BY b.startTime ASC
+    """)
+    List<Booking> findUnassignedBookingsByStatusesIntersectingRange(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("blockingStatuses") List<BookingStatus> blockingStatuses
+    );
+
     // ===== Multi-staff (prompt 03): deactivation guard (decision #10) =====
     // WHERE staff_id + start_time — covered by idx_bookings_staff_start (prompt 01).
     @Query("""
@@ -146,6 +162,8 @@ public interface BookingRepository extends JpaRepository<Booking, UUID> {
     LEFT JOIN FETCH b.service s
     LEFT JOIN FETCH b.serviceOption so
     LEFT JOIN FETCH b.packageCredit pc
+    LEFT JOIN FETCH pc.service
+    LEFT JOIN FETCH pc.serviceOption
     LEFT JOIN FETCH b.user
     LEFT JOIN FETCH b.linkedUser
     LEFT JOIN FETCH b.customer
@@ -158,6 +176,17 @@ public interface BookingRepository extends JpaRepository<Booking, UUID> {
             @Param("to") LocalDateTime to
     );
 
+    // Agenda batch: initializes the lazy Booking.services bag of already-loaded bookings in ONE
+    // query (same managed instances come back with the collection filled). Separate from the
+    // query above because fetching a bag there would multiply its rows.
+    @Query("""
+    SELECT DISTINCT b
+    FROM Booking b
+    LEFT JOIN FETCH b.services
+    WHERE b.bookingId IN :ids
+""")
+    List<Booking> fetchServicesForBookings(@Param("ids") Collection<UUID> ids);
+
     @Query("""
         SELECT b FROM Booking b
         WHERE DATE(b.startTime) = :day
@@ -176,6 +205,9 @@ public interface BookingRepository extends JpaRepository<Booking, UUID> {
     // Backed by idx_booking_pkg_credit (package_credit_id).
     List<Booking> findByPackageCredit_PackageCreditIdOrderByStartTimeAsc(UUID packageCreditId);
 
+    // Batch variant for the agenda: all bookings of a set of credits, ranked per credit in Java.
+    List<Booking> findByPackageCredit_PackageCreditIdInOrderByStartTimeAsc(Collection<UUID> packageCreditIds);
+
     // ===== Expire HOLD =====
     List<Booking> findByBookingStatusAndExpiresAtBefore(BookingStatus status, LocalDateTime time);
 
@@ -3,6 +3,7 @@ package daviderocca.beautyroom.repositories;
 import daviderocca.beautyroom.entities.BookingSale;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -10,5 +11,8 @@ public interface BookingSaleRepository extends JpaRepository<BookingSale, UUID>
 
     List<BookingSale> findByBookingIdOrderByAddedAtDesc(UUID bookingId);
 
+    // Agenda batch: sales of a set of bookings, same per-booking order once grouped.
+    List<BookingSale> findByBookingIdInOrderByAddedAtDesc(Collection<UUID> bookingIds);
+
     void deleteByIdAndBookingId(UUID id, UUID bookingId);
 }
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -20,6 +21,12 @@ public interface WishlistItemRepository extends JpaRepository<WishlistItem, UUID
 
     List<WishlistItem> findByItemTypeAndItemId(WishlistItemType type, UUID itemId);
 
+    @Query("SELECT w FROM WishlistItem w JOIN FETCH w.user WHERE w.itemType = :type AND w.itemId = :itemId")
+    List<WishlistItem> findWithUserByItemTypeAndItemId(@Param("type") WishlistItemType type, @Param("itemId") UUID itemId);
+
+    @Query("SELECT w FROM WishlistItem w JOIN FETCH w.user WHERE w.id IN :ids")
+    List<WishlistItem> findWithUserByIdIn(@Param("ids") Collection<UUID> ids);
+
     void deleteByItemTypeAndItemId(WishlistItemType type, UUID itemId);
 
     long countByItemTypeAndItemId(WishlistItemType type, UUID itemId);
@@ -28,6 +28,7 @@ public class JWTFilter extends OncePerRequestFilter {
 
     private final JWTTools jwtTools;
     private final TokenBlocklist tokenBlocklist;
+    private final PrincipalCache principalCache;
     private final UserDetailsService userDetailsService;
     private final ObjectMapper om;
 
@@ -49,14 +50,14 @@ public class JWTFilter extends OncePerRequestFilter {
 
         String token = authHeader.substring(7);
         try {
-            jwtTools.verifyToken(token);
-            String jti = jwtTools.extractJti(token);
-            if (tokenBlocklist.isBlocked(jti)) {
+            // One parse + signature check; the principal comes from the cache while the token is hot.
+            JWTTools.VerifiedToken verified = jwtTools.verify(token);
+            if (tokenBlocklist.isBlocked(verified.jti())) {
                 throw new IllegalArgumentException("Token revocato");
             }
-            String email = jwtTools.extractSubject(token);
 
-            UserDetails user = userDetailsService.loadUserByUsername(email);
+            UserDetails user = principalCache.get(verified,
+                    () -> userDetailsService.loadUserByUsername(verified.subject()));
             UsernamePasswordAuthenticationToken authentication =
                     new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
 
@@ -0,0 +1,36 @@
+package daviderocca.beautyroom.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+/** Default {@link RevokedTokenStore}: the {@code revoked_access_tokens} table (V86). */
+@Component
+@RequiredArgsConstructor
+public class JpaRevokedTokenStore implements RevokedTokenStore {
+
+    private final RevokedAccessTokenRepository repository;
+
+    @Override
+    @Transactional
+    public void save(Revocation revocation) {
+        repository.save(new RevokedAccessToken(revocation.jti(), revocation.expiresAt(), revocation.revokedAt()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Revocation> findLiveRevokedSince(Instant since) {
+        return repository.findLiveRevokedSince(since, Instant.now()).stream()
+                .map(t -> new Revocation(t.getJti(), t.getExpiresAt(), t.getRevokedAt()))
+                .toList();
+    }
+
+    @Override
+    @Transactional
+    public int deleteExpired() {
+        return repository.deleteExpired(Instant.now());
+    }
+}
@@ -0,0 +1,75 @@
+package daviderocca.beautyroom.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size bloom filter over jti strings. {@link #mightContain} never answers false for a
+ * jti that was {@link #put}: a "no" is definitive, a "yes" has to be confirmed elsewhere.
+ * Lock-free reads and writes (bits live in an {@link AtomicLongArray}); entries cannot be
+ * removed, so the owner rebuilds a fresh filter when expired jtis pile up.
+ */
+final class JtiBloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashes;
+    private final int capacity;
+
+    /** Sized for {@code capacity} jtis at a ~1% false-positive rate. */
+    JtiBloomFilter(int capacity) {
+        this.capacity = Math.max(capacity, 64);
+        // m = -n ln p / (ln 2)^2, k = m/n ln 2 with p = 0.01
+        long m = (long) Math.ceil(-this.capacity * Math.log(0.01) / (Math.log(2) * Math.log(2)));
+        this.bits = new AtomicLongArray((int) ((m + 63) / 64));
+        this.bitCount = bits.length() * 64L;
+        this.hashes = Math.max(1, (int) Math.round((double) bitCount / this.capacity * Math.log(2)));
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    void put(String jti) {
+        long h1 = hash(jti);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) break;
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    boolean mightContain(String jti) {
+        long h1 = hash(jti);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    // FNV-1a 64 over the chars; the second hash is its murmur3 finalizer (double hashing).
+    private static long hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
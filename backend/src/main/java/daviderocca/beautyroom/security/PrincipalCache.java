@@ -0,0 +1,114 @@
+package daviderocca.beautyroom.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import daviderocca.beautyroom.tools.JWTTools.VerifiedToken;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of the principal loaded for an access token, keyed by its jti: an admin
+ * session fires dozens of API calls a minute and each one used to reload the user from the DB.
+ *
+ * An entry lives {@code ttl} at most, and never past the token's own expiry. It is evicted:
+ *  - on logout ({@link #evict(String)}), together with the blocklist entry;
+ *  - AFTER COMMIT of a {@link UserCredentialsChangedEvent} (email, password, role, verification,
+ *    deletion): every token of that user reloads on its next request.
+ * The blocklist is still checked on every request, before the cache. A principal loaded while
+ * an eviction runs is used for that request but not cached (same epoch guard as
+ * {@link daviderocca.beautyroom.availability.DayOccupancyIndex}).
+ */
+@Component
+@Slf4j
+public class PrincipalCache {
+
+    private record Snapshot(UUID userId, UserDetails principal, Instant tokenExpiry) {}
+
+    private final Duration ttl;
+    private final Cache<String, Snapshot> principals;
+
+    /** Bumped on every eviction; guarded by {@code this}. */
+    private long epoch;
+
+    public PrincipalCache(@Value("${app.jwt.principal-cache.ttl-seconds:60}") long ttlSeconds,
+                          @Value("${app.jwt.principal-cache.max-size:10000}") long maxSize) {
+        this.ttl = Duration.ofSeconds(Math.max(0, ttlSeconds));
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, Snapshot>() {
+                    @Override
+                    public long expireAfterCreate(String jti, Snapshot s, long currentTime) {
+                        return lifetime(s).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String jti, Snapshot s, long currentTime, long currentDuration) {
+                        return lifetime(s).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String jti, Snapshot s, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Principal for an already verified token, loaded with {@code loader} on a miss.
+     * Exceptions from the loader (unknown user) propagate and are never cached.
+     */
+    public UserDetails get(VerifiedToken token, Supplier<UserDetails> loader) {
+        if (token.jti() == null || ttl.isZero()) return loader.get();
+
+        Snapshot cached = principals.getIfPresent(token.jti());
+        if (cached != null) return cached.principal();
+
+        long seen;
+        synchronized (this) {
+            seen = epoch;
+        }
+        UserDetails fresh = loader.get();
+        synchronized (this) {
+            if (epoch == seen) principals.put(token.jti(), new Snapshot(token.userId(), fresh, token.expiresAt()));
+        }
+        return fresh;
+    }
+
+    /** Logout: the token is blocklisted anyway, this just frees the entry. */
+    public void evict(String jti) {
+        if (jti == null) return;
+        synchronized (this) {
+            epoch++;
+            principals.invalidate(jti);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserCredentialsChanged(UserCredentialsChangedEvent event) {
+        int before;
+        synchronized (this) {
+            epoch++;
+            before = principals.asMap().size();
+            principals.asMap().values().removeIf(s -> Objects.equals(s.userId(), event.userId()));
+        }
+        log.debug("Principal cache: {} entries evicted for user {}", before - principals.asMap().size(), event.userId());
+    }
+
+    private Duration lifetime(Snapshot s) {
+        Duration untilExpiry = Duration.between(Instant.now(), s.tokenExpiry());
+        if (untilExpiry.isNegative()) return Duration.ZERO;
+        return untilExpiry.compareTo(ttl) < 0 ? untilExpiry : ttl;
+    }
+}
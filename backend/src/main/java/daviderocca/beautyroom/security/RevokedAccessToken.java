@@ -0,0 +1,23 @@
+package daviderocca.beautyroom.security;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/** V86: an access token revoked (logout) before its expiry. */
+@Entity
+@Table(name = "revoked_access_tokens")
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor
+public class RevokedAccessToken {
+
+    @Id
+    @Column(name = "jti", length = 64)
+    private String jti;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Column(name = "revoked_at", nullable = false)
+    private Instant revokedAt;
+}
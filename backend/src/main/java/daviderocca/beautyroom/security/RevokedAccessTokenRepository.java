@@ -0,0 +1,19 @@
+package daviderocca.beautyroom.security;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface RevokedAccessTokenRepository extends JpaRepository<RevokedAccessToken, String> {
+
+    @Query("SELECT t FROM RevokedAccessToken t WHERE t.revokedAt >= :since AND t.expiresAt > :now")
+    List<RevokedAccessToken> findLiveRevokedSince(@Param("since") Instant since, @Param("now") Instant now);
+
+    @Modifying
+    @Query("DELETE FROM RevokedAccessToken t WHERE t.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
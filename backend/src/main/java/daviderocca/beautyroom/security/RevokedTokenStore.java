@@ -0,0 +1,22 @@
+package daviderocca.beautyroom.security;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Shared storage behind {@link TokenBlocklist}: what one instance revokes, the others read.
+ * The default is the {@code revoked_access_tokens} table ({@link JpaRevokedTokenStore}); another
+ * backend (e.g. Redis) only has to implement these three calls and be the single bean.
+ */
+public interface RevokedTokenStore {
+
+    record Revocation(String jti, Instant expiresAt, Instant revokedAt) {}
+
+    void save(Revocation revocation);
+
+    /** Revocations recorded at or after {@code since} whose token has not expired yet. */
+    List<Revocation> findLiveRevokedSince(Instant since);
+
+    /** Purges revocations of tokens that are expired anyway; returns how many. */
+    int deleteExpired();
+}
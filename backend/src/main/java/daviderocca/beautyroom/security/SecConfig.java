@@ -3,6 +3,7 @@ package daviderocca.beautyroom.security;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import daviderocca.beautyroom.DTO.ApiError;
 import daviderocca.beautyroom.security.ratelimit.RateLimitFilter;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
@@ -79,12 +80,19 @@ public class SecConfig {
                         .accessDeniedHandler(deniedHandler)
                 )
                 .authorizeHttpRequests(auth -> auth
+                        // SSE (/admin/events): the async re-dispatch carries no JWT; the initial
+                        // REQUEST dispatch was already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // CORS preflight
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
 
                         // HEALTH CHECK (keep-alive Railway)
                         .requestMatchers(HttpMethod.GET, "/health").permitAll()
 
+                        // METRICS (retry/conflitti booking) — solo admin
+                        .requestMatchers("/actuator/metrics/**").hasRole("ADMIN")
+
                         // PUBLIC API (chiusure, slot disponibili — nessuna auth)
                         .requestMatchers("/api/public/**").permitAll()
 
@@ -128,7 +136,8 @@ public class SecConfig {
                                 "/availabilities/available-slots",
                                 "/availabilities/combined-slots",
                                 "/categories/**",
-                                "/promotions/**"
+                                "/promotions/**",
+                                "/media/variants/*"
                         ).permitAll()
 
                         // STOCK ALERT — pubblica, non richiede auth
@@ -1,27 +1,65 @@
 package daviderocca.beautyroom.security;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Access tokens revoked by logout, shared by every backend instance through a
+ * {@link RevokedTokenStore} (the {@code revoked_access_tokens} table by default), so revoked
+ * sessions survive a redeploy and stay revoked behind a load balancer.
+ *
+ * {@link #isBlocked} runs on every authenticated request and never touches the store:
+ *  - a {@link JtiBloomFilter} answers the common "not revoked" case;
+ *  - on a (possible) hit, the local jti → expiry mirror confirms it.
+ * The mirror is loaded from the store at startup and pulls the revocations of the other
+ * instances every {@code sync-ms}: a token revoked elsewhere is rejected here within that
+ * window (a revocation made on this instance is immediate). Hourly, expired jtis are purged
+ * from the store and the mirror, and the bloom filter is rebuilt without them.
+ */
 @Component
+@Slf4j
 public class TokenBlocklist {
 
+    // Pull a bit further back than the last sync: absorbs clock skew between instances and
+    // rows committed late. Re-reading a revocation is harmless.
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+
+    private final RevokedTokenStore store;
+    private final int expectedTokens;
     private final ConcurrentHashMap<String, Instant> blockedTokens = new ConcurrentHashMap<>();
 
+    private volatile JtiBloomFilter filter;
+    /** Start of the last successful pull; guarded by {@code this}. */
+    private Instant lastSync;
+
+    public TokenBlocklist(RevokedTokenStore store,
+                          @Value("${app.jwt.blocklist.expected-tokens:10000}") int expectedTokens) {
+        this.store = store;
+        this.expectedTokens = expectedTokens;
+        this.filter = new JtiBloomFilter(expectedTokens);
+    }
+
     public void block(String jti, Instant expiry) {
         if (jti == null || jti.isBlank() || expiry == null) {
             return;
         }
-        blockedTokens.put(jti, expiry);
+        remember(jti, expiry);
+        store.save(new RevokedTokenStore.Revocation(jti, expiry, Instant.now()));
     }
 
     public boolean isBlocked(String jti) {
         if (jti == null || jti.isBlank()) {
             return false;
         }
+        if (!filter.mightContain(jti)) return false;
         Instant expiry = blockedTokens.get(jti);
         if (expiry == null) return false;
         if (Instant.now().isAfter(expiry)) {
@@ -31,9 +69,58 @@ public class TokenBlocklist {
         return true;
     }
 
+    /** Full load at startup: everything revoked and not yet expired. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAll() {
+        pull(Instant.EPOCH);
+    }
+
+    /** Revocations recorded by the other instances since the last pull. */
+    @Scheduled(fixedDelayString = "${app.jwt.blocklist.sync-ms:5000}", initialDelayString = "${app.jwt.blocklist.sync-ms:5000}")
+    public void sync() {
+        Instant since;
+        synchronized (this) {
+            since = lastSync == null ? Instant.EPOCH : lastSync.minus(SYNC_OVERLAP);
+        }
+        pull(since);
+    }
+
     @Scheduled(fixedDelay = 3600000)
     public void cleanup() {
+        int purged = store.deleteExpired();
         Instant now = Instant.now();
         blockedTokens.entrySet().removeIf(e -> now.isAfter(e.getValue()));
+        rebuildFilter();
+        log.debug("Token blocklist: {} expired revocations purged, {} live", purged, blockedTokens.size());
+    }
+
+    private void pull(Instant since) {
+        Instant started = Instant.now();
+        int pulled = 0;
+        for (RevokedTokenStore.Revocation r : store.findLiveRevokedSince(since)) {
+            if (!blockedTokens.containsKey(r.jti())) pulled++;
+            remember(r.jti(), r.expiresAt());
+        }
+        synchronized (this) {
+            if (lastSync == null || started.isAfter(lastSync)) lastSync = started;
+        }
+        if (pulled > 0) log.debug("Token blocklist: {} revocations pulled from the store", pulled);
+    }
+
+    // Mirror + filter are updated under the same lock as the rebuild, so a rebuild can never
+    // drop a jti added while it runs.
+    private synchronized void remember(String jti, Instant expiry) {
+        blockedTokens.put(jti, expiry);
+        if (blockedTokens.size() > filter.capacity()) {
+            rebuildFilter();
+        } else {
+            filter.put(jti);
+        }
+    }
+
+    private synchronized void rebuildFilter() {
+        JtiBloomFilter fresh = new JtiBloomFilter(Math.max(expectedTokens, blockedTokens.size() * 2));
+        blockedTokens.keySet().forEach(fresh::put);
+        filter = fresh;
     }
 }
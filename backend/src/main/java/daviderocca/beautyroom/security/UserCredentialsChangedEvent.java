@@ -0,0 +1,11 @@
+package daviderocca.beautyroom.security;
+
+import java.util.UUID;
+
+/**
+ * Published by UserService when something the authenticated principal carries changes for
+ * {@code userId} (email, password, role, verification) or the user is deleted.
+ * Consumed AFTER COMMIT by {@link PrincipalCache}.
+ */
+public record UserCredentialsChangedEvent(UUID userId) {
+}
@@ -3,9 +3,11 @@ package daviderocca.beautyroom.services;
 import daviderocca.beautyroom.DTO.notificationDTOs.NotificationDTO;
 import daviderocca.beautyroom.entities.AdminNotification;
 import daviderocca.beautyroom.enums.NotificationType;
+import daviderocca.beautyroom.realtime.NotificationCreatedEvent;
 import daviderocca.beautyroom.repositories.AdminNotificationRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
@@ -21,6 +23,8 @@ import java.util.UUID;
 public class AdminNotificationService {
 
     private final AdminNotificationRepository repo;
+    // Pushed to the admin SSE channel once this REQUIRES_NEW transaction commits.
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Propagation.REQUIRES_NEW: se la notifica fallisce NON fa rollback
@@ -36,6 +40,7 @@ public class AdminNotificationService {
         n.setEntityId(entityId);
         n.setEntityType(entityType);
         repo.save(n);
+        eventPublisher.publishEvent(new NotificationCreatedEvent(toDTO(n)));
         log.info("Admin notification created: type={} title={}", type, title);
     }
 
@@ -57,6 +62,7 @@ public class AdminNotificationService {
         n.setEntityId(entityId);
         n.setEntityType(entityType);
         repo.save(n);
+        eventPublisher.publishEvent(new NotificationCreatedEvent(toDTO(n)));
         log.info("Admin notification created (deduped): type={} title={}", type, title);
     }
 
@@ -3,18 +3,31 @@ package daviderocca.beautyroom.services;
 import daviderocca.beautyroom.DTO.availabilityDTOs.AvailabilityResponseDTO;
 import daviderocca.beautyroom.DTO.availabilityDTOs.AvailabilitySlotDTO;
 import daviderocca.beautyroom.DTO.availabilityDTOs.DayTimelineDTO;
+import daviderocca.beautyroom.DTO.availabilityDTOs.PublicMonthAvailabilityDTO;
+import daviderocca.beautyroom.DTO.availabilityDTOs.PublicMonthDayDTO;
 import daviderocca.beautyroom.DTO.availabilityDTOs.PublicNextSlotDTO;
 import daviderocca.beautyroom.DTO.availabilityDTOs.TimelineClosureDTO;
+import daviderocca.beautyroom.availability.AvailabilityCache;
+import daviderocca.beautyroom.availability.DayOccupancy;
+import daviderocca.beautyroom.availability.DayOccupancyIndex;
+import daviderocca.beautyroom.availability.IntervalAlgebra;
+import daviderocca.beautyroom.availability.MonthAvailabilitySnapshot;
+import daviderocca.beautyroom.availability.SlotRanker;
+import daviderocca.beautyroom.availability.StaffAvailabilityEngine;
 import daviderocca.beautyroom.entities.Booking;
 import daviderocca.beautyroom.entities.Closure;
 import daviderocca.beautyroom.entities.ServiceItem;
 import daviderocca.beautyroom.entities.WorkingHours;
 import daviderocca.beautyroom.enums.BookingStatus;
+import daviderocca.beautyroom.enums.CalendarDayStatus;
 import daviderocca.beautyroom.exceptions.BadRequestException;
+import daviderocca.beautyroom.personalappointments.PersonalAppointment;
 import daviderocca.beautyroom.personalappointments.PersonalAppointmentRepository;
 import daviderocca.beautyroom.repositories.BookingRepository;
 import daviderocca.beautyroom.repositories.ClosureRepository;
 import daviderocca.beautyroom.repositories.WorkingHoursRepository;
+import daviderocca.beautyroom.staff.StaffMember;
+import daviderocca.beautyroom.staff.StaffMemberRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -36,6 +49,11 @@ public class AvailabilityService {
     private final BookingRepository bookingRepository;
     private final ServiceItemService serviceItemService;
     private final PersonalAppointmentRepository personalAppointmentRepository;
+    private final DayOccupancyIndex occupancyIndex;
+    private final AvailabilityCache availabilityCache;
+    private final MonthAvailabilitySnapshot monthSnapshot;
+    private final StaffAvailabilityEngine staffAvailabilityEngine;
+    private final StaffMemberRepository staffMemberRepository;
 
     public static final ZoneId BUSINESS_ZONE = ZoneId.of("Europe/Rome");
 
@@ -58,9 +76,21 @@ public class AvailabilityService {
      */
     private static final int MAX_DAY_STATUS_SPAN_DAYS = 62;
 
+    /** Slot consigliati: default e tetto di {@link #findBestCombinedSlots}. */
+    private static final int DEFAULT_BEST_SLOTS = 5;
+    private static final int MAX_BEST_SLOTS = 20;
+
     @Value("${app.booking.max-advance-days:150}")
     private int maxAdvanceDays;
 
+    /**
+     * Griglie per operatore. Spente finché hold, checkout e creazione admin prenotano a livello
+     * di salone (overlap e riserve senza operatore): una griglia per operatore offrirebbe slot
+     * che la prenotazione poi rifiuta.
+     */
+    @Value("${app.availability.staff-aware:false}")
+    private boolean staffAware;
+
     /**
      * Statuses that physically occupy a slot and prevent new bookings.
      * PENDING_PAYMENT is included because while a user is in the Stripe checkout
@@ -85,17 +115,44 @@ public class AvailabilityService {
      *  - Overlap check is per-slot, not subtractive: this guarantees slots are always
      *    the same width in the UI and the blocked/free state is visually consistent.
      */
-    @Transactional(readOnly = true)
+    // No @Transactional: a cache hit only pays the service lookup (active check, before the
+    // cache). On a miss each repository read runs in its own read-only transaction — same
+    // READ COMMITTED view.
     public AvailabilityResponseDTO getServiceAvailabilities(UUID serviceId, LocalDate date) {
-        log.info("Availability | serviceId={} date={}", serviceId, date);
+        return getServiceAvailabilities(serviceId, date, null);
+    }
+
+    /**
+     * Come {@link #getServiceAvailabilities(UUID, LocalDate)}, opzionalmente ristretto a un
+     * operatore. Con {@code app.availability.staff-aware} attivo e {@code staffId} valorizzato,
+     * o con 2+ operatori attivi, la griglia viene dal motore per-operatore ({@link #staffScope});
+     * altrimenti resta quella salon-wide.
+     */
+    public AvailabilityResponseDTO getServiceAvailabilities(UUID serviceId, LocalDate date, UUID staffId) {
+        log.info("Availability | serviceId={} date={} staffId={}", serviceId, date, staffId);
 
         validateInputs(serviceId, date);
 
+        // Prima della cache: un servizio disattivato non deve ricevere una griglia già in cache
         ServiceItem service = serviceItemService.findServiceItemById(serviceId);
         serviceItemService.assertServiceActive(service);
+
+        UUID scopedStaffId = staffAware ? staffId : null; // filtro spento: una sola voce in cache
+        return availabilityCache.get(date, new ServiceSlotsKey(serviceId, scopedStaffId),
+                () -> computeServiceAvailabilities(serviceId, service, date, scopedStaffId));
+    }
+
+    private AvailabilityResponseDTO computeServiceAvailabilities(UUID serviceId, ServiceItem service,
+                                                                 LocalDate date, UUID staffId) {
         int durationMin = service.getDurationMin();
         if (durationMin <= 0) throw new BadRequestException("Durata servizio non valida.");
 
+        List<UUID> staffIds = staffScope(serviceId, staffId);
+        if (staffIds != null) {
+            return new AvailabilityResponseDTO(serviceId, date, durationMin,
+                    staffSlots(date, staffIds, durationMin, durationMin));
+        }
+
         WorkingHours wh = workingHoursRepository.findByDayOfWeek(date.getDayOfWeek())
                 .orElseThrow(() -> new BadRequestException(
                         "Orari non configurati per " + date.getDayOfWeek()));
@@ -155,15 +212,32 @@ public class AvailabilityService {
      *  - personal appointments block too — identical to the /available-slots endpoint
      *    this replaces, so a customer can never book over Michela's personal time.
      */
-    @Transactional(readOnly = true)
+    // No @Transactional: a cache hit is zero DB work (no service to check here).
     public AvailabilityResponseDTO getCombinedAvailabilities(LocalDate date, int durationMinutes) {
-        log.info("CombinedAvailability | date={} durationMinutes={}", date, durationMinutes);
+        return getCombinedAvailabilities(date, durationMinutes, null);
+    }
+
+    /** Variante con filtro operatore opzionale: stesse regole di {@link #getServiceAvailabilities(UUID, LocalDate, UUID)}. */
+    public AvailabilityResponseDTO getCombinedAvailabilities(LocalDate date, int durationMinutes, UUID staffId) {
+        log.info("CombinedAvailability | date={} durationMinutes={} staffId={}", date, durationMinutes, staffId);
 
         if (date == null) throw new BadRequestException("date obbligatoria.");
         if (date.isBefore(LocalDate.now(BUSINESS_ZONE)))
             throw new BadRequestException("Non è possibile richiedere disponibilità per date passate.");
         if (durationMinutes < 1) throw new BadRequestException("Durata non valida.");
 
+        UUID scopedStaffId = staffAware ? staffId : null;
+        return availabilityCache.get(date, new CombinedSlotsKey(durationMinutes, scopedStaffId),
+                () -> computeCombinedAvailabilities(date, durationMinutes, scopedStaffId));
+    }
+
+    private AvailabilityResponseDTO computeCombinedAvailabilities(LocalDate date, int durationMinutes, UUID staffId) {
+        List<UUID> staffIds = staffScope(null, staffId);
+        if (staffIds != null) {
+            return new AvailabilityResponseDTO(null, date, SLOT_STEP_MINUTES,
+                    staffSlots(date, staffIds, durationMinutes, SLOT_STEP_MINUTES));
+        }
+
         WorkingHours wh = workingHoursRepository.findByDayOfWeek(date.getDayOfWeek())
                 .orElseThrow(() -> new BadRequestException(
                         "Orari non configurati per " + date.getDayOfWeek()));
@@ -184,14 +258,10 @@ public class AvailabilityService {
         // (with admin padding) + Michela's personal appointments.
         List<Booking> blockingBookings = bookingRepository
                 .findBookingsByStatusesIntersectingRange(from, to, BLOCKING_STATUSES);
-        List<TimeRange> blockedIntervals = new ArrayList<>(toEffectiveBlockedIntervals(blockingBookings, date));
-        personalAppointmentRepository.findByAppointmentDateOrderByStartTime(date)
-                .forEach(pa -> {
-                    LocalTime paEnd = pa.getStartTime().plusMinutes(pa.getDurationMinutes());
-                    if (pa.getStartTime().isBefore(paEnd)) {
-                        blockedIntervals.add(new TimeRange(pa.getStartTime(), paEnd));
-                    }
-                });
+        List<TimeRange> blockedIntervals = toBlockedIntervals(
+                blockingBookings,
+                personalAppointmentRepository.findByAppointmentDateOrderByStartTime(date),
+                date);
 
         List<AvailabilitySlotDTO> slots =
                 generateAllSlots(openRanges, durationMinutes, SLOT_STEP_MINUTES, blockedIntervals, date);
@@ -205,12 +275,17 @@ public class AvailabilityService {
 
     /**
      * Restituisce, per l'intervallo [fromDate, toDate], SOLO i giorni APERTI ma
-     * completamente prenotati per la durata richiesta ("Pieno"). Read-only: riusa
-     * per-giorno {@link #getCombinedAvailabilities(LocalDate, int)}, così l'esito
-     * combacia SEMPRE con ciò che l'utente vede aprendo quel giorno (nessuna
-     * ri-implementazione della matematica degli slot).
+     * completamente prenotati per la durata richiesta ("Pieno"). Read-only.
      *
-     * Classificazione per giorno (dallo slot-list di getCombinedAvailabilities):
+     * Motore a range: orari settimanali, chiusure, prenotazioni bloccanti e
+     * appuntamenti personali vengono caricati UNA volta per l'intera finestra
+     * (4 query in tutto, non 4 per giorno), poi ogni giorno è classificato in
+     * memoria con gli STESSI helper di {@link #getCombinedAvailabilities(LocalDate, int)}
+     * (buildOpenRanges / toBlockedIntervals / generateAllSlots), così l'esito
+     * combacia SEMPRE con ciò che l'utente vede aprendo quel giorno.
+     *
+     * Classificazione per giorno (dallo slot-list combinato):
+     *  - orari non configurati       → non è "Pieno" → SKIP (come il 400 per-giorno di prima);
      *  - lista VUOTA                 → giorno chiuso o senza slot di quella durata → SKIP
      *                                  (non è "Pieno"; le chiusure le gestisce il frontend a parte);
      *  - lista NON vuota, ogni slot available=false → giorno PIENO → incluso;
@@ -244,29 +319,115 @@ public class AvailabilityService {
         LocalDate to   = toDate.isAfter(maxDate) ? maxDate : toDate;
         if (from.isAfter(to)) return List.of();
 
+        // Caricamento a range: una query per sorgente sull'intera finestra [from, to].
+        Map<DayOfWeek, WorkingHours> hoursByDay = loadWeeklyHours();
+        List<Closure> closures = closureRepository.findByDateRange(from, to.plusDays(1));
+        Map<LocalDate, List<Booking>> bookingsByDay = groupBookingsByDay(
+                bookingRepository.findBookingsByStatusesIntersectingRange(
+                        from.atStartOfDay(), to.plusDays(1).atStartOfDay(), BLOCKING_STATUSES),
+                from, to);
+        Map<LocalDate, List<PersonalAppointment>> appointmentsByDay = new HashMap<>();
+        personalAppointmentRepository.findByAppointmentDateBetweenOrderByAppointmentDateAscStartTimeAsc(from, to)
+                .forEach(pa -> appointmentsByDay
+                        .computeIfAbsent(pa.getAppointmentDate(), d -> new ArrayList<>())
+                        .add(pa));
+
         List<LocalDate> fullDays = new ArrayList<>();
         for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
-            try {
-                List<AvailabilitySlotDTO> slots = getCombinedAvailabilities(day, durationMinutes).slots();
-                // Vuota → chiuso/senza slot → skip. Non vuota e tutti occupati → PIENO.
-                if (!slots.isEmpty() && slots.stream().noneMatch(AvailabilitySlotDTO::available)) {
-                    fullDays.add(day);
-                }
-            } catch (BadRequestException e) {
-                // giorno chiuso / orari non configurati: non è "Pieno", prosegui.
+            // Orari non configurati / weekday chiuso: non è "Pieno", prosegui.
+            WorkingHours wh = hoursByDay.get(day.getDayOfWeek());
+            if (wh == null || wh.isClosed()) continue;
+
+            List<TimeRange> openRanges = buildOpenRanges(wh, closuresCovering(closures, day));
+            if (openRanges.isEmpty()) continue;
+
+            List<TimeRange> blockedIntervals = toBlockedIntervals(
+                    bookingsByDay.getOrDefault(day, List.of()),
+                    appointmentsByDay.getOrDefault(day, List.of()),
+                    day);
+            List<AvailabilitySlotDTO> slots =
+                    generateAllSlots(openRanges, durationMinutes, SLOT_STEP_MINUTES, blockedIntervals, day);
+
+            // Vuota → chiuso/senza slot → skip. Non vuota e tutti occupati → PIENO.
+            if (!slots.isEmpty() && slots.stream().noneMatch(AvailabilitySlotDTO::available)) {
+                fullDays.add(day);
             }
         }
         return fullDays; // già in ordine crescente (iterazione da 'from' a 'to')
     }
 
+    // ==========================================================================
+    // 1d) CLIENT — month calendar snapshot (status + first slot per day)
+    // ==========================================================================
+
+    /**
+     * Calendario di un mese per una durata (singolo servizio o carrello): per ogni giorno
+     * prenotabile lo stato (CLOSED / FULL / AVAILABLE) e il primo slot libero. Sostituisce la
+     * catena day-status → availability per-giorno → slots/next del calendario cliente.
+     *
+     * Stessa griglia del path combinato (passo {@value #SLOT_STEP_MINUTES}') e stessa
+     * classificazione di {@link #getFullDays}: FULL qui ⇔ il giorno compare in day-status.
+     * I giorni arrivano da {@link MonthAvailabilitySnapshot}: solo quelli mancanti (toccati da
+     * una scrittura, o oggi) vengono ricalcolati, dall'indice di occupazione, con UN solo
+     * caricamento a range per i giorni non indicizzati.
+     *
+     * Range effettivo = mese ∩ [oggi, oggi + maxAdvanceDays]; fuori finestra → lista vuota.
+     */
+    // No @Transactional, come i metodi in cache: un mese già in snapshot non prende connessioni.
+    public PublicMonthAvailabilityDTO getMonthAvailability(YearMonth month, int durationMinutes) {
+        if (month == null) throw new BadRequestException("Mese non valido.");
+        if (durationMinutes < 1) throw new BadRequestException("Durata non valida.");
+
+        LocalDate today = LocalDate.now(BUSINESS_ZONE);
+        LocalDate maxDate = today.plusDays(maxAdvanceDays);
+        LocalDate from = month.atDay(1).isBefore(today) ? today : month.atDay(1);
+        LocalDate to   = month.atEndOfMonth().isAfter(maxDate) ? maxDate : month.atEndOfMonth();
+        if (from.isAfter(to)) return new PublicMonthAvailabilityDTO(month, durationMinutes, List.of());
+
+        List<PublicMonthDayDTO> days = monthSnapshot.get(month, durationMinutes, from, to,
+                (missingFrom, missingTo) -> computeMonthDays(missingFrom, missingTo, durationMinutes));
+        return new PublicMonthAvailabilityDTO(month, durationMinutes, days);
+    }
+
+    private Map<LocalDate, PublicMonthDayDTO> computeMonthDays(LocalDate from, LocalDate to, int durationMin) {
+        Map<DayOfWeek, WorkingHours> hoursByDay = loadWeeklyHours();
+        Map<LocalDate, DayOccupancy> occupancy = occupancyIndex.getRange(from, to);
+        Map<LocalDate, PublicMonthDayDTO> out = new HashMap<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            out.put(day, classifyDay(day, hoursByDay.get(day.getDayOfWeek()),
+                    occupancy.getOrDefault(day, DayOccupancy.EMPTY), durationMin));
+        }
+        return out;
+    }
+
+    /**
+     * Nessun inizio di griglia che stia negli orari (chiuso, chiusura totale, oggi a fine
+     * giornata) → CLOSED; inizi possibili ma tutti in conflitto → FULL; altrimenti il primo libero.
+     */
+    private PublicMonthDayDTO classifyDay(LocalDate day, WorkingHours wh, DayOccupancy occupancy, int durationMin) {
+        int[] open = openMinutes(wh, occupancy);
+        int minStart = earliestStartMinute(day);
+        int[] blocked = occupancy.blocked();
+        int start = IntervalAlgebra.firstFit(open, open.length, blocked, blocked.length,
+                durationMin, SLOT_STEP_MINUTES, minStart, Integer.MAX_VALUE);
+        if (start >= 0) {
+            return new PublicMonthDayDTO(day, CalendarDayStatus.AVAILABLE,
+                    IntervalAlgebra.toHHmm(start), IntervalAlgebra.toHHmm(start + durationMin));
+        }
+        boolean anyCandidate = IntervalAlgebra.firstFit(open, open.length, blocked, 0,
+                durationMin, SLOT_STEP_MINUTES, minStart, Integer.MAX_VALUE) >= 0;
+        return new PublicMonthDayDTO(day, anyCandidate ? CalendarDayStatus.FULL : CalendarDayStatus.CLOSED, null, null);
+    }
+
     // ==========================================================================
     // 2) PUBLIC — next available slot for a service
     // ==========================================================================
 
     /**
      * Cerca il primo slot disponibile per il servizio a partire da fromDate.
-     * Itera giorno per giorno per un massimo di 60 giorni.
-     * Riusa interamente getServiceAvailabilities per la logica di business.
+     * Itera giorno per giorno per un massimo di maxAdvanceDays giorni.
+     * Stessa griglia e stessi esiti di getServiceAvailabilities, ma l'occupazione di ogni
+     * giorno arriva da {@link DayOccupancyIndex} (in memoria) invece di 4 query per giorno.
      *
      * @param fromTime  HH:mm opzionale — se presente, nel giorno fromDate salta tutti
      *                  gli slot il cui startTime è <= fromTime, permettendo di trovare
@@ -286,23 +447,22 @@ public class AvailabilityService {
         }
         final LocalTime afterTimeFinal = afterTime;
 
+        // Servizio validato UNA volta (prima: ad ogni giorno). Inattivo / durata non valida /
+        // serviceId null facevano lanciare 400 su OGNI giorno → Optional.empty(): stesso esito.
+        if (serviceId == null) return Optional.empty();
+        ServiceItem service = serviceItemService.findServiceItemById(serviceId);
+        if (!service.isActive() || service.getDurationMin() <= 0) return Optional.empty();
+        int durationMin = service.getDurationMin();
+        Map<DayOfWeek, WorkingHours> hoursByDay = loadWeeklyHours();
+
         for (int i = 0; i < maxAdvanceDays; i++) {
             LocalDate day = start.plusDays(i);
-            // Il filtro orario si applica solo al primo giorno
-            final boolean applyTimeFilter = (i == 0 && afterTimeFinal != null);
-            try {
-                AvailabilityResponseDTO resp = getServiceAvailabilities(serviceId, day);
-                Optional<AvailabilitySlotDTO> first = resp.slots().stream()
-                        .filter(AvailabilitySlotDTO::available)
-                        .filter(s -> !applyTimeFilter ||
-                                LocalTime.parse(s.start(), HHMM).isAfter(afterTimeFinal))
-                        .findFirst();
-                if (first.isPresent()) {
-                    return Optional.of(new PublicNextSlotDTO(day, first.get().start(), first.get().end()));
-                }
-            } catch (BadRequestException e) {
-                // giorno chiuso o non configurato: prosegui
-            }
+            // Il filtro orario si applica solo al primo giorno (inizio strettamente dopo fromTime)
+            int minStart = (i == 0 && afterTimeFinal != null) ? IntervalAlgebra.toMinute(afterTimeFinal) + 1 : 0;
+            // step == duration: stessa griglia di getServiceAvailabilities
+            PublicNextSlotDTO first = firstIndexedSlot(day, hoursByDay.get(day.getDayOfWeek()),
+                    durationMin, durationMin, minStart, Integer.MAX_VALUE);
+            if (first != null) return Optional.of(first);
         }
         return Optional.empty();
     }
@@ -312,8 +472,8 @@ public class AvailabilityService {
      * (somma delle durate dei servizi nel carrello), a partire da fromDate.
      * Mirror esatto di {@link #findNextAvailableSlotForService}: stesso ciclo in avanti
      * (start clampato a >= oggi), stesso filtro fromTime applicato solo al giorno 0,
-     * stesso try/catch per saltare i giorni chiusi/non configurati — ma la chiamata
-     * per-giorno è {@link #getCombinedAvailabilities(LocalDate, int)} così lo slot
+     * stessi giorni saltati (chiusi/non configurati) — ma la griglia per-giorno è quella
+     * di {@link #getCombinedAvailabilities(LocalDate, int)} (via {@link DayOccupancyIndex}) così lo slot
      * candidato è dimensionato sul blocco combinato (end == start + durationMinutes),
      * non sulla durata del primo servizio.
      */
@@ -353,8 +513,13 @@ public class AvailabilityService {
 
         // Guard finestra: se invertita/degenere la ignoro del tutto (entrambi i bound a null).
         final boolean windowValid = !(windowStart != null && windowEnd != null && !windowStart.isBefore(windowEnd));
-        final LocalTime wStart = windowValid ? windowStart : null;
-        final LocalTime wEnd = windowValid ? windowEnd : null;
+        // Finestra half-open [wStart, wEnd) sull'orario di inizio slot, in minuti.
+        final int wStart = (windowValid && windowStart != null) ? IntervalAlgebra.toMinuteCeil(windowStart) : 0;
+        final int wEnd = (windowValid && windowEnd != null) ? IntervalAlgebra.toMinuteCeil(windowEnd) : Integer.MAX_VALUE;
+
+        // Stesso lower-bound di getCombinedAvailabilities: prima ogni giorno lanciava 400 → vuoto.
+        if (durationMinutes < 1) return Optional.empty();
+        Map<DayOfWeek, WorkingHours> hoursByDay = loadWeeklyHours();
 
         for (int i = 0; i < maxAdvanceDays; i++) {
             LocalDate day = start.plusDays(i);
@@ -362,32 +527,63 @@ public class AvailabilityService {
             if (allowedDays != null && !allowedDays.isEmpty() && !allowedDays.contains(day.getDayOfWeek())) {
                 continue;
             }
-            // Il filtro orario si applica solo al primo giorno
-            final boolean applyTimeFilter = (i == 0 && afterTimeFinal != null);
-            try {
-                AvailabilityResponseDTO resp = getCombinedAvailabilities(day, durationMinutes);
-                Optional<AvailabilitySlotDTO> first = resp.slots().stream()
-                        .filter(AvailabilitySlotDTO::available)
-                        .filter(s -> !applyTimeFilter ||
-                                LocalTime.parse(s.start(), HHMM).isAfter(afterTimeFinal))
-                        .filter(s -> {
-                            // Finestra half-open [wStart, wEnd) sull'orario di inizio slot.
-                            LocalTime st = LocalTime.parse(s.start(), HHMM);
-                            if (wStart != null && st.isBefore(wStart)) return false;
-                            if (wEnd != null && !st.isBefore(wEnd)) return false;
-                            return true;
-                        })
-                        .findFirst();
-                if (first.isPresent()) {
-                    return Optional.of(new PublicNextSlotDTO(day, first.get().start(), first.get().end()));
-                }
-            } catch (BadRequestException e) {
-                // giorno chiuso o non configurato: prosegui
-            }
+            // Il filtro orario si applica solo al primo giorno, in AND con la finestra
+            int minStart = (i == 0 && afterTimeFinal != null)
+                    ? Math.max(wStart, IntervalAlgebra.toMinute(afterTimeFinal) + 1)
+                    : wStart;
+            PublicNextSlotDTO first = firstIndexedSlot(day, hoursByDay.get(day.getDayOfWeek()),
+                    durationMinutes, SLOT_STEP_MINUTES, minStart, wEnd);
+            if (first != null) return Optional.of(first);
         }
         return Optional.empty();
     }
 
+    /**
+     * "Slot consigliati" per il carrello: i migliori {@code limit} inizi nella finestra
+     * [fromDate, fromDate + days) per la durata combinata, ordinati per punteggio
+     * ({@link SlotRanker}: preferisce gli inizi attaccati a prenotazioni esistenti e quelli che
+     * non lasciano buchi inutilizzabili in agenda), a parità il più vicino.
+     *
+     * Stessa griglia ({@value #SLOT_STEP_MINUTES}') e stessi filtri restringenti di
+     * {@link #findNextAvailableCombinedSlot(int, LocalDate, String, Set, LocalTime, LocalTime)}
+     * (allowedDays, finestra half-open sull'orario di inizio, guard finestra invertita).
+     * Tutto in memoria sull'indice di occupazione: un caricamento a range al massimo.
+     */
+    @Transactional(readOnly = true)
+    public List<PublicNextSlotDTO> findBestCombinedSlots(int durationMinutes, LocalDate fromDate, Integer days,
+                                                         Set<DayOfWeek> allowedDays, LocalTime windowStart,
+                                                         LocalTime windowEnd, Integer limit) {
+        if (durationMinutes < 1) throw new BadRequestException("Durata non valida.");
+        int topN = (limit == null) ? DEFAULT_BEST_SLOTS : Math.clamp(limit, 1, MAX_BEST_SLOTS);
+
+        LocalDate today = LocalDate.now(BUSINESS_ZONE);
+        LocalDate start = (fromDate != null && fromDate.isAfter(today)) ? fromDate : today;
+        LocalDate maxDate = today.plusDays(maxAdvanceDays);
+        LocalDate end = (days == null || days < 1) ? maxDate : start.plusDays(days - 1L);
+        if (end.isAfter(maxDate)) end = maxDate;
+        if (start.isAfter(end)) return List.of();
+
+        boolean windowValid = !(windowStart != null && windowEnd != null && !windowStart.isBefore(windowEnd));
+        int wStart = (windowValid && windowStart != null) ? IntervalAlgebra.toMinuteCeil(windowStart) : 0;
+        int wEnd = (windowValid && windowEnd != null) ? IntervalAlgebra.toMinuteCeil(windowEnd) : Integer.MAX_VALUE;
+
+        Map<DayOfWeek, WorkingHours> hoursByDay = loadWeeklyHours();
+        Map<LocalDate, DayOccupancy> occupancy = occupancyIndex.getRange(start, end);
+        SlotRanker ranker = new SlotRanker(topN);
+        for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+            if (allowedDays != null && !allowedDays.isEmpty() && !allowedDays.contains(day.getDayOfWeek())) continue;
+            DayOccupancy occ = occupancy.getOrDefault(day, DayOccupancy.EMPTY);
+            int[] open = openMinutes(hoursByDay.get(day.getDayOfWeek()), occ);
+            if (open.length == 0) continue;
+            int[] blocked = occ.blocked();
+            ranker.offerDay(day, open, open.length, blocked, blocked.length, durationMinutes, SLOT_STEP_MINUTES,
+                    Math.max(wStart, earliestStartMinute(day)), wEnd);
+        }
+        return ranker.best().stream()
+                .map(c -> new PublicNextSlotDTO(c.day(), IntervalAlgebra.toHHmm(c.start()), IntervalAlgebra.toHHmm(c.end())))
+                .toList();
+    }
+
     // ==========================================================================
     // 3) ADMIN DAY TIMELINE
     // ==========================================================================
@@ -472,34 +668,17 @@ public class AvailabilityService {
                     }
                 });
 
-        // Generate slots every 30 minutes, return only available start times
+        // Generate slots every 30 minutes, return only available start times (same sweep-line
+        // as generateAllSlots, minus the occupied candidates)
         int stepMinutes = 30;
+        int[] blockedMinutes = toBlockedMinutes(blocked);
+        int blockedLen = IntervalAlgebra.normalize(blockedMinutes, blockedMinutes.length);
         List<String> available = new ArrayList<>();
-
-        LocalDate today = LocalDate.now(BUSINESS_ZONE);
-        LocalTime earliestStart = date.equals(today)
-                ? LocalTime.now(BUSINESS_ZONE).plusMinutes(30)
-                : LocalTime.MIN;
-
-        for (TimeRange window : openRanges) {
-            LocalTime cursor = window.start();
-            while (true) {
-                LocalTime slotEnd = cursor.plusMinutes(durationMinutes);
-                if (slotEnd.isAfter(window.end())) break;
-
-                if (cursor.isBefore(earliestStart)) {
-                    cursor = cursor.plusMinutes(stepMinutes);
-                    continue;
-                }
-
-                TimeRange slot = new TimeRange(cursor, slotEnd);
-                boolean free = blocked.stream().noneMatch(b -> b.overlaps(slot));
-                if (free) {
-                    available.add(cursor.format(HHMM));
-                }
-                cursor = cursor.plusMinutes(stepMinutes);
-            }
-        }
+        IntervalAlgebra.sweepSlots(toOpenMinutes(openRanges), openRanges.size() * 2, blockedMinutes, blockedLen,
+                durationMinutes, stepMinutes, earliestStartMinute(date),
+                (start, end, free) -> {
+                    if (free) available.add(IntervalAlgebra.toHHmm(start));
+                });
 
         return available;
     }
@@ -510,8 +689,10 @@ public class AvailabilityService {
 
     /**
      * Generates ALL slots that fit inside openRanges. Each slot is {@code durationMin}
-     * wide and individually checked for overlap against blockedIntervals; candidate
-     * start times advance by {@code stepMin}. Single-service callers pass
+     * wide and flagged occupied if it overlaps blockedIntervals; candidate start times
+     * advance by {@code stepMin}. Linear sweep ({@link IntervalAlgebra#sweepSlots}): the
+     * blocked set is sorted/merged once and a single pointer follows the grid, so a busy
+     * day costs O(slots + blocks) with no per-slot stream. Single-service callers pass
      * {@code stepMin == durationMin} (non-overlapping blocks — output byte-identical to
      * before); the combined multi-service caller passes a finer fixed grid
      * ({@link #SLOT_STEP_MINUTES}) while still requiring the full block to fit a range.
@@ -527,38 +708,46 @@ public class AvailabilityService {
             List<TimeRange> blockedIntervals,
             LocalDate requestedDate) {
 
-        LocalDate today = LocalDate.now(BUSINESS_ZONE);
-        LocalTime earliestStart = requestedDate.equals(today)
-                ? LocalTime.now(BUSINESS_ZONE).plusMinutes(30)
-                : LocalTime.MIN;
+        int[] open = toOpenMinutes(openRanges);
+        int[] blocked = toBlockedMinutes(blockedIntervals);
+        int blockedLen = IntervalAlgebra.normalize(blocked, blocked.length);
 
+        // Sweep-line: blocchi ordinati/fusi una volta, un solo puntatore che avanza con la griglia.
         List<AvailabilitySlotDTO> result = new ArrayList<>();
+        IntervalAlgebra.sweepSlots(open, open.length, blocked, blockedLen, durationMin, stepMin,
+                earliestStartMinute(requestedDate),
+                (start, end, free) -> result.add(new AvailabilitySlotDTO(
+                        IntervalAlgebra.toHHmm(start), IntervalAlgebra.toHHmm(end), free)));
+        return result;
+    }
 
-        for (TimeRange window : openRanges) {
-            LocalTime cursor = window.start();
-            while (true) {
-                LocalTime slotEnd = cursor.plusMinutes(durationMin);
-                if (slotEnd.isAfter(window.end())) break;
-
-                if (cursor.isBefore(earliestStart)) {
-                    cursor = cursor.plusMinutes(stepMin);
-                    continue;
-                }
-
-                TimeRange slot = new TimeRange(cursor, slotEnd);
-                boolean occupied = blockedIntervals.stream().anyMatch(b -> b.overlaps(slot));
-
-                result.add(new AvailabilitySlotDTO(
-                        cursor.format(HHMM),
-                        slotEnd.format(HHMM),
-                        !occupied
-                ));
+    /** Oggi: nessuno slot prima di "adesso + 30 min" (griglia invariata, solo candidati saltati). */
+    private int earliestStartMinute(LocalDate requestedDate) {
+        return requestedDate.equals(LocalDate.now(BUSINESS_ZONE))
+                ? IntervalAlgebra.toMinuteCeil(LocalTime.now(BUSINESS_ZONE).plusMinutes(30))
+                : 0;
+    }
 
-                cursor = cursor.plusMinutes(stepMin); // step grid (== duration for single-service)
-            }
+    /** Open ranges (già ordinati e fusi da mergeAdjacent) → coppie in minuti, arrotondate verso l'interno. */
+    private int[] toOpenMinutes(List<TimeRange> ranges) {
+        int[] out = new int[ranges.size() * 2];
+        int w = 0;
+        for (TimeRange r : ranges) {
+            out[w++] = IntervalAlgebra.toMinuteCeil(r.start());
+            out[w++] = IntervalAlgebra.toMinute(r.end());
         }
+        return out;
+    }
 
-        return result;
+    /** Intervalli bloccati → coppie grezze in minuti, arrotondate verso l'esterno (LocalTime.MAX → 1440). */
+    private int[] toBlockedMinutes(List<TimeRange> ranges) {
+        int[] out = new int[ranges.size() * 2];
+        int w = 0;
+        for (TimeRange r : ranges) {
+            out[w++] = IntervalAlgebra.toMinute(r.start());
+            out[w++] = IntervalAlgebra.toMinuteCeil(r.end());
+        }
+        return out;
     }
 
     /**
@@ -594,11 +783,124 @@ public class AvailabilityService {
             LocalDateTime clippedEnd   = effectiveEnd.isAfter(dayEnd) ? dayEnd : effectiveEnd;
             if (!clippedStart.isBefore(clippedEnd)) continue;
 
-            result.add(new TimeRange(clippedStart.toLocalTime(), clippedEnd.toLocalTime()));
+            // Fine clippata a mezzanotte = fine giornata (LocalTime.MAX), non 00:00
+            LocalTime endOfRange = clippedEnd.equals(dayEnd) ? LocalTime.MAX : clippedEnd.toLocalTime();
+            result.add(new TimeRange(clippedStart.toLocalTime(), endOfRange));
         }
         return result;
     }
 
+    /**
+     * Effective blocked intervals for one day: blocking bookings (with padding, clipped
+     * to the day) plus personal appointments. Shared by the single-day combined path and
+     * the range-based {@link #getFullDays} so both classify a day identically.
+     */
+    private List<TimeRange> toBlockedIntervals(List<Booking> bookings,
+                                               List<PersonalAppointment> appointments,
+                                               LocalDate date) {
+        List<TimeRange> blocked = new ArrayList<>(toEffectiveBlockedIntervals(bookings, date));
+        for (PersonalAppointment pa : appointments) {
+            LocalTime paEnd = pa.getStartTime().plusMinutes(pa.getDurationMinutes());
+            if (pa.getStartTime().isBefore(paEnd)) {
+                blocked.add(new TimeRange(pa.getStartTime(), paEnd));
+            }
+        }
+        return blocked;
+    }
+
+    /**
+     * Operatori da considerare, oppure {@code null} per il percorso salon-wide (singolo
+     * operatore, o {@link #staffAware} spento: il filtro operatore viene ignorato). Gate I1: senza filtro, il motore per-operatore si attiva solo con 2+
+     * operatori attivi, così con il solo titolare l'output resta identico a prima.
+     * Con {@code serviceId} contano solo gli operatori qualificati (stessa regola della lista
+     * pubblica dello staff); un filtro su un operatore non attivo/non qualificato → 400.
+     */
+    private List<UUID> staffScope(UUID serviceId, UUID staffId) {
+        if (!staffAware) return null;
+        if (staffId == null && staffMemberRepository.countByActiveTrue() < 2) return null;
+        List<StaffMember> candidates = (serviceId == null)
+                ? staffMemberRepository.findByActiveTrueOrderBySortOrderAsc()
+                : staffMemberRepository.findActiveByServiceIdOrderBySortOrderAsc(serviceId);
+        List<UUID> ids = candidates.stream().map(StaffMember::getId).toList();
+        if (staffId == null) return ids;
+        if (!ids.contains(staffId)) throw new BadRequestException("Operatore non disponibile per questo servizio.");
+        return List.of(staffId);
+    }
+
+    /** Griglia "qualsiasi operatore" del giorno: orari salon-wide e chiusure letti una volta, poi un leg per operatore. */
+    private List<AvailabilitySlotDTO> staffSlots(LocalDate date, List<UUID> staffIds, int durationMin, int stepMin) {
+        if (staffIds.isEmpty()) return List.of();
+        WorkingHours salonHours = workingHoursRepository.findByDayOfWeek(date.getDayOfWeek()).orElse(null);
+        return staffAvailabilityEngine.anyOperatorSlots(date, staffIds, salonHours,
+                closureRepository.findOverlappingDate(date), durationMin, stepMin, earliestStartMinute(date));
+    }
+
+    /** Orari settimanali (7 righe) in una sola query, per i percorsi multi-giorno. */
+    private Map<DayOfWeek, WorkingHours> loadWeeklyHours() {
+        Map<DayOfWeek, WorkingHours> hoursByDay = new EnumMap<>(DayOfWeek.class);
+        workingHoursRepository.findAll().forEach(wh -> hoursByDay.put(wh.getDayOfWeek(), wh));
+        return hoursByDay;
+    }
+
+    /**
+     * Primo slot libero di {@code day} (null se nessuno) dall'indice di occupazione, via
+     * {@link IntervalAlgebra}: open ranges = orari − chiusure parziali, griglia ancorata
+     * all'inizio di ogni range con passo {@code stepMin} (la stessa di generateAllSlots,
+     * compreso il clamp "adesso + 30 min" di oggi), inizi ammessi in [minStart, maxStartExclusive).
+     * Nessuna slot-list intermedia: i conflitti saltano direttamente oltre il blocco.
+     */
+    private PublicNextSlotDTO firstIndexedSlot(LocalDate day, WorkingHours wh, int durationMin, int stepMin,
+                                               int minStart, int maxStartExclusive) {
+        if (wh == null || wh.isClosed()) return null;
+        DayOccupancy occupancy = occupancyIndex.get(day);
+        int[] open = openMinutes(wh, occupancy);
+        if (open.length == 0) return null;
+
+        minStart = Math.max(minStart, earliestStartMinute(day));
+        int[] blocked = occupancy.blocked();
+        int start = IntervalAlgebra.firstFit(open, open.length, blocked, blocked.length,
+                durationMin, stepMin, minStart, maxStartExclusive);
+        if (start < 0) return null;
+        return new PublicNextSlotDTO(day, IntervalAlgebra.toHHmm(start), IntervalAlgebra.toHHmm(start + durationMin));
+    }
+
+    /** Open ranges del giorno in minuti (orari − chiusure parziali), normalizzati; vuoto se chiuso. */
+    private static int[] openMinutes(WorkingHours wh, DayOccupancy occupancy) {
+        if (wh == null || wh.isClosed() || occupancy.closedAllDay()) return new int[0];
+        int[] base = new int[4];
+        int baseLen = appendRange(base, 0, wh.getMorningStart(), wh.getMorningEnd());
+        baseLen = appendRange(base, baseLen, wh.getAfternoonStart(), wh.getAfternoonEnd());
+        baseLen = IntervalAlgebra.normalize(base, baseLen);
+        int[] closures = occupancy.closures();
+        int[] open = new int[baseLen + closures.length];
+        return Arrays.copyOf(open, IntervalAlgebra.subtract(base, baseLen, closures, closures.length, open));
+    }
+
+    private static int appendRange(int[] pairs, int len, LocalTime start, LocalTime end) {
+        if (start == null || end == null || !start.isBefore(end)) return len;
+        pairs[len] = IntervalAlgebra.toMinute(start);
+        pairs[len + 1] = IntervalAlgebra.toMinute(end);
+        return len + 2;
+    }
+
+    /**
+     * Buckets range-loaded bookings by every day in [from, to] they intersect — the same
+     * predicate as the per-day query (startTime &lt; dayEnd AND endTime &gt; dayStart), so a
+     * booking spanning midnight lands in both days and is clipped later per day.
+     */
+    private Map<LocalDate, List<Booking>> groupBookingsByDay(List<Booking> bookings, LocalDate from, LocalDate to) {
+        Map<LocalDate, List<Booking>> byDay = new HashMap<>();
+        for (Booking b : bookings) {
+            if (b.getStartTime() == null || b.getEndTime() == null) continue;
+            LocalDate first = b.getStartTime().toLocalDate();
+            if (first.isBefore(from)) first = from;
+            for (LocalDate d = first; !d.isAfter(to) && d.atStartOfDay().isBefore(b.getEndTime()); d = d.plusDays(1)) {
+                byDay.computeIfAbsent(d, k -> new ArrayList<>()).add(b);
+            }
+        }
+        return byDay;
+    }
+
     // ==========================================================================
     // PRIVATE — working hours / closures
     // ==========================================================================
@@ -636,6 +938,15 @@ public class AvailabilityService {
         return mergeAdjacent(result);
     }
 
+    /** In-memory equivalent of {@link ClosureRepository#findOverlappingDate} over a range-loaded list. */
+    private List<Closure> closuresCovering(List<Closure> closures, LocalDate day) {
+        List<Closure> out = new ArrayList<>();
+        for (Closure c : closures) {
+            if (c.coversDate(day)) out.add(c);
+        }
+        return out;
+    }
+
     private List<TimeRange> closuresToRanges(List<Closure> closures) {
         if (closures == null || closures.isEmpty()) return List.of();
         List<TimeRange> out = new ArrayList<>();
@@ -758,6 +1069,11 @@ public class AvailabilityService {
     // PRIVATE — TimeRange record
     // ==========================================================================
 
+    /** Chiavi per-giorno di {@link AvailabilityCache}: una per servizio, una per durata combinata. */
+    private record ServiceSlotsKey(UUID serviceId, UUID staffId) implements AvailabilityCache.ServiceKey {}
+
+    private record CombinedSlotsKey(int durationMinutes, UUID staffId) {}
+
     private record TimeRange(LocalTime start, LocalTime end) {
 
         boolean overlaps(TimeRange other) {
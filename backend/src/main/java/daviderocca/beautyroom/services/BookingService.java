@@ -4,6 +4,12 @@ import daviderocca.beautyroom.DTO.bookingDTOs.AdminBookingCardDTO;
 import daviderocca.beautyroom.DTO.bookingDTOs.BookingResponseDTO;
 import daviderocca.beautyroom.DTO.bookingDTOs.NewBookingDTO;
 import daviderocca.beautyroom.DTO.bookingDTOs.NextAvailableSlotDTO;
+import daviderocca.beautyroom.availability.AvailabilityChangedEvent;
+import daviderocca.beautyroom.availability.IntervalAlgebra;
+import daviderocca.beautyroom.booking.AgendaChangedEvent;
+import daviderocca.beautyroom.booking.BookingSlot;
+import daviderocca.beautyroom.booking.BookingStatusChangedEvent;
+import daviderocca.beautyroom.report.RevenueChangedEvent;
 import daviderocca.beautyroom.email.outbox.EmailOutboxService;
 import daviderocca.beautyroom.entities.Booking;
 import daviderocca.beautyroom.entities.Closure;
@@ -41,6 +47,7 @@ import daviderocca.beautyroom.packages.ClientPackageService;
 import daviderocca.beautyroom.packages.PackageInstallment;
 import daviderocca.beautyroom.packages.PackageInstallmentRepository;
 import daviderocca.beautyroom.packages.PackageInstallmentService;
+import daviderocca.beautyroom.personalappointments.PersonalAppointment;
 import daviderocca.beautyroom.personalappointments.PersonalAppointmentRepository;
 import daviderocca.beautyroom.exceptions.BadRequestException;
 import daviderocca.beautyroom.exceptions.ResourceNotFoundException;
@@ -72,6 +79,7 @@ import lombok.extern.slf4j.Slf4j;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
@@ -82,8 +90,12 @@ import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -130,6 +142,10 @@ public class BookingService {
     // BookingSale) carries a staff member from day one, so no NULL rows
     // accumulate before the final NOT NULL hardening. Inert — nothing reads it yet.
     private final daviderocca.beautyroom.staff.DefaultStaffResolver defaultStaffResolver;
+    // Occupancy index of the public finders: every write that changes what occupies the
+    // agenda publishes the touched days; the index reloads them after commit.
+    private final ApplicationEventPublisher eventPublisher;
+    // In-process CAS claims in front of the SERIALIZABLE create paths (losers skip the DB).
 
     @PersistenceContext
     private EntityManager entityManager;
@@ -233,6 +249,47 @@ public class BookingService {
                 .toList();
     }
 
+    // ============================ SLOT (claimed before the SERIALIZABLE write) ============================
+    // Each create's [start, end), computed exactly as the create does, for the in-memory claim
+    // ConflictRetryExecutor takes before opening the transaction. Read-only: a losing racer
+    // never opens a SERIALIZABLE transaction.
+
+    private static final String SINGLE_SLOT_TAKEN = "Esiste già una prenotazione in questo intervallo.";
+    private static final String MULTI_SLOT_TAKEN = "Lo slot selezionato non è disponibile.";
+
+    /** Hold (Stripe checkout) and pay-in-store creates. */
+    @Transactional(readOnly = true)
+    public BookingSlot clientBookingSlot(NewBookingDTO payload) {
+        return singleServiceSlot(payload, normalizeStart(payload.startTime()));
+    }
+
+    @Transactional(readOnly = true)
+    public BookingSlot manualBookingSlot(NewBookingDTO payload) {
+        return singleServiceSlot(payload, requireNotNull(payload.startTime(), "La data e ora di inizio non può essere nulla")
+                .truncatedTo(ChronoUnit.MINUTES));
+    }
+
+    @Transactional(readOnly = true)
+    public BookingSlot multiServiceBookingSlot(AdminBookingCreateDTO dto) {
+        LocalDateTime start = dto.date().atTime(dto.startTime()).truncatedTo(ChronoUnit.MINUTES);
+        return new BookingSlot(start, start.plusMinutes(planMultiService(dto).totalDuration()), MULTI_SLOT_TAKEN);
+    }
+
+    /** Multi-service Stripe webhook: the slot is in the session metadata, no lookup needed. */
+    public BookingSlot webhookBookingSlot(LocalDate date, LocalTime startTime, int totalDurationMinutes) {
+        LocalDateTime start = date.atTime(startTime).truncatedTo(ChronoUnit.MINUTES);
+        return new BookingSlot(start, start.plusMinutes(Math.max(totalDurationMinutes, 15)), "CONFLICT");
+    }
+
+    private BookingSlot singleServiceSlot(NewBookingDTO payload, LocalDateTime start) {
+        ServiceItem serviceItem = serviceItemService.findServiceItemById(payload.serviceId());
+        ServiceOption option = resolveAndValidateOption(payload.serviceOptionId(), serviceItem);
+        int effectiveDurationMin = (option != null && option.getDurationMin() != null && option.getDurationMin() > 0)
+                ? option.getDurationMin()
+                : serviceItem.getDurationMin();
+        return new BookingSlot(start, start.plusMinutes(effectiveDurationMin), SINGLE_SLOT_TAKEN);
+    }
+
     // ============================ HOLD CREATE (Stripe checkout) ============================
     @Transactional(isolation = Isolation.SERIALIZABLE)
     public BookingResponseDTO createHoldBooking(NewBookingDTO payload, User currentUserOrNull) {
@@ -247,8 +304,9 @@ public class BookingService {
                 : serviceItem.getDurationMin();
         LocalDateTime end = start.plusMinutes(effectiveDurationMin);
 
+        // Racers on the same minutes were already turned away by the claim in ConflictRetryExecutor.
         if (hasOverlapIncludingPadding(start, end)) {
-            throw new BadRequestException("Esiste già una prenotazione in questo intervallo.");
+            throw new BadRequestException(SINGLE_SLOT_TAKEN);
         }
         closureService.assertNoOverlappingClosure(start, end);
 
@@ -278,6 +336,7 @@ public class BookingService {
         booking.setCompletedAt(null);
 
         Booking saved = bookingRepository.save(booking);
+        publishAvailabilityChange(saved);
         log.info("Booking HOLD created: id={} status={} expiresAt={}", saved.getBookingId(), saved.getBookingStatus(), saved.getExpiresAt());
 
         Booking hydrated = bookingRepository.findByIdWithDetails(saved.getBookingId())
@@ -287,7 +346,9 @@ public class BookingService {
 
     @Transactional
     public Booking save(Booking booking) {
-        return bookingRepository.save(booking);
+        Booking saved = bookingRepository.save(booking);
+        publishAvailabilityChange(saved);
+        return saved;
     }
 
     // ============================ PAY IN STORE CREATE (Cliente di Fiducia) ============================
@@ -316,8 +377,9 @@ public class BookingService {
                 : serviceItem.getDurationMin();
         LocalDateTime end = start.plusMinutes(effectiveDurationMin);
 
+        // Racers on the same minutes were already turned away by the claim in ConflictRetryExecutor.
         if (hasOverlapIncludingPadding(start, end)) {
-            throw new BadRequestException("Esiste già una prenotazione in questo intervallo.");
+            throw new BadRequestException(SINGLE_SLOT_TAKEN);
         }
         closureService.assertNoOverlappingClosure(start, end);
 
@@ -344,6 +406,8 @@ public class BookingService {
         }
 
         Booking saved = bookingRepository.save(booking);
+        publishAvailabilityChange(saved);
+        publishStatusChange(saved, "online");
         log.info("PAY_IN_STORE booking created: id={} userId={} serviceId={}", saved.getBookingId(),
                 currentUser.getUserId(), serviceItem.getServiceId());
 
@@ -376,6 +440,7 @@ public class BookingService {
                 .orElseThrow(() -> new ResourceNotFoundException(bookingId));
         b.setNoShow(true);
         bookingRepository.save(b);
+        publishAgendaChange(b);
         log.info("Booking marked no-show: id={}", bookingId);
     }
 
@@ -388,6 +453,7 @@ public class BookingService {
                 .orElseThrow(() -> new ResourceNotFoundException(userId));
         target.setNoShow(true);
         bookingRepository.save(target);
+        publishAgendaChange(target);
         log.info("Latest booking marked no-show: userId={} bookingId={}", userId, target.getBookingId());
     }
 
@@ -406,8 +472,9 @@ public class BookingService {
                 : serviceItem.getDurationMin();
         LocalDateTime end = start.plusMinutes(effectiveDurationMin);
 
+        // Racers on the same minutes were already turned away by the claim in ConflictRetryExecutor.
         if (hasOverlapIncludingPadding(start, end)) {
-            throw new BadRequestException("Esiste già una prenotazione in questo intervallo.");
+            throw new BadRequestException(SINGLE_SLOT_TAKEN);
         }
         closureService.assertNoOverlappingClosure(start, end);
 
@@ -474,6 +541,7 @@ public class BookingService {
         notifyOutstandingPaymentsForCustomer(booking.getCustomer(), booking.getCustomerName());
 
         Booking saved = bookingRepository.save(booking);
+        publishAvailabilityChange(saved);
         log.info("Manual booking created by admin: id={} start={} end={} padding={}min packageCredit={}",
                 saved.getBookingId(), saved.getStartTime(), saved.getEndTime(),
                 saved.getPaddingMinutes(),
@@ -512,141 +580,23 @@ public class BookingService {
     public BookingResponseDTO createMultiServiceBooking(AdminBookingCreateDTO dto, User currentUser) {
         if (!isStaffOrAdmin(currentUser)) throw new UnauthorizedException("Solo lo staff può creare prenotazioni.");
 
-        // ── Step 1: validate at least one service source ──────────────────────
-        // Phase 5a: singular→list adapter for in-person package links. The deprecated
-        // dto.packageAssignmentId() is honored only when dto.packageAssignmentIds() is
-        // null or empty. Once the frontend ships 5b, callers send the list directly.
-        final List<UUID> assignmentIds = (dto.packageAssignmentIds() != null && !dto.packageAssignmentIds().isEmpty())
-                ? dto.packageAssignmentIds()
-                : (dto.packageAssignmentId() != null ? List.of(dto.packageAssignmentId()) : List.of());
-
-        boolean useEntries    = dto.serviceEntries() != null && !dto.serviceEntries().isEmpty();
-        boolean hasCatalog    = useEntries || (dto.serviceIds() != null && !dto.serviceIds().isEmpty());
-        boolean hasCustom     = Boolean.TRUE.equals(dto.hasCustomService());
-        boolean hasPkg        = !assignmentIds.isEmpty();
-        boolean hasPkgCredit  = dto.packageCreditId() != null;
-        // 08.2: a promo-only appointment (only products, or services not also added as
-        // catalog lines) is valid — like packages, it may carry a null primary service.
-        boolean hasPromo      = dto.promotionIds() != null && !dto.promotionIds().isEmpty();
-
-        if (!hasCatalog && !hasCustom && !hasPkg && !hasPkgCredit && !hasPromo) {
-            throw new BadRequestException(
-                    "Specifica almeno un servizio, un servizio personalizzato o un pacchetto.");
-        }
-        if (hasCustom) {
-            if (dto.customServiceName() == null || dto.customServiceName().isBlank()) {
-                throw new BadRequestException("Nome servizio personalizzato obbligatorio.");
-            }
-            if (dto.customServiceDurationMinutes() == null || dto.customServiceDurationMinutes() < 1) {
-                throw new BadRequestException("Durata servizio personalizzato obbligatoria.");
-            }
-        }
-
-        // ── Step 2: resolve catalog services + validate package ───────────────
-        List<ServiceItem> catalogServices = useEntries
-                ? dto.serviceEntries().stream()
-                        .map(e -> serviceItemService.findServiceItemById(e.serviceId()))
-                        .toList()
-                : (hasCatalog
-                        ? dto.serviceIds().stream().map(serviceItemService::findServiceItemById).toList()
-                        : List.of());
-
-        List<ClientPackageAssignment> assignments = new ArrayList<>();
-        if (hasPkg) {
-            for (UUID aid : assignmentIds) {
-                assignments.add(clientPackageService.validateActivePackage(aid));
-            }
-        }
-
-        PackageCredit packageCredit = null;
-        if (hasPkgCredit) {
-            packageCredit = packageCreditService.findById(dto.packageCreditId());
-            if (packageCredit.getStatus() != PackageCreditStatus.ACTIVE) {
-                throw new BadRequestException("Il pacchetto online non è attivo (stato: " + packageCredit.getStatus() + ").");
-            }
-            if (packageCredit.getSessionsRemaining() <= 0) {
-                throw new BadRequestException("Il pacchetto online non ha sedute residue.");
-            }
-        }
-
-        // ── Step 2b: load promotions to attach (08.2) ─────────────────────────
-        // Load active OR inactive (an admin may attach a just-ended promo). Dedupe per
-        // the V65 (booking_id, promotion_id) UNIQUE constraint. findByIdWithDetails eager-
-        // fetches services/products so the snapshot build below doesn't lazy-load per line.
-        List<Promotion> promotions = new ArrayList<>();
-        if (hasPromo) {
-            for (UUID pid : dto.promotionIds().stream().distinct().toList()) {
-                promotions.add(loadPromotionOrThrow(pid));
-            }
-        }
-
-        // ── Step 3: calculate total duration ─────────────────────────────────
-        int totalDuration;
-        if (dto.customTotalDurationMin() != null && dto.customTotalDurationMin() > 0) {
-            // Admin explicitly overrode total (e.g. parallel services)
-            totalDuration = dto.customTotalDurationMin();
-        } else {
-            totalDuration = 0;
-            List<ServiceEntryDTO> entries = useEntries ? dto.serviceEntries() : List.of();
-            for (int i = 0; i < catalogServices.size(); i++) {
-                ServiceItem svc = catalogServices.get(i);
-                ServiceEntryDTO entry = (useEntries && i < entries.size()) ? entries.get(i) : null;
-                Integer entryOverride = entry != null ? entry.overrideDurationMin() : null;
-                if (entryOverride != null && entryOverride > 0) {
-                    totalDuration += entryOverride;
-                } else {
-                    UUID optId = entry != null ? entry.optionId() : null;
-                    int dur = svc.getDurationMin();
-                    if (optId != null) {
-                        ServiceOption opt = serviceOptionRepository.findById(optId).orElse(null);
-                        if (opt != null && opt.getDurationMin() != null && opt.getDurationMin() > 0) {
-                            dur = opt.getDurationMin();
-                        }
-                    }
-                    totalDuration += dur;
-                }
-            }
-            if (hasCustom) totalDuration += dto.customServiceDurationMinutes();
-            if (hasPkg) {
-                for (ClientPackageAssignment a : assignments) {
-                    // Prefer the package's own per-session override when present and positive;
-                    // only fall back to the option-then-service chain when it is null/non-positive.
-                    Integer pkgSessionDuration = a.getSessionDurationMin();
-                    if (pkgSessionDuration != null && pkgSessionDuration > 0) {
-                        totalDuration += pkgSessionDuration;
-                        continue;
-                    }
-                    if (a.getServiceOption() == null) continue;
-                    ServiceOption pkgOption = a.getServiceOption();
-                    Integer optDuration = pkgOption.getDurationMin();
-                    if (optDuration != null && optDuration > 0) {
-                        totalDuration += optDuration;
-                    } else if (pkgOption.getService() != null && pkgOption.getService().getDurationMin() > 0) {
-                        totalDuration += pkgOption.getService().getDurationMin();
-                    }
-                }
-            }
-            if (hasPkgCredit && packageCredit != null && packageCredit.getServiceOption() != null) {
-                ServiceOption pcOption = packageCredit.getServiceOption();
-                Integer optDuration = pcOption.getDurationMin();
-                if (optDuration != null && optDuration > 0) {
-                    totalDuration += optDuration;
-                } else if (pcOption.getService() != null && pcOption.getService().getDurationMin() > 0) {
-                    totalDuration += pcOption.getService().getDurationMin();
-                }
-            }
-            // 08.2: promo services contribute to the COMPUTED duration (like packages).
-            // The override branch above is intentionally NOT affected.
-            totalDuration += sumPromoServicesDuration(promotions);
-        }
-        totalDuration = Math.max(totalDuration, 15);
+        MultiServicePlan plan = planMultiService(dto);
+        boolean useEntries = plan.useEntries();
+        boolean hasCustom = plan.hasCustom();
+        boolean hasPkg = plan.hasPkg();
+        boolean hasPkgCredit = plan.hasPkgCredit();
+        List<ServiceItem> catalogServices = plan.catalogServices();
+        List<ClientPackageAssignment> assignments = plan.assignments();
+        PackageCredit packageCredit = plan.packageCredit();
+        List<Promotion> promotions = plan.promotions();
+        int totalDuration = plan.totalDuration();
 
         // ── Step 4: overlap check ─────────────────────────────────────────────
         LocalDateTime start = dto.date().atTime(dto.startTime()).truncatedTo(ChronoUnit.MINUTES);
         LocalDateTime end   = start.plusMinutes(totalDuration);
 
         if (hasOverlapIncludingPadding(start, end)) {
-            throw new BadRequestException("Lo slot selezionato non è disponibile.");
+            throw new BadRequestException(MULTI_SLOT_TAKEN);
         }
         closureService.assertNoOverlappingClosure(start, end);
 
@@ -741,6 +691,7 @@ public class BookingService {
         notifyOutstandingPaymentsForCustomer(booking.getCustomer(), booking.getCustomerName());
 
         Booking saved = bookingRepository.save(booking);
+        publishAvailabilityChange(saved);
         log.info("Multi-service booking created: id={} duration={}min services={} custom={} pkg={}",
                 saved.getBookingId(), totalDuration, catalogServices.size(), hasCustom, hasPkg);
 
@@ -1014,6 +965,145 @@ public class BookingService {
         return convertToDTO(hydrated);
     }
 
+    /** Steps 1–3 of {@link #createMultiServiceBooking}: validated sources and the total duration. */
+    private record MultiServicePlan(boolean useEntries, boolean hasCustom, boolean hasPkg, boolean hasPkgCredit,
+                                    List<ServiceItem> catalogServices, List<ClientPackageAssignment> assignments,
+                                    PackageCredit packageCredit, List<Promotion> promotions, int totalDuration) {}
+
+    private MultiServicePlan planMultiService(AdminBookingCreateDTO dto) {
+        // ── Step 1: validate at least one service source ──────────────────────
+        // Phase 5a: singular→list adapter for in-person package links. The deprecated
+        // dto.packageAssignmentId() is honored only when dto.packageAssignmentIds() is
+        // null or empty. Once the frontend ships 5b, callers send the list directly.
+        final List<UUID> assignmentIds = (dto.packageAssignmentIds() != null && !dto.packageAssignmentIds().isEmpty())
+                ? dto.packageAssignmentIds()
+                : (dto.packageAssignmentId() != null ? List.of(dto.packageAssignmentId()) : List.of());
+
+        boolean useEntries    = dto.serviceEntries() != null && !dto.serviceEntries().isEmpty();
+        boolean hasCatalog    = useEntries || (dto.serviceIds() != null && !dto.serviceIds().isEmpty());
+        boolean hasCustom     = Boolean.TRUE.equals(dto.hasCustomService());
+        boolean hasPkg        = !assignmentIds.isEmpty();
+        boolean hasPkgCredit  = dto.packageCreditId() != null;
+        // 08.2: a promo-only appointment (only products, or services not also added as
+        // catalog lines) is valid — like packages, it may carry a null primary service.
+        boolean hasPromo      = dto.promotionIds() != null && !dto.promotionIds().isEmpty();
+
+        if (!hasCatalog && !hasCustom && !hasPkg && !hasPkgCredit && !hasPromo) {
+            throw new BadRequestException(
+                    "Specifica almeno un servizio, un servizio personalizzato o un pacchetto.");
+        }
+        if (hasCustom) {
+            if (dto.customServiceName() == null || dto.customServiceName().isBlank()) {
+                throw new BadRequestException("Nome servizio personalizzato obbligatorio.");
+            }
+            if (dto.customServiceDurationMinutes() == null || dto.customServiceDurationMinutes() < 1) {
+                throw new BadRequestException("Durata servizio personalizzato obbligatoria.");
+            }
+        }
+
+        // ── Step 2: resolve catalog services + validate package ───────────────
+        List<ServiceItem> catalogServices = useEntries
+                ? dto.serviceEntries().stream()
+                        .map(e -> serviceItemService.findServiceItemById(e.serviceId()))
+                        .toList()
+                : (hasCatalog
+                        ? dto.serviceIds().stream().map(serviceItemService::findServiceItemById).toList()
+                        : List.of());
+
+        List<ClientPackageAssignment> assignments = new ArrayList<>();
+        if (hasPkg) {
+            for (UUID aid : assignmentIds) {
+                assignments.add(clientPackageService.validateActivePackage(aid));
+            }
+        }
+
+        PackageCredit packageCredit = null;
+        if (hasPkgCredit) {
+            packageCredit = packageCreditService.findById(dto.packageCreditId());
+            if (packageCredit.getStatus() != PackageCreditStatus.ACTIVE) {
+                throw new BadRequestException("Il pacchetto online non è attivo (stato: " + packageCredit.getStatus() + ").");
+            }
+            if (packageCredit.getSessionsRemaining() <= 0) {
+                throw new BadRequestException("Il pacchetto online non ha sedute residue.");
+            }
+        }
+
+        // ── Step 2b: load promotions to attach (08.2) ─────────────────────────
+        // Load active OR inactive (an admin may attach a just-ended promo). Dedupe per
+        // the V65 (booking_id, promotion_id) UNIQUE constraint. findByIdWithDetails eager-
+        // fetches services/products so the snapshot build below doesn't lazy-load per line.
+        List<Promotion> promotions = new ArrayList<>();
+        if (hasPromo) {
+            for (UUID pid : dto.promotionIds().stream().distinct().toList()) {
+                promotions.add(loadPromotionOrThrow(pid));
+            }
+        }
+
+        // ── Step 3: calculate total duration ─────────────────────────────────
+        int totalDuration;
+        if (dto.customTotalDurationMin() != null && dto.customTotalDurationMin() > 0) {
+            // Admin explicitly overrode total (e.g. parallel services)
+            totalDuration = dto.customTotalDurationMin();
+        } else {
+            totalDuration = 0;
+            List<ServiceEntryDTO> entries = useEntries ? dto.serviceEntries() : List.of();
+            for (int i = 0; i < catalogServices.size(); i++) {
+                ServiceItem svc = catalogServices.get(i);
+                ServiceEntryDTO entry = (useEntries && i < entries.size()) ? entries.get(i) : null;
+                Integer entryOverride = entry != null ? entry.overrideDurationMin() : null;
+                if (entryOverride != null && entryOverride > 0) {
+                    totalDuration += entryOverride;
+                } else {
+                    UUID optId = entry != null ? entry.optionId() : null;
+                    int dur = svc.getDurationMin();
+                    if (optId != null) {
+                        ServiceOption opt = serviceOptionRepository.findById(optId).orElse(null);
+                        if (opt != null && opt.getDurationMin() != null && opt.getDurationMin() > 0) {
+                            dur = opt.getDurationMin();
+                        }
+                    }
+                    totalDuration += dur;
+                }
+            }
+            if (hasCustom) totalDuration += dto.customServiceDurationMinutes();
+            if (hasPkg) {
+                for (ClientPackageAssignment a : assignments) {
+                    // Prefer the package's own per-session override when present and positive;
+                    // only fall back to the option-then-service chain when it is null/non-positive.
+                    Integer pkgSessionDuration = a.getSessionDurationMin();
+                    if (pkgSessionDuration != null && pkgSessionDuration > 0) {
+                        totalDuration += pkgSessionDuration;
+                        continue;
+                    }
+                    if (a.getServiceOption() == null) continue;
+                    ServiceOption pkgOption = a.getServiceOption();
+                    Integer optDuration = pkgOption.getDurationMin();
+                    if (optDuration != null && optDuration > 0) {
+                        totalDuration += optDuration;
+                    } else if (pkgOption.getService() != null && pkgOption.getService().getDurationMin() > 0) {
+                        totalDuration += pkgOption.getService().getDurationMin();
+                    }
+                }
+            }
+            if (hasPkgCredit && packageCredit != null && packageCredit.getServiceOption() != null) {
+                ServiceOption pcOption = packageCredit.getServiceOption();
+                Integer optDuration = pcOption.getDurationMin();
+                if (optDuration != null && optDuration > 0) {
+                    totalDuration += optDuration;
+                } else if (pcOption.getService() != null && pcOption.getService().getDurationMin() > 0) {
+                    totalDuration += pcOption.getService().getDurationMin();
+                }
+            }
+            // 08.2: promo services contribute to the COMPUTED duration (like packages).
+            // The override branch above is intentionally NOT affected.
+            totalDuration += sumPromoServicesDuration(promotions);
+        }
+        totalDuration = Math.max(totalDuration, 15);
+
+        return new MultiServicePlan(useEntries, hasCustom, hasPkg, hasPkgCredit,
+                catalogServices, assignments, packageCredit, promotions, totalDuration);
+    }
+
     /**
      * Creates a CONFIRMED booking for a multi-service Stripe checkout after payment succeeds.
      * Called from the webhook — runs at SERIALIZABLE isolation to detect slot conflicts atomically.
@@ -1108,6 +1198,8 @@ public class BookingService {
         }
 
         Booking saved = bookingRepository.save(booking);
+        publishAvailabilityChange(saved);
+        publishStatusChange(saved, "webhook");
         log.info("Multi-service webhook booking created: id={} duration={}min services={}",
                 saved.getBookingId(), totalDurationMinutes, services.size());
 
@@ -1253,6 +1345,7 @@ public class BookingService {
         tombstone.setCreatedByAdmin(false);
 
         Booking saved = bookingRepository.save(tombstone);
+        publishAgendaChange(saved);
         log.info("Conflict tombstone CANCELLED persistito: id={} sessionId={} reason={}",
                 saved.getBookingId(), stripeSessionId, saved.getCancelReason());
         return saved;
@@ -1270,6 +1363,7 @@ public class BookingService {
         }
         booking.setStripeSessionId(stripeSessionId.trim());
         bookingRepository.save(booking);
+        publishAgendaChange(booking);
         log.info("Stripe session attached to booking: bookingId={} sessionId={}", bookingId, stripeSessionId);
     }
 
@@ -1289,6 +1383,8 @@ public class BookingService {
         booking.setPaidAt(LocalDateTime.now());
         booking.setExpiresAt(null);
         bookingRepository.save(booking);
+        publishAgendaChange(booking);
+        publishStatusChange(booking, "webhook");
     }
 
     @Transactional(isolation = Isolation.SERIALIZABLE)
@@ -1315,6 +1411,8 @@ public class BookingService {
             booking.setCanceledAt(LocalDateTime.now());
             booking.setCancelReason("EXPIRED_BEFORE_WEBHOOK");
             bookingRepository.save(booking);
+            publishAvailabilityChange(booking);
+            publishStatusChange(booking, "webhook");
             log.warn("Webhook paid but booking already expired: bookingId={}", bookingId);
             return;
         }
@@ -1329,6 +1427,8 @@ public class BookingService {
         booking.setPaidAt(LocalDateTime.now());
         booking.setExpiresAt(null);
         bookingRepository.save(booking);
+        publishAgendaChange(booking);
+        publishStatusChange(booking, "webhook");
         log.info("Booking confirmed (paid): bookingId={} email={}", bookingId, customerEmailFromStripe);
 
         // Notifica SOLO per prenotazioni online (webhook Stripe) non create manualmente da admin
@@ -1361,10 +1461,59 @@ public class BookingService {
             b.setExpiresAt(null);
         }
         bookingRepository.saveAll(expired);
+        expired.forEach(this::publishAvailabilityChange);
         if (!expired.isEmpty()) log.info("Expired bookings: {}", expired.size());
         return expired.size();
     }
 
+    // ============================ AVAILABILITY EVENTS ============================
+
+    /** Giorni occupati da {@code b}: start → end + paddingMinutes. Null se il booking non ha orario. */
+    private AvailabilityChangedEvent availabilityChangeOf(Booking b) {
+        if (b == null || b.getStartTime() == null) return null;
+        LocalDateTime end = b.getEndTime();
+        if (end != null && b.getPaddingMinutes() != null && b.getPaddingMinutes() > 0) {
+            end = end.plusMinutes(b.getPaddingMinutes());
+        }
+        return AvailabilityChangedEvent.forSpan(b.getStartTime(), end);
+    }
+
+    private void publishAvailabilityChange(Booking b) {
+        publishAvailabilityChange(availabilityChangeOf(b));
+    }
+
+    private void publishAvailabilityChange(AvailabilityChangedEvent event) {
+        if (event != null) eventPublisher.publishEvent(event);
+    }
+
+    /** Status transition / new online booking, pushed to the admin SSE channel after commit. */
+    private void publishStatusChange(Booking b, String source) {
+        eventPublisher.publishEvent(new BookingStatusChangedEvent(
+                b.getBookingId(), b.getBookingStatus(), b.getStartTime(), b.getCustomerName(), source));
+    }
+
+    /**
+     * Money of {@code b} may have moved on the days it is collected on (report COLL axis), plus
+     * any {@code previous} dates the write just cleared: the revenue rollup recomputes the closed ones.
+     */
+    private void publishRevenueChange(Booking b, LocalDateTime... previous) {
+        LocalDateTime[] instants = Arrays.copyOf(previous, previous.length + 3);
+        instants[previous.length] = b.getPaidAt();
+        instants[previous.length + 1] = b.getSettledAt();
+        instants[previous.length + 2] = b.getCompletedAt();
+        publishRevenueChange(RevenueChangedEvent.of(instants));
+    }
+
+    private void publishRevenueChange(RevenueChangedEvent event) {
+        if (event != null) eventPublisher.publishEvent(event);
+    }
+
+    /** Card-only edit (no occupancy change): bumps the agenda delta feed for the booking's days. */
+    private void publishAgendaChange(Booking b) {
+        AgendaChangedEvent event = AgendaChangedEvent.forBooking(b.getStartTime(), b.getEndTime());
+        if (event != null) eventPublisher.publishEvent(event);
+    }
+
     @Transactional(readOnly = true)
     public NextAvailableSlotDTO findNextAvailableSlot(int durationMin, LocalDateTime after) {
         return findNextAvailableSlot(durationMin, after, null, null, null);
@@ -1401,22 +1550,40 @@ public class BookingService {
             if (fullDayClosed) continue;
 
             List<Booking> dayBookings = bookingRepository.findByDateAndStatusNotCancelled(day);
-            dayBookings.sort(Comparator.comparing(Booking::getStartTime));
-
-            List<LocalTime[]> closureIntervals = closures.stream()
-                    .filter(c -> !c.isFullDay() && c.getStartTime() != null && c.getEndTime() != null)
-                    .map(c -> new LocalTime[]{c.getStartTime(), c.getEndTime()})
-                    .toList();
 
             // Personal appointments occupy the salon just like bookings/closures — merge them into
             // the same `booked` set the range loop scans. Fetched once per day-iteration (outside the
             // range loop) so gap-scanning and extend-past-hours window semantics stay untouched: a PA
             // inside an extended window blocks it exactly like a booking would (prompt 05 gap fix).
-            List<LocalTime[]> personalIntervals = personalAppointmentRepository
-                    .findByAppointmentDateOrderByStartTime(day).stream()
-                    .filter(pa -> pa.getStartTime() != null && pa.getDurationMinutes() > 0)
-                    .map(pa -> new LocalTime[]{pa.getStartTime(), pa.getStartTime().plusMinutes(pa.getDurationMinutes())})
-                    .toList();
+            List<PersonalAppointment> dayAppointments =
+                    personalAppointmentRepository.findByAppointmentDateOrderByStartTime(day);
+
+            // Bookings (+ padding), partial closures and personal appointments → one normalized
+            // minute set, shared by every open range of the day (IntervalAlgebra, same engine as
+            // the public finders).
+            int[] booked = new int[2 * (dayBookings.size() + closures.size() + dayAppointments.size())];
+            int bookedLen = 0;
+            for (Booking b : dayBookings) {
+                // FEATURE: applica paddingMinutes anche nel finder slot successivo
+                int padding = (b.getPaddingMinutes() != null && b.getPaddingMinutes() > 0) ? b.getPaddingMinutes() : 0;
+                LocalDateTime be = b.getEndTime().plusMinutes(padding);
+                booked[bookedLen++] = IntervalAlgebra.toMinute(b.getStartTime().toLocalTime());
+                booked[bookedLen++] = be.toLocalDate().isAfter(day)
+                        ? IntervalAlgebra.MINUTES_PER_DAY
+                        : IntervalAlgebra.toMinute(be.toLocalTime());
+            }
+            for (Closure c : closures) {
+                if (c.isFullDay() || c.getStartTime() == null || c.getEndTime() == null) continue;
+                booked[bookedLen++] = IntervalAlgebra.toMinute(c.getStartTime());
+                booked[bookedLen++] = IntervalAlgebra.toMinute(c.getEndTime());
+            }
+            for (PersonalAppointment pa : dayAppointments) {
+                if (pa.getStartTime() == null || pa.getDurationMinutes() <= 0) continue;
+                int ps = IntervalAlgebra.toMinute(pa.getStartTime());
+                booked[bookedLen++] = ps;
+                booked[bookedLen++] = Math.min(ps + pa.getDurationMinutes(), IntervalAlgebra.MINUTES_PER_DAY);
+            }
+            bookedLen = IntervalAlgebra.normalize(booked, bookedLen);
 
             for (int idx = 0; idx < openRanges.size(); idx++) {
                 LocalTime[] range = openRanges.get(idx);
@@ -1434,58 +1601,14 @@ public class BookingService {
                 if (windowEnd != null && rangeEnd.isAfter(windowEnd)) rangeEnd = windowEnd;
                 if (!rangeStart.isBefore(rangeEnd)) continue;
 
-                List<LocalTime[]> booked = new ArrayList<>();
-
-                for (Booking b : dayBookings) {
-                    LocalTime bs = b.getStartTime().toLocalTime();
-                    // FEATURE: applica paddingMinutes anche nel finder slot successivo
-                    int padding = (b.getPaddingMinutes() != null && b.getPaddingMinutes() > 0) ? b.getPaddingMinutes() : 0;
-                    LocalTime be = b.getEndTime().toLocalTime().plusMinutes(padding);
-                    if (be.isAfter(rangeStart) && bs.isBefore(rangeEnd))
-                        booked.add(new LocalTime[]{bs, be});
-                }
-
-                for (LocalTime[] ci : closureIntervals) {
-                    LocalTime cs = ci[0];
-                    LocalTime ce = ci[1];
-                    if (ce.isAfter(rangeStart) && cs.isBefore(rangeEnd))
-                        booked.add(new LocalTime[]{cs, ce});
-                }
-
-                for (LocalTime[] pi : personalIntervals) {
-                    LocalTime ps = pi[0];
-                    LocalTime pe = pi[1];
-                    if (pe.isAfter(rangeStart) && ps.isBefore(rangeEnd))
-                        booked.add(new LocalTime[]{ps, pe});
-                }
-
-                booked = booked.stream()
-                        .sorted(Comparator.comparing(a -> a[0]))
-                        .collect(Collectors.toList());
-
-                LocalTime cursor = rangeStart;
-                for (LocalTime[] interval : booked) {
-                    LocalTime bs = interval[0];
-                    LocalTime be = interval[1];
-                    if (be.isBefore(cursor) || !bs.isAfter(rangeStart) && !be.isAfter(cursor)) continue;
-                    if (bs.isAfter(cursor)) {
-                        long gapMin = Duration.between(cursor, bs).toMinutes();
-                        if (gapMin >= durationMin) {
-                            return new NextAvailableSlotDTO(day, cursor, cursor.plusMinutes(durationMin), (int) gapMin);
-                        }
-                    }
-                    if (be.isAfter(cursor)) {
-                        cursor = be;
-                        if (!cursor.isBefore(rangeEnd)) break;
-                    }
-                }
-
-                if (cursor.isBefore(rangeEnd)) {
-                    long tailGap = Duration.between(cursor, rangeEnd).toMinutes();
-                    if (tailGap >= durationMin) {
-                        return new NextAvailableSlotDTO(day, cursor, cursor.plusMinutes(durationMin), (int) tailGap);
-                    }
-                }
+                // Earliest start in the range whose [start, start + duration) is free (step 1 = gap search).
+                int[] window = {IntervalAlgebra.toMinuteCeil(rangeStart), IntervalAlgebra.toMinute(rangeEnd)};
+                int start = IntervalAlgebra.firstFit(window, 2, booked, bookedLen,
+                        durationMin, 1, window[0], Integer.MAX_VALUE);
+                if (start < 0) continue;
+                int gapMin = IntervalAlgebra.freeUntil(booked, bookedLen, start, window[1]) - start;
+                LocalTime cursor = IntervalAlgebra.toTime(start);
+                return new NextAvailableSlotDTO(day, cursor, cursor.plusMinutes(durationMin), gapMin);
             }
         }
         return null;
@@ -1499,6 +1622,7 @@ public class BookingService {
         }
 
         Booking found = findBookingById(bookingId);
+        AvailabilityChangedEvent freedDays = availabilityChangeOf(found);
 
         // FIX B3: blocca la delete solo se la prenotazione è pagata online E non è già in uno
         // stato terminale gestito. Se è CANCELLED o REFUNDED il rimborso è stato gestito (o non
@@ -1582,6 +1706,7 @@ public class BookingService {
         // L1 cache is clean — no stale link entity pointing at the about-to-be-removed booking.
         bookingRepository.deleteById(bookingId);
         bookingRepository.flush();
+        publishAvailabilityChange(freedDays);
         log.info("Booking hard-deleted by admin: id={} unlinkedAssignments={}", bookingId, pkgAssignmentIds.size());
 
         // Links are now gone (cascade); recalculate each formerly-linked assignment
@@ -1632,6 +1757,7 @@ public class BookingService {
                 booking.setCancelReason("ADMIN_CANCEL_UNPAID");
                 booking.setExpiresAt(null);
                 bookingRepository.save(booking);
+                publishAvailabilityChange(booking);
                 log.info("Booking PENDING_PAYMENT cancelled without refund: bookingId={}", bookingId);
                 return;
             }
@@ -1672,6 +1798,7 @@ public class BookingService {
         booking.setCancelReason("ADMIN_REFUND");
         booking.setExpiresAt(null);
         bookingRepository.save(booking);
+        publishAvailabilityChange(booking);
 
         // Deactivate linked PackageCredit if present
         PackageCredit pc = booking.getPackageCredit();
@@ -1680,6 +1807,7 @@ public class BookingService {
         }
         if (pc != null) {
             packageCreditService.markAsRefunded(pc);
+            publishRevenueChange(RevenueChangedEvent.of(pc.getPurchasedAt())); // leaves its purchase day
             log.info("PackageCredit {} marked REFUNDED for bookingId={}", pc.getPackageCreditId(), bookingId);
         }
 
@@ -1733,6 +1861,7 @@ public class BookingService {
         booking.setCancelReason("DASHBOARD_REFUND");
         booking.setExpiresAt(null);
         bookingRepository.save(booking);
+        publishAvailabilityChange(booking);
 
         // Invalidate the linked online PackageCredit — mirror of refundBooking's proven block. The
         // payment-keyed fallback (findByStripeSessionId) finds the credit even after a detach, when the
@@ -1744,6 +1873,7 @@ public class BookingService {
         }
         if (pc != null && pc.getStatus() != PackageCreditStatus.REFUNDED) {
             packageCreditService.markAsRefunded(pc);
+            publishRevenueChange(RevenueChangedEvent.of(pc.getPurchasedAt())); // leaves its purchase day
             log.info("PackageCredit {} marked REFUNDED (dashboard refund) for bookingId={}", pc.getPackageCreditId(), id);
         }
 
@@ -1791,6 +1921,7 @@ public class BookingService {
         }
 
         LocalDateTime oldStart = found.getStartTime(); // PROMPT B: capture pre-move start before overwrite
+        AvailabilityChangedEvent previousDays = availabilityChangeOf(found);
         found.setStartTime(start);
         found.setEndTime(end);
         found.setService(serviceItem);
@@ -1811,6 +1942,8 @@ public class BookingService {
         }
 
         Booking updated = bookingRepository.save(found);
+        publishAvailabilityChange(previousDays);
+        publishAvailabilityChange(updated);
         maybeRecalculatePackage(bookingId);
         // PROMPT B: the confirmation was already enqueued at create (agenda/online/in-store), so we
         // do NOT re-send it on edit. On a real time change to a FUTURE slot, send "spostato" (from→to,
@@ -1929,6 +2062,7 @@ public class BookingService {
         }
 
         LocalDateTime oldStart = found.getStartTime(); // PROMPT B: capture pre-move start before overwrite
+        AvailabilityChangedEvent previousDays = availabilityChangeOf(found);
         found.setStartTime(start);
         found.setEndTime(end);
         found.setDurationMinutes(totalDuration);
@@ -2031,6 +2165,8 @@ public class BookingService {
         if (dto.totalSessions() != null) found.setTotalSessions(dto.totalSessions());
 
         Booking updated = bookingRepository.save(found);
+        publishAvailabilityChange(previousDays);
+        publishAvailabilityChange(updated);
 
         // Persist per-service option_id: flush JPA deletes first, then re-insert with option_id
         // V62: also persist bs.paid (mirror the create path exactly).
@@ -2326,6 +2462,7 @@ public class BookingService {
         Booking found = bookingRepository.findByIdForUpdate(bookingId)
                 .orElseThrow(() -> new ResourceNotFoundException(bookingId));
         BookingStatus old = found.getBookingStatus();
+        LocalDateTime completedBefore = found.getCompletedAt(); // in-store collection fallback date
 
         if (old == newStatus) {
             log.info("Booking status update no-op: id={} status={}", bookingId, newStatus);
@@ -2389,6 +2526,9 @@ public class BookingService {
 
         found.setBookingStatus(newStatus);
         Booking updated = bookingRepository.save(found);
+        publishAvailabilityChange(updated);
+        publishStatusChange(updated, "staff");
+        publishRevenueChange(updated, completedBefore);
         maybeRecalculatePackage(bookingId);
 
         // PROMPT B: notify the customer that a FUTURE appointment was cancelled (generic, no reason).
@@ -2558,6 +2698,9 @@ public class BookingService {
         // Already COMPLETED → completion is a no-op (idempotent): no re-consume,
         // completedAt untouched, no waitlist (that is a cancellation side-effect).
 
+        publishAgendaChange(found);
+        // settledAt is stamped once: settling lines of an older booking moves money on that past day.
+        publishRevenueChange(found);
         return convertToDTO(found);
     }
 
@@ -3043,6 +3186,8 @@ public class BookingService {
         packageCreditService.restoreSessionForBooking(found);
 
         bookingRepository.save(found);
+        publishAvailabilityChange(found);
+        publishStatusChange(found, "cancel");
         maybeRecalculatePackage(bookingId);
         // 08.2: restore promo-product stock on cancel. Already-CANCELLED returned at the
         // top of this method (~:1978) → this runs at most once per booking.
@@ -3104,6 +3249,7 @@ public class BookingService {
         b.setConsentSigned(true);
         b.setConsentSignedAt(LocalDateTime.now());
         Booking saved = bookingRepository.save(b);
+        publishAgendaChange(saved);
         log.info("Consent PMU firmato: bookingId={} serviceId={}", bookingId, b.getService().getServiceId());
         return toAdminCard(saved);
     }
@@ -3116,6 +3262,7 @@ public class BookingService {
                 .orElseThrow(() -> new ResourceNotFoundException(bookingId));
         b.setReminderSentAt(sent ? LocalDateTime.now() : null);
         bookingRepository.save(b);
+        publishAgendaChange(b);
         return b.getReminderSentAt();
     }
 
@@ -3127,12 +3274,10 @@ public class BookingService {
     public List<AdminBookingCardDTO> findPmuUnsigned() {
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime future = now.plusDays(365);
-        return bookingRepository.findPmuUnsignedFuture(
+        List<Booking> unsigned = bookingRepository.findPmuUnsignedFuture(
                         List.of(BookingStatus.CONFIRMED, BookingStatus.PENDING_PAYMENT),
-                        now, future)
-                .stream()
-                .map(this::toAdminCard)
-                .toList();
+                        now, future);
+        return toAdminCards(unsigned, Set.of());
     }
 
     // ============================ ADMIN AGENDA ============================
@@ -3142,10 +3287,7 @@ public class BookingService {
         LocalDateTime from = date.atStartOfDay();
         LocalDateTime to   = date.plusDays(1).atStartOfDay();
         List<Booking> bookings = bookingRepository.findAgendaRangeWithDetails(from, to);
-        Set<String> outstanding = resolveOutstandingPhones(bookings);
-        return bookings.stream()
-                .map(b -> toAdminCard(b, outstanding.contains(digitsOnly(b.getCustomerPhone()))))
-                .toList();
+        return toAdminCards(bookings, resolveOutstandingPhones(bookings));
     }
 
     @Transactional(readOnly = true)
@@ -3155,10 +3297,25 @@ public class BookingService {
         LocalDateTime from = fromDate.atStartOfDay();
         LocalDateTime to   = toDateExclusive.atStartOfDay();
         List<Booking> bookings = bookingRepository.findAgendaRangeWithDetails(from, to);
-        Set<String> outstanding = resolveOutstandingPhones(bookings);
-        return bookings.stream()
-                .map(b -> toAdminCard(b, outstanding.contains(digitsOnly(b.getCustomerPhone()))))
+        return toAdminCards(bookings, resolveOutstandingPhones(bookings));
+    }
+
+    /**
+     * Agenda cards of the given days only (delta feed): one range query over [min, max], then the
+     * bookings starting on an unrequested day are dropped BEFORE the batch card assembly.
+     */
+    @Transactional(readOnly = true)
+    public List<AdminBookingCardDTO> getAgendaDays(Collection<LocalDate> days) {
+        if (days == null || days.isEmpty()) return List.of();
+        LocalDate first = Collections.min(days);
+        LocalDate last = Collections.max(days);
+        Set<LocalDate> wanted = new HashSet<>(days);
+        List<Booking> bookings = bookingRepository
+                .findAgendaRangeWithDetails(first.atStartOfDay(), last.plusDays(1).atStartOfDay())
+                .stream()
+                .filter(b -> b.getStartTime() != null && wanted.contains(b.getStartTime().toLocalDate()))
                 .toList();
+        return toAdminCards(bookings, resolveOutstandingPhones(bookings));
     }
 
     // V64 (Fase 2): ONE batch query for the whole agenda range — given the bookings in
@@ -3179,9 +3336,102 @@ public class BookingService {
         return phone == null ? "" : phone.replaceAll("[^0-9]", "");
     }
 
-    /** Non-agenda callers (findPmuUnsigned, signConsent): no arretrati badge. */
+    /** Single-card callers (signConsent, email layer): no arretrati badge, a batch of one. */
     private AdminBookingCardDTO toAdminCard(Booking b) {
-        return toAdminCard(b, false);
+        return toAdminCard(b, false, prefetchCards(List.of(b)));
+    }
+
+    /**
+     * Batch card assembly: every relation the card reads (booking_services lines, package links +
+     * installments, sales, promotion links, online-package ranks) is loaded for the WHOLE list with
+     * one IN (...) query each, then the cards are built in memory. The query count depends on the
+     * relations, not on how many bookings are in view — a month of agenda costs the same handful
+     * of queries as a single day.
+     */
+    private List<AdminBookingCardDTO> toAdminCards(List<Booking> bookings, Set<String> outstandingPhones) {
+        if (bookings.isEmpty()) return List.of();
+        CardPrefetch prefetch = prefetchCards(bookings);
+        return bookings.stream()
+                .map(b -> toAdminCard(b, outstandingPhones.contains(digitsOnly(b.getCustomerPhone())), prefetch))
+                .toList();
+    }
+
+    /** Per-booking side data for {@link #toAdminCard(Booking, boolean, CardPrefetch)}, keyed by bookingId. */
+    private record CardPrefetch(
+            Map<UUID, List<ServiceSummaryDTO>> services,
+            Map<UUID, List<BookingPackageLink>> packageLinks,
+            Map<UUID, List<PackageInstallment>> installmentsByAssignment,
+            Map<UUID, List<BookingSale>> sales,
+            Map<UUID, List<BookingPromotionLink>> promoLinks,
+            Map<UUID, Integer> onlineSessionNumbers
+    ) {}
+
+    private static final Comparator<PackageInstallment> INSTALLMENT_ORDER =
+            Comparator.comparingInt(PackageInstallment::getPosition)
+                    .thenComparing(PackageInstallment::getDueDate, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private CardPrefetch prefetchCards(List<Booking> bookings) {
+        List<UUID> ids = bookings.stream().map(Booking::getBookingId).distinct().toList();
+
+        // Booking.services is only read as title fallback / legacy custom-duration inference:
+        // initialize the bag for the bookings without a primary service, all in one go.
+        List<UUID> withoutPrimary = bookings.stream()
+                .filter(b -> b.getService() == null)
+                .map(Booking::getBookingId)
+                .toList();
+        if (!withoutPrimary.isEmpty()) bookingRepository.fetchServicesForBookings(withoutPrimary);
+
+        Map<UUID, List<BookingPackageLink>> packageLinks = Map.of();
+        try {
+            packageLinks = bookingPackageLinkRepository.findAllByBookingIdInWithAssignment(ids).stream()
+                    .collect(Collectors.groupingBy(l -> l.getBooking().getBookingId()));
+        } catch (Exception e) {
+            log.warn("Could not resolve linkedPackages for {} bookings: {}", ids.size(), e.getMessage());
+        }
+
+        Set<UUID> installmentAssignments = packageLinks.values().stream()
+                .flatMap(List::stream)
+                .map(BookingPackageLink::getAssignment)
+                .filter(a -> a.getPaymentMode() == ClientPackagePaymentMode.INSTALLMENTS)
+                .map(ClientPackageAssignment::getId)
+                .collect(Collectors.toSet());
+        Map<UUID, List<PackageInstallment>> installments = installmentAssignments.isEmpty()
+                ? Map.of()
+                : packageInstallmentRepository.findByAssignmentIdIn(installmentAssignments).stream()
+                        .sorted(INSTALLMENT_ORDER)
+                        .collect(Collectors.groupingBy(pi -> pi.getAssignment().getId()));
+
+        Map<UUID, List<BookingSale>> sales = bookingSaleRepository.findByBookingIdInOrderByAddedAtDesc(ids).stream()
+                .collect(Collectors.groupingBy(BookingSale::getBookingId));
+
+        Map<UUID, List<BookingPromotionLink>> promoLinks = Map.of();
+        try {
+            promoLinks = bookingPromotionLinkRepository.findAllByBookingIdInWithPromotion(ids).stream()
+                    .collect(Collectors.groupingBy(l -> l.getBooking().getBookingId()));
+        } catch (Exception e) {
+            log.warn("Could not resolve linkedPromotions for {} bookings: {}", ids.size(), e.getMessage());
+        }
+
+        // Online packages render "Seduta X/Y" only when no in-person link exists (see toAdminCard).
+        Map<UUID, UUID> creditByBooking = new HashMap<>();
+        for (Booking b : bookings) {
+            if (b.getPackageCredit() != null && b.getPackageCredit().getPackageCreditId() != null
+                    && !packageLinks.containsKey(b.getBookingId())) {
+                creditByBooking.put(b.getBookingId(), b.getPackageCredit().getPackageCreditId());
+            }
+        }
+        Map<UUID, Integer> onlineSessionNumbers = new HashMap<>();
+        if (!creditByBooking.isEmpty()) {
+            Map<UUID, List<Booking>> siblingsByCredit = bookingRepository
+                    .findByPackageCredit_PackageCreditIdInOrderByStartTimeAsc(new HashSet<>(creditByBooking.values()))
+                    .stream()
+                    .collect(Collectors.groupingBy(sib -> sib.getPackageCredit().getPackageCreditId()));
+            creditByBooking.forEach((bookingId, creditId) -> onlineSessionNumbers.put(bookingId,
+                    rankInCredit(siblingsByCredit.getOrDefault(creditId, List.of()), bookingId)));
+        }
+
+        return new CardPrefetch(loadServiceSummaries(ids), packageLinks, installments, sales, promoLinks,
+                onlineSessionNumbers);
     }
 
     /**
@@ -3213,10 +3463,10 @@ public class BookingService {
      * </ul>
      * {@code pastTotal} is the unpaginated "past" count (for "load more").
      *
-     * <p>MUST stay {@code @Transactional(readOnly = true)}: OSIV is off and {@code assembleBookingCard}
-     * lazy-loads services/packages/sales/promotions per booking. That assembler is N+1 per row, so we
-     * assemble ALL upcoming (naturally small) but ONLY the requested past PAGE — rows beyond the page
-     * are never assembled.
+     * <p>MUST stay {@code @Transactional(readOnly = true)}: OSIV is off and the card assembler reads
+     * lazy associations. Cards are built with the agenda batch assembler ({@code toAdminCards}), once
+     * for ALL upcoming (naturally small) and once for ONLY the requested past PAGE — rows beyond the
+     * page are never assembled.
      */
     @Transactional(readOnly = true)
     public CustomerBookingsDTO getCustomerBookingCards(UUID customerId, int pastLimit, int pastOffset) {
@@ -3255,14 +3505,11 @@ public class BookingService {
         int safeOffset = Math.max(0, pastOffset);
         int safeLimit  = Math.max(0, pastLimit);
 
-        List<AdminBookingCardDTO> upcomingCards = upcoming.stream()
-                .map(this::assembleBookingCard)
-                .toList();
-        List<AdminBookingCardDTO> pastCards = past.stream()
+        List<AdminBookingCardDTO> upcomingCards = toAdminCards(upcoming, Set.of());
+        List<AdminBookingCardDTO> pastCards = toAdminCards(past.stream()
                 .skip(safeOffset)
                 .limit(safeLimit)
-                .map(this::assembleBookingCard)
-                .toList();
+                .toList(), Set.of());
 
         return new CustomerBookingsDTO(upcomingCards, pastCards, pastTotal);
     }
@@ -3282,12 +3529,17 @@ public class BookingService {
         List<Booking> siblings = bookingRepository
                 .findByPackageCredit_PackageCreditIdOrderByStartTimeAsc(
                         b.getPackageCredit().getPackageCreditId());
+        return rankInCredit(siblings, b.getBookingId());
+    }
+
+    /** 1-based rank of {@code bookingId} among siblings sorted by startTime, skipping CANCELLED / NO_SHOW. */
+    private static int rankInCredit(List<Booking> siblings, UUID bookingId) {
         int rank = 0;
         for (Booking sib : siblings) {
             BookingStatus s = sib.getBookingStatus();
             if (s == BookingStatus.CANCELLED || s == BookingStatus.NO_SHOW) continue;
             rank++;
-            if (sib.getBookingId() != null && sib.getBookingId().equals(b.getBookingId())) {
+            if (sib.getBookingId() != null && sib.getBookingId().equals(bookingId)) {
                 return rank;
             }
         }
@@ -3300,10 +3552,16 @@ public class BookingService {
      * The @ManyToMany Booking.services maps only (booking_id, service_id) and cannot surface these,
      * so both the agenda card (toAdminCard) and the booking response (convertToDTO) resolve lines here.
      */
-    @SuppressWarnings("unchecked")
     private List<ServiceSummaryDTO> loadServiceSummaries(UUID bookingId) {
+        return loadServiceSummaries(Collections.singletonList(bookingId)).getOrDefault(bookingId, List.of());
+    }
+
+    /** Batch form: the lines of every booking in {@code bookingIds}, ONE query, grouped in sort_order. */
+    @SuppressWarnings("unchecked")
+    private Map<UUID, List<ServiceSummaryDTO>> loadServiceSummaries(List<UUID> bookingIds) {
+        if (bookingIds.isEmpty()) return Map.of();
         List<Object[]> svcRows = entityManager.createNativeQuery("""
-                SELECT bs.service_id, s.title,
+                SELECT bs.booking_id, bs.service_id, s.title,
                        COALESCE(bs.override_duration_min, so.duration_min, s.duration_min) AS duration_min,
                        COALESCE(bs.price_override, so.price, s.price) AS price,
                        bs.option_id, so.name AS option_name,
@@ -3312,34 +3570,35 @@ public class BookingService {
                 FROM booking_services bs
                 JOIN services s ON s.service_id = bs.service_id
                 LEFT JOIN service_options so ON so.option_id = bs.option_id
-                WHERE bs.booking_id = :bookingId
-                ORDER BY bs.sort_order
+                WHERE bs.booking_id IN (:bookingIds)
+                ORDER BY bs.booking_id, bs.sort_order
                 """)
-                .setParameter("bookingId", bookingId)
+                .setParameter("bookingIds", bookingIds)
                 .getResultList();
-        return svcRows.stream()
-                .map(r -> {
-                    UUID sId = r[0] instanceof UUID u ? u : UUID.fromString(r[0].toString());
-                    UUID oId = r[4] == null ? null : (r[4] instanceof UUID u ? u : UUID.fromString(r[4].toString()));
-                    Integer overrideDur = r[6] != null ? ((Number) r[6]).intValue() : null;
-                    BigDecimal priceOvr = r[7] instanceof BigDecimal bd ? bd : (r[7] != null ? new BigDecimal(r[7].toString()) : null);
-                    boolean paid = r[8] != null && (Boolean) r[8];
-                    return new ServiceSummaryDTO(
-                            sId,
-                            (String) r[1],
-                            r[2] != null ? ((Number) r[2]).intValue() : 0,
-                            r[3] instanceof BigDecimal bd ? bd : (r[3] != null ? new BigDecimal(r[3].toString()) : null),
-                            oId,
-                            (String) r[5],
-                            overrideDur,
-                            priceOvr,
-                            paid
-                    );
-                })
-                .toList();
+        Map<UUID, List<ServiceSummaryDTO>> out = new HashMap<>();
+        for (Object[] r : svcRows) {
+            UUID bId = r[0] instanceof UUID u ? u : UUID.fromString(r[0].toString());
+            UUID sId = r[1] instanceof UUID u ? u : UUID.fromString(r[1].toString());
+            UUID oId = r[5] == null ? null : (r[5] instanceof UUID u ? u : UUID.fromString(r[5].toString()));
+            Integer overrideDur = r[7] != null ? ((Number) r[7]).intValue() : null;
+            BigDecimal priceOvr = r[8] instanceof BigDecimal bd ? bd : (r[8] != null ? new BigDecimal(r[8].toString()) : null);
+            boolean paid = r[9] != null && (Boolean) r[9];
+            out.computeIfAbsent(bId, k -> new ArrayList<>()).add(new ServiceSummaryDTO(
+                    sId,
+                    (String) r[2],
+                    r[3] != null ? ((Number) r[3]).intValue() : 0,
+                    r[4] instanceof BigDecimal bd ? bd : (r[4] != null ? new BigDecimal(r[4].toString()) : null),
+                    oId,
+                    (String) r[6],
+                    overrideDur,
+                    priceOvr,
+                    paid
+            ));
+        }
+        return out;
     }
 
-    private AdminBookingCardDTO toAdminCard(Booking b, boolean hasOutstanding) {
+    private AdminBookingCardDTO toAdminCard(Booking b, boolean hasOutstanding, CardPrefetch prefetch) {
         var pkg = b.getPackageCredit();
 
         // Resolve display service title: primary FK takes precedence, fall back to first in list
@@ -3356,7 +3615,7 @@ public class BookingService {
         }
 
         // Per-line option/override/paid resolved from booking_services (see loadServiceSummaries).
-        List<ServiceSummaryDTO> services = loadServiceSummaries(b.getBookingId());
+        List<ServiceSummaryDTO> services = prefetch.services().getOrDefault(b.getBookingId(), List.of());
 
         boolean consentRequired = (b.getService() != null && b.getService().isConsentRequired())
                 || services.stream().anyMatch(s -> false); // service-level consent flag not on summary
@@ -3371,14 +3630,14 @@ public class BookingService {
         PackageSummaryDTO linkedPkg = null;
         List<PackageSummaryDTO> linkedPkgs = List.of();
         try {
-            List<BookingPackageLink> links = bookingPackageLinkRepository
-                    .findAllByBookingBookingIdWithAssignment(b.getBookingId());
+            List<BookingPackageLink> links = prefetch.packageLinks().getOrDefault(b.getBookingId(), List.of());
             if (!links.isEmpty()) {
                 BookingPackageLink first = links.get(0);
                 if (first.getSessionNumber() > 0) linkSessionNumber = first.getSessionNumber();
                 linkTotalSessions = first.getAssignment().getTotalSessions();
                 linkedPkgs = links.stream()
-                        .map(l -> buildPackageSummary(l, b.getStartTime().toLocalDate()))
+                        .map(l -> buildPackageSummary(l, b.getStartTime().toLocalDate(),
+                                prefetch.installmentsByAssignment()))
                         .toList();
                 linkedPkg = linkedPkgs.get(0);
             }
@@ -3418,7 +3677,7 @@ public class BookingService {
             PackageSummaryDTO onlinePkg = new PackageSummaryDTO(
                     null,                              // no ClientPackageAssignment behind an online package
                     onlinePkgName,
-                    packageSessionNumber(b),           // 1-based rank over the shared PackageCredit (mirrors the email layer)
+                    prefetch.onlineSessionNumbers().getOrDefault(b.getBookingId(), 0), // 1-based rank over the shared PackageCredit (mirrors the email layer)
                     pkg.getSessionsTotal(),
                     pkg.getSessionsRemaining(),
                     BigDecimal.ZERO,                   // prepaid → €0 to estimated revenue (admin paidUpfront rule)
@@ -3436,7 +3695,7 @@ public class BookingService {
 
         // BE-2: fetch the booking's sales ONCE. Standalone sales (promotionLinkId == null)
         // become linkedSales; promo-tagged sales feed the linkedPromotions grouping below.
-        List<BookingSale> allSales = bookingSaleRepository.findByBookingIdOrderByAddedAtDesc(b.getBookingId());
+        List<BookingSale> allSales = prefetch.sales().getOrDefault(b.getBookingId(), List.of());
         List<SaleSummaryDTO> linkedSales = allSales.stream()
                 .filter(s -> s.getPromotionLinkId() == null)   // standalone only; promo product-lines stay inside linkedPromotions
                 .map(s -> new SaleSummaryDTO(
@@ -3447,8 +3706,7 @@ public class BookingService {
         // Phase 08.3: expose promotions frozen onto this booking (snapshot + tagged product-sales).
         List<PromoSummaryDTO> linkedPromotions = List.of();
         try {
-            List<BookingPromotionLink> promoLinks = bookingPromotionLinkRepository
-                    .findAllByBookingBookingIdWithPromotion(b.getBookingId());
+            List<BookingPromotionLink> promoLinks = prefetch.promoLinks().getOrDefault(b.getBookingId(), List.of());
             if (!promoLinks.isEmpty()) {
                 Map<UUID, List<BookingSale>> salesByLink = allSales.stream()
                         .filter(s -> s.getPromotionLinkId() != null)
@@ -3646,6 +3904,12 @@ public class BookingService {
      * paid flag — different links on the same assignment can be paid independently.
      */
     private PackageSummaryDTO buildPackageSummary(BookingPackageLink link, LocalDate bookingDate) {
+        return buildPackageSummary(link, bookingDate, null);
+    }
+
+    /** {@code installmentsByAssignment}: rate prefetched by the agenda batch, or null to query them here. */
+    private PackageSummaryDTO buildPackageSummary(BookingPackageLink link, LocalDate bookingDate,
+                                                  Map<UUID, List<PackageInstallment>> installmentsByAssignment) {
         ClientPackageAssignment a = link.getAssignment();
         ServiceItem pkgSvc = a.getService() != null
                 ? a.getService()
@@ -3682,8 +3946,9 @@ public class BookingService {
         int installmentDueIndex = 0;
         int installmentCount = 0;
         if (mode == ClientPackagePaymentMode.INSTALLMENTS) {
-            List<PackageInstallment> rate =
-                    packageInstallmentRepository.findByAssignmentIdOrderByPositionAscDueDateAsc(a.getId());
+            List<PackageInstallment> rate = installmentsByAssignment != null
+                    ? installmentsByAssignment.getOrDefault(a.getId(), List.of())
+                    : packageInstallmentRepository.findByAssignmentIdOrderByPositionAscDueDateAsc(a.getId());
             installmentCount = rate.size();
             // Plan total: the agreed gross (pricePaid) when set, else the sum of the rate
             // (rate may not yet break the whole price — pricePaid is the authoritative gross).
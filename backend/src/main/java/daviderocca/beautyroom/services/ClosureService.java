@@ -4,6 +4,7 @@ import daviderocca.beautyroom.DTO.closureDTOs.ClosureConflictPreviewDTO;
 import daviderocca.beautyroom.DTO.closureDTOs.ClosureConflictPreviewDTO.ConflictBookingInfo;
 import daviderocca.beautyroom.DTO.closureDTOs.ClosureResponseDTO;
 import daviderocca.beautyroom.DTO.closureDTOs.NewClosureDTO;
+import daviderocca.beautyroom.availability.AvailabilityChangedEvent;
 import daviderocca.beautyroom.entities.Booking;
 import daviderocca.beautyroom.entities.Closure;
 import daviderocca.beautyroom.enums.BookingStatus;
@@ -16,6 +17,7 @@ import daviderocca.beautyroom.staff.StaffMember;
 import daviderocca.beautyroom.staff.StaffMemberRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -38,6 +40,8 @@ public class ClosureService {
     private final ClosureReminderScheduler closureReminderScheduler;
     // Multi-staff prompt 03 (decision #7): closures with staffId = per-staff absences.
     private final StaffMemberRepository staffMemberRepository;
+    // Occupancy index of the public finders: the closure's days are reloaded after commit.
+    private final ApplicationEventPublisher eventPublisher;
 
     // -------------------------- FIND --------------------------
     @Transactional(readOnly = true)
@@ -75,6 +79,7 @@ public class ClosureService {
         closure.setStaffMember(resolveStaffOrNull(payload.staffId()));
 
         Closure saved = closureRepository.save(closure);
+        publishAvailabilityChange(saved.getStartDate(), saved.getEndDate());
         int bookingConflicts = countOverlappingBookings(saved);
         log.info("Nuova chiusura creata id={} [{} → {}] conflittiBooking={}",
                 saved.getId(), saved.getStartDate(), saved.getEndDate(), bookingConflicts);
@@ -93,6 +98,8 @@ public class ClosureService {
 
         validateClosure(payload, id, /*isUpdate*/ true);
 
+        LocalDate previousStart = closure.getStartDate();
+        LocalDate previousEnd   = closure.getEndDate();
         LocalDate startDate = payload.effectiveStartDate();
         LocalDate endDate   = payload.effectiveEndDate();
 
@@ -105,6 +112,8 @@ public class ClosureService {
         closure.setStaffMember(resolveStaffOrNull(payload.staffId()));
 
         Closure updated = closureRepository.save(closure);
+        publishAvailabilityChange(previousStart, previousEnd);
+        publishAvailabilityChange(updated.getStartDate(), updated.getEndDate());
         log.info("Chiusura {} aggiornata [{} → {}]", updated.getId(), updated.getStartDate(), updated.getEndDate());
 
         closureReminderScheduler.emitReminderForTomorrowIfApplicable(updated);
@@ -115,13 +124,18 @@ public class ClosureService {
     // -------------------------- DELETE --------------------------
     @Transactional
     public void deleteClosure(UUID id) {
-        if (!closureRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Chiusura non trovata con id: " + id);
-        }
+        Closure closure = closureRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Chiusura non trovata con id: " + id));
         closureRepository.deleteById(id);
+        publishAvailabilityChange(closure.getStartDate(), closure.getEndDate());
         log.info("Chiusura {} eliminata.", id);
     }
 
+    private void publishAvailabilityChange(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null) return;
+        eventPublisher.publishEvent(new AvailabilityChangedEvent(startDate, endDate != null ? endDate : startDate));
+    }
+
     // -------------------------- PREVIEW (conflict report) --------------------------
 
     /**
@@ -22,6 +22,7 @@ import daviderocca.beautyroom.exceptions.DuplicateResourceException;
 import daviderocca.beautyroom.exceptions.ResourceNotFoundException;
 import daviderocca.beautyroom.exceptions.UnauthorizedException;
 import daviderocca.beautyroom.email.outbox.EmailOutboxService;
+import daviderocca.beautyroom.report.RevenueChangedEvent;
 import daviderocca.beautyroom.repositories.OrderRepository;
 import daviderocca.beautyroom.repositories.ProductRepository;
 import daviderocca.beautyroom.repositories.PromotionRepository;
@@ -31,6 +32,7 @@ import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -58,6 +60,7 @@ public class OrderService {
     private final AdminNotificationService notificationService;
     private final PromotionRepository promotionRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${stripe.secret}")
     private String stripeSecretKey;
@@ -311,6 +314,7 @@ public class OrderService {
 
         found.setOrderStatus(newStatus);
         Order updated = orderRepository.save(found);
+        publishRevenueChange(updated);
 
         log.info("Order status updated: id={} {} -> {}", updated.getOrderId(), old, newStatus);
         return convertToDTO(updated);
@@ -403,6 +407,7 @@ public class OrderService {
 
         order.setOrderStatus(OrderStatus.REFUNDED);
         orderRepository.save(order);
+        publishRevenueChange(order);
         log.info("Ordine rimborsato via Stripe: id={} paymentIntent={}", orderId, paymentIntentId);
 
         // PROMPT A: notifica cliente — rimborso ordine neutro confermato (con importo). Non-blocking:
@@ -428,9 +433,16 @@ public class OrderService {
         }
 
         orderRepository.delete(order);
+        publishRevenueChange(order);
         log.info("Order hard deleted: id={}", orderId);
     }
 
+    /** Report rollup + cache: the products leg counts an order on its paidAt day, filtered by status. */
+    private void publishRevenueChange(Order order) {
+        RevenueChangedEvent event = RevenueChangedEvent.of(order.getPaidAt());
+        if (event != null) eventPublisher.publishEvent(event);
+    }
+
     // ---------------------------- Stripe webhook: paid ----------------------------
     @Transactional
     public void markOrderAsPaid(UUID orderId, String customerEmail) {
@@ -453,6 +465,7 @@ public class OrderService {
         order.setExpiresAt(null);
 
         orderRepository.save(order);
+        publishRevenueChange(order);
 
         try {
             emailOutboxService.enqueueOrderPaid(order);
@@ -555,6 +568,7 @@ public class OrderService {
         }
 
         Order saved = orderRepository.save(order);
+        publishRevenueChange(saved);
         log.info("Promo product order creato: id={} total={} sessione={}", saved.getOrderId(), total, stripeSessionId);
 
         // 6) Email conferma + notifica admin (non bloccanti, come il flusso ordine normale).
@@ -1,7 +1,5 @@
 package daviderocca.beautyroom.services;
 
-import com.cloudinary.Cloudinary;
-import com.cloudinary.utils.ObjectUtils;
 import daviderocca.beautyroom.DTO.productDTOs.NewProductDTO;
 import daviderocca.beautyroom.DTO.productDTOs.ProductOptionResponse;
 import daviderocca.beautyroom.DTO.productDTOs.ProductResponseDTO;
@@ -10,6 +8,10 @@ import daviderocca.beautyroom.entities.Product;
 import daviderocca.beautyroom.enums.WishlistItemType;
 import daviderocca.beautyroom.exceptions.BadRequestException;
 import daviderocca.beautyroom.exceptions.ResourceNotFoundException;
+import daviderocca.beautyroom.media.ImageVariantDTO;
+import daviderocca.beautyroom.media.ImageVariantService;
+import daviderocca.beautyroom.media.MediaOwnerType;
+import daviderocca.beautyroom.media.MediaUploadPipeline;
 import daviderocca.beautyroom.util.BadgesUtil;
 import daviderocca.beautyroom.repositories.ProductOptionRepository;
 import daviderocca.beautyroom.repositories.ProductRepository;
@@ -21,10 +23,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.*;
 
 @Service
@@ -38,7 +38,9 @@ public class ProductService {
 
     private final CategoryService categoryService;
 
-    private final Cloudinary cloudinary;
+    private final MediaUploadPipeline mediaUploadPipeline;
+
+    private final ImageVariantService imageVariantService;
 
     @org.springframework.context.annotation.Lazy
     private final StockAlertService stockAlertService;
@@ -59,7 +61,9 @@ public class ProductService {
         Page<Product> page = includeInactive
                 ? productRepository.findAllWithDetails(pageable)
                 : productRepository.findAllActiveWithDetails(pageable);
-        List<ProductResponseDTO> dtoList = page.getContent().stream().map(this::convertToDTO).toList();
+        // varianti delle immagini di tutta la pagina in una query
+        var variants = imageVariantService.variantsPerOwner(page.getContent(), Product::getImages);
+        List<ProductResponseDTO> dtoList = page.getContent().stream().map(p -> convertToDTO(p, variants.apply(p))).toList();
         return new PageImpl<>(dtoList, pageable, page.getTotalElements());
     }
 
@@ -88,14 +92,13 @@ public class ProductService {
         }
 
         Category relatedCategory = categoryService.findCategoryById(payload.categoryId());
-        List<String> imageUrls = uploadImagesIfPresent(images);
 
         Product newProduct = new Product(
                 payload.name(),
                 payload.price(),
                 payload.shortDescription(),
                 payload.description(),
-                imageUrls,
+                new ArrayList<>(),
                 payload.stock(),
                 relatedCategory
         );
@@ -106,6 +109,8 @@ public class ProductService {
         newProduct.setHighlightColor(payload.highlightColor());
 
         Product saved = productRepository.save(newProduct);
+        // Le immagini si caricano dopo il commit e vengono collegate al termine (vedi MediaUploadPipeline)
+        mediaUploadPipeline.enqueue(MediaOwnerType.PRODUCT, saved.getProductId(), images);
         log.info("Prodotto '{}' (ID: {}) creato con categoria '{}'",
                 saved.getName(), saved.getProductId(), relatedCategory.getCategoryKey());
 
@@ -135,11 +140,6 @@ public class ProductService {
             }
         }
 
-        // Aggiungi nuove immagini
-        if (images != null && !images.isEmpty()) {
-            currentImages.addAll(uploadImagesIfPresent(images));
-        }
-
         int oldStock = found.getStock();
         boolean wasInactive = !found.isActive();
 
@@ -158,6 +158,8 @@ public class ProductService {
         found.setHighlightColor(payload.highlightColor());
 
         Product updated = productRepository.save(found);
+        // Nuove immagini: caricate dopo il commit, in coda a quelle attuali
+        mediaUploadPipeline.enqueue(MediaOwnerType.PRODUCT, updated.getProductId(), images);
         log.info("Prodotto '{}' (ID: {}) aggiornato correttamente (categoria: {})",
                 updated.getName(), updated.getProductId(), relatedCategory.getCategoryKey());
 
@@ -210,28 +212,12 @@ public class ProductService {
         }
     }
 
-    // ---------------------------- CLOUDINARY ----------------------------
-    private List<String> uploadImagesIfPresent(List<MultipartFile> files) {
-        List<String> urls = new ArrayList<>();
-        if (files == null) return urls;
-        for (MultipartFile file : files) {
-            if (file == null || file.isEmpty()) continue;
-            try {
-                Map uploadResult = cloudinary.uploader()
-                        .upload(file.getBytes(), ObjectUtils.emptyMap());
-                String url = (String) uploadResult.get("url");
-                urls.add(url);
-                log.info("Immagine caricata con successo su Cloudinary: {}", url);
-            } catch (IOException e) {
-                log.error("Errore durante l'upload dell'immagine su Cloudinary", e);
-                throw new BadRequestException("Errore durante l'upload dell'immagine");
-            }
-        }
-        return urls;
-    }
-
     // ---------------------------- CONVERTER ----------------------------
     private ProductResponseDTO convertToDTO(Product product) {
+        return convertToDTO(product, imageVariantService.variantsFor(product.getImages()));
+    }
+
+    private ProductResponseDTO convertToDTO(Product product, Map<String, List<ImageVariantDTO>> imageVariants) {
         List<ProductOptionResponse> options = productOptionRepository
                 .findByProduct_ProductIdAndActiveTrue(product.getProductId())
                 .stream()
@@ -254,6 +240,7 @@ public class ProductService {
                 product.getShortDescription(),
                 product.getDescription(),
                 new java.util.ArrayList<>(product.getImages()),
+                imageVariants,
                 product.getStock(),
                 product.getCategory() != null ? product.getCategory().getCategoryId() : null,
                 product.isActive(),
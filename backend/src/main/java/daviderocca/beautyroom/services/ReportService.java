@@ -17,6 +17,12 @@ import daviderocca.beautyroom.DTO.reportDTOs.TopProductDTO;
 import daviderocca.beautyroom.DTO.reportDTOs.TopServiceDTO;
 import daviderocca.beautyroom.DTO.reportDTOs.UpcomingApptDTO;
 import daviderocca.beautyroom.exceptions.BadRequestException;
+import daviderocca.beautyroom.report.ReportCache;
+import daviderocca.beautyroom.report.RevenueCell;
+import daviderocca.beautyroom.report.RevenueDaily;
+import daviderocca.beautyroom.report.RevenueDailyRepository;
+import daviderocca.beautyroom.report.RevenueLeg;
+import daviderocca.beautyroom.report.RevenueRollupDayRepository;
 import daviderocca.beautyroom.repositories.ReportRepository;
 import daviderocca.beautyroom.repositories.ReportRepository.ArretratoRow;
 import daviderocca.beautyroom.repositories.ReportRepository.ClientSeedRow;
@@ -27,8 +33,11 @@ import daviderocca.beautyroom.repositories.ReportRepository.PipelineRow;
 import daviderocca.beautyroom.repositories.ReportRepository.ProductLineRow;
 import daviderocca.beautyroom.repositories.ReportRepository.RevenueRow;
 import daviderocca.beautyroom.util.PhoneNormalizer;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -39,10 +48,17 @@ import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 /**
  * Two-ledger admin report (cash-basis). The repository extracts raw valued rows per
@@ -50,25 +66,66 @@ import java.util.UUID;
  * and assembles {@code incassato} (collected), {@code previsto} (pipeline + arretrati)
  * and {@code comparison} (the same model run over the compare window). Top-N tables,
  * client metrics and scalar counts are derived from the same fetched rows.
+ *
+ * <p>The repository queries are independent, so {@link #getReport} submits all of them up
+ * front (main range, compare range, top services, client seeds, counts, pipeline, arretrati,
+ * heatmap) and only then joins and assembles: the report costs about the slowest query
+ * instead of the sum of ~20. Each query runs in its own read-only transaction on a pool of
+ * {@code app.report.parallelism} virtual threads, kept well under the Hikari pool so a
+ * report never starves the booking paths of connections.
+ *
+ * <p>{@code incassato} and {@code comparison} are built from daily (day, leg, channel) cells.
+ * The main range is always summed from its raw legs: top products and top clients need those
+ * rows anyway (row-level identity), so swapping in stored cells would save no query and could
+ * only be staler. The compare window needs totals only: its days marked in the rollup
+ * ({@link daviderocca.beautyroom.report.RevenueRollupService}) are read from
+ * {@code revenue_daily}, and raw legs are fetched just for the days it does not cover.
+ *
+ * <p>The range-bound part of the report is cached per (from, to, compareMode) in
+ * {@link ReportCache}, evicted by the write events that touch its windows; {@code previsto}
+ * is recomputed on every call.
  */
 @Service
-@RequiredArgsConstructor
 public class ReportService {
 
     private final ReportRepository reportRepository;
+    private final RevenueDailyRepository revenueDailyRepository;
+    private final RevenueRollupDayRepository revenueRollupDayRepository;
+    private final ReportCache reportCache;
+    private final TransactionTemplate readOnlyTx;
+    private final ExecutorService queries;
+
+    public ReportService(ReportRepository reportRepository,
+                         RevenueDailyRepository revenueDailyRepository,
+                         RevenueRollupDayRepository revenueRollupDayRepository,
+                         ReportCache reportCache,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${app.report.parallelism:4}") int parallelism) {
+        this.reportRepository = reportRepository;
+        this.revenueDailyRepository = revenueDailyRepository;
+        this.revenueRollupDayRepository = revenueRollupDayRepository;
+        this.reportCache = reportCache;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.queries = Executors.newFixedThreadPool(Math.max(1, parallelism),
+                Thread.ofVirtual().name("report-query-", 0).factory());
+    }
 
     private static final BigDecimal ZERO = BigDecimal.ZERO.setScale(2, RoundingMode.HALF_UP);
     private static final int TOP_N = 10;
 
-    private enum Leg { TRATT, PROD, PKG, PROMO }
-
-    private record Signed(LocalDateTime at, BigDecimal amount, boolean online, Leg leg) {}
-
     /** All valued rows for one range (packages = admin installments + upfront + online). */
     private record Legs(List<RevenueRow> treatments, List<RevenueRow> refunds,
                         List<ProductLineRow> products, List<RevenueRow> packages,
                         List<RevenueRow> promotions, long flaggedSkipped) {}
 
+    /** The leg queries of one range, in flight. */
+    private record PendingLegs(Future<OnlinePackages> onlinePackages,
+                               Future<List<RevenueRow>> installments, Future<List<RevenueRow>> upfront,
+                               Future<List<ProductLineRow>> inStoreProducts, Future<List<ProductLineRow>> onlineProducts,
+                               Future<List<RevenueRow>> treatments, Future<List<RevenueRow>> refunds,
+                               Future<List<RevenueRow>> promotions) {}
+
     public ReportResponseDTO getReport(LocalDate from, LocalDate to, String compareRaw) {
         if (from == null || to == null) throw new BadRequestException("Range obbligatorio.");
         if (from.isAfter(to)) throw new BadRequestException("'from' non può essere dopo 'to'.");
@@ -77,45 +134,80 @@ public class ReportService {
 
         String compareMode = normalizeCompareMode(compareRaw);
 
+        // Previsto is "as of now" and not range-bound: always fresh, in flight while the
+        // range-bound part is served from the cache (or computed on a miss).
+        LocalDateTime now = LocalDateTime.now();
+        Future<List<PipelineRow>> pipelineRows = submit(() -> reportRepository.pipelineRows(now));
+        Future<List<ArretratoRow>> arretratiRows = submit(reportRepository::arretratiRows);
+
+        ReportResponseDTO ranged = reportCache.get(new ReportCache.Key(from, to, compareMode),
+                () -> buildRangeReport(from, to, compareMode));
+
+        // --- Previsto (pipeline detail + chase-able arretrati) ---------------------
+        PrevistoDTO previsto = buildPrevisto(join(pipelineRows), join(arretratiRows));
+
+        return new ReportResponseDTO(
+                ranged.range(), ranged.incassato(), previsto, ranged.comparison(),
+                ranged.topServices(), ranged.topProducts(), ranged.topClients(),
+                ranged.newClientsCount(), ranged.cancelledCount(), ranged.flaggedSkipped(),
+                ranged.timing());
+    }
+
+    /** Everything bound to [from, to] and its compare window; {@code previsto} is left null. */
+    private ReportResponseDTO buildRangeReport(LocalDate from, LocalDate to, String compareMode) {
+        LocalDate compareFrom = null, compareTo = null;
+        if ("prevYear".equals(compareMode)) {
+            compareFrom = from.minusYears(1);
+            compareTo = to.minusYears(1);
+        } else if ("prevPeriod".equals(compareMode)) { // the equal-length window immediately before `from`
+            long span = ChronoUnit.DAYS.between(from, to); // inclusive length = span + 1
+            compareTo = from.minusDays(1);
+            compareFrom = compareTo.minusDays(span);
+        }
+
+        // The compare window is in the past: usually fully rolled up, so its raw legs are
+        // fetched only for the days the rollup does not cover (none, most of the time).
+        Set<LocalDate> compareRolled = compareFrom != null ? rolledUpDays(compareFrom, compareTo) : Set.of();
+
+        // --- Fan-out: every query in flight before the first join ------------------
+        LocalDateTime fromDT = from.atStartOfDay();
+        LocalDateTime toDT = to.plusDays(1).atStartOfDay();
+        PendingLegs mainLegs = submitLegs(from, to);
+        PendingLegs compareLegs = compareFrom != null ? submitUncoveredLegs(compareFrom, compareTo, compareRolled) : null;
+        LocalDate cmpFrom = compareFrom, cmpTo = compareTo;
+        Future<List<RevenueCell>> compareStored = !compareRolled.isEmpty() ? submit(() -> storedCells(cmpFrom, cmpTo)) : null;
+        Future<List<NameAmountRow>> topServiceRows = submit(() -> reportRepository.topServiceRows(fromDT, toDT));
+        Future<List<ClientSeedRow>> clientSeedRows = submit(reportRepository::clientSeedRows);
+        Future<Long> cancelled = submit(() -> reportRepository.cancelledCount(fromDT, toDT));
+        Future<List<HeatmapRow>> heatmapRows = submit(() -> reportRepository.treatmentHeatmapRows(fromDT, toDT));
+
         // --- Main range ------------------------------------------------------------
-        Legs legs = fetchLegs(from, to);
-        IncassatoDTO incassato = buildIncassato(legs, from, to);
+        Legs legs = joinLegs(mainLegs);
+        IncassatoDTO incassato = buildIncassato(toCells(legs), from, to);
 
         // --- Comparison ------------------------------------------------------------
-        LocalDate compareFrom = null, compareTo = null;
         ComparisonDTO comparison = zeroComparison();
-        if (!"none".equals(compareMode)) {
-            if ("prevYear".equals(compareMode)) {
-                compareFrom = from.minusYears(1);
-                compareTo = to.minusYears(1);
-            } else { // prevPeriod — the equal-length window immediately before `from`
-                long span = ChronoUnit.DAYS.between(from, to); // inclusive length = span + 1
-                compareTo = from.minusDays(1);
-                compareFrom = compareTo.minusDays(span);
-            }
-            IncassatoDTO compareIncassato = buildIncassato(fetchLegs(compareFrom, compareTo), compareFrom, compareTo);
-            comparison = delta(incassato, compareIncassato);
+        if (compareFrom != null) {
+            List<RevenueCell> compareCells = mergeCells(compareRolled,
+                    compareStored != null ? join(compareStored) : List.of(),
+                    compareLegs != null ? toCells(joinLegs(compareLegs)) : List.of());
+            comparison = delta(incassato, buildIncassato(compareCells, compareFrom, compareTo));
         }
         ReportRangeDTO range = new ReportRangeDTO(from, to, compareMode, compareFrom, compareTo);
 
         // --- Top-N + client metrics + counts (main range) --------------------------
-        List<TopServiceDTO> topServices = buildTopServices(from, to);
+        List<TopServiceDTO> topServices = buildTopServices(join(topServiceRows));
         List<TopProductDTO> topProducts = buildTopProducts(legs.products());
         List<TopClientReportDTO> topClients = buildTopClients(legs);
 
-        LocalDateTime fromDT = from.atStartOfDay();
-        LocalDateTime toDT = to.plusDays(1).atStartOfDay();
-        long newClientsCount = countNewClients(fromDT, toDT);
-        long cancelledCount = reportRepository.cancelledCount(fromDT, toDT);
-
-        // --- Previsto (pipeline detail + chase-able arretrati) ---------------------
-        PrevistoDTO previsto = buildPrevisto();
+        long newClientsCount = countNewClients(join(clientSeedRows), fromDT, toDT);
+        long cancelledCount = join(cancelled);
 
         // --- Timing (weekday x hour earnings map over the trattamenti leg) ---------
-        TimingDTO timing = buildTiming(from, to);
+        TimingDTO timing = buildTiming(join(heatmapRows));
 
         return new ReportResponseDTO(
-                range, incassato, previsto, comparison,
+                range, incassato, null, comparison,
                 topServices, topProducts, topClients,
                 newClientsCount, cancelledCount, legs.flaggedSkipped(),
                 timing);
@@ -126,64 +218,77 @@ public class ReportService {
     // ===============================================================================
 
     private Legs fetchLegs(LocalDate from, LocalDate to) {
+        return joinLegs(submitLegs(from, to));
+    }
+
+    private PendingLegs submitLegs(LocalDate from, LocalDate to) {
         LocalDateTime fromDT = from.atStartOfDay();
         LocalDateTime toDT = to.plusDays(1).atStartOfDay();
         LocalDate toExclusive = to.plusDays(1);
+        return new PendingLegs(
+                submit(() -> reportRepository.onlinePackageRows(fromDT, toDT)),
+                submit(() -> reportRepository.adminInstallmentRows(from, toExclusive)),
+                submit(() -> reportRepository.adminUpfrontFallbackRows(fromDT, toDT)),
+                submit(() -> reportRepository.inStoreProductRows(fromDT, toDT)),
+                submit(() -> reportRepository.onlineProductRows(fromDT, toDT)),
+                submit(() -> reportRepository.treatmentRows(fromDT, toDT)),
+                submit(() -> reportRepository.refundRows(fromDT, toDT)),
+                submit(() -> reportRepository.promotionRows(fromDT, toDT)));
+    }
 
-        OnlinePackages online = reportRepository.onlinePackageRows(fromDT, toDT);
+    private Legs joinLegs(PendingLegs pending) {
+        OnlinePackages online = join(pending.onlinePackages());
 
         List<RevenueRow> packages = new ArrayList<>();
-        packages.addAll(reportRepository.adminInstallmentRows(from, toExclusive));
-        packages.addAll(reportRepository.adminUpfrontFallbackRows(fromDT, toDT));
+        packages.addAll(join(pending.installments()));
+        packages.addAll(join(pending.upfront()));
         packages.addAll(online.rows());
 
         List<ProductLineRow> products = new ArrayList<>();
-        products.addAll(reportRepository.inStoreProductRows(fromDT, toDT));
-        products.addAll(reportRepository.onlineProductRows(fromDT, toDT));
+        products.addAll(join(pending.inStoreProducts()));
+        products.addAll(join(pending.onlineProducts()));
 
         return new Legs(
-                reportRepository.treatmentRows(fromDT, toDT),
-                reportRepository.refundRows(fromDT, toDT),
+                join(pending.treatments()),
+                join(pending.refunds()),
                 products,
                 packages,
-                reportRepository.promotionRows(fromDT, toDT),
+                join(pending.promotions()),
                 online.flaggedSkipped());
     }
 
-    private IncassatoDTO buildIncassato(Legs legs, LocalDate from, LocalDate to) {
-        // One signed row per money event — refunds are negative treatments (folded in,
-        // so the byType legs still sum exactly to the total).
-        List<Signed> signed = new ArrayList<>();
-        for (RevenueRow r : legs.treatments())  signed.add(new Signed(r.collectedAt(), nz(r.amount()), r.online(), Leg.TRATT));
-        for (RevenueRow r : legs.refunds())     signed.add(new Signed(r.collectedAt(), nz(r.amount()).negate(), r.online(), Leg.TRATT));
-        for (ProductLineRow r : legs.products()) signed.add(new Signed(r.collectedAt(), nz(r.amount()), r.online(), Leg.PROD));
-        for (RevenueRow r : legs.packages())    signed.add(new Signed(r.collectedAt(), nz(r.amount()), r.online(), Leg.PKG));
-        for (RevenueRow r : legs.promotions())  signed.add(new Signed(r.collectedAt(), nz(r.amount()), r.online(), Leg.PROMO));
-
+    /** Collected totals of a range from its daily cells (refunds net into trattamenti). */
+    private IncassatoDTO buildIncassato(List<RevenueCell> cells, LocalDate from, LocalDate to) {
         BigDecimal trattamenti = BigDecimal.ZERO, prodotti = BigDecimal.ZERO,
                    pacchetti = BigDecimal.ZERO, promozioni = BigDecimal.ZERO,
-                   online = BigDecimal.ZERO, inStore = BigDecimal.ZERO;
-        for (Signed s : signed) {
-            switch (s.leg()) {
-                case TRATT -> trattamenti = trattamenti.add(s.amount());
-                case PROD  -> prodotti = prodotti.add(s.amount());
-                case PKG   -> pacchetti = pacchetti.add(s.amount());
-                case PROMO -> promozioni = promozioni.add(s.amount());
+                   online = BigDecimal.ZERO, inStore = BigDecimal.ZERO,
+                   refundsTotal = BigDecimal.ZERO;
+        long appointments = 0;
+        for (RevenueCell c : cells) {
+            BigDecimal signed = signed(c);
+            switch (c.leg()) {
+                case TREATMENT -> {
+                    trattamenti = trattamenti.add(signed);
+                    appointments += c.entries();
+                }
+                case REFUND -> {
+                    trattamenti = trattamenti.add(signed);
+                    refundsTotal = refundsTotal.add(c.amount());
+                }
+                case PRODUCT   -> prodotti = prodotti.add(signed);
+                case PACKAGE   -> pacchetti = pacchetti.add(signed);
+                case PROMOTION -> promozioni = promozioni.add(signed);
             }
-            if (s.online()) online = online.add(s.amount());
-            else inStore = inStore.add(s.amount());
+            if (c.online()) online = online.add(signed);
+            else inStore = inStore.add(signed);
         }
         BigDecimal total = trattamenti.add(prodotti).add(pacchetti).add(promozioni);
 
-        BigDecimal refundsTotal = BigDecimal.ZERO;
-        for (RevenueRow r : legs.refunds()) refundsTotal = refundsTotal.add(nz(r.amount()));
-
-        long appointments = legs.treatments().size();
         BigDecimal averageTicket = appointments > 0
                 ? total.divide(BigDecimal.valueOf(appointments), 2, RoundingMode.HALF_UP)
                 : ZERO;
 
-        List<MonthlyRevenueDTO> monthly = buildMonthly(signed, from, to);
+        List<MonthlyRevenueDTO> monthly = buildMonthly(cells, from, to);
 
         return new IncassatoDTO(
                 sc(total),
@@ -195,16 +300,20 @@ public class ReportService {
                 monthly);
     }
 
-    private List<MonthlyRevenueDTO> buildMonthly(List<Signed> signed, LocalDate from, LocalDate to) {
+    private List<MonthlyRevenueDTO> buildMonthly(List<RevenueCell> cells, LocalDate from, LocalDate to) {
         // [trattamenti, prodotti, pacchetti, promozioni] per calendar month.
         Map<YearMonth, BigDecimal[]> byMonth = new HashMap<>();
-        for (Signed s : signed) {
-            if (s.at() == null) continue;
-            YearMonth ym = YearMonth.from(s.at());
-            BigDecimal[] cells = byMonth.computeIfAbsent(ym,
+        for (RevenueCell c : cells) {
+            YearMonth ym = YearMonth.from(c.day());
+            BigDecimal[] month = byMonth.computeIfAbsent(ym,
                     k -> new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO});
-            int idx = switch (s.leg()) { case TRATT -> 0; case PROD -> 1; case PKG -> 2; case PROMO -> 3; };
-            cells[idx] = cells[idx].add(s.amount());
+            int idx = switch (c.leg()) {
+                case TREATMENT, REFUND -> 0;
+                case PRODUCT -> 1;
+                case PACKAGE -> 2;
+                case PROMOTION -> 3;
+            };
+            month[idx] = month[idx].add(signed(c));
         }
 
         List<MonthlyRevenueDTO> out = new ArrayList<>();
@@ -221,6 +330,66 @@ public class ReportService {
         return out;
     }
 
+    private static BigDecimal signed(RevenueCell c) {
+        return c.leg() == RevenueLeg.REFUND ? c.amount().negate() : c.amount();
+    }
+
+    // ===============================================================================
+    // Daily cells (rollup + raw)
+    // ===============================================================================
+
+    /** Raw legs of [from, to] summed per (day, leg, channel): exactly what the rollup stores. */
+    public List<RevenueCell> rawCells(LocalDate from, LocalDate to) {
+        return toCells(fetchLegs(from, to));
+    }
+
+    private record CellKey(LocalDate day, RevenueLeg leg, boolean online) {}
+
+    private static List<RevenueCell> toCells(Legs legs) {
+        Map<CellKey, RevenueCell> cells = new HashMap<>();
+        for (RevenueRow r : legs.treatments())   addCell(cells, r.collectedAt(), RevenueLeg.TREATMENT, r.online(), r.amount());
+        for (RevenueRow r : legs.refunds())      addCell(cells, r.collectedAt(), RevenueLeg.REFUND, r.online(), r.amount());
+        for (ProductLineRow r : legs.products()) addCell(cells, r.collectedAt(), RevenueLeg.PRODUCT, r.online(), r.amount());
+        for (RevenueRow r : legs.packages())     addCell(cells, r.collectedAt(), RevenueLeg.PACKAGE, r.online(), r.amount());
+        for (RevenueRow r : legs.promotions())   addCell(cells, r.collectedAt(), RevenueLeg.PROMOTION, r.online(), r.amount());
+        return new ArrayList<>(cells.values());
+    }
+
+    private static void addCell(Map<CellKey, RevenueCell> cells, LocalDateTime at, RevenueLeg leg,
+                                boolean online, BigDecimal amount) {
+        if (at == null) return; // every leg query filters on its collection date: never null in range
+        CellKey key = new CellKey(at.toLocalDate(), leg, online);
+        cells.merge(key, new RevenueCell(key.day(), leg, online, nz(amount), 1),
+                (a, b) -> new RevenueCell(a.day(), leg, online, a.amount().add(b.amount()), a.entries() + b.entries()));
+    }
+
+    private Set<LocalDate> rolledUpDays(LocalDate from, LocalDate to) {
+        return new HashSet<>(revenueRollupDayRepository.findRolledUpDays(from, to));
+    }
+
+    private List<RevenueCell> storedCells(LocalDate from, LocalDate to) {
+        return revenueDailyRepository.findByRevenueDayBetween(from, to).stream().map(RevenueDaily::toCell).toList();
+    }
+
+    /** Rolled-up days from the stored cells, every other day from the raw ones. */
+    private static List<RevenueCell> mergeCells(Set<LocalDate> rolled, List<RevenueCell> stored, List<RevenueCell> raw) {
+        List<RevenueCell> out = new ArrayList<>(stored.size() + raw.size());
+        for (RevenueCell c : stored) if (rolled.contains(c.day())) out.add(c);
+        for (RevenueCell c : raw) if (!rolled.contains(c.day())) out.add(c);
+        return out;
+    }
+
+    /** Raw legs over the span of the days the rollup does not cover, or null when it covers them all. */
+    private PendingLegs submitUncoveredLegs(LocalDate from, LocalDate to, Set<LocalDate> rolled) {
+        LocalDate first = null, last = null;
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+            if (rolled.contains(d)) continue;
+            if (first == null) first = d;
+            last = d;
+        }
+        return first == null ? null : submitLegs(first, last);
+    }
+
     // ===============================================================================
     // Comparison
     // ===============================================================================
@@ -246,8 +415,7 @@ public class ReportService {
     // Top-N + client metrics
     // ===============================================================================
 
-    private List<TopServiceDTO> buildTopServices(LocalDate from, LocalDate to) {
-        List<NameAmountRow> rows = reportRepository.topServiceRows(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+    private List<TopServiceDTO> buildTopServices(List<NameAmountRow> rows) {
         Map<String, long[]> counts = new HashMap<>();           // name -> [count]
         Map<String, BigDecimal> revenue = new LinkedHashMap<>(); // name -> revenue
         for (NameAmountRow r : rows) {
@@ -333,10 +501,10 @@ public class ReportService {
         return key;
     }
 
-    private long countNewClients(LocalDateTime fromDT, LocalDateTime toDT) {
+    private long countNewClients(List<ClientSeedRow> seeds, LocalDateTime fromDT, LocalDateTime toDT) {
         // A client is "new" in the period iff their global-earliest booking falls in it.
         Map<String, LocalDateTime> earliest = new HashMap<>();
-        for (ClientSeedRow r : reportRepository.clientSeedRows()) {
+        for (ClientSeedRow r : seeds) {
             String key = clientKey(r.clientId(), r.clientPhone(), r.clientName());
             if (key == null || r.firstAt() == null) continue;
             earliest.merge(key, r.firstAt(), (a, b) -> a.isBefore(b) ? a : b);
@@ -360,8 +528,7 @@ public class ReportService {
     // Previsto (pipeline detail + chase-able arretrati)
     // ===============================================================================
 
-    private PrevistoDTO buildPrevisto() {
-        List<PipelineRow> pipe = reportRepository.pipelineRows(LocalDateTime.now());
+    private PrevistoDTO buildPrevisto(List<PipelineRow> pipe, List<ArretratoRow> arretrati) {
 
         BigDecimal pipelineTotal = BigDecimal.ZERO;
         for (PipelineRow r : pipe) pipelineTotal = pipelineTotal.add(nz(r.amount()));
@@ -386,7 +553,7 @@ public class ReportService {
                         sc(nz(r.amount()))))
                 .toList();
 
-        ArretratiResult ar = buildArretrati();
+        ArretratiResult ar = buildArretrati(arretrati);
 
         return new PrevistoDTO(sc(pipelineTotal), ar.total(), pipe.size(),
                 byType, timeline, upcoming, ar.list());
@@ -426,13 +593,13 @@ public class ReportService {
      * else E.164 phone, else name). {@code total} sums EVERY debtor; the list is the 15
      * biggest (the FE shows a "more" line derived from total vs the listed sum).
      */
-    private ArretratiResult buildArretrati() {
+    private ArretratiResult buildArretrati(List<ArretratoRow> rows) {
         Map<String, BigDecimal> amount = new HashMap<>();
         Map<String, LocalDateTime> since = new HashMap<>();
         Map<String, String[]> display = new LinkedHashMap<>(); // key -> [name, phone]
         BigDecimal total = BigDecimal.ZERO;
 
-        for (ArretratoRow r : reportRepository.arretratiRows()) {
+        for (ArretratoRow r : rows) {
             BigDecimal amt = nz(r.amount());
             total = total.add(amt);
             String key = clientKey(r.clientId(), r.clientPhone(), r.clientName());
@@ -484,7 +651,7 @@ public class ReportService {
      * so the insights headline reuses it instead of re-implementing the unpaid union.
      */
     public BigDecimal getOutstandingTotal() {
-        return buildArretrati().total();
+        return buildArretrati(reportRepository.arretratiRows()).total();
     }
 
     // ===============================================================================
@@ -502,13 +669,10 @@ public class ReportService {
      * appointment here — leaves that refund out of the map (it still nets in the accounting
      * total); negligible and intentional, the map is an operational view, not a ledger.
      */
-    private TimingDTO buildTiming(LocalDate from, LocalDate to) {
-        LocalDateTime fromDT = from.atStartOfDay();
-        LocalDateTime toDT = to.plusDays(1).atStartOfDay();
-
+    private TimingDTO buildTiming(List<HeatmapRow> rows) {
         Map<Integer, BigDecimal> amount = new HashMap<>(); // key = weekday*100 + hour
         Map<Integer, long[]> count = new HashMap<>();
-        for (HeatmapRow r : reportRepository.treatmentHeatmapRows(fromDT, toDT)) {
+        for (HeatmapRow r : rows) {
             if (r.startTime() == null) continue;
             int key = r.startTime().getDayOfWeek().getValue() * 100 + r.startTime().getHour();
             BigDecimal amt = nz(r.amount());
@@ -530,6 +694,32 @@ public class ReportService {
         return new TimingDTO(cells);
     }
 
+    // ===============================================================================
+    // Query fan-out
+    // ===============================================================================
+
+    /** Runs one repository query on the report pool, in its own read-only transaction. */
+    private <T> Future<T> submit(Supplier<T> query) {
+        return queries.submit(() -> readOnlyTx.execute(status -> query.get()));
+    }
+
+    private static <T> T join(Future<T> leg) {
+        try {
+            return leg.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Calcolo report interrotto.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("Query report fallita.", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        queries.shutdownNow();
+    }
+
     // ===============================================================================
     // Helpers
     // ===============================================================================
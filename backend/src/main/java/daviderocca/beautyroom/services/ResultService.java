@@ -1,7 +1,5 @@
 package daviderocca.beautyroom.services;
 
-import com.cloudinary.Cloudinary;
-import com.cloudinary.utils.ObjectUtils;
 import daviderocca.beautyroom.DTO.resultDTOs.NewResultDTO;
 import daviderocca.beautyroom.DTO.resultDTOs.ResultResponseDTO;
 import daviderocca.beautyroom.entities.Category;
@@ -9,6 +7,10 @@ import daviderocca.beautyroom.entities.Result;
 import daviderocca.beautyroom.entities.ServiceItem;
 import daviderocca.beautyroom.exceptions.BadRequestException;
 import daviderocca.beautyroom.exceptions.ResourceNotFoundException;
+import daviderocca.beautyroom.media.ImageVariantDTO;
+import daviderocca.beautyroom.media.ImageVariantService;
+import daviderocca.beautyroom.media.MediaOwnerType;
+import daviderocca.beautyroom.media.MediaUploadPipeline;
 import daviderocca.beautyroom.repositories.ResultRepository;
 import daviderocca.beautyroom.repositories.ServiceItemRepository;
 import lombok.RequiredArgsConstructor;
@@ -18,7 +20,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
 import java.util.*;
 
 @Service
@@ -32,7 +33,9 @@ public class ResultService {
 
     private final CategoryService categoryService;
 
-    private final Cloudinary cloudinary;
+    private final MediaUploadPipeline mediaUploadPipeline;
+
+    private final ImageVariantService imageVariantService;
 
     // ---------------------------- FIND METHODS ----------------------------
 
@@ -40,7 +43,9 @@ public class ResultService {
     public Page<ResultResponseDTO> findAllResults(int pageNumber, int pageSize, String sort) {
         Pageable pageable = PageRequest.of(pageNumber, pageSize, Sort.by(sort));
         Page<Result> page = resultRepository.findAllActiveWithDetails(pageable);
-        List<ResultResponseDTO> dtoList = page.getContent().stream().map(this::convertToDTO).toList();
+        // varianti delle immagini di tutta la pagina in una query
+        var variants = imageVariantService.variantsPerOwner(page.getContent(), Result::getImages);
+        List<ResultResponseDTO> dtoList = page.getContent().stream().map(r -> convertToDTO(r, variants.apply(r))).toList();
         return new PageImpl<>(dtoList, pageable, page.getTotalElements());
     }
 
@@ -69,18 +74,19 @@ public class ResultService {
         }
 
         Category relatedCategory = categoryService.findCategoryById(payload.categoryId());
-        List<String> imageUrls = uploadImagesIfPresent(images);
 
         Result newResult = new Result(
                 payload.title(),
                 payload.description(),
-                imageUrls,
+                new ArrayList<>(),
                 relatedCategory
         );
         newResult.setActive(payload.active() == null || payload.active());
         applyLinkedService(newResult, payload.linkedServiceId());
 
         Result saved = resultRepository.save(newResult);
+        // Le immagini si caricano dopo il commit e vengono collegate al termine (vedi MediaUploadPipeline)
+        mediaUploadPipeline.enqueue(MediaOwnerType.RESULT, saved.getResultId(), images);
         log.info("Risultato '{}' (ID: {}) creato con categoria '{}'",
                 saved.getTitle(), saved.getResultId(), relatedCategory.getCategoryKey());
 
@@ -110,11 +116,6 @@ public class ResultService {
             }
         }
 
-        // Aggiungi nuove immagini
-        if (images != null && !images.isEmpty()) {
-            currentImages.addAll(uploadImagesIfPresent(images));
-        }
-
         found.setTitle(payload.title());
         found.setDescription(payload.description());
         found.setCategory(relatedCategory);
@@ -125,6 +126,8 @@ public class ResultService {
         applyLinkedService(found, payload.linkedServiceId());
 
         Result updated = resultRepository.save(found);
+        // Nuove immagini: caricate dopo il commit, in coda a quelle attuali
+        mediaUploadPipeline.enqueue(MediaOwnerType.RESULT, updated.getResultId(), images);
         log.info("Risultato '{}' (ID: {}) aggiornato (categoria: {})",
                 updated.getTitle(), updated.getResultId(), relatedCategory.getCategoryKey());
 
@@ -171,33 +174,18 @@ public class ResultService {
         }
     }
 
-    // ---------------------------- CLOUDINARY ----------------------------
-    private List<String> uploadImagesIfPresent(List<MultipartFile> files) {
-        List<String> urls = new ArrayList<>();
-        if (files == null) return urls;
-        for (MultipartFile file : files) {
-            if (file == null || file.isEmpty()) continue;
-            try {
-                Map uploadResult = cloudinary.uploader()
-                        .upload(file.getBytes(), ObjectUtils.emptyMap());
-                String url = (String) uploadResult.get("url");
-                urls.add(url);
-                log.info("Immagine caricata su Cloudinary: {}", url);
-            } catch (IOException e) {
-                log.error("Errore durante l'upload dell'immagine su Cloudinary", e);
-                throw new BadRequestException("Errore durante l'upload dell'immagine");
-            }
-        }
-        return urls;
-    }
-
     // ---------------------------- CONVERTER ----------------------------
     private ResultResponseDTO convertToDTO(Result result) {
+        return convertToDTO(result, imageVariantService.variantsFor(result.getImages()));
+    }
+
+    private ResultResponseDTO convertToDTO(Result result, Map<String, List<ImageVariantDTO>> imageVariants) {
         return new ResultResponseDTO(
                 result.getResultId(),
                 result.getTitle(),
                 result.getDescription(),
                 result.getImages(),
+                imageVariants,
                 result.getCategory() != null ? result.getCategory().getCategoryId() : null,
                 result.isActive(),
                 result.getLinkedService() != null ? result.getLinkedService().getServiceId() : null,
@@ -1,30 +1,33 @@
 package daviderocca.beautyroom.services;
 
-import com.cloudinary.Cloudinary;
-import com.cloudinary.utils.ObjectUtils;
 import daviderocca.beautyroom.DTO.serviceItemDTOs.NewServiceItemDTO;
 import daviderocca.beautyroom.DTO.serviceItemDTOs.PackageResponseDTO;
 import daviderocca.beautyroom.DTO.serviceItemDTOs.ServiceItemResponseDTO;
 import daviderocca.beautyroom.DTO.serviceItemDTOs.ServiceOptionRequestDTO;
 import daviderocca.beautyroom.DTO.serviceItemDTOs.ServiceOptionResponseDTO;
+import daviderocca.beautyroom.availability.ServiceAvailabilityChangedEvent;
 import daviderocca.beautyroom.entities.Category;
 import daviderocca.beautyroom.entities.ServiceItem;
 import daviderocca.beautyroom.entities.ServiceOption;
 import daviderocca.beautyroom.enums.WishlistItemType;
 import daviderocca.beautyroom.exceptions.BadRequestException;
 import daviderocca.beautyroom.exceptions.ResourceNotFoundException;
+import daviderocca.beautyroom.media.ImageVariantDTO;
+import daviderocca.beautyroom.media.ImageVariantService;
+import daviderocca.beautyroom.media.MediaOwnerType;
+import daviderocca.beautyroom.media.MediaUploadPipeline;
 import daviderocca.beautyroom.util.BadgesUtil;
 import daviderocca.beautyroom.repositories.ServiceItemRepository;
 import daviderocca.beautyroom.repositories.ServiceOptionRepository;
 import daviderocca.beautyroom.repositories.WishlistItemRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
 import java.util.*;
 
 @Service
@@ -39,7 +42,11 @@ public class ServiceItemService {
 
     private final CategoryService categoryService;
 
-    private final Cloudinary cloudinary;
+    private final MediaUploadPipeline mediaUploadPipeline;
+
+    private final ImageVariantService imageVariantService;
+
+    private final ApplicationEventPublisher eventPublisher;
 
     private final WishlistItemRepository wishlistItemRepository;
 
@@ -167,7 +174,11 @@ public class ServiceItemService {
         Page<ServiceItem> page = includeInactive
                 ? serviceItemRepository.findAllWithDetails(pageable)
                 : serviceItemRepository.findAllActiveWithDetails(pageable);
-        List<ServiceItemResponseDTO> dtoList = page.getContent().stream().map(si -> convertToDTO(si, includePackages)).toList();
+        // varianti delle immagini di tutta la pagina in una query
+        var variants = imageVariantService.variantsPerOwner(page.getContent(), ServiceItem::getImages);
+        List<ServiceItemResponseDTO> dtoList = page.getContent().stream()
+                .map(si -> convertToDTO(si, includePackages, variants.apply(si)))
+                .toList();
         return new PageImpl<>(dtoList, pageable, page.getTotalElements());
     }
 
@@ -205,7 +216,6 @@ public class ServiceItemService {
         }
 
         Category relatedCategory = categoryService.findCategoryById(payload.categoryId());
-        List<String> imageUrls = uploadImagesIfPresent(images);
 
         ServiceItem newServiceItem = new ServiceItem(
                 payload.title(),
@@ -213,7 +223,7 @@ public class ServiceItemService {
                 payload.price(),
                 payload.shortDescription(),
                 payload.description(),
-                imageUrls,
+                new ArrayList<>(),
                 relatedCategory
         );
 
@@ -224,6 +234,8 @@ public class ServiceItemService {
         newServiceItem.setHighlightColor(payload.highlightColor());
 
         ServiceItem saved = serviceItemRepository.save(newServiceItem);
+        // Le immagini si caricano dopo il commit e vengono collegate al termine (vedi MediaUploadPipeline)
+        mediaUploadPipeline.enqueue(MediaOwnerType.SERVICE, saved.getServiceId(), images);
         log.info("Servizio '{}' (ID: {}) creato (categoria: {})",
                 saved.getTitle(), saved.getServiceId(), relatedCategory.getCategoryKey());
 
@@ -252,11 +264,6 @@ public class ServiceItemService {
             }
         }
 
-        // Aggiungi nuove immagini
-        if (images != null && !images.isEmpty()) {
-            currentImages.addAll(uploadImagesIfPresent(images));
-        }
-
         boolean wasInactive = !found.isActive();
 
         found.setImages(currentImages);
@@ -274,6 +281,10 @@ public class ServiceItemService {
         found.setHighlightColor(payload.highlightColor());
 
         ServiceItem updated = serviceItemRepository.save(found);
+        // durata / attivo possono essere cambiati: le griglie in cache di questo servizio vanno ricalcolate
+        eventPublisher.publishEvent(new ServiceAvailabilityChangedEvent(updated.getServiceId()));
+        // Nuove immagini: caricate dopo il commit, in coda a quelle attuali
+        mediaUploadPipeline.enqueue(MediaOwnerType.SERVICE, updated.getServiceId(), images);
         log.info("Servizio '{}' (ID: {}) aggiornato (categoria: {})",
                 updated.getTitle(), updated.getServiceId(), relatedCategory.getCategoryKey());
 
@@ -300,6 +311,7 @@ public class ServiceItemService {
         boolean wasInactive = !entity.isActive();
         entity.setActive(!entity.isActive());
         serviceItemRepository.save(entity);
+        eventPublisher.publishEvent(new ServiceAvailabilityChangedEvent(entity.getServiceId()));
         if (wasInactive && entity.isActive()) {
             wishlistService.notifyWishlistersOnReactivation(WishlistItemType.SERVICE, entity.getServiceId(), entity.getTitle());
         }
@@ -336,30 +348,15 @@ public class ServiceItemService {
         }
     }
 
-    // ---------------------------- CLOUDINARY ----------------------------
-    private List<String> uploadImagesIfPresent(List<MultipartFile> files) {
-        List<String> urls = new ArrayList<>();
-        if (files == null) return urls;
-        for (MultipartFile file : files) {
-            if (file == null || file.isEmpty()) continue;
-            try {
-                Map uploadResult = cloudinary.uploader()
-                        .upload(file.getBytes(), ObjectUtils.emptyMap());
-                String url = (String) uploadResult.get("url");
-                urls.add(url);
-                log.info("Immagine caricata su Cloudinary: {}", url);
-            } catch (IOException e) {
-                log.error("Errore durante l'upload dell'immagine su Cloudinary", e);
-                throw new BadRequestException("Errore durante l'upload dell'immagine");
-            }
-        }
-        return urls;
-    }
-
     // ---------------------------- CONVERTER ----------------------------
     // includePackages=false (public reads) drops is_package options so they never reach the public site;
     // admin reads pass true → option output stays unchanged. The active filter is unrelated and kept.
     private ServiceItemResponseDTO convertToDTO(ServiceItem serviceItem, boolean includePackages) {
+        return convertToDTO(serviceItem, includePackages, imageVariantService.variantsFor(serviceItem.getImages()));
+    }
+
+    private ServiceItemResponseDTO convertToDTO(ServiceItem serviceItem, boolean includePackages,
+                                                Map<String, List<ImageVariantDTO>> imageVariants) {
         List<ServiceOptionResponseDTO> optionDTOs = serviceItem.getOptions().stream()
                 .filter(ServiceOption::isActive)
                 .filter(o -> includePackages || !o.isPackage())
@@ -374,6 +371,7 @@ public class ServiceItemService {
                 serviceItem.getShortDescription(),
                 serviceItem.getDescription(),
                 new java.util.ArrayList<>(serviceItem.getImages()),
+                imageVariants,
                 serviceItem.getCategory() != null ? serviceItem.getCategory().getCategoryId() : null,
                 serviceItem.getCategory() != null ? serviceItem.getCategory().getCategoryKey() : null,
                 serviceItem.isActive(),
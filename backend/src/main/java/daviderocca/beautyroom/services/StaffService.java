@@ -7,6 +7,7 @@ import daviderocca.beautyroom.DTO.staffDTOs.StaffMemberResponseDTO;
 import daviderocca.beautyroom.DTO.staffDTOs.UpdateStaffMemberDTO;
 import daviderocca.beautyroom.DTO.workingHoursDTOs.NewWorkingHoursDTO;
 import daviderocca.beautyroom.DTO.workingHoursDTOs.WorkingHoursResponseDTO;
+import daviderocca.beautyroom.availability.WorkingHoursChangedEvent;
 import daviderocca.beautyroom.entities.Booking;
 import daviderocca.beautyroom.entities.ServiceItem;
 import daviderocca.beautyroom.entities.User;
@@ -23,6 +24,7 @@ import daviderocca.beautyroom.staff.StaffWorkingHours;
 import daviderocca.beautyroom.staff.StaffWorkingHoursRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -51,6 +53,7 @@ public class StaffService {
     private final BookingRepository bookingRepository;
     private final UserService userService;
     private final WorkingHoursService workingHoursService;
+    private final ApplicationEventPublisher eventPublisher;
 
     // ---------------------------- FIND ----------------------------
 
@@ -213,7 +216,10 @@ public class StaffService {
             staffWorkingHoursRepository.save(row);
 
             if (ownerRow) {
-                workingHoursService.upsertDayFromStaffMirror(payload);
+                workingHoursService.upsertDayFromStaffMirror(payload); // publishes via the mirror
+            } else {
+                // The availability engine reads staff rows directly: drop cached slots for that weekday.
+                eventPublisher.publishEvent(new WorkingHoursChangedEvent(payload.dayOfWeek()));
             }
         }
 
@@ -9,11 +9,13 @@ import daviderocca.beautyroom.enums.Role;
 import daviderocca.beautyroom.exceptions.*;
 import daviderocca.beautyroom.email.outbox.EmailOutboxService;
 import daviderocca.beautyroom.repositories.UserRepository;
+import daviderocca.beautyroom.security.UserCredentialsChangedEvent;
 import daviderocca.beautyroom.staff.CurrentStaffService;
 import daviderocca.beautyroom.staff.StaffMember;
 import daviderocca.beautyroom.util.EmailNormalizer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -30,6 +32,7 @@ public class UserService {
     private final PasswordEncoder bcrypt;
     private final EmailOutboxService emailOutboxService;
     private final CurrentStaffService currentStaffService;
+    private final ApplicationEventPublisher eventPublisher;
 
     // ---------------------------- FIND METHODS ----------------------------
 
@@ -162,6 +165,7 @@ public class UserService {
         found.setPhone(payload.phone());
 
         User updated = userRepository.save(found);
+        eventPublisher.publishEvent(new UserCredentialsChangedEvent(found.getUserId()));
         log.info("Profilo utente '{}' aggiornato con successo", updated.getEmail());
         return convertToDTO(updated);
     }
@@ -186,6 +190,7 @@ public class UserService {
 
         found.setPassword(bcrypt.encode(payload.newPassword()));
         User updated = userRepository.save(found);
+        eventPublisher.publishEvent(new UserCredentialsChangedEvent(found.getUserId()));
 
         log.info("Password aggiornata per l'utente '{}'", updated.getEmail());
         return convertToDTO(updated);
@@ -198,6 +203,7 @@ public class UserService {
         User found = findUserById(userId);
         found.setVerified(verified);
         User updated = userRepository.save(found);
+        eventPublisher.publishEvent(new UserCredentialsChangedEvent(found.getUserId()));
         log.info("Utente '{}' is_verified impostato a {}", updated.getEmail(), verified);
         return convertToDTO(updated);
     }
@@ -213,6 +219,7 @@ public class UserService {
 
         found.setRole(Role.ADMIN);
         User updated = userRepository.save(found);
+        eventPublisher.publishEvent(new UserCredentialsChangedEvent(found.getUserId()));
 
         log.info("Utente '{}' promosso a ADMIN", updated.getEmail());
         return convertToDTO(updated);
@@ -227,6 +234,7 @@ public class UserService {
 
         found.setRole(Role.CUSTOMER);
         User updated = userRepository.save(found);
+        eventPublisher.publishEvent(new UserCredentialsChangedEvent(found.getUserId()));
 
         log.info("Utente '{}' retrocesso a CUSTOMER", updated.getEmail());
         return convertToDTO(updated);
@@ -238,6 +246,7 @@ public class UserService {
     public void deleteUser(UUID idUser) {
         User found = findUserById(idUser);
         userRepository.delete(found);
+        eventPublisher.publishEvent(new UserCredentialsChangedEvent(found.getUserId()));
         log.info("Utente '{}' eliminato correttamente", found.getEmail());
     }
 
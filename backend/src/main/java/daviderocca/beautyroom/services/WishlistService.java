@@ -95,18 +95,16 @@ public class WishlistService {
 
     @Transactional
     public void notifyWishlistersOnReactivation(WishlistItemType type, UUID itemId, String itemName) {
-        List<WishlistItem> wishers = wishlistItemRepository.findByItemTypeAndItemId(type, itemId);
+        List<WishlistItem> wishers = wishlistItemRepository.findWithUserByItemTypeAndItemId(type, itemId);
         if (wishers.isEmpty()) return;
 
         log.info("Notifica wishlist: {} utenti per {} id={}", wishers.size(), type, itemId);
 
-        for (WishlistItem w : wishers) {
-            try {
-                emailOutboxService.enqueueWishlistBackInStock(w, itemName);
-            } catch (Exception ex) {
-                log.warn("Impossibile accodare notifica wishlist per user={} item={}: {}",
-                        w.getUser().getUserId(), itemId, ex.getMessage());
-            }
+        // Una campagna fan-out: corpo renderizzato una volta, invio a blocchi (batch Mailgun).
+        try {
+            emailOutboxService.enqueueWishlistCampaign(type, itemId, itemName, wishers);
+        } catch (Exception ex) {
+            log.warn("Impossibile accodare notifiche wishlist per {} id={}: {}", type, itemId, ex.getMessage());
         }
     }
 
@@ -2,6 +2,7 @@ package daviderocca.beautyroom.services;
 
 import daviderocca.beautyroom.DTO.workingHoursDTOs.NewWorkingHoursDTO;
 import daviderocca.beautyroom.DTO.workingHoursDTOs.WorkingHoursResponseDTO;
+import daviderocca.beautyroom.availability.WorkingHoursChangedEvent;
 import daviderocca.beautyroom.entities.WorkingHours;
 import daviderocca.beautyroom.enums.Role;
 import daviderocca.beautyroom.exceptions.BadRequestException;
@@ -12,6 +13,7 @@ import daviderocca.beautyroom.staff.StaffMemberRepository;
 import daviderocca.beautyroom.staff.StaffWorkingHoursRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,6 +32,8 @@ public class WorkingHoursService {
     // OWNER's staff_working_hours rows until the engine flips in prompt 06.
     private final StaffMemberRepository staffMemberRepository;
     private final StaffWorkingHoursRepository staffWorkingHoursRepository;
+    // Public availability cache: every date on the edited weekday is dropped after commit.
+    private final ApplicationEventPublisher eventPublisher;
 
     // ---------------------------- FIND METHODS ----------------------------
 
@@ -74,6 +78,7 @@ public class WorkingHoursService {
 
         WorkingHours saved = workingHoursRepository.save(workingHours);
         mirrorToOwnerStaffHours(saved);
+        eventPublisher.publishEvent(new WorkingHoursChangedEvent(saved.getDayOfWeek()));
         log.info("Orario creato per il giorno {}", saved.getDayOfWeek());
         return convertToDTO(saved);
     }
@@ -93,10 +98,15 @@ public class WorkingHoursService {
             }
         });
 
+        DayOfWeek previousDay = workingHours.getDayOfWeek();
         applyPayload(workingHours, payload);
 
         WorkingHours updated = workingHoursRepository.save(workingHours);
         mirrorToOwnerStaffHours(updated);
+        eventPublisher.publishEvent(new WorkingHoursChangedEvent(updated.getDayOfWeek()));
+        if (previousDay != null && previousDay != updated.getDayOfWeek()) {
+            eventPublisher.publishEvent(new WorkingHoursChangedEvent(previousDay));
+        }
         log.info("Orario aggiornato per il giorno {}", updated.getDayOfWeek());
         return convertToDTO(updated);
     }
@@ -189,6 +199,7 @@ public class WorkingHoursService {
 
             WorkingHours saved = workingHoursRepository.save(wh);
             mirrorToOwnerStaffHours(saved);
+            eventPublisher.publishEvent(new WorkingHoursChangedEvent(day));
             log.info("Seed working hours created for {}", day);
         }
 
@@ -235,6 +246,7 @@ public class WorkingHoursService {
                 .orElseGet(WorkingHours::new);
         applyPayload(row, payload);
         workingHoursRepository.save(row);
+        eventPublisher.publishEvent(new WorkingHoursChangedEvent(row.getDayOfWeek()));
         log.info("Mirror staff→legacy working-hours per {}", payload.dayOfWeek());
     }
 
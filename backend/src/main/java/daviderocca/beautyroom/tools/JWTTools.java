@@ -2,11 +2,15 @@ package daviderocca.beautyroom.tools;
 
 import daviderocca.beautyroom.entities.User;
 import daviderocca.beautyroom.exceptions.UnauthorizedException;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.crypto.SecretKey;
 import java.time.Instant;
 import java.util.Date;
 import java.util.UUID;
@@ -20,6 +24,16 @@ public class JWTTools {
     @Value("${app.jwt.access-expiration-ms:900000}")
     private long accessExpirationMs;
 
+    // Key and parser are immutable and thread-safe: built once, not per call.
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+    }
+
     public String createTokenUser(User user) {
         return Jwts.builder()
                 .issuedAt(new Date(System.currentTimeMillis()))
@@ -28,48 +42,45 @@ public class JWTTools {
                 .claim("id", user.getUserId().toString())
                 .claim("jti", UUID.randomUUID().toString())
                 .claim("isVerified", user.isVerified())
-                .signWith(Keys.hmacShaKeyFor(secret.getBytes()))
+                .signWith(signingKey)
                 .compact();
     }
 
-    public void verifyToken(String accessToken) {
+    /**
+     * Parses the token and checks signature and expiry once, returning everything the caller
+     * needs (subject, id, jti, expiration) so the token never has to be parsed again.
+     */
+    public VerifiedToken verify(String accessToken) {
+        Claims claims;
         try {
-            Jwts.parser()
-                    .verifyWith(Keys.hmacShaKeyFor(secret.getBytes()))
-                    .build()
-                    .parseSignedClaims(accessToken)
-                    .getPayload()
-                    .getSubject();
+            claims = parser.parseSignedClaims(accessToken).getPayload();
         } catch (Exception ex) {
             throw new UnauthorizedException("La sessione è scaduta! Effettuare di nuovo il login!");
         }
+        String id = claims.get("id", String.class);
+        return new VerifiedToken(
+                claims.getSubject(),
+                id == null ? null : UUID.fromString(id),
+                claims.get("jti", String.class),
+                claims.getExpiration().toInstant());
+    }
+
+    public void verifyToken(String accessToken) {
+        verify(accessToken);
     }
 
     public String extractSubject(String accessToken) {
-        return Jwts.parser()
-                .verifyWith(Keys.hmacShaKeyFor(secret.getBytes()))
-                .build()
-                .parseSignedClaims(accessToken)
-                .getPayload()
-                .getSubject();
+        return verify(accessToken).subject();
     }
 
     public String extractJti(String accessToken) {
-        return Jwts.parser()
-                .verifyWith(Keys.hmacShaKeyFor(secret.getBytes()))
-                .build()
-                .parseSignedClaims(accessToken)
-                .getPayload()
-                .get("jti", String.class);
+        return verify(accessToken).jti();
     }
 
     public Instant extractExpiration(String accessToken) {
-        Date expiration = Jwts.parser()
-                .verifyWith(Keys.hmacShaKeyFor(secret.getBytes()))
-                .build()
-                .parseSignedClaims(accessToken)
-                .getPayload()
-                .getExpiration();
-        return expiration.toInstant();
+        return verify(accessToken).expiresAt();
     }
+
+    /** Claims of a token whose signature and expiry have already been checked. */
+    public record VerifiedToken(String subject, UUID userId, String jti, Instant expiresAt) {}
 }
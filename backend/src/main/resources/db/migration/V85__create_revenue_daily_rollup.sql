@@ -0,0 +1,34 @@
+-- ============================================================
+-- V85 – Report: daily revenue rollup
+-- ------------------------------------------------------------
+-- revenue_daily holds the cash-basis report legs pre-aggregated per
+-- (day, leg, channel): the same rows ReportRepository extracts, summed.
+-- leg mirrors RevenueLeg (EnumType.STRING): TREATMENT, REFUND, PRODUCT,
+-- PACKAGE, PROMOTION; entries = number of raw rows (treatments count is
+-- the report's appointmentsCount).
+--
+-- revenue_rollup_days marks which days are rolled up. A day with no
+-- revenue has a marker and no revenue_daily rows; a day WITHOUT a marker
+-- (today, never built, or invalidated by a retroactive edit) is read from
+-- the raw tables by ReportService. Both tables are derived data: dropping
+-- them only makes the report fall back to raw queries.
+--
+-- ROLLBACK:
+--   DROP TABLE IF EXISTS public.revenue_daily;
+--   DROP TABLE IF EXISTS public.revenue_rollup_days;
+-- ============================================================
+
+CREATE TABLE public.revenue_daily (
+    id          UUID        PRIMARY KEY DEFAULT gen_random_uuid(),
+    revenue_day DATE        NOT NULL,
+    leg         VARCHAR(16) NOT NULL,
+    online      BOOLEAN     NOT NULL,
+    amount      NUMERIC(14, 2) NOT NULL,
+    entries     INT         NOT NULL,
+    CONSTRAINT uq_revenue_daily_day_leg_channel UNIQUE (revenue_day, leg, online)
+);
+
+CREATE TABLE public.revenue_rollup_days (
+    revenue_day DATE      PRIMARY KEY,
+    computed_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,21 @@
+-- ============================================================
+-- V86 – Auth: revoked access tokens (logout blocklist)
+-- ------------------------------------------------------------
+-- One row per access token revoked before its natural expiry, keyed by
+-- the token's jti. Every backend instance mirrors the live rows in
+-- memory (TokenBlocklist) and pulls the ones revoked by other instances
+-- every few seconds via revoked_at; rows past expires_at are useless
+-- (the token is rejected anyway) and are purged hourly.
+--
+-- ROLLBACK:
+--   DROP TABLE IF EXISTS public.revoked_access_tokens;
+-- ============================================================
+
+CREATE TABLE public.revoked_access_tokens (
+    jti        VARCHAR(64) PRIMARY KEY,
+    expires_at TIMESTAMP   NOT NULL,
+    revoked_at TIMESTAMP   NOT NULL DEFAULT now()
+);
+
+CREATE INDEX idx_revoked_access_tokens_revoked_at ON public.revoked_access_tokens (revoked_at);
+CREATE INDEX idx_revoked_access_tokens_expires_at ON public.revoked_access_tokens (expires_at);
@@ -0,0 +1,31 @@
+-- ============================================================
+-- V87 – Email outbox: fan-out campaigns
+-- ------------------------------------------------------------
+-- A campaign is one email sent to many recipients with the same body
+-- (today: "back in stock" to everyone who wishlisted an item). Its rows
+-- in email_outbox keep one recipient each (status, retries, backoff as
+-- usual) and point to the campaign via campaign_id; the dispatcher
+-- claims them per campaign, renders the shared body once and sends up
+-- to 1000 recipients per Mailgun call (recipient-variables batch send).
+-- Rows with campaign_id NULL are the usual one-to-one emails.
+--
+-- ROLLBACK:
+--   ALTER TABLE public.email_outbox DROP COLUMN IF EXISTS campaign_id;
+--   DROP TABLE IF EXISTS public.email_campaigns;
+-- ============================================================
+
+CREATE TABLE public.email_campaigns (
+    id         UUID         PRIMARY KEY DEFAULT gen_random_uuid(),
+    event_type VARCHAR(40)  NOT NULL,
+    item_type  VARCHAR(20)  NOT NULL,
+    item_id    UUID         NOT NULL,
+    item_name  VARCHAR(255),
+    created_at TIMESTAMP    NOT NULL DEFAULT now()
+);
+
+ALTER TABLE public.email_outbox
+    ADD COLUMN campaign_id UUID REFERENCES public.email_campaigns(id) ON DELETE CASCADE;
+
+CREATE INDEX idx_email_outbox_campaign_pending
+    ON public.email_outbox (campaign_id, created_at)
+    WHERE status = 'PENDING' AND campaign_id IS NOT NULL;
@@ -0,0 +1,35 @@
+-- ============================================================
+-- V88 – Catalog media: background image uploads
+-- ------------------------------------------------------------
+-- Admin saves of products, services and results no longer upload
+-- their images inside the request: each file is staged on local disk
+-- and recorded here as PENDING, the entity commits right away and a
+-- small pool uploads the files afterwards (no DB connection held
+-- during the upload). The images of one save share batch_id and are
+-- appended to the owner's image list, in position order, when the last
+-- of them is UPLOADED or FAILED.
+--
+-- ROLLBACK:
+--   DROP TABLE IF EXISTS public.media_uploads;
+-- ============================================================
+
+CREATE TABLE public.media_uploads (
+    id                UUID          PRIMARY KEY DEFAULT gen_random_uuid(),
+    owner_type        VARCHAR(20)   NOT NULL,
+    owner_id          UUID          NOT NULL,
+    batch_id          UUID          NOT NULL,
+    position          INTEGER       NOT NULL,
+    status            VARCHAR(20)   NOT NULL DEFAULT 'PENDING',
+    staged_path       VARCHAR(500),
+    original_filename VARCHAR(255),
+    content_type      VARCHAR(100),
+    size_bytes        BIGINT        NOT NULL DEFAULT 0,
+    url               VARCHAR(1000),
+    last_error        VARCHAR(1000),
+    created_at        TIMESTAMP     NOT NULL DEFAULT now(),
+    completed_at      TIMESTAMP
+);
+
+CREATE INDEX idx_media_uploads_owner ON public.media_uploads (owner_type, owner_id, created_at DESC);
+CREATE INDEX idx_media_uploads_batch ON public.media_uploads (batch_id, position);
+CREATE INDEX idx_media_uploads_pending ON public.media_uploads (created_at) WHERE status = 'PENDING';
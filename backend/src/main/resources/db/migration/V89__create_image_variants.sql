@@ -0,0 +1,29 @@
+-- ============================================================
+-- V89 – Catalog media: resized image variants
+-- ------------------------------------------------------------
+-- Each image uploaded through media_uploads (V88) also gets a few
+-- narrower JPEG copies (app.media.variants.widths), generated on the
+-- server with ImageIO. A row per copy, keyed by the original URL as
+-- stored in the owner's image list; the response DTOs expose them as
+-- imageVariants so the public pages can pick a srcset instead of the
+-- full-size original. storage_url is the durable copy behind the
+-- local thumbnail cache (GET /media/variants/{id}).
+--
+-- Images uploaded before this migration have no rows: clients fall
+-- back to the original URL.
+--
+-- ROLLBACK:
+--   DROP TABLE IF EXISTS public.image_variants;
+-- ============================================================
+
+CREATE TABLE public.image_variants (
+    id            UUID          PRIMARY KEY DEFAULT gen_random_uuid(),
+    original_url  VARCHAR(1000) NOT NULL,
+    width         INTEGER       NOT NULL,
+    height        INTEGER       NOT NULL,
+    content_type  VARCHAR(100)  NOT NULL,
+    size_bytes    BIGINT        NOT NULL DEFAULT 0,
+    storage_url   VARCHAR(1000) NOT NULL,
+    created_at    TIMESTAMP     NOT NULL DEFAULT now(),
+    CONSTRAINT uq_image_variants_original_width UNIQUE (original_url, width)
+);
@@ -2,9 +2,20 @@ package daviderocca.beautyroom;
 
 import daviderocca.beautyroom.DTO.availabilityDTOs.AvailabilityResponseDTO;
 import daviderocca.beautyroom.DTO.availabilityDTOs.AvailabilitySlotDTO;
+import daviderocca.beautyroom.DTO.availabilityDTOs.PublicNextSlotDTO;
+import daviderocca.beautyroom.DTO.availabilityDTOs.PublicMonthAvailabilityDTO;
+import daviderocca.beautyroom.DTO.availabilityDTOs.PublicMonthDayDTO;
+import daviderocca.beautyroom.availability.AvailabilityCache;
+import daviderocca.beautyroom.availability.AvailabilityChangedEvent;
+import daviderocca.beautyroom.availability.DayOccupancy;
+import daviderocca.beautyroom.availability.DayOccupancyIndex;
+import daviderocca.beautyroom.availability.MonthAvailabilitySnapshot;
+import daviderocca.beautyroom.availability.StaffAvailabilityEngine;
 import daviderocca.beautyroom.entities.Booking;
 import daviderocca.beautyroom.entities.ServiceItem;
 import daviderocca.beautyroom.entities.WorkingHours;
+import daviderocca.beautyroom.enums.CalendarDayStatus;
+import daviderocca.beautyroom.exceptions.BadRequestException;
 import daviderocca.beautyroom.personalappointments.PersonalAppointment;
 import daviderocca.beautyroom.personalappointments.PersonalAppointmentRepository;
 import daviderocca.beautyroom.repositories.BookingRepository;
@@ -12,22 +23,36 @@ import daviderocca.beautyroom.repositories.ClosureRepository;
 import daviderocca.beautyroom.repositories.WorkingHoursRepository;
 import daviderocca.beautyroom.services.AvailabilityService;
 import daviderocca.beautyroom.services.ServiceItemService;
+import daviderocca.beautyroom.staff.StaffMember;
+import daviderocca.beautyroom.staff.StaffMemberRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 /**
@@ -52,6 +77,12 @@ class AvailabilityServiceTest {
     @Mock private BookingRepository bookingRepository;
     @Mock private ServiceItemService serviceItemService;
     @Mock private PersonalAppointmentRepository personalAppointmentRepository;
+    @Mock private DayOccupancyIndex occupancyIndex;
+    // Real cache (fresh per test): the slot assertions must go through the cached path.
+    @Spy private AvailabilityCache availabilityCache = new AvailabilityCache();
+    @Spy private MonthAvailabilitySnapshot monthSnapshot = new MonthAvailabilitySnapshot();
+    @Mock private StaffAvailabilityEngine staffAvailabilityEngine;
+    @Mock private StaffMemberRepository staffMemberRepository;
 
     @InjectMocks private AvailabilityService availabilityService;
 
@@ -95,6 +126,26 @@ class AvailabilityServiceTest {
         assertThat(resp.slots()).allMatch(AvailabilitySlotDTO::available);
     }
 
+    @Test
+    @DisplayName("Single-service: a deactivated service gets no grid, even one already cached")
+    void singleService_inactiveCheckedBeforeCache() {
+        UUID serviceId = UUID.randomUUID();
+        ServiceItem svc = mock(ServiceItem.class);
+        when(svc.getDurationMin()).thenReturn(60);
+        when(serviceItemService.findServiceItemById(serviceId)).thenReturn(svc);
+        when(workingHoursRepository.findByDayOfWeek(any())).thenReturn(Optional.of(openMorning()));
+        when(closureRepository.findOverlappingDate(any())).thenReturn(List.of());
+        when(bookingRepository.findBookingsByStatusesIntersectingRange(any(), any(), any()))
+                .thenReturn(List.of());
+        assertThat(availabilityService.getServiceAvailabilities(serviceId, FUTURE).slots()).hasSize(3);
+
+        doThrow(new BadRequestException("Il servizio non è disponibile."))
+                .when(serviceItemService).assertServiceActive(svc);
+
+        assertThatThrownBy(() -> availabilityService.getServiceAvailabilities(serviceId, FUTURE))
+                .isInstanceOf(BadRequestException.class);
+    }
+
     @Test
     @DisplayName("Single-service: a 10:00–11:00 booking marks only that slot occupied (others free)")
     void singleService_outputUnchanged_withBooking() {
@@ -214,4 +265,165 @@ class AvailabilityServiceTest {
         assertThat(resp.slots()).isNotEmpty();
         assertThat(resp.slots()).noneMatch(AvailabilitySlotDTO::available);
     }
+
+    // ====================== DAY-STATUS (range engine) ======================
+
+    @Test
+    @DisplayName("getFullDays: range-loaded once, a fully-booked day is 'Pieno', a free day is not")
+    void fullDays_rangeEngine_classifiesInMemory() {
+        ReflectionTestUtils.setField(availabilityService, "maxAdvanceDays", 150); // @Value not injected by Mockito
+        LocalDate nextDay = FUTURE.plusDays(1);
+        WorkingHours h1 = new WorkingHours(FUTURE.getDayOfWeek(),
+                LocalTime.of(9, 0), LocalTime.of(12, 0), null, null, false);
+        WorkingHours h2 = new WorkingHours(nextDay.getDayOfWeek(),
+                LocalTime.of(9, 0), LocalTime.of(12, 0), null, null, false);
+        when(workingHoursRepository.findAll()).thenReturn(List.of(h1, h2));
+        when(closureRepository.findByDateRange(any(), any())).thenReturn(List.of());
+        Booking booking = bookingBetween(9, 12); // FUTURE fully booked, nextDay free
+        when(bookingRepository.findBookingsByStatusesIntersectingRange(any(), any(), any()))
+                .thenReturn(List.of(booking));
+        when(personalAppointmentRepository.findByAppointmentDateBetweenOrderByAppointmentDateAscStartTimeAsc(any(), any()))
+                .thenReturn(List.of());
+
+        List<LocalDate> full = availabilityService.getFullDays(FUTURE, nextDay, 90);
+
+        assertThat(full).containsExactly(FUTURE);
+        // One query per source for the whole window — never the per-day lookups.
+        verify(bookingRepository, times(1)).findBookingsByStatusesIntersectingRange(any(), any(), any());
+        verify(closureRepository, never()).findOverlappingDate(any());
+        verify(workingHoursRepository, never()).findByDayOfWeek(any());
+    }
+
+    // ====================== NEXT-SLOT FINDERS — served from the occupancy index ======================
+
+    @Test
+    @DisplayName("Finders: occupancy comes from the in-memory index, no per-day booking/closure queries")
+    void finders_readOccupancyIndex() {
+        ReflectionTestUtils.setField(availabilityService, "maxAdvanceDays", 1); // day-0 only
+        when(workingHoursRepository.findAll()).thenReturn(List.of(openMorning()));
+        // Booked 09:00–10:00, partial closure 11:00–12:00 → only 10:00–11:00 is bookable.
+        when(occupancyIndex.get(FUTURE))
+                .thenReturn(new DayOccupancy(false, new int[]{660, 720}, new int[]{540, 600}));
+        ServiceItem svc = mock(ServiceItem.class);
+        when(svc.isActive()).thenReturn(true);
+        when(svc.getDurationMin()).thenReturn(60);
+        when(serviceItemService.findServiceItemById(any())).thenReturn(svc);
+
+        Optional<PublicNextSlotDTO> single =
+                availabilityService.findNextAvailableSlotForService(UUID.randomUUID(), FUTURE, null);
+        Optional<PublicNextSlotDTO> combined =
+                availabilityService.findNextAvailableCombinedSlot(30, FUTURE, "10:00");
+
+        assertThat(single).contains(new PublicNextSlotDTO(FUTURE, "10:00", "11:00"));
+        assertThat(combined).contains(new PublicNextSlotDTO(FUTURE, "10:10", "10:40"));
+        verify(bookingRepository, never()).findBookingsByStatusesIntersectingRange(any(), any(), any());
+        verify(closureRepository, never()).findOverlappingDate(any());
+    }
+
+    @Test
+    @DisplayName("Combined: a repeated request for the same day/duration is served from the cache")
+    void combined_repeatedRequest_hitsCache() {
+        when(workingHoursRepository.findByDayOfWeek(any())).thenReturn(Optional.of(openMorning()));
+        when(closureRepository.findOverlappingDate(any())).thenReturn(List.of());
+        when(bookingRepository.findBookingsByStatusesIntersectingRange(any(), any(), any())).thenReturn(List.of());
+        when(personalAppointmentRepository.findByAppointmentDateOrderByStartTime(any())).thenReturn(List.of());
+
+        AvailabilityResponseDTO first = availabilityService.getCombinedAvailabilities(FUTURE, 60);
+        AvailabilityResponseDTO second = availabilityService.getCombinedAvailabilities(FUTURE, 60);
+
+        assertThat(second).isSameAs(first);
+        verify(bookingRepository, times(1)).findBookingsByStatusesIntersectingRange(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Month: CLOSED / FULL / AVAILABLE per day; re-served from the snapshot, only touched days recomputed")
+    void month_classifiesDays_andPatchesIncrementally() {
+        ReflectionTestUtils.setField(availabilityService, "maxAdvanceDays", 150);
+        YearMonth month = YearMonth.from(FUTURE.plusMonths(2));
+        LocalDate full = month.atDay(10);
+        LocalDate free = full.plusWeeks(1);
+        LocalDate closed = full.plusDays(1); // weekday without working hours
+        when(workingHoursRepository.findAll()).thenReturn(List.of(new WorkingHours(full.getDayOfWeek(),
+                LocalTime.of(9, 0), LocalTime.of(12, 0), null, null, false)));
+        when(occupancyIndex.getRange(any(), any())).thenReturn(Map.of(
+                full, new DayOccupancy(false, new int[0], new int[]{540, 720}),
+                free, new DayOccupancy(false, new int[]{540, 600}, new int[0])));
+
+        PublicMonthAvailabilityDTO first = availabilityService.getMonthAvailability(month, 60);
+
+        assertThat(first.days()).hasSize(month.lengthOfMonth());
+        assertThat(first.days()).contains(
+                new PublicMonthDayDTO(full, CalendarDayStatus.FULL, null, null),
+                new PublicMonthDayDTO(free, CalendarDayStatus.AVAILABLE, "10:00", "11:00"),
+                new PublicMonthDayDTO(closed, CalendarDayStatus.CLOSED, null, null));
+        verify(occupancyIndex, times(1)).getRange(month.atDay(1), month.atEndOfMonth());
+
+        availabilityService.getMonthAvailability(month, 60);
+        verify(occupancyIndex, times(1)).getRange(any(), any());
+
+        monthSnapshot.onAvailabilityChanged(AvailabilityChangedEvent.forDay(free));
+        availabilityService.getMonthAvailability(month, 60);
+        verify(occupancyIndex).getRange(eq(free), eq(free));
+    }
+
+    // ====================== MULTI-STAFF ======================
+
+    private StaffMember staff() {
+        StaffMember m = new StaffMember("Op", true, 0);
+        m.setId(UUID.randomUUID());
+        return m;
+    }
+
+    @Test
+    @DisplayName("Multi-staff: 2+ active operators → qualified operators go to the per-operator engine")
+    void service_multiStaff_usesEngineWithQualifiedOperators() {
+        ReflectionTestUtils.setField(availabilityService, "staffAware", true);
+        UUID serviceId = UUID.randomUUID();
+        ServiceItem svc = mock(ServiceItem.class);
+        when(svc.getDurationMin()).thenReturn(60);
+        when(serviceItemService.findServiceItemById(serviceId)).thenReturn(svc);
+        StaffMember a = staff();
+        StaffMember b = staff();
+        when(staffMemberRepository.countByActiveTrue()).thenReturn(3L);
+        when(staffMemberRepository.findActiveByServiceIdOrderBySortOrderAsc(serviceId)).thenReturn(List.of(a, b));
+        when(workingHoursRepository.findByDayOfWeek(any())).thenReturn(Optional.of(openMorning()));
+        when(closureRepository.findOverlappingDate(FUTURE)).thenReturn(List.of());
+        List<AvailabilitySlotDTO> merged = List.of(new AvailabilitySlotDTO("09:00", "10:00", true));
+        when(staffAvailabilityEngine.anyOperatorSlots(eq(FUTURE), eq(List.of(a.getId(), b.getId())), any(), any(),
+                eq(60), eq(60), anyInt())).thenReturn(merged);
+
+        AvailabilityResponseDTO res = availabilityService.getServiceAvailabilities(serviceId, FUTURE);
+
+        assertThat(res.slots()).isEqualTo(merged);
+        verify(bookingRepository, never()).findBookingsByStatusesIntersectingRange(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Multi-staff: a staff filter keeps one operator; an unqualified operator → 400")
+    void combined_staffFilter() {
+        ReflectionTestUtils.setField(availabilityService, "staffAware", true);
+        StaffMember a = staff();
+        when(staffMemberRepository.findByActiveTrueOrderBySortOrderAsc()).thenReturn(List.of(a));
+        when(workingHoursRepository.findByDayOfWeek(any())).thenReturn(Optional.empty());
+        when(closureRepository.findOverlappingDate(FUTURE)).thenReturn(List.of());
+        when(staffAvailabilityEngine.anyOperatorSlots(eq(FUTURE), eq(List.of(a.getId())), any(), any(),
+                eq(30), eq(10), anyInt())).thenReturn(List.of());
+
+        assertThat(availabilityService.getCombinedAvailabilities(FUTURE, 30, a.getId()).slots()).isEmpty();
+        assertThatThrownBy(() -> availabilityService.getCombinedAvailabilities(FUTURE, 30, UUID.randomUUID()))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    @DisplayName("Multi-staff: staff-aware grids off → salon-wide grid, staff filter ignored")
+    void combined_staffAwareOff_salonWide() {
+        when(workingHoursRepository.findByDayOfWeek(any())).thenReturn(Optional.of(openMorning()));
+        when(closureRepository.findOverlappingDate(FUTURE)).thenReturn(List.of());
+        when(bookingRepository.findBookingsByStatusesIntersectingRange(any(), any(), any())).thenReturn(List.of());
+
+        AvailabilityResponseDTO res = availabilityService.getCombinedAvailabilities(FUTURE, 30, UUID.randomUUID());
+
+        assertThat(res.slots()).isNotEmpty().allMatch(AvailabilitySlotDTO::available);
+        verifyNoInteractions(staffAvailabilityEngine, staffMemberRepository);
+    }
 }
@@ -0,0 +1,130 @@
+package daviderocca.beautyroom;
+
+import daviderocca.beautyroom.DTO.bookingDTOs.AdminBookingCardDTO;
+import daviderocca.beautyroom.entities.Booking;
+import daviderocca.beautyroom.entities.BookingSale;
+import daviderocca.beautyroom.entities.Category;
+import daviderocca.beautyroom.entities.ServiceItem;
+import daviderocca.beautyroom.enums.BookingStatus;
+import daviderocca.beautyroom.enums.PaymentMethod;
+import daviderocca.beautyroom.repositories.BookingRepository;
+import daviderocca.beautyroom.repositories.BookingSaleRepository;
+import daviderocca.beautyroom.repositories.CategoryRepository;
+import daviderocca.beautyroom.repositories.ServiceItemRepository;
+import daviderocca.beautyroom.services.BookingService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Agenda card batch assembly: the number of SQL statements behind {@code getAgendaRange} must not
+ * grow with the number of bookings in view — one IN (...) query per relation, zero per-booking
+ * lookups. Counted on H2 with Hibernate statistics (prepared statements, native SQL included).
+ *
+ * <p>Same schema recipe as ReportRevenueReconciliationTest: the booking_services columns read by
+ * the card's native line query live only in the Flyway schema, so they are added here. No lines
+ * are seeded (H2 hands native UUID columns back as byte[]): the line query still runs once.</p>
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BookingServiceAgendaTest {
+
+    /**
+     * Range + services bag + arretrati phones + booking_services lines + package links + sales +
+     * promotion links. Installments and online-package siblings are skipped when nothing needs them.
+     */
+    private static final long STATEMENTS_PER_RANGE = 7;
+
+    @Autowired private BookingService bookingService;
+    @Autowired private BookingRepository bookingRepository;
+    @Autowired private BookingSaleRepository bookingSaleRepository;
+    @Autowired private CategoryRepository categoryRepository;
+    @Autowired private ServiceItemRepository serviceItemRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private JdbcTemplate jdbc;
+
+    private static final LocalDate FROM = LocalDate.of(2030, 5, 1);
+
+    @BeforeEach
+    void resetSchemaAndData() {
+        jdbc.execute("ALTER TABLE booking_services ADD COLUMN IF NOT EXISTS price_override DECIMAL(10,2)");
+        jdbc.execute("ALTER TABLE booking_services ADD COLUMN IF NOT EXISTS option_id UUID");
+        jdbc.execute("ALTER TABLE booking_services ADD COLUMN IF NOT EXISTS paid BOOLEAN DEFAULT FALSE");
+        jdbc.execute("ALTER TABLE booking_services ADD COLUMN IF NOT EXISTS sort_order INT DEFAULT 0");
+        jdbc.execute("ALTER TABLE booking_services ADD COLUMN IF NOT EXISTS override_duration_min INT");
+
+        // Shared H2 context, committed data: every size starts from an empty agenda.
+        jdbc.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        for (String t : List.of(
+                "booking_services", "booking_sales", "booking_promotion_link", "booking_package_link",
+                "bookings", "service_options", "services", "categories")) {
+            try { jdbc.execute("DELETE FROM " + t); } catch (Exception ignore) { /* table may not exist */ }
+        }
+        jdbc.execute("SET REFERENTIAL_INTEGRITY TRUE");
+    }
+
+    @ParameterizedTest(name = "{0} bookings")
+    @ValueSource(ints = {1, 31, 300})
+    @DisplayName("getAgendaRange: same number of SQL statements however many bookings are in range")
+    void getAgendaRange_constantStatementCount(int size) {
+        Category cat = categoryRepository.save(new Category("agenda", "Agenda"));
+        ServiceItem primary = serviceItemRepository.save(
+                new ServiceItem("Pulizia viso", 60, new BigDecimal("50.00"), "s", "d", List.of(), cat));
+
+        List<Booking> bookings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            LocalDateTime start = FROM.atTime(9, 0).plusHours(i % 10).plusDays(i / 10);
+            // every other booking has no primary service → exercises the services-bag fetch
+            Booking b = new Booking("Cliente " + i, "c" + i + "@test.local", "333 000 " + i,
+                    start, start.plusHours(1), null, i % 2 == 1 ? primary : null, null, null);
+            b.setBookingStatus(BookingStatus.CONFIRMED);
+            b.setPaymentMethod(PaymentMethod.PAY_IN_STORE);
+            bookings.add(b);
+        }
+        bookings = bookingRepository.saveAll(bookings);
+
+        List<BookingSale> sales = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Booking b = bookings.get(i);
+            BookingSale sale = new BookingSale();
+            sale.setBookingId(b.getBookingId());
+            sale.setProductId(UUID.randomUUID());
+            sale.setProductName("Crema " + i);
+            sale.setUnitPrice(new BigDecimal("10.00"));
+            sale.setAddedAt(LocalDateTime.of(2030, 5, 1, 10, 0));
+            sales.add(sale);
+        }
+        bookingSaleRepository.saveAll(sales);
+
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        List<AdminBookingCardDTO> cards = bookingService.getAgendaRange(FROM, FROM.plusMonths(2));
+        long statements = stats.getPrepareStatementCount();
+
+        assertThat(cards).hasSize(size);
+        for (int i = 0; i < size; i++) {
+            int n = i;
+            assertThat(cards.get(i).bookingId()).isEqualTo(bookings.get(i).getBookingId());
+            assertThat(cards.get(i).linkedSales()).singleElement()
+                    .satisfies(s -> assertThat(s.productName()).isEqualTo("Crema " + n));
+        }
+        assertThat(statements).as("prepared statements for %d bookings", size).isEqualTo(STATEMENTS_PER_RANGE);
+    }
+}
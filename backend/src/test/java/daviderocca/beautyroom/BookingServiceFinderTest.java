@@ -16,6 +16,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.DayOfWeek;
@@ -52,6 +53,7 @@ class BookingServiceFinderTest {
     @Mock private WorkingHoursRepository workingHoursRepository;
     @Mock private ClosureRepository closureRepository;
     @Mock private PersonalAppointmentRepository personalAppointmentRepository;
+    @Mock private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks private BookingService bookingService;
 
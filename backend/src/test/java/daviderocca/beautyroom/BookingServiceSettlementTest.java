@@ -25,6 +25,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -60,6 +61,8 @@ class BookingServiceSettlementTest {
     // Fix 14: BookingService now constructor-injects this. Settlement paths never hit
     // the overlap check, but @InjectMocks would pass null without a matching @Mock.
     @Mock private PersonalAppointmentRepository personalAppointmentRepository;
+    // Write paths publish AvailabilityChangedEvent for the occupancy index.
+    @Mock private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks private BookingService bookingService;
 
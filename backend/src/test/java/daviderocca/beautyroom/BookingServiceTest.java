@@ -41,6 +41,7 @@ import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -114,6 +115,9 @@ class BookingServiceTest {
     // returns null from resolveDefault(), so existing tests persist staff-less bookings.
     @Mock
     private daviderocca.beautyroom.staff.DefaultStaffResolver defaultStaffResolver;
+    // Write paths publish AvailabilityChangedEvent for the occupancy index; null would NPE.
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private BookingService bookingService;
@@ -6,6 +6,7 @@ import daviderocca.beautyroom.DTO.orderItemDTOs.NewOrderItemDTO;
 import daviderocca.beautyroom.DTO.reportDTOs.IncassatoDTO;
 import daviderocca.beautyroom.DTO.reportDTOs.PrevistoDTO;
 import daviderocca.beautyroom.DTO.reportDTOs.ReportResponseDTO;
+import daviderocca.beautyroom.DTO.reportDTOs.RollupMismatchDTO;
 import daviderocca.beautyroom.entities.Booking;
 import daviderocca.beautyroom.entities.BookingSale;
 import daviderocca.beautyroom.entities.Category;
@@ -14,6 +15,8 @@ import daviderocca.beautyroom.entities.PackageCredit;
 import daviderocca.beautyroom.entities.Product;
 import daviderocca.beautyroom.entities.ServiceItem;
 import daviderocca.beautyroom.entities.ServiceOption;
+import daviderocca.beautyroom.report.ReportCache;
+import daviderocca.beautyroom.report.RevenueRollupService;
 import daviderocca.beautyroom.enums.BookingStatus;
 import daviderocca.beautyroom.enums.OrderStatus;
 import daviderocca.beautyroom.enums.PackageCreditStatus;
@@ -60,6 +63,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 class ReportRevenueReconciliationTest {
 
     @Autowired private ReportService reportService;
+    @Autowired private RevenueRollupService revenueRollupService;
+    @Autowired private ReportCache reportCache;
     @Autowired private OrderService orderService;
     @Autowired private JdbcTemplate jdbc;
     @Autowired private CategoryRepository categoryRepository;
@@ -93,10 +98,12 @@ class ReportRevenueReconciliationTest {
                 "booking_services", "booking_sales", "booking_promotion_link", "booking_package_link",
                 "package_installments", "package_credits", "order_items", "orders",
                 "client_package_assignments", "bookings", "service_options", "services",
-                "products", "categories")) {
+                "products", "categories", "revenue_daily", "revenue_rollup_days")) {
             try { jdbc.execute("DELETE FROM " + t); } catch (Exception ignore) { /* table may not exist */ }
         }
         jdbc.execute("SET REFERENTIAL_INTEGRITY TRUE");
+        // The wipe bypasses the services (no events): drop reports cached by earlier methods.
+        reportCache.invalidateAll();
     }
 
     @Test
@@ -225,6 +232,59 @@ class ReportRevenueReconciliationTest {
         assertThat(report.topProducts()).anyMatch(p -> p.name().equals("Crema 25"));
     }
 
+    @Test
+    @DisplayName("daily rollup: same incassato as the raw tables; a stale day shows up in reconcile until rebuilt")
+    void rollupMatchesRawAndReconciles() {
+        Category cat = categoryRepository.save(new Category("roll", "Roll"));
+        ServiceItem svc = saveService(cat, "Trattamento", new BigDecimal("70.00"));
+
+        Booking bundle = newBooking("Roll Client", "roll@client.it", "+393337777777", svc, null);
+        bundle.setCustomTotalPrice(new BigDecimal("45.00"));
+        bundle.setPaymentMethod(PaymentMethod.PAY_IN_STORE);
+        bundle.setPaidInStore(true);
+        bundle.setSettledAt(base);
+        bundle.setBookingStatus(BookingStatus.COMPLETED);
+        bundle = bookingRepository.save(bundle);
+
+        Booking refunded = newBooking("Roll Refund", "rollref@client.it", "+393337777778", svc, null);
+        refunded.setPaymentMethod(PaymentMethod.PAY_IN_STORE);
+        refunded.setPaidInStore(true);
+        refunded.setSettledAt(base);
+        refunded.setBookingStatus(BookingStatus.REFUNDED);
+        refunded.setCanceledAt(base);
+        bookingRepository.save(refunded);
+
+        IncassatoDTO raw = reportService.getReport(from, to, "none").incassato();
+
+        // Closed days only: base (2 days ago) is rolled up, today never is.
+        assertThat(revenueRollupService.rebuild(from, to).to()).isEqualTo(LocalDate.now().minusDays(1));
+        IncassatoDTO rolled = reportService.getReport(from, to, "none").incassato();
+        assertThat(rolled.total()).isEqualByComparingTo(raw.total()).isEqualByComparingTo("45.00");
+        assertThat(rolled.byType().trattamenti()).isEqualByComparingTo(raw.byType().trattamenti());
+        assertThat(rolled.byChannel().inStore()).isEqualByComparingTo(raw.byChannel().inStore());
+        assertThat(rolled.refundsTotal()).isEqualByComparingTo(raw.refundsTotal());
+        assertThat(rolled.appointmentsCount()).isEqualTo(raw.appointmentsCount());
+        assertThat(rolled.monthly()).isEqualTo(raw.monthly());
+        assertThat(revenueRollupService.reconcile(from, to)).isEmpty();
+
+        // A write that bypasses the services publishes no RevenueChangedEvent: the day goes stale
+        // (and so does the cached report) until a rebuild heals it.
+        bundle.setCustomTotalPrice(new BigDecimal("55.00"));
+        bookingRepository.save(bundle);
+        List<RollupMismatchDTO> drift = revenueRollupService.reconcile(from, to);
+        assertThat(drift).singleElement().satisfies(m -> {
+            assertThat(m.day()).isEqualTo(base.toLocalDate());
+            // gross treatment cell: bundle + the refunded booking's settle (its -70 is the REFUND leg)
+            assertThat(m.leg()).isEqualTo("TREATMENT");
+            assertThat(m.rollupAmount()).isEqualByComparingTo("115.00");
+            assertThat(m.rawAmount()).isEqualByComparingTo("125.00");
+        });
+
+        revenueRollupService.rebuild(base.toLocalDate(), base.toLocalDate());
+        assertThat(revenueRollupService.reconcile(from, to)).isEmpty();
+        assertThat(reportService.getReport(from, to, "none").incassato().total()).isEqualByComparingTo("55.00");
+    }
+
     @Test
     @DisplayName("compare=prevPeriod runs the model twice and returns a delta (empty prior window)")
     void comparisonRunsModelTwice() {
@@ -0,0 +1,172 @@
+package daviderocca.beautyroom;
+
+import daviderocca.beautyroom.DTO.reportDTOs.ReportResponseDTO;
+import daviderocca.beautyroom.report.ReportCache;
+import daviderocca.beautyroom.report.RevenueCell;
+import daviderocca.beautyroom.report.RevenueDaily;
+import daviderocca.beautyroom.report.RevenueDailyRepository;
+import daviderocca.beautyroom.report.RevenueLeg;
+import daviderocca.beautyroom.report.RevenueRollupDayRepository;
+import daviderocca.beautyroom.repositories.ReportRepository;
+import daviderocca.beautyroom.repositories.ReportRepository.OnlinePackages;
+import daviderocca.beautyroom.repositories.ReportRepository.RevenueRow;
+import daviderocca.beautyroom.services.ReportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * getReport fans its repository queries out on the report pool: they must overlap in time,
+ * each run read-only, and the assembled figures must be the same as a sequential run.
+ */
+@ExtendWith(MockitoExtension.class)
+class ReportServiceFanOutTest {
+
+    @Mock private ReportRepository reportRepository;
+    @Mock private PlatformTransactionManager transactionManager;
+    // No rolled-up days unless stubbed (empty mocks): every leg is read from the raw queries.
+    @Mock private RevenueDailyRepository revenueDailyRepository;
+    @Mock private RevenueRollupDayRepository revenueRollupDayRepository;
+
+    private ReportService reportService;
+
+    private static final LocalDate FROM = LocalDate.of(2030, 3, 1);
+    private static final LocalDate TO = LocalDate.of(2030, 3, 31);
+
+    @BeforeEach
+    void setUp() {
+        reportService = new ReportService(reportRepository, revenueDailyRepository, revenueRollupDayRepository,
+                new ReportCache(5, 12), transactionManager, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(reportService, "shutdown");
+    }
+
+    private static RevenueRow row(String amount) {
+        return new RevenueRow(LocalDateTime.of(2030, 3, 10, 11, 0), new BigDecimal(amount), false,
+                null, "Giulia", "3331234567");
+    }
+
+    @Test
+    @Timeout(10)
+    @DisplayName("getReport: le query dei leg girano in parallelo, ciascuna read-only")
+    void legQueries_overlap() throws Exception {
+        // Both legs block until the other has started: a sequential implementation never gets past the first.
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        when(reportRepository.treatmentRows(any(), any())).thenAnswer(inv -> {
+            bothStarted.countDown();
+            assertThat(bothStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            return List.of(row("50.00"), row("30.00"));
+        });
+        when(reportRepository.refundRows(any(), any())).thenAnswer(inv -> {
+            bothStarted.countDown();
+            assertThat(bothStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            return List.of(row("10.00"));
+        });
+        when(reportRepository.onlinePackageRows(any(), any())).thenReturn(new OnlinePackages(List.of(), 2));
+        when(reportRepository.cancelledCount(any(), any())).thenReturn(3L);
+
+        ReportResponseDTO report = reportService.getReport(FROM, TO, "none");
+
+        assertThat(report.incassato().total()).isEqualByComparingTo("70.00");
+        assertThat(report.incassato().appointmentsCount()).isEqualTo(2);
+        assertThat(report.incassato().refundsTotal()).isEqualByComparingTo("10.00");
+        assertThat(report.cancelledCount()).isEqualTo(3);
+        assertThat(report.flaggedSkipped()).isEqualTo(2);
+        assertThat(report.topClients()).singleElement()
+                .satisfies(c -> assertThat(c.revenue()).isEqualByComparingTo("70.00"));
+        verify(transactionManager, atLeast(14)).getTransaction(argThat(TransactionDefinition::isReadOnly));
+    }
+
+    @Test
+    @DisplayName("getReport: con confronto, il range precedente viene interrogato col suo intervallo")
+    void compareRange_isFetched() {
+        when(reportRepository.onlinePackageRows(any(), any())).thenReturn(new OnlinePackages(List.of(), 0));
+        when(reportRepository.treatmentRows(any(), any())).thenAnswer(inv ->
+                inv.getArgument(0, LocalDateTime.class).getYear() == 2030
+                        ? List.of(row("80.00"))
+                        : List.of(row("40.00")));
+
+        ReportResponseDTO report = reportService.getReport(FROM, TO, "prevYear");
+
+        assertThat(report.range().compareFrom()).isEqualTo(LocalDate.of(2029, 3, 1));
+        assertThat(report.comparison().incassatoTotalDelta()).isEqualByComparingTo("40.00");
+        assertThat(report.comparison().incassatoTotalDeltaPct()).isEqualByComparingTo("100.00");
+    }
+
+    @Test
+    @DisplayName("getReport: il range principale sempre dai leg raw, il confronto dal rollup per i giorni coperti")
+    void compareRange_readsRollup_mainRangeRaw() {
+        LocalDate cmpFrom = LocalDate.of(2029, 3, 1);
+        LocalDate cmpTo = LocalDate.of(2029, 3, 31);
+        when(revenueRollupDayRepository.findRolledUpDays(any(), any())).thenAnswer(inv ->
+                inv.getArgument(0, LocalDate.class).datesUntil(inv.getArgument(1, LocalDate.class).plusDays(1)).toList());
+        when(revenueDailyRepository.findByRevenueDayBetween(cmpFrom, cmpTo)).thenReturn(List.of(
+                new RevenueDaily(new RevenueCell(LocalDate.of(2029, 3, 10), RevenueLeg.TREATMENT, false,
+                        new BigDecimal("40.00"), 1))));
+        when(reportRepository.onlinePackageRows(any(), any())).thenReturn(new OnlinePackages(List.of(), 0));
+        when(reportRepository.treatmentRows(any(), any())).thenReturn(List.of(row("80.00")));
+
+        ReportResponseDTO report = reportService.getReport(FROM, TO, "prevYear");
+
+        assertThat(report.incassato().total()).isEqualByComparingTo("80.00");
+        assertThat(report.comparison().incassatoTotalDelta()).isEqualByComparingTo("40.00");
+        verify(reportRepository, times(1)).treatmentRows(FROM.atStartOfDay(), TO.plusDays(1).atStartOfDay());
+        verify(revenueRollupDayRepository, never()).findRolledUpDays(FROM, TO);
+        verify(revenueDailyRepository, never()).findByRevenueDayBetween(FROM, TO);
+    }
+
+    @Test
+    @DisplayName("getReport: stesso range servito dalla cache, il previsto viene sempre ricalcolato")
+    void sameRange_servedFromCache() {
+        when(reportRepository.onlinePackageRows(any(), any())).thenReturn(new OnlinePackages(List.of(), 0));
+        when(reportRepository.treatmentRows(any(), any())).thenReturn(List.of(row("80.00")));
+
+        ReportResponseDTO first = reportService.getReport(FROM, TO, "none");
+        ReportResponseDTO second = reportService.getReport(FROM, TO, "none");
+
+        assertThat(second.incassato()).isSameAs(first.incassato());
+        assertThat(second.previsto()).isNotNull();
+        verify(reportRepository, times(1)).treatmentRows(any(), any());
+        verify(reportRepository, times(2)).pipelineRows(any());
+        verify(reportRepository, times(2)).arretratiRows();
+    }
+
+    @Test
+    @DisplayName("getReport: l'errore di una query arriva al chiamante così com'è")
+    void legFailure_propagates() {
+        when(reportRepository.onlinePackageRows(any(), any())).thenReturn(new OnlinePackages(List.of(), 0));
+        when(reportRepository.promotionRows(any(), any())).thenThrow(new IllegalStateException("boom"));
+
+        assertThatThrownBy(() -> reportService.getReport(FROM, TO, "none"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("boom");
+    }
+}
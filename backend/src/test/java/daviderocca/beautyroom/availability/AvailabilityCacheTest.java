@@ -0,0 +1,101 @@
+package daviderocca.beautyroom.availability;
+
+import daviderocca.beautyroom.DTO.availabilityDTOs.AvailabilityResponseDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * AvailabilityCache: per-day entries, dropped exactly for the days (or weekday) a committed
+ * write touched; today bypasses the cache; a load racing an invalidation is not re-served.
+ */
+class AvailabilityCacheTest {
+
+    private static final LocalDate DAY = LocalDate.now(ZoneId.of("Europe/Rome")).plusDays(20);
+
+    private final AvailabilityCache cache = new AvailabilityCache();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private AvailabilityResponseDTO load(LocalDate day) {
+        loads.incrementAndGet();
+        return new AvailabilityResponseDTO(null, day, 10, List.of());
+    }
+
+    @Test
+    @DisplayName("hit per (day, key); an AvailabilityChangedEvent drops only the touched days")
+    void invalidatesOnlyTouchedDays() {
+        LocalDate other = DAY.plusDays(3);
+        cache.get(DAY, 60, () -> load(DAY));
+        cache.get(DAY, 60, () -> load(DAY));
+        cache.get(other, 60, () -> load(other));
+        assertThat(loads).hasValue(2);
+
+        cache.onAvailabilityChanged(new AvailabilityChangedEvent(DAY.minusDays(1), DAY));
+        cache.get(DAY, 60, () -> load(DAY));
+        cache.get(other, 60, () -> load(other));
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    @DisplayName("a WorkingHoursChangedEvent drops every cached date on that weekday")
+    void invalidatesWeekday() {
+        LocalDate sameWeekday = DAY.plusWeeks(1);
+        LocalDate otherWeekday = DAY.plusDays(1);
+        cache.get(DAY, 30, () -> load(DAY));
+        cache.get(sameWeekday, 30, () -> load(sameWeekday));
+        cache.get(otherWeekday, 30, () -> load(otherWeekday));
+
+        cache.onWorkingHoursChanged(new WorkingHoursChangedEvent(DAY.getDayOfWeek()));
+        cache.get(DAY, 30, () -> load(DAY));
+        cache.get(sameWeekday, 30, () -> load(sameWeekday));
+        cache.get(otherWeekday, 30, () -> load(otherWeekday));
+        assertThat(loads).hasValue(5);
+    }
+
+    @Test
+    @DisplayName("today is never cached (slots depend on the clock)")
+    void todayBypassesCache() {
+        LocalDate today = LocalDate.now(ZoneId.of("Europe/Rome"));
+        cache.get(today, 60, () -> load(today));
+        cache.get(today, 60, () -> load(today));
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("a response computed while its day is invalidated is not served afterwards")
+    void loadRacingInvalidationIsDropped() {
+        cache.get(DAY, 60, () -> {
+            cache.onAvailabilityChanged(AvailabilityChangedEvent.forDay(DAY)); // commit lands mid-load
+            return load(DAY);
+        });
+        cache.get(DAY, 60, () -> load(DAY));
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("a ServiceAvailabilityChangedEvent drops that service's grids on every day, nothing else")
+    void invalidatesService() {
+        UUID service = UUID.randomUUID();
+        UUID otherService = UUID.randomUUID();
+        cache.get(DAY, new Key(service), () -> load(DAY));
+        cache.get(DAY.plusDays(5), new Key(service), () -> load(DAY));
+        cache.get(DAY, new Key(otherService), () -> load(DAY));
+        cache.get(DAY, 45, () -> load(DAY));
+
+        cache.onServiceChanged(new ServiceAvailabilityChangedEvent(service));
+        cache.get(DAY, new Key(service), () -> load(DAY));
+        cache.get(DAY.plusDays(5), new Key(service), () -> load(DAY));
+        cache.get(DAY, new Key(otherService), () -> load(DAY));
+        cache.get(DAY, 45, () -> load(DAY));
+        assertThat(loads).hasValue(6);
+    }
+
+    private record Key(UUID serviceId) implements AvailabilityCache.ServiceKey {}
+}
@@ -0,0 +1,110 @@
+package daviderocca.beautyroom.availability;
+
+import daviderocca.beautyroom.entities.Booking;
+import daviderocca.beautyroom.entities.Closure;
+import daviderocca.beautyroom.personalappointments.PersonalAppointment;
+import daviderocca.beautyroom.personalappointments.PersonalAppointmentRepository;
+import daviderocca.beautyroom.repositories.BookingRepository;
+import daviderocca.beautyroom.repositories.ClosureRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * DayOccupancyIndex: the range load must bucket every source per day with the SAME semantics
+ * as the per-day availability path (padding extends the block, multi-day closures hit every
+ * day they span, overlapping blocks are merged), and a served day must not hit the DB again.
+ */
+@ExtendWith(MockitoExtension.class)
+class DayOccupancyIndexTest {
+
+    @Mock private BookingRepository bookingRepository;
+    @Mock private ClosureRepository closureRepository;
+    @Mock private PersonalAppointmentRepository personalAppointmentRepository;
+
+    @InjectMocks private DayOccupancyIndex index;
+
+    private static final LocalDate DAY = LocalDate.of(2030, 3, 4);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(index, "maxAdvanceDays", 150);
+    }
+
+    @Test
+    @DisplayName("load: bookings (+padding) and personal appointments merge; closures stay separate")
+    void load_bucketsAndMergesPerDay() {
+        Booking b = mock(Booking.class);
+        when(b.getStartTime()).thenReturn(DAY.atTime(9, 0));
+        when(b.getEndTime()).thenReturn(DAY.atTime(10, 0));
+        when(b.getPaddingMinutes()).thenReturn(15);
+        PersonalAppointment pa = new PersonalAppointment();
+        pa.setAppointmentDate(DAY);
+        pa.setStartTime(LocalTime.of(10, 0));
+        pa.setDurationMinutes(30);
+        Closure afternoon = new Closure(DAY, DAY.plusDays(1), LocalTime.of(15, 0), LocalTime.of(16, 0), "x");
+        Closure holiday = new Closure(DAY.plusDays(2), DAY.plusDays(2), null, null, "ferie");
+
+        when(closureRepository.findByDateRange(any(), any())).thenReturn(List.of(afternoon, holiday));
+        when(bookingRepository.findBookingsByStatusesIntersectingRange(any(), any(), any())).thenReturn(List.of(b));
+        when(personalAppointmentRepository.findByAppointmentDateBetweenOrderByAppointmentDateAscStartTimeAsc(any(), any()))
+                .thenReturn(List.of(pa));
+
+        Map<LocalDate, DayOccupancy> days = index.load(DAY, DAY.plusDays(3));
+
+        assertThat(days).hasSize(4);
+        DayOccupancy first = days.get(DAY);
+        assertThat(first.closedAllDay()).isFalse();
+        assertThat(first.blocked()).containsExactly(540, 630);   // 09:00–10:15 ∪ 10:00–10:30
+        assertThat(first.closures()).containsExactly(900, 960);  // 15:00–16:00
+        assertThat(days.get(DAY.plusDays(1)).closures()).containsExactly(900, 960);
+        assertThat(days.get(DAY.plusDays(1)).blocked()).isEmpty();
+        assertThat(days.get(DAY.plusDays(2)).closedAllDay()).isTrue();
+        assertThat(days.get(DAY.plusDays(3))).isSameAs(DayOccupancy.EMPTY);
+    }
+
+    @Test
+    @DisplayName("get: a loaded day is served from memory until an AvailabilityChangedEvent evicts it")
+    void get_cachesUntilInvalidated() {
+        LocalDate future = LocalDate.now(ZoneId.of("Europe/Rome")).plusDays(10);
+
+        index.get(future);
+        index.get(future);
+        verify(bookingRepository, times(1)).findBookingsByStatusesIntersectingRange(any(), any(), any());
+
+        index.onAvailabilityChanged(AvailabilityChangedEvent.forDay(future)); // evict + reload
+        index.get(future);
+        verify(bookingRepository, times(2)).findBookingsByStatusesIntersectingRange(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("get: days outside [today, horizon] are served but never cached")
+    void get_outsideWindowNotCached() {
+        LocalDate today = LocalDate.now(ZoneId.of("Europe/Rome"));
+
+        index.get(today.plusDays(400));
+        index.get(today.plusDays(400));
+        index.get(today.minusDays(30));
+        index.get(today.minusDays(30));
+
+        verify(bookingRepository, times(4)).findBookingsByStatusesIntersectingRange(any(), any(), any());
+    }
+}
@@ -0,0 +1,99 @@
+package daviderocca.beautyroom.availability;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * IntervalAlgebra: pure int-minute primitives shared by the admin gap finder and the public
+ * grid finders. Times in comments are HH:mm of the minute values used.
+ */
+class IntervalAlgebraTest {
+
+    @Test
+    @DisplayName("normalize: unsorted, overlapping, adjacent and empty pairs → canonical form, in place")
+    void normalize_canonicalForm() {
+        int[] pairs = {600, 660, 540, 600, 700, 720, 710, 715, 800, 800};
+        int len = IntervalAlgebra.normalize(pairs, pairs.length);
+        assertThat(Arrays.copyOf(pairs, len)).containsExactly(540, 660, 700, 720);
+    }
+
+    @Test
+    @DisplayName("subtract: closures carve the open ranges; touching edges leave no empty pieces")
+    void subtract_carvesRanges() {
+        int[] open = {540, 780, 840, 1080};          // 09:00–13:00, 14:00–18:00
+        int[] closures = {540, 600, 720, 900};       // 09:00–10:00, 12:00–15:00
+        int[] out = new int[open.length + closures.length];
+        int len = IntervalAlgebra.subtract(open, open.length, closures, closures.length, out);
+        assertThat(Arrays.copyOf(out, len)).containsExactly(600, 720, 900, 1080);
+    }
+
+    @Test
+    @DisplayName("firstFit: grid anchored at the range start, conflicts jump past the blocking interval")
+    void firstFit_gridAndJump() {
+        int[] open = {540, 720};                     // 09:00–12:00
+        int[] blocked = {540, 605};                  // 09:00–10:05
+        // 60' grid → 09:00, 10:00 collide; next grid point after 10:05 is 11:00
+        assertThat(IntervalAlgebra.firstFit(open, 2, blocked, 2, 60, 60, 0, Integer.MAX_VALUE)).isEqualTo(660);
+        // step 1 = plain gap search → right at the end of the block
+        assertThat(IntervalAlgebra.firstFit(open, 2, blocked, 2, 60, 1, 0, Integer.MAX_VALUE)).isEqualTo(605);
+        // no candidate start before 11:00 → nothing
+        assertThat(IntervalAlgebra.firstFit(open, 2, blocked, 2, 60, 60, 0, 660)).isEqualTo(-1);
+        // minStart aligns up onto the grid (10:15 → 10:20 on a 10' grid)
+        assertThat(IntervalAlgebra.firstFit(open, 2, new int[0], 0, 30, 10, 615, Integer.MAX_VALUE)).isEqualTo(620);
+    }
+
+    @Test
+    @DisplayName("freeUntil / overlapsAny: next blocking start and half-open overlap")
+    void freeUntilAndOverlaps() {
+        int[] blocked = {600, 660, 720, 780};        // 10:00–11:00, 12:00–13:00
+        assertThat(IntervalAlgebra.freeUntil(blocked, 4, 660, 1080)).isEqualTo(720);
+        assertThat(IntervalAlgebra.freeUntil(blocked, 4, 780, 1080)).isEqualTo(1080);
+        assertThat(IntervalAlgebra.overlapsAny(blocked, 4, 660, 720)).isFalse();
+        assertThat(IntervalAlgebra.overlapsAny(blocked, 4, 650, 670)).isTrue();
+        assertThat(IntervalAlgebra.toTime(IntervalAlgebra.MINUTES_PER_DAY)).isEqualTo(LocalTime.MIDNIGHT);
+        assertThat(IntervalAlgebra.toMinuteCeil(LocalTime.of(10, 15, 30))).isEqualTo(616);
+    }
+
+    @Test
+    @DisplayName("sweepSlots: same grid and free flags as a brute-force per-slot overlap check")
+    void sweepSlots_matchesBruteForce() {
+        Random rnd = new Random(7);
+        int[] open = {540, 780, 840, 1140};
+        for (int round = 0; round < 200; round++) {
+            int n = rnd.nextInt(20);
+            int[] raw = new int[2 * n];
+            for (int i = 0; i < n; i++) {
+                raw[2 * i] = 500 + rnd.nextInt(700);
+                raw[2 * i + 1] = raw[2 * i] + 5 + rnd.nextInt(90);
+            }
+            int[] blocked = raw.clone();
+            int len = IntervalAlgebra.normalize(blocked, blocked.length);
+            int duration = 15 + rnd.nextInt(120);
+            int step = 5 + rnd.nextInt(60);
+            int minStart = rnd.nextInt(900);
+
+            List<String> expected = new ArrayList<>();
+            for (int r = 0; r < open.length; r += 2) {
+                for (int s = open[r]; s + duration <= open[r + 1]; s += step) {
+                    if (s < minStart) continue;
+                    boolean busy = false;
+                    for (int i = 0; i < n; i++) busy |= raw[2 * i] < s + duration && s < raw[2 * i + 1];
+                    expected.add(s + "-" + (s + duration) + ":" + !busy);
+                }
+            }
+            List<String> actual = new ArrayList<>();
+            IntervalAlgebra.sweepSlots(open, open.length, blocked, len, duration, step, minStart,
+                    (s, e, free) -> actual.add(s + "-" + e + ":" + free));
+
+            assertThat(actual).as("round %d", round).isEqualTo(expected);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package daviderocca.beautyroom.availability;
+
+import daviderocca.beautyroom.DTO.availabilityDTOs.AvailabilitySlotDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Slot generation for one busy day: the previous per-slot {@code stream().anyMatch} check
+ * over LocalTime ranges vs the {@link IntervalAlgebra#sweepSlots} sweep-line used by
+ * AvailabilityService.generateAllSlots. Both build the same AvailabilitySlotDTO list.
+ *
+ * Not a unit test (surefire only picks up *Test). Run after {@code mvn test-compile}:
+ * {@code java -cp target/test-classes:target/classes:<test classpath> daviderocca.beautyroom.availability.SlotGenerationBenchmark}
+ * or from the IDE via {@link #main}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlotGenerationBenchmark {
+
+    private static final DateTimeFormatter HHMM = DateTimeFormatter.ofPattern("HH:mm");
+
+    /** Combined-cart grid: 10-minute step, as SLOT_STEP_MINUTES. */
+    private static final int STEP = 10;
+
+    @Param({"60", "120"})
+    public int durationMin;
+
+    @Param({"4", "16", "48"})
+    public int blockedCount;
+
+    private List<LegacyRange> legacyOpen;
+    private List<LegacyRange> legacyBlocked;
+    private int[] open;
+    private int[] blockedRaw;
+
+    @Setup
+    public void setUp() {
+        // 09:00–13:00 + 14:00–19:00, bookings of 30–90' scattered with a fixed seed.
+        open = new int[]{540, 780, 840, 1140};
+        legacyOpen = List.of(
+                new LegacyRange(LocalTime.of(9, 0), LocalTime.of(13, 0)),
+                new LegacyRange(LocalTime.of(14, 0), LocalTime.of(19, 0)));
+        Random rnd = new Random(42);
+        blockedRaw = new int[blockedCount * 2];
+        legacyBlocked = new ArrayList<>(blockedCount);
+        for (int i = 0; i < blockedCount; i++) {
+            int s = 540 + rnd.nextInt(600 / 5) * 5;
+            int e = Math.min(s + 30 + rnd.nextInt(13) * 5, 1140);
+            blockedRaw[2 * i] = s;
+            blockedRaw[2 * i + 1] = e;
+            legacyBlocked.add(new LegacyRange(IntervalAlgebra.toTime(s), IntervalAlgebra.toTime(e)));
+        }
+    }
+
+    @Benchmark
+    public List<AvailabilitySlotDTO> legacyStreamPerSlot() {
+        List<AvailabilitySlotDTO> result = new ArrayList<>();
+        for (LegacyRange window : legacyOpen) {
+            LocalTime cursor = window.start();
+            while (true) {
+                LocalTime slotEnd = cursor.plusMinutes(durationMin);
+                if (slotEnd.isAfter(window.end())) break;
+                LegacyRange slot = new LegacyRange(cursor, slotEnd);
+                boolean occupied = legacyBlocked.stream().anyMatch(b -> b.overlaps(slot));
+                result.add(new AvailabilitySlotDTO(cursor.format(HHMM), slotEnd.format(HHMM), !occupied));
+                cursor = cursor.plusMinutes(STEP);
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<AvailabilitySlotDTO> sweepLine() {
+        // The copy mirrors generateAllSlots, which normalizes a fresh array per request.
+        int[] blocked = blockedRaw.clone();
+        int blockedLen = IntervalAlgebra.normalize(blocked, blocked.length);
+        List<AvailabilitySlotDTO> result = new ArrayList<>();
+        IntervalAlgebra.sweepSlots(open, open.length, blocked, blockedLen, durationMin, STEP, 0,
+                (start, end, free) -> result.add(new AvailabilitySlotDTO(
+                        IntervalAlgebra.toHHmm(start), IntervalAlgebra.toHHmm(end), free)));
+        return result;
+    }
+
+    private record LegacyRange(LocalTime start, LocalTime end) {
+        boolean overlaps(LegacyRange other) {
+            return start.isBefore(other.end) && other.start.isBefore(end);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SlotGenerationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,53 @@
+package daviderocca.beautyroom.availability;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SlotRanker: starts flush against bookings win, dead remnants are penalized, ties go to the
+ * earlier day/start, and only the top N survive.
+ */
+class SlotRankerTest {
+
+    private static final LocalDate D1 = LocalDate.of(2030, 3, 4);
+    private static final LocalDate D2 = D1.plusDays(1);
+    private static final int[] MORNING = {540, 720}; // 09:00–12:00
+
+    @Test
+    @DisplayName("packing against a booking beats an empty day; equal scores keep the earlier day/start")
+    void ranksPackedStartsFirst() {
+        SlotRanker ranker = new SlotRanker(3);
+        ranker.offerDay(D1, MORNING, 2, new int[0], 0, 60, 10, 0, Integer.MAX_VALUE);
+        ranker.offerDay(D2, MORNING, 2, new int[]{600, 660}, 2, 60, 10, 0, Integer.MAX_VALUE);
+
+        assertThat(ranker.best()).containsExactly(
+                new SlotRanker.Candidate(D2, 540, 600, SlotRanker.FLUSH_BOOKING),
+                new SlotRanker.Candidate(D2, 660, 720, SlotRanker.FLUSH_BOOKING),
+                new SlotRanker.Candidate(D1, 540, 600, SlotRanker.USABLE_REMNANT));
+    }
+
+    @Test
+    @DisplayName("a start leaving a gap too short for any treatment is penalized")
+    void penalizesDeadRemnants() {
+        assertThat(SlotRanker.side(0, true)).isLessThan(SlotRanker.side(0, false));
+        assertThat(SlotRanker.side(45, false)).isLessThan(SlotRanker.side(10, false));
+
+        SlotRanker ranker = new SlotRanker(1);
+        // booked 09:20–10:00 → the 20' before it is already dead; best is flush at 10:00
+        ranker.offerDay(D1, MORNING, 2, new int[]{560, 600}, 2, 60, 10, 0, Integer.MAX_VALUE);
+        assertThat(ranker.best()).extracting(SlotRanker.Candidate::start).containsExactly(600);
+    }
+
+    @Test
+    @DisplayName("minStart / maxStartExclusive bound the candidate starts")
+    void respectsWindow() {
+        SlotRanker ranker = new SlotRanker(5);
+        ranker.offerDay(D1, MORNING, 2, new int[]{600, 660}, 2, 60, 10, 600, 661);
+
+        assertThat(ranker.best()).extracting(SlotRanker.Candidate::start).containsExactly(660);
+    }
+}
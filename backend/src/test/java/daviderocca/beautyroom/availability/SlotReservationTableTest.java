@@ -0,0 +1,71 @@
+package daviderocca.beautyroom.availability;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SlotReservationTable: overlapping claims lose, adjacent ones coexist, a released claim
+ * frees its minutes and exactly one of N concurrent racers wins.
+ */
+class SlotReservationTableTest {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 3, 4);
+
+    private final SlotReservationTable table = new SlotReservationTable();
+
+    @Test
+    @DisplayName("overlap loses, adjacency wins, release frees the minutes")
+    void claimAndRelease() {
+        assertThat(table.claim(DAY.atTime(10, 0), DAY.atTime(11, 0))).isTrue();
+        assertThat(table.claim(DAY.atTime(10, 30), DAY.atTime(11, 30))).isFalse();
+        assertThat(table.claim(DAY.atTime(11, 0), DAY.atTime(12, 0))).isTrue();
+
+        table.release(DAY.atTime(10, 0), DAY.atTime(11, 0));
+        assertThat(table.claim(DAY.atTime(9, 30), DAY.atTime(10, 30))).isTrue();
+        assertThat(table.claim(DAY.atTime(11, 30), DAY.atTime(12, 30))).isFalse(); // 11–12 still held
+    }
+
+    @Test
+    @DisplayName("a claim across midnight is all-or-nothing")
+    void multiDayClaimIsAtomic() {
+        assertThat(table.claim(DAY.plusDays(1).atTime(0, 30), DAY.plusDays(1).atTime(1, 0))).isTrue();
+        assertThat(table.claim(DAY.atTime(23, 0), DAY.plusDays(1).atTime(1, 0))).isFalse();
+        // the 23:00–24:00 segment of the failed claim was rolled back
+        assertThat(table.claim(DAY.atTime(23, 0), DAY.atTime(23, 59))).isTrue();
+    }
+
+    @Test
+    @DisplayName("N racers on the same slot: exactly one wins")
+    void concurrentRacersSingleWinner() throws Exception {
+        int racers = 32;
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < racers; i++) {
+            int offset = (i % 4) * 10; // overlapping, not identical, ranges
+            LocalDateTime start = DAY.atTime(15, offset);
+            results.add(pool.submit(() -> {
+                go.await();
+                return table.claim(start, start.plusMinutes(60));
+            }));
+        }
+        go.countDown();
+        int winners = 0;
+        for (Future<Boolean> r : results) if (r.get(5, TimeUnit.SECONDS)) winners++;
+        pool.shutdown();
+
+        assertThat(winners).isEqualTo(1);
+    }
+}
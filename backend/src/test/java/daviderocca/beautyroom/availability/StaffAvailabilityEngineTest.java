@@ -0,0 +1,153 @@
+package daviderocca.beautyroom.availability;
+
+import daviderocca.beautyroom.DTO.availabilityDTOs.AvailabilitySlotDTO;
+import daviderocca.beautyroom.entities.Booking;
+import daviderocca.beautyroom.entities.Closure;
+import daviderocca.beautyroom.entities.WorkingHours;
+import daviderocca.beautyroom.personalappointments.PersonalAppointment;
+import daviderocca.beautyroom.personalappointments.PersonalAppointmentRepository;
+import daviderocca.beautyroom.repositories.BookingRepository;
+import daviderocca.beautyroom.staff.StaffMember;
+import daviderocca.beautyroom.staff.StaffWorkingHours;
+import daviderocca.beautyroom.staff.StaffWorkingHoursRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * StaffAvailabilityEngine: each operator gets their own hours, bookings, appointments and
+ * absences; bookings and appointments with no operator block everyone. The merged grid offers
+ * a start if any operator has it and flags it available if any of them is free.
+ */
+@ExtendWith(MockitoExtension.class)
+class StaffAvailabilityEngineTest {
+
+    @Mock private StaffWorkingHoursRepository staffWorkingHoursRepository;
+    @Mock private BookingRepository bookingRepository;
+    @Mock private PersonalAppointmentRepository personalAppointmentRepository;
+
+    private StaffAvailabilityEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new StaffAvailabilityEngine(staffWorkingHoursRepository, bookingRepository,
+                personalAppointmentRepository, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+    }
+
+    private static final LocalDate DAY = LocalDate.of(2030, 3, 4);
+    private static final UUID ANNA = UUID.randomUUID();
+    private static final UUID BEA = UUID.randomUUID();
+
+    private static final WorkingHours SALON = new WorkingHours(DAY.getDayOfWeek(),
+            LocalTime.of(9, 0), LocalTime.of(12, 0), null, null, false);
+
+    private Booking booking(int startHour, int endHour) {
+        Booking b = mock(Booking.class);
+        when(b.getStartTime()).thenReturn(DAY.atTime(startHour, 0));
+        when(b.getEndTime()).thenReturn(DAY.atTime(endHour, 0));
+        when(b.getPaddingMinutes()).thenReturn(0);
+        return b;
+    }
+
+    private StaffWorkingHours afternoonOnly() {
+        StaffWorkingHours h = new StaffWorkingHours();
+        h.setDayOfWeek(DAY.getDayOfWeek());
+        h.setAfternoonStart(LocalTime.of(14, 0));
+        h.setAfternoonEnd(LocalTime.of(16, 0));
+        return h;
+    }
+
+    @Test
+    @DisplayName("any operator: a start is free if at least one operator is free for the whole block")
+    void mergesOperators() {
+        // Anna: salon hours (no own row), booked 09–10. Bea: own row 14–16, personal appt 14–15.
+        when(staffWorkingHoursRepository.findByStaffMember_IdAndDayOfWeek(eq(ANNA), any())).thenReturn(Optional.empty());
+        when(staffWorkingHoursRepository.findByStaffMember_IdAndDayOfWeek(eq(BEA), any())).thenReturn(Optional.of(afternoonOnly()));
+        List<Booking> annaBookings = List.of(booking(9, 10));
+        when(bookingRepository.findBookingsByStatusesIntersectingRangeForStaff(any(), any(), any(), eq(ANNA)))
+                .thenReturn(annaBookings);
+        when(bookingRepository.findBookingsByStatusesIntersectingRangeForStaff(any(), any(), any(), eq(BEA)))
+                .thenReturn(List.of());
+        PersonalAppointment pa = new PersonalAppointment();
+        pa.setStartTime(LocalTime.of(14, 0));
+        pa.setDurationMinutes(60);
+        when(personalAppointmentRepository.findByAppointmentDateAndStaffMember_IdOrderByStartTime(DAY, ANNA)).thenReturn(List.of());
+        when(personalAppointmentRepository.findByAppointmentDateAndStaffMember_IdOrderByStartTime(DAY, BEA)).thenReturn(List.of(pa));
+
+        List<AvailabilitySlotDTO> slots = engine.anyOperatorSlots(DAY, List.of(ANNA, BEA), SALON, List.of(), 60, 60, 0);
+
+        assertThat(slots).containsExactly(
+                new AvailabilitySlotDTO("09:00", "10:00", false),
+                new AvailabilitySlotDTO("10:00", "11:00", true),
+                new AvailabilitySlotDTO("11:00", "12:00", true),
+                new AvailabilitySlotDTO("14:00", "15:00", false),
+                new AvailabilitySlotDTO("15:00", "16:00", true));
+    }
+
+    @Test
+    @DisplayName("a staff absence removes only that operator; a salon-wide closure removes everyone")
+    void closuresAreScopedPerOperator() {
+        when(staffWorkingHoursRepository.findByStaffMember_IdAndDayOfWeek(any(), any())).thenReturn(Optional.empty());
+        StaffMember anna = new StaffMember("Anna", true, 0);
+        anna.setId(ANNA);
+        Closure annaAway = new Closure(DAY, DAY, null, null, "ferie");
+        annaAway.setStaffMember(anna);
+        Closure salonMorning = new Closure(DAY, DAY, LocalTime.of(9, 0), LocalTime.of(10, 0), "riunione");
+        when(bookingRepository.findBookingsByStatusesIntersectingRangeForStaff(any(), any(), any(), eq(BEA)))
+                .thenReturn(List.of());
+        when(personalAppointmentRepository.findByAppointmentDateAndStaffMember_IdOrderByStartTime(DAY, BEA)).thenReturn(List.of());
+
+        List<AvailabilitySlotDTO> slots = engine.anyOperatorSlots(DAY, List.of(ANNA, BEA), SALON,
+                List.of(annaAway, salonMorning), 60, 60, 0);
+
+        assertThat(slots).containsExactly(
+                new AvailabilitySlotDTO("10:00", "11:00", true),
+                new AvailabilitySlotDTO("11:00", "12:00", true));
+    }
+
+    @Test
+    @DisplayName("a booking or appointment with no operator blocks every operator")
+    void unassignedBusyTimeIsShared() {
+        when(staffWorkingHoursRepository.findByStaffMember_IdAndDayOfWeek(any(), any())).thenReturn(Optional.empty());
+        List<Booking> unassigned = List.of(booking(9, 10));
+        when(bookingRepository.findUnassignedBookingsByStatusesIntersectingRange(any(), any(), any()))
+                .thenReturn(unassigned);
+        PersonalAppointment pa = new PersonalAppointment();
+        pa.setStartTime(LocalTime.of(11, 0));
+        pa.setDurationMinutes(60);
+        when(personalAppointmentRepository.findByAppointmentDateAndStaffMemberIsNullOrderByStartTime(DAY))
+                .thenReturn(List.of(pa));
+        when(bookingRepository.findBookingsByStatusesIntersectingRangeForStaff(any(), any(), any(), any()))
+                .thenReturn(List.of());
+        when(personalAppointmentRepository.findByAppointmentDateAndStaffMember_IdOrderByStartTime(eq(DAY), any()))
+                .thenReturn(List.of());
+
+        List<AvailabilitySlotDTO> slots = engine.anyOperatorSlots(DAY, List.of(ANNA, BEA), SALON, List.of(), 60, 60, 0);
+
+        assertThat(slots).containsExactly(
+                new AvailabilitySlotDTO("09:00", "10:00", false),
+                new AvailabilitySlotDTO("10:00", "11:00", true),
+                new AvailabilitySlotDTO("11:00", "12:00", false));
+    }
+}
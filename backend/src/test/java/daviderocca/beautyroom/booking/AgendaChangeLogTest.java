@@ -0,0 +1,58 @@
+package daviderocca.beautyroom.booking;
+
+import daviderocca.beautyroom.availability.AvailabilityChangedEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * AgendaChangeLog: a token returns exactly the days changed after it (clipped to the window),
+ * and anything it cannot serve incrementally answers null (= full reload), never a partial set.
+ */
+class AgendaChangeLogTest {
+
+    private static final LocalDate MAY_1 = LocalDate.of(2030, 5, 1);
+    private static final LocalDate JUNE_1 = LocalDate.of(2030, 6, 1);
+
+    private final AgendaChangeLog log = new AgendaChangeLog();
+
+    @Test
+    @DisplayName("changedDaysSince: only the days touched after the token, inside the window")
+    void changedDaysSince_returnsDaysAfterToken() {
+        log.onAvailabilityChanged(AvailabilityChangedEvent.forDay(MAY_1.plusDays(2))); // before the token
+        String token = log.currentToken();
+
+        log.onAgendaChanged(AgendaChangedEvent.forDay(MAY_1.plusDays(9)));
+        log.onAvailabilityChanged(new AvailabilityChangedEvent(MAY_1.minusDays(3), MAY_1.plusDays(1))); // closure across the window start
+        log.onAvailabilityChanged(AvailabilityChangedEvent.forDay(JUNE_1)); // outside [from, to)
+
+        assertThat(log.changedDaysSince(token, MAY_1, JUNE_1))
+                .containsExactly(MAY_1, MAY_1.plusDays(1), MAY_1.plusDays(9));
+        assertThat(log.changedDaysSince(log.currentToken(), MAY_1, JUNE_1)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("changedDaysSince: missing, foreign, malformed or future tokens mean full reload")
+    void changedDaysSince_unknownTokenMeansReload() {
+        log.onAgendaChanged(AgendaChangedEvent.forDay(MAY_1));
+        String current = log.currentToken();
+        String instance = current.substring(0, current.lastIndexOf('.'));
+
+        assertThat(log.changedDaysSince(null, MAY_1, JUNE_1)).isNull();
+        assertThat(log.changedDaysSince("other.0", MAY_1, JUNE_1)).isNull();
+        assertThat(log.changedDaysSince(instance + ".abc", MAY_1, JUNE_1)).isNull();
+        assertThat(log.changedDaysSince(instance + ".99", MAY_1, JUNE_1)).isNull();
+    }
+
+    @Test
+    @DisplayName("changedDaysSince: a token older than the retained window means full reload")
+    void changedDaysSince_evictedTokenMeansReload() {
+        String old = log.currentToken();
+        for (int i = 0; i <= AgendaChangeLog.CAPACITY; i++) log.onAgendaChanged(AgendaChangedEvent.forDay(MAY_1));
+
+        assertThat(log.changedDaysSince(old, MAY_1, JUNE_1)).isNull();
+    }
+}
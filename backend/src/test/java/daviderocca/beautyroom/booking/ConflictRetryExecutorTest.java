@@ -0,0 +1,129 @@
+package daviderocca.beautyroom.booking;
+
+import daviderocca.beautyroom.availability.SlotReservationTable;
+import daviderocca.beautyroom.exceptions.BadRequestException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * ConflictRetryExecutor: only concurrency aborts are retried (up to the entry point's budget),
+ * business errors surface on the first attempt, and every outcome is counted. A slot claim is
+ * taken before the first attempt and held until the call returns.
+ */
+class ConflictRetryExecutorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SlotReservationTable slots = new SlotReservationTable();
+    private final ConflictRetryExecutor executor = new ConflictRetryExecutor(registry, slots, 0, 0);
+
+    private static final LocalDateTime START = LocalDateTime.of(2030, 3, 4, 10, 0);
+    private static final BookingSlot SLOT = new BookingSlot(START, START.plusMinutes(60), "occupato");
+
+    @Test
+    @DisplayName("execute: a serialization conflict is retried and the second attempt wins")
+    void execute_retriesConflictThenSucceeds() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String out = executor.execute(BookingWriteEntryPoint.HOLD, () -> {
+            if (calls.incrementAndGet() == 1) throw new CannotAcquireLockException("could not serialize access");
+            return "ok";
+        });
+
+        assertThat(out).isEqualTo("ok");
+        assertThat(calls).hasValue(2);
+        assertThat(count("booking.write.attempts", "hold")).isEqualTo(2);
+        assertThat(count("booking.write.conflicts", "hold")).isEqualTo(1);
+        assertThat(registry.find("booking.write.failures").counter()).isNull();
+        assertThat(registry.get("booking.write.duration").tag("outcome", "success").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("execute: gives up after maxAttempts and rethrows the last conflict")
+    void execute_stopsAtMaxAttempts() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> executor.execute(BookingWriteEntryPoint.WEBHOOK_MULTI, () -> {
+            calls.incrementAndGet();
+            throw new CannotAcquireLockException("deadlock");
+        })).isInstanceOf(CannotAcquireLockException.class);
+
+        assertThat(calls).hasValue(BookingWriteEntryPoint.WEBHOOK_MULTI.maxAttempts());
+        assertThat(registry.get("booking.write.failures").tag("entry", "webhook_multi").tag("reason", "conflict")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("execute: a business error (slot occupato) is never retried")
+    void execute_doesNotRetryBadRequest() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> executor.execute(BookingWriteEntryPoint.ADMIN_MANUAL, () -> {
+            calls.incrementAndGet();
+            throw new BadRequestException("Slot già occupato.");
+        })).isInstanceOf(BadRequestException.class);
+
+        assertThat(calls).hasValue(1);
+        assertThat(registry.get("booking.write.failures").tag("reason", "error").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("isConflict: raw SQLState 40001/40P01 in the cause chain counts, other SQL errors do not")
+    void isConflict_detectsSqlStateInCauseChain() {
+        assertThat(ConflictRetryExecutor.isConflict(
+                new DataIntegrityViolationException("tx", new SQLException("serialize", "40001")))).isTrue();
+        assertThat(ConflictRetryExecutor.isConflict(
+                new RuntimeException(new SQLException("deadlock detected", "40P01")))).isTrue();
+        assertThat(ConflictRetryExecutor.isConflict(
+                new DataIntegrityViolationException("dup", new SQLException("unique", "23505")))).isFalse();
+    }
+
+    private double count(String name, String entry) {
+        return registry.get(name).tag("entry", entry).counter().count();
+    }
+
+    @Test
+    @DisplayName("execute with a slot: a racer losing the claim gets the 400 before its write runs")
+    void execute_takenSlotRejectedBeforeWrite() {
+        AtomicInteger calls = new AtomicInteger();
+        String out = executor.execute(BookingWriteEntryPoint.HOLD, SLOT, () -> {
+            // the winner's claim is held across its write: a racer on overlapping minutes loses
+            assertThatThrownBy(() -> executor.execute(BookingWriteEntryPoint.PAY_IN_STORE,
+                    new BookingSlot(START.plusMinutes(30), START.plusMinutes(90), "occupato"),
+                    () -> calls.incrementAndGet()))
+                    .isInstanceOf(BadRequestException.class)
+                    .hasMessage("occupato");
+            return "ok";
+        });
+
+        assertThat(out).isEqualTo("ok");
+        assertThat(calls).hasValue(0);
+        assertThat(registry.find("booking.write.attempts").tag("entry", "pay_in_store").counter().count()).isZero();
+        assertThat(registry.get("booking.write.failures").tag("entry", "pay_in_store").tag("reason", "slot_taken")
+                .counter().count()).isEqualTo(1);
+        assertThat(slots.claim(SLOT.start(), SLOT.end())).as("released after the write returned").isTrue();
+    }
+
+    @Test
+    @DisplayName("execute with a slot: released after a failure; the webhook proceeds without the claim")
+    void execute_slotReleasedOnFailure_webhookNotRejected() {
+        assertThatThrownBy(() -> executor.execute(BookingWriteEntryPoint.ADMIN_MANUAL, SLOT, () -> {
+            throw new BadRequestException("chiusura");
+        })).hasMessage("chiusura");
+        assertThat(slots.claim(SLOT.start(), SLOT.end())).isTrue();
+
+        // SLOT is now held by the claim above: the already-paid webhook still runs its write
+        assertThat(executor.execute(BookingWriteEntryPoint.WEBHOOK_MULTI, SLOT, () -> "saved")).isEqualTo("saved");
+        assertThat(slots.claim(SLOT.start(), SLOT.end())).as("the webhook did not release a claim it never held")
+                .isFalse();
+    }
+}
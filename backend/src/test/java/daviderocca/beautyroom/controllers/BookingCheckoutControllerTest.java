@@ -3,6 +3,9 @@ package daviderocca.beautyroom.controllers;
 import daviderocca.beautyroom.DTO.bookingDTOs.NewBookingDTO;
 import daviderocca.beautyroom.DTO.bookingDTOs.ProductEntryDTO;
 import daviderocca.beautyroom.DTO.bookingDTOs.PublicMultiServiceBookingDTO;
+import daviderocca.beautyroom.availability.SlotReservationTable;
+import daviderocca.beautyroom.booking.BookingSlot;
+import daviderocca.beautyroom.booking.ConflictRetryExecutor;
 import daviderocca.beautyroom.entities.Product;
 import daviderocca.beautyroom.entities.ServiceItem;
 import daviderocca.beautyroom.entities.ServiceOption;
@@ -13,11 +16,13 @@ import daviderocca.beautyroom.repositories.PromotionRepository;
 import daviderocca.beautyroom.repositories.ServiceOptionRepository;
 import daviderocca.beautyroom.services.BookingService;
 import daviderocca.beautyroom.services.ServiceItemService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.lang.reflect.Field;
@@ -47,6 +52,7 @@ class BookingCheckoutControllerTest {
     @Mock private PromotionRepository promotionRepository;
     @Mock private ProductRepository productRepository;
     @Mock private BookingRepository bookingRepository;
+    @Spy private ConflictRetryExecutor conflictRetry = new ConflictRetryExecutor(new SimpleMeterRegistry(), new SlotReservationTable(), 0, 0);
 
     @InjectMocks private BookingCheckoutController controller;
 
@@ -119,6 +125,7 @@ class BookingCheckoutControllerTest {
         when(serviceOptionRepository.findById(optionId)).thenReturn(Optional.of(option));
 
         NewBookingDTO payload = packageCheckoutPayload(serviceId, optionId);
+        when(bookingService.clientBookingSlot(payload)).thenReturn(slot(payload));
 
         assertThatThrownBy(() -> controller.createSessionGuest(payload))
                 .isInstanceOf(BadRequestException.class)
@@ -139,6 +146,7 @@ class BookingCheckoutControllerTest {
         when(serviceOptionRepository.findById(optionId)).thenReturn(Optional.of(option));
 
         NewBookingDTO payload = packageCheckoutPayload(serviceId, optionId);
+        when(bookingService.clientBookingSlot(payload)).thenReturn(slot(payload));
 
         assertThatThrownBy(() -> controller.createSessionGuest(payload))
                 .isInstanceOf(BadRequestException.class)
@@ -179,6 +187,10 @@ class BookingCheckoutControllerTest {
                 false, false, null, null, null, false);
     }
 
+    private static BookingSlot slot(NewBookingDTO payload) {
+        return new BookingSlot(payload.startTime(), payload.startTime().plusMinutes(60), "occupato");
+    }
+
     private static void setField(Object target, String name, Object value) {
         try {
             Field f = target.getClass().getDeclaredField(name);
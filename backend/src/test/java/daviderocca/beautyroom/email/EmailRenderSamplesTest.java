@@ -438,7 +438,7 @@ class EmailRenderSamplesTest {
         return pc;
     }
 
-    private static BigDecimal bd(String v) { return new BigDecimal(v); }
+    static BigDecimal bd(String v) { return new BigDecimal(v); }
 
     private void write(String name, EmailContent c) throws Exception {
         Files.writeString(Path.of("/tmp/beautyroom-email-" + name + ".html"), c.html());
@@ -446,7 +446,8 @@ class EmailRenderSamplesTest {
     }
 
     // Mutable holder so each sample sets only what it needs; the rest defaults.
-    private static final class C {
+    // Package-private: EmailTemplateBenchmark renders the same samples.
+    static final class C {
         LocalDateTime start, end;
         String name = "Cliente", email = "cliente@example.com", serviceTitle = null, optionName = null;
         BigDecimal optionPrice = null, customTotalPrice = null, customServicePrice = null;
@@ -461,9 +462,9 @@ class EmailRenderSamplesTest {
         List<SaleSummaryDTO> sales = List.of();
     }
 
-    private interface Cfg { void apply(C c); }
+    interface Cfg { void apply(C c); }
 
-    private static AdminBookingCardDTO card(Cfg cfg) {
+    static AdminBookingCardDTO card(Cfg cfg) {
         C c = new C();
         cfg.apply(c);
         return new AdminBookingCardDTO(
@@ -480,7 +481,7 @@ class EmailRenderSamplesTest {
                 false, c.promos, c.sales, true, false);
     }
 
-    private static EmailTemplateService brandedTemplate() throws Exception {
+    static EmailTemplateService brandedTemplate() throws Exception {
         EmailTemplateService t = new EmailTemplateService();
         set(t, "frontUrl", "https://beauty-room.it");
         set(t, "brandName", "Beauty Room");
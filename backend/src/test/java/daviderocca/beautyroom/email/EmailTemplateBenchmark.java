@@ -0,0 +1,125 @@
+package daviderocca.beautyroom.email;
+
+import daviderocca.beautyroom.DTO.bookingDTOs.PackageSummaryDTO;
+import daviderocca.beautyroom.DTO.bookingDTOs.PromoLineSummaryDTO;
+import daviderocca.beautyroom.DTO.bookingDTOs.PromoSummaryDTO;
+import daviderocca.beautyroom.DTO.bookingDTOs.SaleSummaryDTO;
+import daviderocca.beautyroom.DTO.bookingDTOs.ServiceSummaryDTO;
+import daviderocca.beautyroom.email.templates.BookingEmailAssembler;
+import daviderocca.beautyroom.email.templates.BookingEmailModel;
+import daviderocca.beautyroom.email.templates.EmailContent;
+import daviderocca.beautyroom.email.templates.EmailTemplateService;
+import daviderocca.beautyroom.entities.Booking;
+import daviderocca.beautyroom.enums.ClientPackagePaymentMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static daviderocca.beautyroom.email.EmailRenderSamplesTest.bd;
+import static daviderocca.beautyroom.email.EmailRenderSamplesTest.card;
+
+/**
+ * Rendering throughput of the booking emails, over the same samples as
+ * {@link EmailRenderSamplesTest} (multi-item confirmation, promo, package reminder, reschedule).
+ * The models are built once in setup: only {@link EmailTemplateService} is measured.
+ *
+ * Not a unit test (surefire only picks up *Test). Run after {@code mvn test-compile}:
+ * {@code java -cp target/test-classes:target/classes:<test classpath> daviderocca.beautyroom.email.EmailTemplateBenchmark -prof gc}
+ * or from the IDE via {@link #main}; {@code -prof gc} (on by default in main) reports
+ * gc.alloc.rate.norm, the bytes allocated per rendered email.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmailTemplateBenchmark {
+
+    @Param({"confirmed", "promo", "reminderPackage", "rescheduled"})
+    public String sample;
+
+    private EmailTemplateService templates;
+    private BookingEmailModel model;
+
+    @Setup
+    public void setUp() throws Exception {
+        templates = EmailRenderSamplesTest.brandedTemplate();
+        BookingEmailAssembler asm = new BookingEmailAssembler(null);
+        LocalDateTime start = LocalDateTime.of(2026, 6, 15, 13, 30);
+        model = switch (sample) {
+            case "confirmed" -> asm.buildModel(card(b -> {
+                b.start = start; b.end = start.plusMinutes(50);
+                b.name = "Giulia Bianchi"; b.email = "giulia@example.com";
+                b.services = List.of(
+                        new ServiceSummaryDTO(UUID.randomUUID(), "Manicure", 30, bd("25.00"), null, null, null, null, false),
+                        new ServiceSummaryDTO(UUID.randomUUID(), "Laser", 20, bd("80.00"), UUID.randomUUID(), "Ascelle", null, null, false));
+                b.sales = List.of(new SaleSummaryDTO(UUID.randomUUID(), UUID.randomUUID(), "Crema viso lenitiva", 1, bd("30.00"), false));
+            }), null, false);
+            case "promo" -> asm.buildModel(card(b -> {
+                b.start = start; b.end = start.plusMinutes(90);
+                b.name = "Marta Verdi"; b.email = "marta@example.com";
+                b.promos = List.of(new PromoSummaryDTO(
+                        UUID.randomUUID(), UUID.randomUUID(), "Rituale Sposa", "PERCENTAGE", bd("20"),
+                        bd("200.00"), bd("160.00"), false, true,
+                        List.of(new PromoLineSummaryDTO(UUID.randomUUID(), "Manicure", bd("40.00"), bd("32.00"), 30),
+                                new PromoLineSummaryDTO(UUID.randomUUID(), "Trucco sposa", bd("160.00"), bd("128.00"), 60)),
+                        List.of()));
+            }), null, false);
+            case "reminderPackage" -> asm.buildModel(card(b -> {
+                b.start = start; b.end = start.plusMinutes(30);
+                b.name = "Sara Neri"; b.email = "sara@example.com";
+                b.linkedPackages = List.of(new PackageSummaryDTO(
+                        UUID.randomUUID(), "Laser ascelle", 3, 6, 3, bd("50.00"), false,
+                        List.of(), false, false, null, ClientPackagePaymentMode.PER_SESSION,
+                        null, false, 0, 0));
+            }), null, true);
+            case "rescheduled" -> {
+                LocalDateTime newStart = LocalDateTime.of(2026, 6, 18, 16, 0);
+                Booking moved = new Booking();
+                moved.setStartTime(newStart);
+                moved.setDurationMinutes(50);
+                moved.setPreviousStartTime(start);
+                yield asm.buildModel(card(b -> {
+                    b.start = newStart; b.end = newStart.plusMinutes(50);
+                    b.name = "Giulia Bianchi"; b.email = "giulia@example.com";
+                    b.services = List.of(
+                            new ServiceSummaryDTO(UUID.randomUUID(), "Manicure", 30, bd("25.00"), null, null, null, null, false));
+                }), moved, false);
+            }
+            default -> throw new IllegalArgumentException(sample);
+        };
+    }
+
+    @Benchmark
+    public EmailContent render() {
+        return switch (sample) {
+            case "reminderPackage" -> templates.bookingReminder(model);
+            case "rescheduled" -> templates.bookingRescheduled(model);
+            default -> templates.bookingConfirmed(model);
+        };
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EmailTemplateBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,146 @@
+package daviderocca.beautyroom.email.outbox;
+
+import daviderocca.beautyroom.email.provider.MailgunSender;
+import daviderocca.beautyroom.email.templates.EmailContent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * EmailOutboxDispatcher: claimed rows are sent concurrently, the claim loop drains while
+ * batches come back full, provider calls respect the per-provider rate, and every outcome
+ * is recorded through the worker (its own transaction per step).
+ */
+@ExtendWith(MockitoExtension.class)
+class EmailOutboxDispatcherTest {
+
+    @Mock private EmailOutboxWorker worker;
+    @Mock private MailgunSender mailgunSender;
+
+    private EmailOutboxDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) ReflectionTestUtils.invokeMethod(dispatcher, "shutdown");
+    }
+
+    private static List<UUID> ids(int n) {
+        return IntStream.range(0, n).mapToObj(i -> UUID.randomUUID()).toList();
+    }
+
+    private void prepareAll() {
+        when(worker.prepare(any())).thenAnswer(inv -> Optional.of(new EmailOutboxWorker.Prepared(
+                inv.getArgument(0), "cliente@test.local", new EmailContent("Oggetto", "<p>html</p>", "text"))));
+    }
+
+    @Test
+    @Timeout(10)
+    @DisplayName("the claimed rows are sent concurrently, up to the concurrency limit")
+    void sendsConcurrently() {
+        dispatcher = new EmailOutboxDispatcher(worker, mailgunSender, 50, 1000, 4, 100);
+        prepareAll();
+        // Each send waits until 4 are in flight at once: a sequential dispatcher would hang here.
+        CountDownLatch inFlight = new CountDownLatch(4);
+        when(mailgunSender.sendHtml(anyString(), anyString(), anyString(), anyString())).thenAnswer(inv -> {
+            inFlight.countDown();
+            assertThat(inFlight.await(5, TimeUnit.SECONDS)).isTrue();
+            return "msg-id";
+        });
+
+        assertThat(dispatcher.dispatch(ids(4))).isEqualTo(4);
+        verify(worker, times(4)).recordSent(any(), eq("msg-id"));
+    }
+
+    @Test
+    @DisplayName("full batches are claimed back to back until a partial one")
+    void drainsWhileBatchesAreFull() {
+        dispatcher = new EmailOutboxDispatcher(worker, mailgunSender, 3, 1000, 2, 100);
+        prepareAll();
+        when(mailgunSender.sendHtml(anyString(), anyString(), anyString(), anyString())).thenReturn("ok");
+        when(worker.claimBatchIds(3)).thenReturn(ids(3), ids(3), ids(1));
+
+        dispatcher.run();
+
+        verify(worker, times(3)).claimBatchIds(3);
+        verify(worker, times(7)).recordSent(any(), eq("ok"));
+    }
+
+    @Test
+    @Timeout(10)
+    @DisplayName("provider calls are capped by the token bucket (5/s: 10 sends take about a second)")
+    void respectsProviderRate() {
+        dispatcher = new EmailOutboxDispatcher(worker, mailgunSender, 50, 1000, 8, 5);
+        prepareAll();
+        when(mailgunSender.sendHtml(anyString(), anyString(), anyString(), anyString())).thenReturn("ok");
+
+        long started = System.nanoTime();
+        assertThat(dispatcher.dispatch(ids(10))).isEqualTo(10);
+
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        assertThat(elapsedMs).as("second half waits for the refill").isGreaterThanOrEqualTo(900);
+    }
+
+    @Test
+    @Timeout(10)
+    @DisplayName("a send interrupted while waiting for the rate limit is recorded as a failure, not left PROCESSING")
+    void interruptedWhileThrottledRecordsFailure() {
+        dispatcher = new EmailOutboxDispatcher(worker, mailgunSender, 50, 1000, 1, 1);
+        prepareAll();
+        when(mailgunSender.sendHtml(anyString(), anyString(), anyString(), anyString())).thenReturn("ok");
+        assertThat(dispatcher.dispatch(ids(1))).isEqualTo(1); // consuma l'unico token del secondo
+
+        UUID throttled = UUID.randomUUID();
+        CompletableFuture<Integer> pending = CompletableFuture.supplyAsync(() -> dispatcher.dispatch(List.of(throttled)));
+        verify(worker, timeout(900)).prepare(throttled);
+        ReflectionTestUtils.invokeMethod(dispatcher, "shutdown");
+
+        assertThat(pending.join()).isZero();
+        verify(worker).recordFailure(eq(throttled), isA(InterruptedException.class));
+        verify(worker, never()).recordSent(eq(throttled), any());
+    }
+
+    @Test
+    @DisplayName("skip, render failure and provider failure are recorded per row; the rest still go out")
+    void outcomesRecordedPerRow() {
+        dispatcher = new EmailOutboxDispatcher(worker, mailgunSender, 50, 1000, 2, 100);
+        UUID skipped = UUID.randomUUID();
+        UUID broken = UUID.randomUUID();
+        UUID rejected = UUID.randomUUID();
+        UUID ok = UUID.randomUUID();
+        UUID handled = UUID.randomUUID();
+        EmailContent content = new EmailContent("s", "h", "t");
+        when(worker.prepare(skipped)).thenThrow(new EmailOutboxWorker.SkipEmailException("Booking cancelled (skip)"));
+        when(worker.prepare(broken)).thenThrow(new IllegalStateException("Booking not found"));
+        when(worker.prepare(rejected)).thenReturn(Optional.of(new EmailOutboxWorker.Prepared(rejected, "bad@test.local", content)));
+        when(worker.prepare(ok)).thenReturn(Optional.of(new EmailOutboxWorker.Prepared(ok, "ok@test.local", content)));
+        when(worker.prepare(handled)).thenReturn(Optional.empty());
+        when(mailgunSender.sendHtml(eq("bad@test.local"), any(), any(), any())).thenThrow(new RuntimeException("Mailgun error: 400"));
+        when(mailgunSender.sendHtml(eq("ok@test.local"), any(), any(), any())).thenReturn("msg-ok");
+
+        assertThat(dispatcher.dispatch(List.of(skipped, broken, rejected, ok, handled))).isEqualTo(1);
+
+        verify(worker).recordSkipped(eq(skipped), any());
+        verify(worker).recordFailure(eq(broken), any());
+        verify(worker).recordFailure(eq(rejected), any());
+        verify(worker).recordSent(ok, "msg-ok");
+        verify(worker, never()).recordSent(eq(handled), any());
+        verify(worker, never()).recordFailure(eq(handled), any());
+    }
+}
@@ -0,0 +1,135 @@
+package daviderocca.beautyroom.email.outbox;
+
+import daviderocca.beautyroom.entities.User;
+import daviderocca.beautyroom.entities.WishlistItem;
+import daviderocca.beautyroom.enums.WishlistItemType;
+import daviderocca.beautyroom.repositories.UserRepository;
+import daviderocca.beautyroom.repositories.WishlistItemRepository;
+import daviderocca.beautyroom.services.WishlistService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Wishlist "back in stock" fan-out: one campaign + one outbox row per wisher, sent in
+ * Mailgun batch calls (recipient-variables) against a local stub of the Mailgun API.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class WishlistCampaignIntegrationTest {
+
+    @Autowired private WishlistService wishlistService;
+    @Autowired private EmailOutboxWorker worker;
+    @Autowired private EmailOutboxDispatcher dispatcher;
+    @Autowired private EmailOutboxRepository outboxRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private WishlistItemRepository wishlistItemRepository;
+    @Autowired private RestTemplate restTemplate;
+
+    private ClientHttpRequestFactory originalFactory;
+    private MockRestServiceServer mailgun;
+    private final List<String> bodies = new ArrayList<>();
+
+    @BeforeEach
+    void stubMailgun() {
+        originalFactory = restTemplate.getRequestFactory();
+        mailgun = MockRestServiceServer.bindTo(restTemplate).build();
+    }
+
+    @AfterEach
+    void restore() {
+        restTemplate.setRequestFactory(originalFactory);
+    }
+
+    private void expectBatchCalls(int calls) {
+        mailgun.expect(ExpectedCount.times(calls), requestTo("https://api.mailgun.net/v3/test.com/messages"))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(request -> bodies.add(URLDecoder.decode(
+                        ((MockClientHttpRequest) request).getBodyAsString(), StandardCharsets.UTF_8)))
+                .andRespond(withSuccess("{\"id\":\"<batch@test.com>\"}", MediaType.APPLICATION_JSON));
+    }
+
+    private UUID wishlistedBy(int users) {
+        UUID itemId = UUID.randomUUID();
+        String tag = itemId.toString().substring(0, 8);
+        for (int i = 0; i < users; i++) {
+            User u = userRepository.save(new User(i == 0 ? "Anna <b>" : "Cliente" + i, "Test",
+                    "wish" + i + "-" + tag + "@test.local", "hash", "+39340" + tag.hashCode() % 1000 + i));
+            wishlistItemRepository.save(new WishlistItem(u, WishlistItemType.PRODUCT, itemId));
+        }
+        return itemId;
+    }
+
+    private List<EmailOutbox> rowsOf(UUID campaignId) {
+        return outboxRepository.findAll().stream().filter(e -> campaignId.equals(e.getCampaignId())).toList();
+    }
+
+    @Test
+    @DisplayName("reactivation enqueues one campaign; the dispatcher renders once and sends one batch call")
+    void fanOutGoesOutInOneBatch() {
+        UUID itemId = wishlistedBy(3);
+        wishlistService.notifyWishlistersOnReactivation(WishlistItemType.PRODUCT, itemId, "Siero illuminante");
+        expectBatchCalls(1);
+
+        dispatcher.run();
+
+        mailgun.verify();
+        String body = bodies.get(0);
+        assertThat(body).contains("recipient-variables=")
+                .contains("\"first_name\":\"Cliente1\"")
+                .contains("\"first_name_html\":\"Anna &lt;b&gt;\"")
+                .contains("%recipient.first_name_html%")
+                .contains("Siero illuminante è di nuovo disponibile");
+        assertThat(body.split("&to=", -1)).hasSize(4); // 3 recipients, nobody sees the others
+        assertThat(outboxRepository.findAll().stream()
+                .filter(e -> e.getCampaignId() != null && e.getToEmail().contains(itemId.toString().substring(0, 8))))
+                .hasSize(3)
+                .allSatisfy(e -> {
+                    assertThat(e.getStatus()).isEqualTo(EmailOutboxStatus.SENT);
+                    assertThat(e.getProviderMessageId()).contains("batch@test.com");
+                });
+    }
+
+    @Test
+    @DisplayName("recipients are split into ceil(N / batch size) provider calls")
+    void recipientsSplitIntoBatches() {
+        UUID itemId = wishlistedBy(5);
+        wishlistService.notifyWishlistersOnReactivation(WishlistItemType.PRODUCT, itemId, "Crema");
+        expectBatchCalls(3);
+
+        UUID campaignId = null;
+        Optional<EmailOutboxWorker.ClaimedCampaign> claimed;
+        while ((claimed = worker.claimCampaignBatch(2)).isPresent()) {
+            assertThat(claimed.get().ids()).hasSizeLessThanOrEqualTo(2);
+            campaignId = claimed.get().campaignId();
+            dispatcher.dispatchCampaign(claimed.get());
+        }
+
+        mailgun.verify();
+        assertThat(rowsOf(campaignId)).hasSize(5)
+                .allSatisfy(e -> assertThat(e.getStatus()).isEqualTo(EmailOutboxStatus.SENT));
+    }
+}
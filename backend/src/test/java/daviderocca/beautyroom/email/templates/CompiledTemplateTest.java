@@ -0,0 +1,45 @@
+package daviderocca.beautyroom.email.templates;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompiledTemplateTest {
+
+    private static final Map<String, String> STATICS = Map.of("SANS", "Arial,sans-serif");
+
+    @Test
+    @DisplayName("renders exactly as String.formatted with the statics inlined")
+    void render_matchesFormatted() {
+        String source = """
+                <td style="font-family:{{SANS}};width:100%%;">%s</td><td>%s</td>
+                """;
+        CompiledTemplate t = CompiledTemplate.compile(source, STATICS);
+
+        assertThat(t.slots()).isEqualTo(2);
+        assertThat(t.render("a", null)).isEqualTo("""
+                <td style="font-family:%s;width:100%%;">%s</td><td>%s</td>
+                """.formatted("Arial,sans-serif", "a", null));
+    }
+
+    @Test
+    @DisplayName("a template without slots renders its literal text")
+    void render_noSlots() {
+        assertThat(CompiledTemplate.compile("<hr>{{SANS}}", STATICS).render()).isEqualTo("<hr>Arial,sans-serif");
+    }
+
+    @Test
+    @DisplayName("unknown statics, unsupported placeholders and wrong arity fail fast")
+    void invalidTemplates_rejected() {
+        assertThatThrownBy(() -> CompiledTemplate.compile("{{SERIF}}", STATICS))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CompiledTemplate.compile("width:%dpx", STATICS))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CompiledTemplate.compile("%s", STATICS).render("a", "b"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
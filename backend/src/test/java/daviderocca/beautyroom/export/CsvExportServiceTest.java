@@ -0,0 +1,164 @@
+package daviderocca.beautyroom.export;
+
+import com.opencsv.CSVReader;
+import daviderocca.beautyroom.entities.Booking;
+import daviderocca.beautyroom.entities.Category;
+import daviderocca.beautyroom.entities.Customer;
+import daviderocca.beautyroom.entities.ServiceItem;
+import daviderocca.beautyroom.enums.BookingStatus;
+import daviderocca.beautyroom.enums.PaymentMethod;
+import daviderocca.beautyroom.exceptions.BadRequestException;
+import daviderocca.beautyroom.exceptions.TooManyRequestsException;
+import daviderocca.beautyroom.repositories.BookingRepository;
+import daviderocca.beautyroom.repositories.CategoryRepository;
+import daviderocca.beautyroom.repositories.CustomerRepository;
+import daviderocca.beautyroom.repositories.ServiceItemRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * CSV exports against the H2 schema: header + one line per row in cursor order, written
+ * incrementally (the stream is flushed while rows are still being read), formula-safe cells,
+ * and a bounded number of exports at once.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CsvExportServiceTest {
+
+    @Autowired private CsvExportService csvExportService;
+    @Autowired private BookingRepository bookingRepository;
+    @Autowired private CustomerRepository customerRepository;
+    @Autowired private CategoryRepository categoryRepository;
+    @Autowired private ServiceItemRepository serviceItemRepository;
+
+    // A far-future month of its own: the H2 context is shared with the other integration tests.
+    private static final LocalDate DAY = LocalDate.of(2031, 2, 3);
+
+    /** Counts flushes that happen before the stream is complete. */
+    private static final class FlushCountingStream extends ByteArrayOutputStream {
+        int flushes;
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+    }
+
+    @Test
+    @DisplayName("bookings: header + rows in start order, flushed while streaming")
+    void exportBookings_streamsRowsInOrder() throws Exception {
+        Category cat = categoryRepository.save(new Category("exp", "Export"));
+        ServiceItem svc = serviceItemRepository.save(
+                new ServiceItem("Pulizia viso", 60, new BigDecimal("50.00"), "s", "d", List.of(), cat));
+        int total = 1_200; // > FLUSH_EVERY
+        List<Booking> bookings = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            LocalDateTime start = DAY.atTime(6, 0).plusSeconds(30L * i);
+            Booking b = new Booking("Cliente " + i, "c" + i + "@test.local", "+3933300" + i,
+                    start, start.plusMinutes(30), null, svc, null, null);
+            b.setBookingStatus(BookingStatus.CONFIRMED);
+            b.setPaymentMethod(PaymentMethod.PAY_IN_STORE);
+            bookings.add(b);
+        }
+        bookingRepository.saveAll(bookings);
+
+        FlushCountingStream out = new FlushCountingStream();
+        long rows = csvExportService.exportBookings(DAY, DAY, out);
+
+        List<String[]> lines = read(out);
+        assertThat(rows).isEqualTo(total);
+        assertThat(lines).hasSize(total + 1);
+        assertThat(lines.get(0)[0]).isEqualTo("id");
+        assertThat(lines.get(1)[4]).isEqualTo("Cliente 0");
+        assertThat(lines.get(1)[1]).isEqualTo("2031-02-03 06:00");
+        assertThat(lines.get(1)[7]).isEqualTo("Pulizia viso");
+        assertThat(lines.get(1)[3]).isEqualTo("CONFIRMED");
+        assertThat(lines.get(total)[4]).isEqualTo("Cliente " + (total - 1));
+        assertThat(out.flushes).as("rows reach the client before the cursor is exhausted").isGreaterThan(1);
+    }
+
+    @Test
+    @DisplayName("customers: cells that Excel would evaluate as formulas are neutralized, phones included")
+    void exportCustomers_neutralizesFormulas() throws Exception {
+        Customer c = new Customer();
+        c.setFullName("=HYPERLINK(\"http://evil\")");
+        c.setPhone("+39 333 1234567");
+        c.setEmail("formula@test.local");
+        customerRepository.save(c);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        csvExportService.exportCustomers(out);
+
+        assertThat(read(out)).anySatisfy(line -> {
+            assertThat(line[3]).isEqualTo("formula@test.local");
+            assertThat(line[1]).isEqualTo("'=HYPERLINK(\"http://evil\")");
+            assertThat(line[2]).isEqualTo("'+39 333 1234567");
+            assertThat(line[5]).isEqualTo("0");
+        });
+    }
+
+    @Test
+    @DisplayName("customers: a leading minus followed by a digit is neutralized too")
+    void exportCustomers_neutralizesLeadingMinusDigit() throws Exception {
+        Customer c = new Customer();
+        c.setFullName("-1+1+cmd|' /C calc'!A0");
+        c.setEmail("minus@test.local");
+        customerRepository.save(c);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        csvExportService.exportCustomers(out);
+
+        assertThat(read(out)).anySatisfy(line -> {
+            assertThat(line[3]).isEqualTo("minus@test.local");
+            assertThat(line[1]).isEqualTo("'-1+1+cmd|' /C calc'!A0");
+        });
+    }
+
+    @Test
+    @DisplayName("an inverted range is rejected before anything is written")
+    void invertedRange_rejected() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThatThrownBy(() -> csvExportService.exportOrders(DAY, DAY.minusDays(1), out))
+                .isInstanceOf(BadRequestException.class);
+        assertThat(out.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("past app.export.max-concurrent running exports the next one gets 429; a finished one frees its slot")
+    void acquireSlot_boundedConcurrency() {
+        CsvExportService.ExportSlot first = csvExportService.acquireSlot();
+        CsvExportService.ExportSlot second = csvExportService.acquireSlot();
+        try {
+            assertThatThrownBy(csvExportService::acquireSlot).isInstanceOf(TooManyRequestsException.class);
+        } finally {
+            first.close();
+        }
+        csvExportService.acquireSlot().close();
+        second.close();
+    }
+
+    private static List<String[]> read(ByteArrayOutputStream out) throws Exception {
+        byte[] bytes = out.toByteArray();
+        assertThat(bytes).startsWith((byte) 0xEF, (byte) 0xBB, (byte) 0xBF);
+        try (CSVReader reader = new CSVReader(new InputStreamReader(
+                new ByteArrayInputStream(bytes, 3, bytes.length - 3), StandardCharsets.UTF_8))) {
+            return reader.readAll();
+        }
+    }
+}
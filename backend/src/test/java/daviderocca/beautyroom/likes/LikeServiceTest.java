@@ -0,0 +1,148 @@
+package daviderocca.beautyroom.likes;
+
+import daviderocca.beautyroom.entities.Category;
+import daviderocca.beautyroom.entities.Product;
+import daviderocca.beautyroom.entities.Result;
+import daviderocca.beautyroom.repositories.CategoryRepository;
+import daviderocca.beautyroom.repositories.ProductRepository;
+import daviderocca.beautyroom.repositories.ResultRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Likes answered from memory, written by {@link LikeWriteBehind#flush} (driven explicitly:
+ * the scheduled flush is disabled in the test profile).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class LikeServiceTest {
+
+    @Autowired private LikeService likeService;
+    @Autowired private LikeWriteBehind writeBehind;
+    @Autowired private LikeRepository likeRepository;
+    @Autowired private ProductRepository productRepository;
+    @Autowired private ResultRepository resultRepository;
+    @Autowired private CategoryRepository categoryRepository;
+
+    @Test
+    @DisplayName("one like per IP per 24h, counted in memory and written in one flush")
+    void addLike_dedupedPerIpAndFlushed() {
+        Product product = product();
+        UUID id = product.getProductId();
+
+        assertThat(likeService.addLike("product", id, "10.0.0.1")).isEqualTo(1);
+        assertThat(likeService.addLike("product", id, "10.0.0.1")).as("same IP again").isEqualTo(1);
+        assertThat(likeService.addLike("PRODUCT", id, "10.0.0.2")).isEqualTo(2);
+        assertThat(productRepository.findById(id).orElseThrow().getLikesCount()).as("not flushed yet").isZero();
+
+        writeBehind.flush();
+
+        assertThat(productRepository.findById(id).orElseThrow().getLikesCount()).isEqualTo(2);
+        assertThat(likesOf("PRODUCT", id)).isEqualTo(2);
+        assertThat(likeService.addLike("PRODUCT", id, "10.0.0.3")).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("unlike before the flush: the like row is never written; after it, the row is deleted")
+    void removeLike_coalescedWithPendingLike() {
+        Result result = result();
+        UUID id = result.getResultId();
+
+        likeService.addLike("RESULT", id, "10.0.1.1");
+        likeService.addLike("RESULT", id, "10.0.1.2");
+        assertThat(likeService.removeLike("RESULT", id, "10.0.1.1")).isEqualTo(1);
+        assertThat(likeService.removeLike("RESULT", id, "10.0.1.9")).as("never liked").isEqualTo(1);
+        writeBehind.flush();
+
+        assertThat(resultRepository.findById(id).orElseThrow().getLikesCount()).isEqualTo(1);
+        assertThat(likesOf("RESULT", id)).isEqualTo(1);
+
+        assertThat(likeService.removeLike("RESULT", id, "10.0.1.2")).isZero();
+        assertThat(likeService.addLike("RESULT", id, "10.0.1.1")).as("liked again after the unlike").isEqualTo(1);
+        writeBehind.flush();
+
+        assertThat(resultRepository.findById(id).orElseThrow().getLikesCount()).isEqualTo(1);
+        assertThat(likeRepository.findAll()).filteredOn(l -> l.getEntityId().equals(id))
+                .extracting(Like::getIpHash).hasSize(1).doesNotContainNull();
+    }
+
+    @Test
+    @DisplayName("concurrent likers on one entity: no like lost, counter written once")
+    void addLike_concurrentClicks() throws Exception {
+        Product product = product();
+        UUID id = product.getProductId();
+        int clicks = 200;
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < clicks; i++) {
+            String ip = "10.1." + (i / 250) + "." + (i % 250);
+            futures.add(pool.submit(() -> {
+                start.await();
+                return likeService.addLike("PRODUCT", id, ip);
+            }));
+            if (i % 50 == 0) futures.add(pool.submit(() -> {
+                start.await();
+                writeBehind.flush();     // flush concorrenti ai click
+                return 0;
+            }));
+        }
+        start.countDown();
+        for (Future<Integer> f : futures) f.get();
+        pool.shutdown();
+        writeBehind.flush();
+
+        assertThat(productRepository.findById(id).orElseThrow().getLikesCount()).isEqualTo(clicks);
+        assertThat(likesOf("PRODUCT", id)).isEqualTo(clicks);
+        assertThat(writeBehind.count("PRODUCT", id)).isEqualTo(clicks);
+    }
+
+    @Test
+    @DisplayName("unknown entities are not counted, unknown types rejected")
+    void addLike_unknownEntity() {
+        UUID missing = UUID.randomUUID();
+        assertThat(likeService.addLike("SERVICE", missing, "10.0.2.1")).isZero();
+        writeBehind.flush();
+        assertThat(likesOf("SERVICE", missing)).isZero();
+
+        assertThatThrownBy(() -> likeService.addLike("BOOKING", missing, "10.0.2.1"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // ---------- helpers ----------
+
+    private long likesOf(String type, UUID id) {
+        return likeRepository.findAll().stream()
+                .filter(l -> l.getEntityType().equals(type) && l.getEntityId().equals(id))
+                .count();
+    }
+
+    private Category category() {
+        return categoryRepository.save(new Category("likes-" + UUID.randomUUID().toString().substring(0, 8), "Likes"));
+    }
+
+    private Product product() {
+        return productRepository.save(new Product("Crema " + UUID.randomUUID(), new BigDecimal("15.00"),
+                "breve", "descrizione", new ArrayList<>(), 3, category()));
+    }
+
+    private Result result() {
+        return resultRepository.save(new Result("Prima e dopo " + UUID.randomUUID(), "desc", new ArrayList<>(), category()));
+    }
+}
@@ -0,0 +1,82 @@
+package daviderocca.beautyroom.media;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageVariantGeneratorTest {
+
+    @TempDir
+    Path dir;
+
+    private final ImageVariantGenerator generator = new ImageVariantGenerator(new int[]{768, 320}, 0.8f);
+
+    @Test
+    @DisplayName("one JPEG per configured width, narrowest first, aspect ratio kept")
+    void generate_resizesToEachWidth() throws Exception {
+        Path source = png("photo.png", 2400, 1600, false);
+
+        List<ImageVariantGenerator.GeneratedVariant> variants = generator.generate(source);
+
+        assertThat(variants).extracting(ImageVariantGenerator.GeneratedVariant::width).containsExactly(320, 768);
+        assertThat(variants).extracting(ImageVariantGenerator.GeneratedVariant::height).containsExactly(213, 512);
+        for (ImageVariantGenerator.GeneratedVariant v : variants) {
+            BufferedImage read = ImageIO.read(v.file().toFile());
+            assertThat(read.getWidth()).isEqualTo(v.width());
+            assertThat(read.getHeight()).isEqualTo(v.height());
+            assertThat(Files.size(v.file())).isLessThan(Files.size(source));
+        }
+    }
+
+    @Test
+    @DisplayName("never upscales: only the widths below the original are generated")
+    void generate_skipsWiderThanOriginal() throws Exception {
+        assertThat(generator.generate(png("mid.png", 500, 500, false)))
+                .extracting(ImageVariantGenerator.GeneratedVariant::width).containsExactly(320);
+        assertThat(generator.generate(png("small.png", 300, 200, false))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("transparent pixels become white, JPEG has no alpha")
+    void generate_flattensAlphaOnWhite() throws Exception {
+        List<ImageVariantGenerator.GeneratedVariant> variants = generator.generate(png("logo.png", 1000, 1000, true));
+
+        BufferedImage thumb = ImageIO.read(variants.get(0).file().toFile());
+        Color corner = new Color(thumb.getRGB(2, 2));
+        assertThat(corner.getRed()).isGreaterThan(240);
+        assertThat(corner.getGreen()).isGreaterThan(240);
+        assertThat(corner.getBlue()).isGreaterThan(240);
+    }
+
+    @Test
+    @DisplayName("files ImageIO cannot read get no variants")
+    void generate_unreadableFile() throws Exception {
+        Path notAnImage = Files.writeString(dir.resolve("photo.heic"), "not really an image");
+
+        assertThat(generator.generate(notAnImage)).isEmpty();
+    }
+
+    private Path png(String name, int width, int height, boolean transparentBorder) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        int inset = transparentBorder ? width / 4 : 0;
+        g.setColor(new Color(180, 60, 120));
+        g.fillRect(inset, inset, width - 2 * inset, height - 2 * inset);
+        g.setColor(Color.BLACK);
+        for (int x = inset; x < width - inset; x += 10) g.drawLine(x, inset, x, height - inset - 1);
+        g.dispose();
+        Path file = dir.resolve(name);
+        ImageIO.write(image, "png", file.toFile());
+        return file;
+    }
+}
@@ -0,0 +1,113 @@
+package daviderocca.beautyroom.media;
+
+import com.sun.net.httpserver.HttpServer;
+import daviderocca.beautyroom.exceptions.ResourceNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+/**
+ * ImageVariantService.load: a cache miss fetches the stored copy over HTTP within the fetch
+ * timeout, and concurrent misses on the same id share one fetch.
+ */
+@ExtendWith(MockitoExtension.class)
+class ImageVariantServiceTest {
+
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, 1, 2, 3};
+
+    @Mock private ImageVariantRepository variantRepo;
+
+    @TempDir
+    Path dir;
+
+    private HttpServer storage;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void startStorage() throws Exception {
+        storage = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        storage.setExecutor(Executors.newCachedThreadPool());
+        storage.createContext("/", exchange -> {
+            hits.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, JPEG.length);
+            exchange.getResponseBody().write(JPEG);
+            exchange.close();
+        });
+        storage.start();
+    }
+
+    @AfterEach
+    void stopStorage() {
+        release.countDown();
+        storage.stop(0);
+    }
+
+    private ImageVariantService service(long fetchTimeoutMs) throws Exception {
+        return new ImageVariantService(variantRepo, new ThumbnailCache(dir.toString(), 1), "", fetchTimeoutMs);
+    }
+
+    private UUID storedVariant() {
+        UUID id = UUID.randomUUID();
+        ImageVariant v = new ImageVariant();
+        v.setStorageUrl("http://127.0.0.1:" + storage.getAddress().getPort() + "/" + id + ".jpg");
+        when(variantRepo.findById(id)).thenReturn(Optional.of(v));
+        return id;
+    }
+
+    @Test
+    @Timeout(10)
+    @DisplayName("concurrent misses on the same id hit storage once; the next read comes from the cache")
+    void concurrentMissesShareOneFetch() throws Exception {
+        ImageVariantService service = service(5000);
+        UUID id = storedVariant();
+
+        CompletableFuture<byte[]> first = CompletableFuture.supplyAsync(() -> service.load(id));
+        CompletableFuture<byte[]> second = CompletableFuture.supplyAsync(() -> service.load(id));
+        while (hits.get() == 0) Thread.sleep(10);
+        Thread.sleep(100); // il secondo è già in attesa del primo
+        release.countDown();
+
+        assertThat(first.join()).isEqualTo(JPEG);
+        assertThat(second.join()).isEqualTo(JPEG);
+        assertThat(service.load(id)).isEqualTo(JPEG);
+        assertThat(hits.get()).isEqualTo(1);
+    }
+
+    @Test
+    @Timeout(10)
+    @DisplayName("a storage that does not answer within the timeout is a 404, not a stuck request thread")
+    void slowStorageTimesOut() throws Exception {
+        ImageVariantService service = service(200);
+        UUID id = storedVariant();
+
+        long started = System.nanoTime();
+        assertThatThrownBy(() -> service.load(id)).isInstanceOf(ResourceNotFoundException.class);
+        assertThat((System.nanoTime() - started) / 1_000_000).isLessThan(3000);
+    }
+}
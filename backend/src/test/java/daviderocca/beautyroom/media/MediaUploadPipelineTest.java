@@ -0,0 +1,204 @@
+package daviderocca.beautyroom.media;
+
+import daviderocca.beautyroom.DTO.productDTOs.NewProductDTO;
+import daviderocca.beautyroom.DTO.productDTOs.ProductResponseDTO;
+import daviderocca.beautyroom.DTO.resultDTOs.NewResultDTO;
+import daviderocca.beautyroom.DTO.resultDTOs.ResultResponseDTO;
+import daviderocca.beautyroom.entities.Category;
+import daviderocca.beautyroom.repositories.CategoryRepository;
+import daviderocca.beautyroom.services.ProductService;
+import daviderocca.beautyroom.services.ResultService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Background catalog uploads against the filesystem stand-in: the save commits without the new
+ * images, the uploads run after commit and their URLs are appended in the order sent.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class MediaUploadPipelineTest {
+
+    @Autowired private ProductService productService;
+    @Autowired private ResultService resultService;
+    @Autowired private MediaUploadPipeline pipeline;
+    @Autowired private MediaUploadRepository uploadRepository;
+    @Autowired private CategoryRepository categoryRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private MockMvc mockMvc;
+
+    @Test
+    @DisplayName("product save: committed with PENDING uploads, images attached once uploaded")
+    void saveProduct_uploadsInBackground() throws Exception {
+        Category cat = categoryRepository.save(new Category("media-" + tag(), "Media"));
+        List<MultipartFile> files = List.of(image("front.jpg", "AAA"), image("back.png", "BBB"), image("side.webp", "CCC"));
+
+        ProductResponseDTO saved = productService.saveProduct(productPayload(cat), files);
+
+        assertThat(saved.images()).as("the save does not wait for the uploads").isEmpty();
+        List<MediaUpload> queued = awaitSettled(MediaOwnerType.PRODUCT, saved.productId(), 3);
+        assertThat(queued).allSatisfy(u -> {
+            assertThat(u.getStatus()).isEqualTo(MediaUploadStatus.UPLOADED);
+            assertThat(u.getStagedPath()).isNull();
+        });
+
+        List<String> images = productService.findProductByIdAndConvert(saved.productId()).images();
+        assertThat(images).hasSize(3);
+        // product_images has no order column (a Set): order is checked on results, which have one.
+        assertThat(images.stream().map(MediaUploadPipelineTest::read).toList()).containsExactlyInAnyOrder("AAA", "BBB", "CCC");
+    }
+
+    @Test
+    @DisplayName("result update: new images go after the existing ones")
+    void updateResult_appendsAfterExisting() {
+        Category cat = categoryRepository.save(new Category("media-" + tag(), "Media"));
+        String title = "Prima e dopo " + tag();
+        ResultResponseDTO created = resultService.saveResult(
+                new NewResultDTO(title, "desc", cat.getCategoryId(), null, true, null), List.of(image("before.jpg", "OLD")));
+        awaitSettled(MediaOwnerType.RESULT, created.resultId(), 1);
+
+        resultService.updateResult(created.resultId(),
+                new NewResultDTO(title, "desc", cat.getCategoryId(), null, true, null), List.of(image("after.jpg", "NEW")));
+        awaitSettled(MediaOwnerType.RESULT, created.resultId(), 2);
+
+        List<String> images = resultService.findResultByIdAndConvert(created.resultId()).images();
+        assertThat(images.stream().map(MediaUploadPipelineTest::read).toList()).containsExactly("OLD", "NEW");
+    }
+
+    @Test
+    @DisplayName("real images get JPEG variants in the DTO, served publicly with long-lived cache headers")
+    void upload_generatesServedVariants() throws Exception {
+        Category cat = categoryRepository.save(new Category("media-" + tag(), "Media"));
+        ResultResponseDTO created = resultService.saveResult(
+                new NewResultDTO("Varianti " + tag(), "desc", cat.getCategoryId(), null, true, null),
+                List.of(png("big.png", 1600, 1200), image("notes.jpg", "not an image")));
+        awaitSettled(MediaOwnerType.RESULT, created.resultId(), 2);
+
+        ResultResponseDTO dto = resultService.findResultByIdAndConvert(created.resultId());
+        Map<String, List<ImageVariantDTO>> variants = dto.imageVariants();
+        assertThat(variants).as("only the decodable image has variants").containsOnlyKeys(dto.images().get(0));
+        List<ImageVariantDTO> big = variants.get(dto.images().get(0));
+        assertThat(big).extracting(ImageVariantDTO::width).containsExactly(320, 768);
+        assertThat(big).extracting(ImageVariantDTO::height).containsExactly(240, 576);
+
+        String url = big.get(0).url();
+        assertThat(url).startsWith("/media/variants/");
+        byte[] body = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "image/jpeg"))
+                .andExpect(header().string("Cache-Control", "max-age=31536000, public, immutable"))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(ImageIO.read(new java.io.ByteArrayInputStream(body)).getWidth()).isEqualTo(320);
+
+        String etag = "\"" + url.substring(url.lastIndexOf('/') + 1) + "\"";
+        mockMvc.perform(get(url).header("If-None-Match", etag)).andExpect(status().isNotModified());
+    }
+
+    @Test
+    @DisplayName("rollback of the save: nothing queued, staged files deleted")
+    void rollback_deletesStagedFiles() {
+        UUID ownerId = UUID.randomUUID();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        assertThatThrownBy(() -> tx.executeWithoutResult(status -> {
+            pipeline.enqueue(MediaOwnerType.PRODUCT, ownerId, List.of(image("x.jpg", "XXX")));
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(uploadRepository.findByOwnerTypeAndOwnerIdOrderByCreatedAtDescPositionAsc(MediaOwnerType.PRODUCT, ownerId)).isEmpty();
+        assertThat(stagedFiles()).noneMatch(p -> read(p.toUri().toString()).equals("XXX"));
+    }
+
+    @Test
+    @DisplayName("enqueue outside a transaction is a programming error")
+    void enqueue_requiresTransaction() {
+        assertThatThrownBy(() -> pipeline.enqueue(MediaOwnerType.PRODUCT, UUID.randomUUID(), List.of(image("y.jpg", "Y"))))
+                .isInstanceOf(org.springframework.transaction.IllegalTransactionStateException.class);
+    }
+
+    // ---------- helpers ----------
+
+    private List<MediaUpload> awaitSettled(MediaOwnerType type, UUID ownerId, int expected) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            List<MediaUpload> uploads = uploadRepository.findByOwnerTypeAndOwnerIdOrderByCreatedAtDescPositionAsc(type, ownerId);
+            boolean settled = uploads.size() == expected
+                    && uploads.stream().noneMatch(u -> u.getStatus() == MediaUploadStatus.PENDING);
+            if (settled) return uploads;
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Upload non completati: " + uploads.stream().map(MediaUpload::getStatus).toList());
+            }
+            try {
+                Thread.sleep(25);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    private static List<Path> stagedFiles() {
+        Path dir = Path.of(System.getProperty("java.io.tmpdir"), "beautyroom-media-test-staging");
+        try (var files = Files.list(dir)) {
+            return files.toList();
+        } catch (Exception e) {
+            return List.of();
+        }
+    }
+
+    private static MockMultipartFile image(String name, String content) {
+        return new MockMultipartFile("images", name, "image/jpeg", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static MockMultipartFile png(String name, int width, int height) throws Exception {
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(img, "png", out);
+        return new MockMultipartFile("images", name, "image/png", out.toByteArray());
+    }
+
+    private static NewProductDTO productPayload(Category cat) {
+        return new NewProductDTO("Siero " + tag(), new BigDecimal("20.00"), "breve", "descrizione", 5,
+                cat.getCategoryId(), true, null, null, null, null);
+    }
+
+    private static String read(String url) {
+        try {
+            return Files.readString(Path.of(URI.create(url)));
+        } catch (Exception e) {
+            return "";
+        }
+    }
+
+    private static String tag() {
+        return UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,69 @@
+package daviderocca.beautyroom.media;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ThumbnailCacheTest {
+
+    private static final int KB = 1024;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("over the size limit the least recently read thumbnail goes first")
+    void put_evictsLeastRecentlyUsed() throws Exception {
+        ThumbnailCache cache = new ThumbnailCache(dir.toString(), 1);   // 1 MB
+        UUID a = UUID.randomUUID(), b = UUID.randomUUID(), c = UUID.randomUUID();
+
+        cache.put(a, new byte[400 * KB]);
+        cache.put(b, new byte[400 * KB]);
+        assertThat(cache.get(a)).isPresent();          // a ora è il più recente
+        cache.put(c, new byte[400 * KB]);
+
+        assertThat(cache.get(b)).isEmpty();
+        assertThat(cache.get(a)).isPresent();
+        assertThat(cache.get(c)).isPresent();
+        assertThat(cache.sizeBytes()).isEqualTo(800 * KB);
+        assertThat(Files.exists(dir.resolve(b + ".jpg"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("a restart keeps the files, oldest first in eviction order; temp leftovers removed")
+    void restart_reloadsFromDisk() throws Exception {
+        UUID older = UUID.randomUUID(), newer = UUID.randomUUID();
+        Files.write(dir.resolve(older + ".jpg"), new byte[600 * KB]);
+        Files.write(dir.resolve(newer + ".jpg"), new byte[300 * KB]);
+        Files.setLastModifiedTime(dir.resolve(older + ".jpg"), FileTime.from(Instant.now().minusSeconds(3600)));
+        Files.write(dir.resolve("incoming-123.tmp"), new byte[10]);
+
+        ThumbnailCache cache = new ThumbnailCache(dir.toString(), 1);
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(Files.exists(dir.resolve("incoming-123.tmp"))).isFalse();
+
+        cache.put(UUID.randomUUID(), new byte[300 * KB]);
+        assertThat(cache.get(older)).isEmpty();
+        assertThat(cache.get(newer)).isPresent();
+    }
+
+    @Test
+    @DisplayName("a file deleted behind the cache's back is a miss, not an error")
+    void get_missingFileIsMiss() throws Exception {
+        ThumbnailCache cache = new ThumbnailCache(dir.toString(), 1);
+        UUID id = UUID.randomUUID();
+        cache.put(id, new byte[]{1, 2, 3});
+        Files.delete(dir.resolve(id + ".jpg"));
+
+        assertThat(cache.get(id)).isEmpty();
+        assertThat(cache.sizeBytes()).isZero();
+    }
+}
@@ -0,0 +1,77 @@
+package daviderocca.beautyroom.packages;
+
+import daviderocca.beautyroom.booking.AgendaChangedEvent;
+import daviderocca.beautyroom.entities.Booking;
+import daviderocca.beautyroom.enums.BookingStatus;
+import daviderocca.beautyroom.repositories.BookingRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * recalculatePackageSessions: renumbering rewrites "Seduta X/Y" on the agenda cards, so every
+ * renumbered booking's day gets an {@link AgendaChangedEvent}; cancelled sessions are left alone.
+ */
+@ExtendWith(MockitoExtension.class)
+class ClientPackageServiceTest {
+
+    @Mock private ClientPackageAssignmentRepository assignmentRepo;
+    @Mock private BookingPackageLinkRepository linkRepo;
+    @Mock private BookingRepository bookingRepository;
+    @Mock private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks private ClientPackageService clientPackageService;
+
+    private static final LocalDate DAY = LocalDate.of(2030, 6, 3);
+
+    @Test
+    @DisplayName("recalculatePackageSessions: one agenda event per renumbered booking day")
+    void recalculate_publishesAgendaChangeForRenumberedBookings() {
+        ClientPackageAssignment assignment = new ClientPackageAssignment();
+        assignment.setId(UUID.randomUUID());
+        assignment.setTotalSessions(5);
+        List<BookingPackageLink> links = List.of(
+                link(assignment, DAY, BookingStatus.COMPLETED, 1),
+                link(assignment, DAY.plusWeeks(1), BookingStatus.CANCELLED, 2),
+                link(assignment, DAY.plusWeeks(2), BookingStatus.CONFIRMED, 3));
+        when(assignmentRepo.findById(assignment.getId())).thenReturn(Optional.of(assignment));
+        when(linkRepo.findByAssignmentIdWithBooking(assignment.getId())).thenReturn(links);
+
+        clientPackageService.recalculatePackageSessions(assignment.getId());
+
+        assertThat(links.get(2).getBooking().getCurrentSession()).isEqualTo(2);
+        ArgumentCaptor<AgendaChangedEvent> events = ArgumentCaptor.forClass(AgendaChangedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertThat(events.getAllValues()).containsExactly(
+                AgendaChangedEvent.forDay(DAY), AgendaChangedEvent.forDay(DAY.plusWeeks(2)));
+    }
+
+    private static BookingPackageLink link(ClientPackageAssignment a, LocalDate day, BookingStatus status, int session) {
+        Booking b = new Booking();
+        LocalDateTime start = day.atTime(10, 0);
+        b.setStartTime(start);
+        b.setEndTime(start.plusHours(1));
+        b.setBookingStatus(status);
+        BookingPackageLink l = new BookingPackageLink();
+        l.setBooking(b);
+        l.setAssignment(a);
+        l.setSessionNumber(session);
+        return l;
+    }
+}
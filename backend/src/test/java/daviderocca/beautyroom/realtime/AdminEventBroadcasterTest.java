@@ -0,0 +1,84 @@
+package daviderocca.beautyroom.realtime;
+
+import daviderocca.beautyroom.booking.AgendaChangeLog;
+import daviderocca.beautyroom.booking.AgendaChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AdminEventBroadcasterTest {
+
+    @Mock private AgendaChangeLog agendaChangeLog;
+
+    @InjectMocks private AdminEventBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(broadcaster, "heartbeatSeconds", 25L);
+        ReflectionTestUtils.setField(broadcaster, "timeoutMinutes", 30L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    @Test
+    @DisplayName("subscribe: registra il client e gli manda il token agenda corrente")
+    void subscribe_registersAndSendsHello() {
+        when(agendaChangeLog.currentToken()).thenReturn("boot.7");
+
+        broadcaster.subscribe("admin-1");
+        broadcaster.subscribe("staff-2");
+
+        assertThat(broadcaster.subscriberCount()).isEqualTo(2);
+        verify(agendaChangeLog, times(2)).currentToken();
+    }
+
+    @Test
+    @DisplayName("agenda: nessun client connesso → nessun lavoro")
+    void agenda_noSubscribers_isNoop() {
+        broadcaster.onAgendaChanged(AgendaChangedEvent.forDay(LocalDate.of(2030, 5, 1)));
+
+        verify(agendaChangeLog, never()).currentToken();
+    }
+
+    @Test
+    @DisplayName("agenda: con client connessi il payload porta la versione aggiornata")
+    void agenda_withSubscribers_readsFreshToken() {
+        when(agendaChangeLog.currentToken()).thenReturn("boot.7", "boot.8");
+        broadcaster.subscribe("admin-1");
+
+        broadcaster.onAgendaChanged(AgendaChangedEvent.forDay(LocalDate.of(2030, 5, 1)));
+
+        verify(agendaChangeLog, times(2)).currentToken();
+        assertThat(broadcaster.subscriberCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("shutdown: chiude e rimuove tutti i client")
+    void shutdown_closesAll() {
+        when(agendaChangeLog.currentToken()).thenReturn("boot.1");
+        broadcaster.subscribe("admin-1");
+        broadcaster.subscribe("admin-2");
+
+        broadcaster.shutdown();
+
+        assertThat(broadcaster.subscriberCount()).isZero();
+    }
+}
@@ -0,0 +1,126 @@
+package daviderocca.beautyroom.report;
+
+import daviderocca.beautyroom.DTO.reportDTOs.ReportRangeDTO;
+import daviderocca.beautyroom.DTO.reportDTOs.ReportResponseDTO;
+import daviderocca.beautyroom.availability.AvailabilityChangedEvent;
+import daviderocca.beautyroom.booking.AgendaChangedEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ReportCache: hit per (from, to, compareMode); a committed write evicts only the entries
+ * whose windows it touches (plus anything covering today); closed ranges live longer.
+ */
+class ReportCacheTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+    // A closed month two months back, compared with the year before.
+    private static final LocalDate PAST_FROM = TODAY.minusMonths(2).withDayOfMonth(1);
+    private static final LocalDate PAST_TO = PAST_FROM.plusMonths(1).minusDays(1);
+    private static final LocalDate CURRENT_FROM = TODAY.withDayOfMonth(1);
+    private static final LocalDate CURRENT_TO = CURRENT_FROM.plusMonths(1).minusDays(1);
+
+    private final ReportCache cache = new ReportCache(5, 12);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private ReportResponseDTO get(LocalDate from, LocalDate to, String mode) {
+        ReportCache.Key key = new ReportCache.Key(from, to, mode);
+        return cache.get(key, () -> {
+            loads.incrementAndGet();
+            LocalDate cmpFrom = "prevYear".equals(mode) ? from.minusYears(1) : null;
+            LocalDate cmpTo = "prevYear".equals(mode) ? to.minusYears(1) : null;
+            return new ReportResponseDTO(new ReportRangeDTO(from, to, mode, cmpFrom, cmpTo),
+                    null, null, null, List.of(), List.of(), List.of(), 0, 0, 0, null);
+        });
+    }
+
+    @Test
+    @DisplayName("hit per (from, to, compareMode): a different compare mode is a different entry")
+    void hitPerKey() {
+        get(PAST_FROM, PAST_TO, "none");
+        get(PAST_FROM, PAST_TO, "none");
+        get(PAST_FROM, PAST_TO, "prevYear");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("RevenueChangedEvent: only entries whose main or compare window holds the day")
+    void revenueEvictsCoveringRanges() {
+        get(PAST_FROM, PAST_TO, "none");
+        get(PAST_FROM, PAST_TO, "prevYear");
+        LocalDate other = PAST_FROM.minusMonths(1);
+        get(other, other.plusDays(27), "none");
+
+        // a day of last year's window: only the prevYear entry compares against it
+        cache.onRevenueChanged(RevenueChangedEvent.ofDates(PAST_FROM.minusYears(1).plusDays(3)));
+        get(PAST_FROM, PAST_TO, "none");
+        get(PAST_FROM, PAST_TO, "prevYear");
+        get(other, other.plusDays(27), "none");
+        assertThat(loads).hasValue(4);
+
+        cache.onRevenueChanged(RevenueChangedEvent.ofDates(PAST_FROM.plusDays(3)));
+        get(PAST_FROM, PAST_TO, "none");
+        get(PAST_FROM, PAST_TO, "prevYear");
+        get(other, other.plusDays(27), "none");
+        assertThat(loads).hasValue(6);
+    }
+
+    @Test
+    @DisplayName("booking events keep closed ranges that end before the booking days")
+    void bookingEventsSkipEarlierRanges() {
+        get(PAST_FROM, PAST_TO, "none");
+        get(CURRENT_FROM, CURRENT_TO, "none");
+
+        cache.onAgendaChanged(AgendaChangedEvent.forDay(TODAY.plusDays(10)));
+        get(PAST_FROM, PAST_TO, "none");
+        get(CURRENT_FROM, CURRENT_TO, "none");
+        assertThat(loads).as("only the current month reloads").hasValue(3);
+
+        // a booking inside the past range (or before it: new-client counts) evicts it
+        cache.onAvailabilityChanged(new AvailabilityChangedEvent(PAST_FROM.minusDays(5), PAST_FROM.minusDays(5)));
+        get(PAST_FROM, PAST_TO, "none");
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    @DisplayName("any event evicts the ranges containing today (writes stamp 'now')")
+    void anyEventEvictsToday() {
+        get(CURRENT_FROM, CURRENT_TO, "none");
+        get(PAST_FROM, PAST_TO, "none");
+
+        cache.onRevenueChanged(RevenueChangedEvent.ofDates(PAST_FROM.minusYears(2)));
+        get(CURRENT_FROM, CURRENT_TO, "none");
+        get(PAST_FROM, PAST_TO, "none");
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    @DisplayName("closed ranges get the long TTL, ranges reaching today the short one")
+    void settledRangesLiveLonger() {
+        assertThat(cache.ttl(new ReportCache.Key(PAST_FROM, PAST_TO, "none"))).isEqualTo(Duration.ofHours(12));
+        assertThat(cache.ttl(new ReportCache.Key(PAST_FROM, TODAY, "none"))).isEqualTo(Duration.ofMinutes(5));
+    }
+
+    @Test
+    @DisplayName("a report computed while an invalidation runs is returned but not cached")
+    void racingLoadIsNotCached() {
+        ReportCache.Key key = new ReportCache.Key(PAST_FROM, PAST_TO, "none");
+        ReportResponseDTO first = cache.get(key, () -> {
+            loads.incrementAndGet();
+            cache.onRevenueChanged(RevenueChangedEvent.ofDates(PAST_FROM));
+            return new ReportResponseDTO(new ReportRangeDTO(PAST_FROM, PAST_TO, "none", null, null),
+                    null, null, null, List.of(), List.of(), List.of(), 0, 0, 0, null);
+        });
+        assertThat(first).isNotNull();
+
+        get(PAST_FROM, PAST_TO, "none");
+        assertThat(loads).hasValue(2);
+    }
+}
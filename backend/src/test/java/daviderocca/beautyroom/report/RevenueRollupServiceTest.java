@@ -0,0 +1,69 @@
+package daviderocca.beautyroom.report;
+
+import daviderocca.beautyroom.DTO.reportDTOs.ReportRangeDTO;
+import daviderocca.beautyroom.DTO.reportDTOs.ReportResponseDTO;
+import daviderocca.beautyroom.services.ReportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * RevenueRollupService: after a retroactive edit the cached reports over the recomputed days
+ * are evicted once the recompute has landed, whichever AFTER_COMMIT listener ran first.
+ */
+@ExtendWith(MockitoExtension.class)
+class RevenueRollupServiceTest {
+
+    private static final LocalDate DAY = LocalDate.now().minusMonths(2).withDayOfMonth(10);
+    private static final ReportCache.Key KEY = new ReportCache.Key(DAY.withDayOfMonth(1), DAY.withDayOfMonth(28), "none");
+
+    @Mock private ReportService reportService;
+    @Mock private RevenueDailyRepository revenueDailyRepository;
+    @Mock private RevenueRollupDayRepository revenueRollupDayRepository;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private final ReportCache cache = new ReportCache(5, 12);
+    private final AtomicInteger loads = new AtomicInteger();
+    private RevenueRollupService rollupService;
+
+    @BeforeEach
+    void setUp() {
+        rollupService = new RevenueRollupService(reportService, revenueDailyRepository, revenueRollupDayRepository,
+                cache, transactionManager);
+    }
+
+    private ReportResponseDTO report() {
+        return cache.get(KEY, () -> {
+            loads.incrementAndGet();
+            return new ReportResponseDTO(new ReportRangeDTO(KEY.from(), KEY.to(), "none", null, null),
+                    null, null, null, List.of(), List.of(), List.of(), 0, 0, 0, null);
+        });
+    }
+
+    @Test
+    @DisplayName("a report cached while the day is being recomputed is evicted after the recompute")
+    void evictsAfterRecompute() {
+        RevenueChangedEvent event = RevenueChangedEvent.ofDates(DAY);
+        when(reportService.rawCells(DAY, DAY)).thenAnswer(inv -> {
+            report(); // concurrent admin request, cached after the cache's own listener ran
+            return List.of();
+        });
+
+        cache.onRevenueChanged(event);
+        rollupService.onRevenueChanged(event);
+        report();
+
+        assertThat(loads).hasValue(2);
+    }
+}
@@ -0,0 +1,125 @@
+package daviderocca.beautyroom.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import daviderocca.beautyroom.entities.User;
+import daviderocca.beautyroom.enums.Role;
+import daviderocca.beautyroom.tools.JWTTools;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * JWTFilter: one parse per request, the principal is loaded once per token and reloaded after
+ * logout or a credentials change; the blocklist still wins over the cache.
+ */
+@ExtendWith(MockitoExtension.class)
+class JWTFilterTest {
+
+    @Mock private UserDetailsService userDetailsService;
+    @Mock private RevokedTokenStore revokedTokenStore;
+
+    private final JWTTools jwtTools = new JWTTools();
+    private TokenBlocklist tokenBlocklist;
+    private final PrincipalCache principalCache = new PrincipalCache(60, 100);
+    private JWTFilter filter;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(jwtTools, "secret", "test-secret-test-secret-test-secret-0123456789");
+        ReflectionTestUtils.setField(jwtTools, "accessExpirationMs", 900_000L);
+        ReflectionTestUtils.invokeMethod(jwtTools, "init");
+        tokenBlocklist = new TokenBlocklist(revokedTokenStore, 100);
+        filter = new JWTFilter(jwtTools, tokenBlocklist, principalCache, userDetailsService,
+                new ObjectMapper().registerModule(new JavaTimeModule()));
+
+        user = new User("Anna", "Bianchi", "anna@test.local", "hash", "+393330000000");
+        ReflectionTestUtils.setField(user, "userId", UUID.randomUUID());
+        user.setRole(Role.ADMIN);
+        lenient().when(userDetailsService.loadUserByUsername("anna@test.local")).thenReturn(user);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private MockHttpServletResponse call(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/admin/report");
+        request.setServletPath("/admin/report");
+        request.addHeader("Authorization", "Bearer " + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    @Test
+    @DisplayName("the same token hits the DB once; a new token (new jti) loads again")
+    void principalLoadedOncePerToken() throws Exception {
+        String token = jwtTools.createTokenUser(user);
+
+        assertThat(call(token).getStatus()).isEqualTo(200);
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getPrincipal()).isSameAs(user);
+        assertThat(call(token).getStatus()).isEqualTo(200);
+        verify(userDetailsService, times(1)).loadUserByUsername("anna@test.local");
+
+        call(jwtTools.createTokenUser(user));
+        verify(userDetailsService, times(2)).loadUserByUsername("anna@test.local");
+    }
+
+    @Test
+    @DisplayName("a credentials change of the user evicts all of their tokens")
+    void credentialsChangeForcesReload() throws Exception {
+        String token = jwtTools.createTokenUser(user);
+        call(token);
+
+        principalCache.onUserCredentialsChanged(new UserCredentialsChangedEvent(UUID.randomUUID()));
+        call(token);
+        verify(userDetailsService, times(1)).loadUserByUsername("anna@test.local");
+
+        principalCache.onUserCredentialsChanged(new UserCredentialsChangedEvent(user.getUserId()));
+        call(token);
+        verify(userDetailsService, times(2)).loadUserByUsername("anna@test.local");
+    }
+
+    @Test
+    @DisplayName("logout: the blocklisted token is rejected even though its principal was cached")
+    void blockedTokenRejected() throws Exception {
+        String token = jwtTools.createTokenUser(user);
+        call(token);
+
+        JWTTools.VerifiedToken verified = jwtTools.verify(token);
+        tokenBlocklist.block(verified.jti(), verified.expiresAt());
+        principalCache.evict(verified.jti());
+
+        assertThat(call(token).getStatus()).isEqualTo(401);
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    @DisplayName("a tampered token is rejected without touching the DB")
+    void tamperedTokenRejected() throws Exception {
+        String token = jwtTools.createTokenUser(user);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertThat(call(tampered).getStatus()).isEqualTo(401);
+        verifyNoInteractions(userDetailsService);
+    }
+}
@@ -0,0 +1,101 @@
+package daviderocca.beautyroom.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * TokenBlocklist over the revoked_access_tokens table: two instances sharing the DB, a restart,
+ * the hourly purge. Each "instance" is a TokenBlocklist of its own on the same store.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TokenBlocklistTest {
+
+    @Autowired private RevokedTokenStore store;
+    @Autowired private RevokedAccessTokenRepository repository;
+
+    private final Instant inFifteenMinutes = Instant.now().plus(15, ChronoUnit.MINUTES);
+
+    @BeforeEach
+    void wipe() {
+        repository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("a logout on one instance is rejected by the other after its sync")
+    void revocationReachesOtherInstance() {
+        TokenBlocklist nodeA = new TokenBlocklist(store, 100);
+        TokenBlocklist nodeB = new TokenBlocklist(store, 100);
+        nodeB.loadAll();
+        String jti = UUID.randomUUID().toString();
+
+        nodeA.block(jti, inFifteenMinutes);
+        assertThat(nodeA.isBlocked(jti)).as("immediate on the revoking instance").isTrue();
+        assertThat(nodeB.isBlocked(jti)).isFalse();
+
+        nodeB.sync();
+        assertThat(nodeB.isBlocked(jti)).isTrue();
+    }
+
+    @Test
+    @DisplayName("revoked tokens stay revoked across a restart; expired ones are not reloaded")
+    void survivesRestart() {
+        String live = UUID.randomUUID().toString();
+        String expired = UUID.randomUUID().toString();
+        TokenBlocklist before = new TokenBlocklist(store, 100);
+        before.block(live, inFifteenMinutes);
+        before.block(expired, Instant.now().minusSeconds(1));
+
+        TokenBlocklist restarted = new TokenBlocklist(store, 100);
+        restarted.loadAll();
+
+        assertThat(restarted.isBlocked(live)).isTrue();
+        assertThat(restarted.isBlocked(expired)).isFalse();
+    }
+
+    @Test
+    @DisplayName("cleanup purges expired revocations from the table and keeps the live ones")
+    void cleanupPurgesExpired() {
+        TokenBlocklist blocklist = new TokenBlocklist(store, 100);
+        String live = UUID.randomUUID().toString();
+        blocklist.block(live, inFifteenMinutes);
+        blocklist.block(UUID.randomUUID().toString(), Instant.now().minusSeconds(1));
+
+        blocklist.cleanup();
+
+        assertThat(repository.findAll()).extracting(RevokedAccessToken::getJti).containsExactly(live);
+        assertThat(blocklist.isBlocked(live)).isTrue();
+    }
+
+    @Test
+    @DisplayName("bloom filter: no false negatives past its capacity, few false positives")
+    void bloomFilterHasNoFalseNegatives() {
+        JtiBloomFilter filter = new JtiBloomFilter(1_000);
+        for (int i = 0; i < 1_000; i++) filter.put("jti-" + i);
+
+        for (int i = 0; i < 1_000; i++) assertThat(filter.mightContain("jti-" + i)).isTrue();
+        long falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) if (filter.mightContain("other-" + i)) falsePositives++;
+        assertThat(falsePositives).as("~1%% expected").isLessThan(300);
+    }
+
+    @Test
+    @DisplayName("more revocations than expected: the filter grows instead of losing jtis")
+    void filterGrowsPastCapacity() {
+        TokenBlocklist blocklist = new TokenBlocklist(store, 64);
+        for (int i = 0; i < 200; i++) blocklist.block("grow-" + i, inFifteenMinutes);
+
+        for (int i = 0; i < 200; i++) assertThat(blocklist.isBlocked("grow-" + i)).isTrue();
+        assertThat(blocklist.isBlocked("never-revoked")).isFalse();
+    }
+}